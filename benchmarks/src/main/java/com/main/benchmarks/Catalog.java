@@ -0,0 +1,60 @@
+package com.main.benchmarks;
+
+import com.main.entity.Product;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic product catalog for the search benchmarks. Words follow a Zipf-like distribution:
+ * descriptions draw from the whole vocabulary, including the filler words at the top, while
+ * names draw from the content words below them. Product i is the same on every call.
+ */
+final class Catalog {
+
+    static final int CATEGORIES = 40;
+    private static final int VOCABULARY = 20_000;
+    /* The most frequent ranks play the part of words like "the" and "with" */
+    private static final int FILLER_WORDS = 100;
+    private static final int BRANDS = 800;
+
+    private Catalog() {
+    }
+
+    static Product product(int i) {
+        SplittableRandom random = new SplittableRandom(i);
+        StringBuilder name = new StringBuilder();
+        for (int w = 0; w < 3; w++) {
+            name.append(contentWord(random)).append(' ');
+        }
+        StringBuilder description = new StringBuilder();
+        for (int w = 0; w < 25; w++) {
+            description.append(word(skewed(random))).append(' ');
+        }
+        Product product = new Product();
+        product.setId(Fixtures.productId(i));
+        product.setName(name.toString().trim());
+        product.setDescription(description.toString());
+        product.setCategory("Category " + random.nextInt(CATEGORIES));
+        product.setBrand("Brand" + skewed(random) % BRANDS);
+        product.setSku("SKU-" + i);
+        product.setPrice(BigDecimal.valueOf(100 + random.nextInt(20_000), 2));
+        product.setOrderCount(skewed(random));
+        product.setIsDeleted(false);
+        return product;
+    }
+
+    /** A word as it would appear in a product name, picked with the same skew. */
+    static String contentWord(SplittableRandom random) {
+        return word(FILLER_WORDS + skewed(random) % (VOCABULARY - FILLER_WORDS));
+    }
+
+    /* Roughly Zipfian: low ranks are far more common, as words in real catalogs are */
+    private static int skewed(SplittableRandom random) {
+        return (int) Math.pow(VOCABULARY, random.nextDouble()) - 1;
+    }
+
+    private static String word(int rank) {
+        return Integer.toString(rank + 1296, 36);
+    }
+}
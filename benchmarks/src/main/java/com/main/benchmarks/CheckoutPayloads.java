@@ -0,0 +1,104 @@
+package com.main.benchmarks;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.main.dtos.OrderItemRequestDto;
+import com.main.dtos.PaymentRequest;
+import com.main.dtos.PaymentResponse;
+import com.main.dtos.ProductResponse;
+import com.main.dtos.ReservationRequest;
+import com.main.dtos.ReservationResponse;
+import com.main.dtos.StockUpdateResponse;
+import com.main.dtos.UserResponse;
+import com.main.util.ReservationStatus;
+import com.main.util.StockUpdateStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Request and response bodies order-service exchanges with the other services for one
+ * checkout: user lookup, product batch, reservation, payment and reservation confirm.
+ */
+final class CheckoutPayloads {
+
+    record Payload(String name, Object value, JavaType type) {
+    }
+
+    private CheckoutPayloads() {
+    }
+
+    static ObjectMapper json() {
+        return configure(new ObjectMapper());
+    }
+
+    static ObjectMapper cbor() {
+        return configure(new ObjectMapper(new CBORFactory()));
+    }
+
+    /* Matches what Spring Boot's Jackson2ObjectMapperBuilder sets up for the services */
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        return mapper.registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    static List<Payload> checkout(ObjectMapper mapper, int itemCount) {
+        List<ProductResponse> products = Fixtures.products(itemCount);
+        List<OrderItemRequestDto> items = new ArrayList<>(itemCount);
+        List<StockUpdateResponse.StockUpdateResult> results = new ArrayList<>(itemCount);
+        BigDecimal total = BigDecimal.ZERO;
+        for (ProductResponse product : products) {
+            items.add(new OrderItemRequestDto(product.getId(), 2));
+            results.add(new StockUpdateResponse.StockUpdateResult(product.getId(), -2, StockUpdateStatus.APPLIED));
+            total = total.add(product.getPrice().multiply(BigDecimal.valueOf(2)));
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(5);
+        ReservationResponse held = new ReservationResponse("reservation-1", "order-1", ReservationStatus.HELD, expiresAt, results);
+        ReservationResponse confirmed = new ReservationResponse("reservation-1", "order-1", ReservationStatus.CONFIRMED, expiresAt, results);
+        PaymentResponse payment = new PaymentResponse();
+        payment.setPaymentId("payment-1");
+        payment.setOrderId("order-1");
+        payment.setStatus("SUCCESS");
+
+        return List.of(
+                new Payload("user", new UserResponse("user-1", "Jane Doe", "jane@example.com", "5550100"), type(mapper, UserResponse.class)),
+                new Payload("products", products, mapper.getTypeFactory().constructCollectionType(List.class, ProductResponse.class)),
+                new Payload("reserve-request", new ReservationRequest("order-1", items, 300), type(mapper, ReservationRequest.class)),
+                new Payload("reserve-response", held, type(mapper, ReservationResponse.class)),
+                new Payload("payment-request", new PaymentRequest("order-1", "user-1", total, "CARD",
+                        1_760_000_000L, "c2lnbmF0dXJlLW9mLXRoZS1vcmRlci1zbmFwc2hvdA"), type(mapper, PaymentRequest.class)),
+                new Payload("payment-response", payment, type(mapper, PaymentResponse.class)),
+                new Payload("confirm-response", confirmed, type(mapper, ReservationResponse.class)));
+    }
+
+    private static JavaType type(ObjectMapper mapper, Class<?> type) {
+        return mapper.getTypeFactory().constructType(type);
+    }
+
+    static byte[] encode(ObjectMapper mapper, Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,55 @@
+package com.main.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization work for every inter-service body of one checkout, encoded on one side and
+ * decoded on the other, as JSON and as CBOR. Run {@link CodecPayloadSizes} for the bytes on the wire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int itemCount;
+
+    @Param({"json", "cbor"})
+    public String codec;
+
+    private ObjectMapper mapper;
+    private List<CheckoutPayloads.Payload> payloads;
+
+    @Setup
+    public void setUp() {
+        mapper = "cbor".equals(codec) ? CheckoutPayloads.cbor() : CheckoutPayloads.json();
+        payloads = CheckoutPayloads.checkout(mapper, itemCount);
+    }
+
+    @Benchmark
+    public void checkoutRoundTrip(Blackhole blackhole) throws IOException {
+        for (CheckoutPayloads.Payload payload : payloads) {
+            byte[] bytes = mapper.writeValueAsBytes(payload.value());
+            blackhole.consume(mapper.readValue(bytes, payload.type()));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.main.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+
+/**
+ * Prints the bytes each checkout puts on the wire between services, per codec, with and
+ * without gzip. Gzip only applies above server.compression.min-response-size in the services.
+ * {@code java -cp benchmarks/target/benchmarks.jar com.main.benchmarks.CodecPayloadSizes 10}
+ */
+public class CodecPayloadSizes {
+
+    public static void main(String[] args) {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        ObjectMapper json = CheckoutPayloads.json();
+        ObjectMapper cbor = CheckoutPayloads.cbor();
+        List<CheckoutPayloads.Payload> payloads = CheckoutPayloads.checkout(json, itemCount);
+
+        System.out.printf("Checkout with %d items%n", itemCount);
+        System.out.printf("%-18s %10s %10s %10s %10s%n", "payload", "json", "json+gz", "cbor", "cbor+gz");
+        long[] totals = new long[4];
+        for (CheckoutPayloads.Payload payload : payloads) {
+            byte[] jsonBytes = CheckoutPayloads.encode(json, payload.value());
+            byte[] cborBytes = CheckoutPayloads.encode(cbor, payload.value());
+            long[] sizes = {jsonBytes.length, CheckoutPayloads.gzip(jsonBytes).length,
+                    cborBytes.length, CheckoutPayloads.gzip(cborBytes).length};
+            for (int i = 0; i < sizes.length; i++) {
+                totals[i] += sizes[i];
+            }
+            System.out.printf("%-18s %10d %10d %10d %10d%n", payload.name(), sizes[0], sizes[1], sizes[2], sizes[3]);
+        }
+        System.out.printf("%-18s %10d %10d %10d %10d%n", "total", totals[0], totals[1], totals[2], totals[3]);
+    }
+}
@@ -0,0 +1,72 @@
+package com.main.benchmarks;
+
+import com.main.dtos.OrderItemRequestDto;
+import com.main.dtos.OrderRequest;
+import com.main.dtos.ProductResponse;
+import com.main.entity.Order;
+import com.main.entity.OrderItem;
+import com.main.util.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static String productId(int i) {
+        return String.format("%024x", i + 1);
+    }
+
+    static List<ProductResponse> products(int count) {
+        List<ProductResponse> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ProductResponse product = new ProductResponse();
+            product.setId(productId(i));
+            product.setName("Product " + i);
+            product.setCategory("category-" + (i % 7));
+            product.setPrice(new BigDecimal("19.99").add(BigDecimal.valueOf(i, 2)));
+            product.setStockQuantity(1_000_000);
+            product.setSku("SKU-" + i);
+            products.add(product);
+        }
+        return products;
+    }
+
+    static OrderRequest orderRequest(int itemCount) {
+        List<OrderItemRequestDto> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new OrderItemRequestDto(productId(i), 1 + i % 3));
+        }
+        return new OrderRequest("user-1", items, "1 Main Street", "1 Main Street", "CARD");
+    }
+
+    static Order order(int itemCount) {
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        BigDecimal total = BigDecimal.ZERO;
+        for (ProductResponse product : products(itemCount)) {
+            OrderItem item = new OrderItem();
+            item.setProductId(product.getId());
+            item.setProductName(product.getName());
+            item.setQuantity(2);
+            item.setPrice(product.getPrice());
+            item.setTotal(product.getPrice().multiply(BigDecimal.valueOf(2)));
+            total = total.add(item.getTotal());
+            items.add(item);
+        }
+        Order order = new Order();
+        order.setOrderId("order-1");
+        order.setUserId("user-1");
+        order.setItems(items);
+        order.setTotalAmount(total);
+        order.setStatus(OrderStatus.PLACED);
+        order.setShippingAddress("1 Main Street");
+        order.setBillingAddress("1 Main Street");
+        order.setOrderDate(LocalDateTime.now());
+        order.setPaymentId("payment-1");
+        return order;
+    }
+}
@@ -0,0 +1,77 @@
+package com.main.benchmarks;
+
+import com.main.dtos.OrderItemDto;
+import com.main.dtos.OrderResponse;
+import com.main.entity.Order;
+import com.main.entity.OrderItem;
+import com.main.mapper.OrderMapper;
+import com.main.security.OrderSnapshotSigner;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order to OrderResponse through the ModelMapper type maps the service used to configure,
+ * against the explicit OrderMapper that replaced them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderMappingBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int itemCount;
+
+    private Order order;
+    private ModelMapper modelMapper;
+    private OrderMapper orderMapper;
+
+    @Setup
+    public void setUp() {
+        order = Fixtures.order(itemCount);
+        orderMapper = new OrderMapper(new OrderSnapshotSigner(null, Duration.ofMinutes(5)));
+
+        /* Same type map the removed OrderConfig registered */
+        modelMapper = new ModelMapper();
+        modelMapper.typeMap(Order.class, OrderResponse.class)
+                .addMappings(mapper -> mapper.map(
+                        source -> toItemDtos(source.getItems()),
+                        OrderResponse::setItems));
+    }
+
+    @Benchmark
+    public OrderResponse modelMapper() {
+        /* OrderResponse has no default constructor, so map into a fresh instance */
+        OrderResponse response = new OrderResponse(null, null, null, null, null, null, null, null, null, null);
+        modelMapper.map(order, response);
+        return response;
+    }
+
+    @Benchmark
+    public OrderResponse explicitMapper() {
+        return orderMapper.toResponse(order);
+    }
+
+    private List<OrderItemDto> toItemDtos(List<OrderItem> items) {
+        if (items == null) return List.of();
+        return items.stream()
+                .map(item -> modelMapper.map(item, OrderItemDto.class))
+                .toList();
+    }
+}
@@ -0,0 +1,71 @@
+package com.main.benchmarks;
+
+import com.main.entity.Order;
+import com.main.entity.OrderItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ways of computing an order total from item prices and quantities. {@link #streamReduce} is
+ * what OrderServiceImpl does today; the others are candidates to compare it with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderTotalBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int itemCount;
+
+    private List<OrderItem> items;
+
+    @Setup
+    public void setUp() {
+        Order order = Fixtures.order(itemCount);
+        items = order.getItems();
+    }
+
+    @Benchmark
+    public BigDecimal streamReduce() {
+        return items.stream()
+                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal loop() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItem item : items) {
+            total = total.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        return total;
+    }
+
+    /**
+     * Sums in minor units as a long; exact as long as every price has at most two decimals.
+     */
+    @Benchmark
+    public BigDecimal unscaledCents() {
+        long cents = 0;
+        for (OrderItem item : items) {
+            cents += item.getPrice().movePointRight(2).longValueExact() * item.getQuantity();
+        }
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
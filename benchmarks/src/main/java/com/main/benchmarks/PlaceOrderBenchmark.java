@@ -0,0 +1,97 @@
+package com.main.benchmarks;
+
+import com.main.dtos.OrderRequest;
+import com.main.dtos.OrderResponse;
+import com.main.dtos.PaymentResponse;
+import com.main.dtos.ProductResponse;
+import com.main.dtos.ReservationResponse;
+import com.main.dtos.UserResponse;
+import com.main.entity.Order;
+import com.main.feign.CallBudget;
+import com.main.feign.PaymentClient;
+import com.main.feign.ProductClient;
+import com.main.feign.UserClient;
+import com.main.lookup.ProductLookup;
+import com.main.lookup.UserLookup;
+import com.main.mapper.OrderMapper;
+import com.main.metrics.OrderMetrics;
+import com.main.repository.OrderRepository;
+import com.main.security.OrderSnapshotSigner;
+import com.main.service.OrderService;
+import com.main.service.impl.OrderInventory;
+import com.main.service.impl.OrderServiceImpl;
+import com.main.util.PaymentStatus;
+import com.main.util.ReservationStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-layer cost of a synchronous checkout with every remote call and Mongo write stubbed
+ * out: fan-out, pricing, validation, reservation bookkeeping, metrics and mapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlaceOrderBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int itemCount;
+
+    private OrderService orderService;
+    private OrderRequest request;
+
+    @Setup
+    public void setUp() {
+        List<ProductResponse> products = Fixtures.products(itemCount);
+        UserResponse user = new UserResponse("user-1", "Bench User", "bench@example.com", "000");
+        PaymentResponse payment = new PaymentResponse();
+        payment.setPaymentId("payment-1");
+        payment.setOrderId("order-1");
+        payment.setStatus(PaymentStatus.SUCCESS.name());
+
+        UserClient userClient = Stubs.of(UserClient.class, Map.of("getUserById", args -> user));
+        ProductClient productClient = Stubs.of(ProductClient.class, Map.of(
+                "getProductsByIds", args -> ResponseEntity.ok(products),
+                "reserveStock", args -> ResponseEntity.ok(new ReservationResponse("reservation-1", null, ReservationStatus.HELD, null, null)),
+                "confirmReservation", args -> ResponseEntity.ok(new ReservationResponse("reservation-1", null, ReservationStatus.CONFIRMED, null, null))));
+        PaymentClient paymentClient = Stubs.of(PaymentClient.class, Map.of("processPayment", args -> ResponseEntity.ok(payment)));
+        OrderRepository orderRepository = Stubs.of(OrderRepository.class, Map.of("save", args -> {
+            Order order = (Order) args[0];
+            if (order.getOrderId() == null) order.setOrderId("order-1");
+            return order;
+        }));
+
+        CallBudget callBudget = new CallBudget(1000);
+        /* Order views and the archive are only read by the order lookups, checkout never touches them.
+           A single benchmark thread has nobody to batch product lookups with, so no batching window */
+        orderService = new OrderServiceImpl(orderRepository, new OrderMapper(new OrderSnapshotSigner(null, Duration.ofMinutes(5))), null, null,
+                new UserLookup(userClient, callBudget), new ProductLookup(productClient, callBudget, new SimpleMeterRegistry(), Duration.ZERO, 100),
+                paymentClient, callBudget, new OrderInventory(productClient, 300),
+                Runnable::run, new OrderMetrics(new SimpleMeterRegistry()), 10_000, "sync");
+        request = Fixtures.orderRequest(itemCount);
+    }
+
+    @Benchmark
+    public OrderResponse placeOrder() {
+        return orderService.placeOrder(request);
+    }
+}
@@ -0,0 +1,68 @@
+package com.main.benchmarks;
+
+import com.main.dtos.SuggestionResponse;
+import com.main.repository.ProductRepository;
+import com.main.search.ProductAutocomplete;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Latency of one keystroke against ProductAutocomplete over a synthetic {@link Catalog}. Prefixes
+ * are one to four characters of a name word, as typed, or a finished word plus the start of the
+ * next one. The rebuild log line reports the index's estimated memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductAutocompleteBenchmark {
+
+    private static final int PREFIXES = 1024;
+
+    @Param({"100000", "1000000"})
+    public int productCount;
+
+    private ProductAutocomplete autocomplete;
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProductRepository productRepository = Stubs.of(ProductRepository.class, Map.of("streamAll",
+                args -> IntStream.range(0, productCount).mapToObj(Catalog::product)));
+        autocomplete = new ProductAutocomplete(productRepository, new SimpleMeterRegistry());
+        autocomplete.rebuild();
+
+        SplittableRandom random = new SplittableRandom(11);
+        prefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            String word = Catalog.contentWord(random);
+            String typed = word.substring(0, 1 + random.nextInt(word.length()));
+            prefixes[i] = i % 4 == 3 ? word + " " + Catalog.contentWord(random).charAt(0) : typed;
+        }
+    }
+
+    @Benchmark
+    public List<SuggestionResponse> complete() {
+        return autocomplete.complete(prefixes[next++ & (PREFIXES - 1)], 10);
+    }
+}
@@ -0,0 +1,81 @@
+package com.main.benchmarks;
+
+import com.main.repository.ProductFilter;
+import com.main.repository.ProductRepository;
+import com.main.search.ProductSearchIndex;
+import com.main.search.SearchHits;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Latency distribution of ProductSearchIndex.search over a synthetic {@link Catalog}. Sample
+ * mode reports p99 and p99.9 directly. Queries draw from the same words as product names, so
+ * popular query words still match a large part of the catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductSearchBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"100000", "1000000"})
+    public int productCount;
+
+    private ProductSearchIndex index;
+    private String[] queries;
+    private ProductFilter[] filters;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProductRepository productRepository = Stubs.of(ProductRepository.class, Map.of("streamAll",
+                args -> IntStream.range(0, productCount).mapToObj(Catalog::product)));
+        index = new ProductSearchIndex(productRepository, new SimpleMeterRegistry());
+        index.rebuild();
+
+        SplittableRandom random = new SplittableRandom(7);
+        queries = new String[QUERIES];
+        filters = new ProductFilter[QUERIES];
+        ProductFilter none = new ProductFilter(null, null, null, null);
+        for (int i = 0; i < QUERIES; i++) {
+            int words = 1 + random.nextInt(3);
+            StringBuilder query = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                query.append(Catalog.contentWord(random)).append(' ');
+            }
+            queries[i] = query.toString();
+            filters[i] = switch (i % 4) {
+                case 1 -> new ProductFilter("Category " + random.nextInt(Catalog.CATEGORIES), null, null, null);
+                case 2 -> new ProductFilter(null, null, new BigDecimal("20"), new BigDecimal("80"));
+                default -> none;
+            };
+        }
+    }
+
+    @Benchmark
+    public SearchHits search() {
+        int i = next++ & (QUERIES - 1);
+        return index.search(queries[i], filters[i], 0, 20);
+    }
+}
@@ -0,0 +1,83 @@
+package com.main.benchmarks;
+
+import com.main.cache.ProductCache;
+import com.main.dtos.StockUpdateRequest;
+import com.main.dtos.StockUpdateResponse;
+import com.main.mapper.ProductMapper;
+import com.main.repository.InventoryStripeRepository;
+import com.main.repository.ProductRepository;
+import com.main.search.ProductAutocomplete;
+import com.main.search.ProductSearchIndex;
+import com.main.service.InventoryService;
+import com.main.service.ProductService;
+import com.main.service.impl.InventoryServiceImpl;
+import com.main.service.impl.ProductServiceImpl;
+import com.main.util.StockUpdateStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process cost of ProductServiceImpl.updateStock around the bulk write: merging repeated
+ * product IDs, building per-item results and evicting the touched cache entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockUpdateBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int itemCount;
+
+    private ProductService productService;
+    private StockUpdateRequest request;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ProductRepository productRepository = Stubs.of(ProductRepository.class, Map.of("applyStockChanges", args -> {
+            Map<String, Integer> changes = (Map<String, Integer>) args[0];
+            List<StockUpdateResponse.StockUpdateResult> results = new ArrayList<>(changes.size());
+            changes.forEach((productId, change) ->
+                    results.add(new StockUpdateResponse.StockUpdateResult(productId, change, StockUpdateStatus.APPLIED)));
+            return new StockUpdateResponse(true, results);
+        }));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ProductCache productCache = new ProductCache(meterRegistry, 100_000, 300);
+        InventoryService inventoryService = new InventoryServiceImpl(productRepository,
+                Stubs.of(InventoryStripeRepository.class, Map.of()), new ProductMapper(), productCache);
+        productService = new ProductServiceImpl(productRepository, new ProductMapper(),
+                productCache, new ProductSearchIndex(productRepository, meterRegistry),
+                new ProductAutocomplete(productRepository, meterRegistry), inventoryService);
+
+        /* Every tenth item repeats an earlier product, as carts with split lines do */
+        List<StockUpdateRequest.StockUpdateItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            int product = i % 10 == 9 ? i - 1 : i;
+            items.add(new StockUpdateRequest.StockUpdateItem(Fixtures.productId(product), -1));
+        }
+        request = new StockUpdateRequest(items);
+    }
+
+    @Benchmark
+    public StockUpdateResponse updateStock() {
+        return productService.updateStock(request);
+    }
+}
@@ -0,0 +1,30 @@
+package com.main.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for Feign clients and repositories. Each answer is looked up by method
+ * name; calling a method without an answer fails loudly so a benchmark never times a silent no-op.
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + " stub";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " is not stubbed");
+            };
+        }));
+    }
+}
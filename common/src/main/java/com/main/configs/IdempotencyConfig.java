@@ -0,0 +1,22 @@
+package com.main.configs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.main.idempotency.IdempotencyStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class IdempotencyConfig {
+
+    @Bean
+    public IdempotencyStore idempotencyStore(MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+                                             @Value("${idempotency.ttl:24h}") Duration ttl,
+                                             @Value("${idempotency.lease:30s}") Duration lease,
+                                             @Value("${idempotency.wait-timeout:10s}") Duration waitTimeout) {
+        return new IdempotencyStore(mongoTemplate, objectMapper, ttl, lease, waitTimeout);
+    }
+}
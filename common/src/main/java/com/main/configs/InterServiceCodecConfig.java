@@ -0,0 +1,74 @@
+package com.main.configs;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import feign.RequestInterceptor;
+import feign.codec.Encoder;
+import feign.form.spring.SpringFormEncoder;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.FeignEncoderProperties;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Lets services exchange CBOR instead of JSON. Every service reads and writes
+ * {@code application/cbor} when a caller asks for it; Feign clients send and request it when
+ * {@code inter-service.codec=cbor}. JSON stays the default for any caller that does not ask.
+ */
+@Configuration
+public class InterServiceCodecConfig implements WebMvcConfigurer {
+
+    private static final String ACCEPT_CBOR_OR_JSON = MediaType.APPLICATION_CBOR_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.9";
+
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+
+    public InterServiceCodecConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        /* Same modules and settings as the JSON mapper, only the wire format differs */
+        this.cborConverter = new MappingJackson2CborHttpMessageConverter(
+                objectMapperBuilder.factory(new CBORFactory()).build());
+    }
+
+    /* Appended rather than registered as a bean, so callers sending Accept: * / * still get JSON */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(cborConverter);
+    }
+
+    @Bean
+    public HttpMessageConverterCustomizer cborFeignConverterCustomizer() {
+        return converters -> converters.add(cborConverter);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "inter-service.codec", havingValue = "cbor")
+    public Encoder cborFeignEncoder(ObjectFactory<HttpMessageConverters> messageConverters,
+                                    FeignEncoderProperties encoderProperties,
+                                    ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+        SpringEncoder delegate = new SpringEncoder(new SpringFormEncoder(), messageConverters, encoderProperties, customizers);
+        return (body, bodyType, template) -> {
+            /* SpringEncoder picks its converter from the Content-Type already on the request */
+            if (!template.headers().containsKey(HttpHeaders.CONTENT_TYPE)) {
+                template.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE);
+            }
+            delegate.encode(body, bodyType, template);
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "inter-service.codec", havingValue = "cbor")
+    public RequestInterceptor cborAcceptInterceptor() {
+        return template -> template.header(HttpHeaders.ACCEPT, ACCEPT_CBOR_OR_JSON);
+    }
+}
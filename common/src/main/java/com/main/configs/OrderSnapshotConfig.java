@@ -0,0 +1,18 @@
+package com.main.configs;
+
+import com.main.security.OrderSnapshotSigner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class OrderSnapshotConfig {
+
+    @Bean
+    public OrderSnapshotSigner orderSnapshotSigner(@Value("${order.snapshot.secret:}") String secret,
+                                                   @Value("${order.snapshot.max-age:5m}") Duration maxAge) {
+        return new OrderSnapshotSigner(secret, maxAge);
+    }
+}
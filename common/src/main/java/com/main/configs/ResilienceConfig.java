@@ -0,0 +1,28 @@
+package com.main.configs;
+
+import com.main.resilience.ResilienceCapability;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+
+@Configuration
+public class ResilienceConfig {
+
+    /* Picked up by every Feign client, the same way as the Micrometer capability */
+    @Bean
+    public ResilienceCapability resilienceCapability(CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry,
+                                                     MeterRegistry meterRegistry,
+                                                     @Value("${inter-service.timeout.window:1000}") int windowSize,
+                                                     @Value("${inter-service.timeout.percentile:0.99}") double percentile,
+                                                     @Value("${inter-service.timeout.multiplier:3}") double multiplier,
+                                                     @Value("${inter-service.timeout.floor-ms:100}") long floorMillis,
+                                                     @Value("${inter-service.timeout.exempt:payment-service}") Set<String> exempt) {
+        return new ResilienceCapability(circuitBreakerRegistry, bulkheadRegistry, meterRegistry,
+                windowSize, percentile, multiplier, floorMillis, exempt);
+    }
+}
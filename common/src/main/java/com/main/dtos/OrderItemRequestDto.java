@@ -2,9 +2,13 @@ package com.main.dtos;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class OrderItemRequestDto {
     @NotBlank(message = "Product ID must not be blank")
     private String productId;
@@ -0,0 +1,18 @@
+package com.main.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one order in a batch placement. {@code index} points back into the request list;
+ * {@code order} is null when the order was never created, and {@code error} is null on success.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPlacementResult {
+    private int index;
+    private OrderResponse order;
+    private String error;
+}
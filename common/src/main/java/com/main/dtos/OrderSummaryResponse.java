@@ -0,0 +1,24 @@
+package com.main.dtos;
+
+import com.main.util.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order history row without the items array, for listings that only show order headers.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryResponse {
+    private String orderId;
+    private OrderStatus status;
+    private BigDecimal totalAmount;
+    private LocalDateTime orderDate;
+    private LocalDateTime updatedAt;
+    private String paymentId;
+}
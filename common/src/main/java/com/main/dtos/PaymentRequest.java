@@ -2,10 +2,12 @@ package com.main.dtos;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 public class PaymentRequest {
 
@@ -13,4 +15,12 @@ public class PaymentRequest {
     private String userId;
     private BigDecimal amount;
     private String paymentMethod;
+
+    /** Epoch second the order snapshot was signed at, null when unsigned */
+    private Long issuedAt;
+    private String signature;
+
+    public PaymentRequest(String orderId, String userId, BigDecimal amount, String paymentMethod) {
+        this(orderId, userId, amount, paymentMethod, null, null);
+    }
 }
@@ -5,5 +5,6 @@ import lombok.Data;
 @Data
 public class PaymentResponse {
     private String paymentId;
+    private String orderId;
     private String status;
 }
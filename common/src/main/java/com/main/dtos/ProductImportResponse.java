@@ -0,0 +1,33 @@
+package com.main.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk product import. Every non-blank row is counted once as inserted, updated or
+ * failed; only the first failures are listed, and {@code errorsTruncated} says whether more were dropped.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResponse {
+    private long rows;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        /** Line of the input the row starts on */
+        private long line;
+        private String sku;
+        private String message;
+    }
+}
@@ -15,6 +15,8 @@ public class ProductResponse {
     private String category;
     private BigDecimal price;
     private int stockQuantity;
+    /** Set while the product is in flash-sale mode; stockQuantity then lags the stripes by up to a rebalance interval */
+    private Integer stockStripes;
     private String sku;
     private String brand;
     private LocalDateTime createdAt;
@@ -0,0 +1,22 @@
+package com.main.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One window of product search results in relevance order. {@code total} counts every match;
+ * the facet maps hold the most frequent categories and brands among them with their counts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResponse {
+    private List<ProductResponse> items;
+    private int total;
+    private Map<String, Integer> categories;
+    private Map<String, Integer> brands;
+}
@@ -0,0 +1,25 @@
+package com.main.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationRequest {
+
+    private String reference;
+
+    @Valid
+    @NotEmpty(message = "Reservation must contain at least one item")
+    private List<OrderItemRequestDto> items;
+
+    @Positive(message = "TTL must be positive")
+    private Integer ttlSeconds;
+}
@@ -0,0 +1,20 @@
+package com.main.dtos;
+
+import com.main.util.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationResponse {
+    private String reservationId;
+    private String reference;
+    private ReservationStatus status;
+    private LocalDateTime expiresAt;
+    private List<StockUpdateResponse.StockUpdateResult> results;
+}
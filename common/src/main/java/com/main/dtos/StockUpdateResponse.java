@@ -0,0 +1,25 @@
+package com.main.dtos;
+
+import com.main.util.StockUpdateStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockUpdateResponse {
+    private boolean applied;
+    private List<StockUpdateResult> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StockUpdateResult {
+        private String productId;
+        private int quantityChange;
+        private StockUpdateStatus status;
+    }
+}
@@ -0,0 +1,20 @@
+package com.main.dtos;
+
+import com.main.util.SuggestionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One autocomplete suggestion. {@code productId} is only set for product names;
+ * {@code popularity} is the number of orders behind the suggestion.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionResponse {
+    private String text;
+    private SuggestionType type;
+    private String productId;
+    private long popularity;
+}
@@ -0,0 +1,29 @@
+package com.main.exceptions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Answers a {@link BusinessException} in every service with the status it carries, instead of
+ * the generic 500 Spring gives any unhandled exception. The body is a problem detail holding
+ * the exception message.
+ */
+@RestControllerAdvice
+public class BusinessExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(BusinessExceptionHandler.class);
+
+    @ExceptionHandler(BusinessException.class)
+    public ResponseEntity<ProblemDetail> handleBusinessException(BusinessException e) {
+        if (e.getStatus().is5xxServerError()) {
+            log.error("Request failed: {}", e.getMessage(), e);
+        } else {
+            log.debug("Request rejected with {}: {}", e.getStatus(), e.getMessage());
+        }
+        return ResponseEntity.status(e.getStatus()).body(ProblemDetail.forStatusAndDetail(e.getStatus(), e.getMessage()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.main.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    public enum Status { IN_PROGRESS, COMPLETED }
+
+    /** Scope and client key, e.g. {@code order:place:3f2c...} */
+    @Id
+    private String id;
+    private String fingerprint;
+    private Status status;
+    private String owner;
+    private Instant lockedUntil;
+    private String response;
+
+    @Indexed(name = "expires", expireAfter = "0s")
+    private Instant expiresAt;
+}
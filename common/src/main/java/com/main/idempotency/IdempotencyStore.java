@@ -0,0 +1,193 @@
+package com.main.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.main.exceptions.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs an action at most once per idempotency key. The first caller claims the key and stores
+ * the response when done; repeats get the stored response back, and a repeat that arrives while
+ * the first call is still running waits for it. A failed call releases the key so it can be retried.
+ * The claim is a lease that is renewed while the action runs, so only a caller that stopped
+ * renewing, e.g. because its process died, can be taken over.
+ */
+public class IdempotencyStore implements AutoCloseable {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final long MIN_BACKOFF_MS = 20;
+    private static final long MAX_BACKOFF_MS = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+    private final ScheduledExecutorService renewals;
+
+    public IdempotencyStore(MongoTemplate mongoTemplate, ObjectMapper objectMapper, Duration ttl, Duration lease, Duration waitTimeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+        this.renewals = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-lease-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        String id = scope + ":" + key;
+        String fingerprint = fingerprint(request);
+        String owner = UUID.randomUUID().toString();
+        long waitDeadline = System.nanoTime() + waitTimeout.toNanos();
+        long backoffMs = MIN_BACKOFF_MS;
+
+        while (true) {
+            if (tryClaim(id, fingerprint, owner)) {
+                return runAndStore(id, owner, action);
+            }
+
+            IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+            if (existing == null) {
+                continue; // Released or expired in between, try to claim it again
+            }
+            if (!fingerprint.equals(existing.getFingerprint())) {
+                throw new BusinessException("Idempotency key " + key + " was already used for a different request",
+                        HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            if (existing.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                log.info("Replaying stored response for idempotency key {}", id);
+                return read(existing.getResponse(), responseType);
+            }
+            if (existing.getLockedUntil().isBefore(Instant.now()) && takeOver(id, existing.getOwner(), owner)) {
+                log.warn("Took over idempotency key {} from a caller whose lease ran out", id);
+                return runAndStore(id, owner, action);
+            }
+            if (System.nanoTime() - waitDeadline > 0) {
+                throw new BusinessException("A request with idempotency key " + key + " is still in progress", HttpStatus.CONFLICT);
+            }
+            sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    private boolean tryClaim(String id, String fingerprint, String owner) {
+        Instant now = Instant.now();
+        try {
+            mongoTemplate.insert(new IdempotencyRecord(id, fingerprint, IdempotencyRecord.Status.IN_PROGRESS,
+                    owner, now.plus(lease), null, now.plus(ttl)));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private boolean takeOver(String id, String previousOwner, String owner) {
+        Query query = new Query(Criteria.where("id").is(id)
+                .and("owner").is(previousOwner)
+                .and("status").is(IdempotencyRecord.Status.IN_PROGRESS));
+        Update update = new Update().set("owner", owner).set("lockedUntil", Instant.now().plus(lease));
+        return mongoTemplate.updateFirst(query, update, IdempotencyRecord.class).getModifiedCount() == 1;
+    }
+
+    private <T> T runAndStore(String id, String owner, Supplier<T> action) {
+        Query owned = new Query(Criteria.where("id").is(id).and("owner").is(owner));
+        /* Renewed three times per lease, so one slow or failed renewal does not let the lease run out */
+        long renewEveryMs = Math.max(1, lease.toMillis() / 3);
+        ScheduledFuture<?> renewal = renewals.scheduleAtFixedRate(
+                () -> renew(id, owned), renewEveryMs, renewEveryMs, TimeUnit.MILLISECONDS);
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            renewal.cancel(false);
+            mongoTemplate.remove(owned, IdempotencyRecord.class);
+            throw e;
+        }
+        renewal.cancel(false);
+
+        Update completed = new Update()
+                .set("status", IdempotencyRecord.Status.COMPLETED)
+                .set("response", write(result))
+                .unset("lockedUntil");
+        if (mongoTemplate.updateFirst(owned, completed, IdempotencyRecord.class).getModifiedCount() == 0) {
+            log.warn("Idempotency key {} was taken over before its response could be stored", id);
+        }
+        return result;
+    }
+
+    private void renew(String id, Query owned) {
+        try {
+            Query inProgress = Query.of(owned).addCriteria(Criteria.where("status").is(IdempotencyRecord.Status.IN_PROGRESS));
+            if (mongoTemplate.updateFirst(inProgress, new Update().set("lockedUntil", Instant.now().plus(lease)),
+                    IdempotencyRecord.class).getModifiedCount() == 0) {
+                log.warn("Could not renew the lease on idempotency key {}, it was taken over", id);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not renew the lease on idempotency key {}", id, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        renewals.shutdownNow();
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store response", e);
+        }
+    }
+
+    private <T> T read(String response, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(response, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored response", e);
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Interrupted while waiting for an in-flight request", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.main.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read timeout for one remote method, derived from the latencies it recently showed: the chosen
+ * percentile times a headroom multiplier, never below {@code floorMillis}. Until the window has
+ * filled once, and whenever it exceeds the client's configured read timeout, the configured one applies.
+ */
+class AdaptiveTimeout {
+
+    private final long[] window;
+    private final double percentile;
+    private final double multiplier;
+    private final long floorMillis;
+    private final int recomputeEvery;
+
+    /* Guarded by this */
+    private int next;
+    private boolean full;
+    private int sinceRecompute;
+
+    private volatile long timeoutMillis = -1;
+
+    AdaptiveTimeout(int windowSize, double percentile, double multiplier, long floorMillis) {
+        this.window = new long[windowSize];
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.floorMillis = floorMillis;
+        this.recomputeEvery = Math.max(1, windowSize / 10);
+    }
+
+    /** The read timeout to use for the next call, capped at the configured one. */
+    long timeoutMillis(long configuredMillis) {
+        long adaptive = timeoutMillis;
+        return adaptive < 0 ? configuredMillis : Math.min(adaptive, configuredMillis);
+    }
+
+    /** The current adaptive timeout, or -1 while there are not enough samples yet. */
+    long currentMillis() {
+        return timeoutMillis;
+    }
+
+    synchronized void record(long nanos) {
+        window[next] = nanos;
+        next = (next + 1) % window.length;
+        full |= next == 0;
+        if (full && ++sinceRecompute >= recomputeEvery) {
+            sinceRecompute = 0;
+            long[] sorted = window.clone();
+            Arrays.sort(sorted);
+            long quantile = sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+            timeoutMillis = Math.max(floorMillis, (long) (TimeUnit.NANOSECONDS.toMillis(quantile) * multiplier));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.main.resilience;
+
+import feign.Capability;
+import feign.Client;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feign capability that puts every Feign client of the service behind {@link ResilientClient}.
+ * Breaker and bulkhead settings come from the {@code resilience4j.*} properties, per client name;
+ * adaptive timeouts are kept per client method and published as {@code inter-service.timeout}.
+ * Clients in {@code exempt} keep their configured read timeout: a call that is not safe to repeat
+ * should not be cut short while the downstream may still act on it.
+ */
+public class ResilienceCapability implements Capability {
+
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final MeterRegistry meterRegistry;
+    private final int windowSize;
+    private final double percentile;
+    private final double multiplier;
+    private final long floorMillis;
+    private final Set<String> exempt;
+    private final Map<String, AdaptiveTimeout> timeouts = new ConcurrentHashMap<>();
+
+    public ResilienceCapability(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads, MeterRegistry meterRegistry,
+                                int windowSize, double percentile, double multiplier, long floorMillis, Set<String> exempt) {
+        this.circuitBreakers = circuitBreakers;
+        this.bulkheads = bulkheads;
+        this.meterRegistry = meterRegistry;
+        this.windowSize = windowSize;
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.floorMillis = floorMillis;
+        this.exempt = Set.copyOf(exempt);
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return new ResilientClient(client, circuitBreakers, bulkheads, this::timeout);
+    }
+
+    /* Null for an exempt client */
+    private AdaptiveTimeout timeout(String downstream, String method) {
+        if (exempt.contains(downstream)) {
+            return null;
+        }
+        AdaptiveTimeout existing = timeouts.get(method);
+        if (existing != null) {
+            return existing;
+        }
+        return timeouts.computeIfAbsent(method, key -> {
+            AdaptiveTimeout timeout = new AdaptiveTimeout(windowSize, percentile, multiplier, floorMillis);
+            Gauge.builder("inter-service.timeout", timeout, AdaptiveTimeout::currentMillis)
+                    .description("Adaptive read timeout of a Feign client method, -1 until enough calls were seen")
+                    .baseUnit("milliseconds")
+                    .tag("client", downstream)
+                    .tag("method", method)
+                    .register(meterRegistry);
+            return timeout;
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package com.main.resilience;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Wraps the Feign transport so every call to a downstream service goes through that service's
+ * circuit breaker and bulkhead, both named after the Feign client, and runs with the adaptive
+ * read timeout of the method being called, unless its client is exempt. 5xx responses and transport errors count as breaker
+ * failures; 4xx responses are the caller's problem and count as successes.
+ */
+class ResilientClient implements Client {
+
+    private final Client delegate;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final BiFunction<String, String, AdaptiveTimeout> timeouts;
+
+    ResilientClient(Client delegate, CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads,
+                    BiFunction<String, String, AdaptiveTimeout> timeouts) {
+        this.delegate = delegate;
+        this.circuitBreakers = circuitBreakers;
+        this.bulkheads = bulkheads;
+        this.timeouts = timeouts;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String downstream = request.requestTemplate().feignTarget().name();
+        CircuitBreaker breaker = circuitBreakers.circuitBreaker(downstream);
+        Bulkhead bulkhead = bulkheads.bulkhead(downstream);
+        AdaptiveTimeout timeout = timeouts.apply(downstream, request.requestTemplate().methodMetadata().configKey());
+
+        breaker.acquirePermission();
+        if (!bulkhead.tryAcquirePermission()) {
+            /* A full bulkhead says nothing about the downstream's health */
+            breaker.releasePermission();
+            throw BulkheadFullException.createBulkheadFullException(bulkhead);
+        }
+
+        long readTimeoutMillis = timeout == null ? options.readTimeoutMillis() : timeout.timeoutMillis(options.readTimeoutMillis());
+        long start = System.nanoTime();
+        try {
+            Response response = delegate.execute(request, new Request.Options(
+                    options.connectTimeoutMillis(), TimeUnit.MILLISECONDS,
+                    readTimeoutMillis, TimeUnit.MILLISECONDS,
+                    options.isFollowRedirects()));
+            long elapsed = System.nanoTime() - start;
+            if (response.status() >= 500) {
+                breaker.onError(elapsed, TimeUnit.NANOSECONDS, new HttpServerErrorException(HttpStatusCode.valueOf(response.status())));
+            } else {
+                breaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+                if (timeout != null) {
+                    timeout.record(elapsed);
+                }
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            long elapsed = System.nanoTime() - start;
+            breaker.onError(elapsed, TimeUnit.NANOSECONDS, e);
+            if (timeout != null && e instanceof SocketTimeoutException && readTimeoutMillis < options.readTimeoutMillis()) {
+                /*
+                 * Counted as a sample too, so a downstream that got slower for good pulls the timeout up after it.
+                 * Not when the caller's own budget was the shorter one, that says nothing about the downstream.
+                 */
+                timeout.record(elapsed);
+            }
+            throw e;
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+}
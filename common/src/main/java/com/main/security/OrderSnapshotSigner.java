@@ -0,0 +1,85 @@
+package com.main.security;
+
+import com.main.dtos.PaymentRequest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Signs the order fields of a {@link PaymentRequest} with a secret shared by order-service and
+ * payment-service, so payment-service can trust the order ID, user and amount without asking
+ * order-service for them. Signing is disabled when no secret is configured.
+ */
+public class OrderSnapshotSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final Duration maxAge;
+    private final Clock clock;
+
+    public OrderSnapshotSigner(String secret, Duration maxAge) {
+        this(secret, maxAge, Clock.systemUTC());
+    }
+
+    OrderSnapshotSigner(String secret, Duration maxAge, Clock clock) {
+        this.key = secret == null || secret.isBlank()
+                ? null
+                : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    public PaymentRequest sign(PaymentRequest request) {
+        if (key == null) {
+            return request;
+        }
+        request.setIssuedAt(clock.instant().getEpochSecond());
+        request.setSignature(mac(request));
+        return request;
+    }
+
+    /**
+     * True only if the request carries a signature made with our secret over its current
+     * fields, issued no longer than {@code maxAge} ago.
+     */
+    public boolean verify(PaymentRequest request) {
+        if (key == null || request.getSignature() == null || request.getIssuedAt() == null) {
+            return false;
+        }
+        long age = clock.instant().getEpochSecond() - request.getIssuedAt();
+        if (Math.abs(age) > maxAge.toSeconds()) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                mac(request).getBytes(StandardCharsets.US_ASCII),
+                request.getSignature().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String mac(PaymentRequest request) {
+        String canonical = String.join("\n",
+                String.valueOf(request.getOrderId()),
+                String.valueOf(request.getUserId()),
+                request.getAmount() == null ? "" : request.getAmount().stripTrailingZeros().toPlainString(),
+                String.valueOf(request.getPaymentMethod()),
+                String.valueOf(request.getIssuedAt()));
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign order snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.main.util;
+
+public enum ReservationStatus {
+    HELD,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED,
+    REJECTED;
+}
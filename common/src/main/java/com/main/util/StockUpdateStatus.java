@@ -0,0 +1,8 @@
+package com.main.util;
+
+public enum StockUpdateStatus {
+    APPLIED,
+    ROLLED_BACK,
+    INSUFFICIENT_STOCK,
+    NOT_FOUND;
+}
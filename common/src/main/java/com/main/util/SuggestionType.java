@@ -0,0 +1,7 @@
+package com.main.util;
+
+public enum SuggestionType {
+    PRODUCT,
+    BRAND,
+    CATEGORY;
+}
@@ -0,0 +1,72 @@
+package com.main.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveTimeoutTest {
+
+    @Test
+    void usesTheConfiguredTimeoutUntilTheWindowHasFilled() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(10, 0.9, 2, 1);
+        for (int i = 0; i < 9; i++) {
+            timeout.record(millis(50));
+        }
+
+        assertThat(timeout.currentMillis()).isEqualTo(-1);
+        assertThat(timeout.timeoutMillis(5000)).isEqualTo(5000);
+    }
+
+    @Test
+    void percentileTimesMultiplierOnceFull() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(10, 0.9, 2, 1);
+        for (int i = 1; i <= 10; i++) {
+            timeout.record(millis(i * 10));
+        }
+
+        /* p90 of 10..100 ms is 90 ms */
+        assertThat(timeout.currentMillis()).isEqualTo(180);
+        assertThat(timeout.timeoutMillis(5000)).isEqualTo(180);
+    }
+
+    @Test
+    void neverBelowTheFloor() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(10, 0.99, 3, 100);
+        for (int i = 0; i < 10; i++) {
+            timeout.record(millis(1));
+        }
+
+        assertThat(timeout.timeoutMillis(5000)).isEqualTo(100);
+    }
+
+    @Test
+    void neverAboveTheConfiguredTimeout() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(10, 0.99, 3, 100);
+        for (int i = 0; i < 10; i++) {
+            timeout.record(millis(4000));
+        }
+
+        assertThat(timeout.currentMillis()).isEqualTo(12_000);
+        assertThat(timeout.timeoutMillis(5000)).isEqualTo(5000);
+    }
+
+    @Test
+    void followsLatencyAsOldSamplesLeaveTheWindow() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(10, 0.5, 1, 1);
+        for (int i = 0; i < 10; i++) {
+            timeout.record(millis(500));
+        }
+        assertThat(timeout.currentMillis()).isEqualTo(500);
+
+        for (int i = 0; i < 10; i++) {
+            timeout.record(millis(20));
+        }
+        assertThat(timeout.currentMillis()).isEqualTo(20);
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,103 @@
+package com.main.security;
+
+import com.main.dtos.PaymentRequest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderSnapshotSignerTest {
+
+    private static final String SECRET = "shared-secret";
+    private static final Duration MAX_AGE = Duration.ofMinutes(5);
+    private static final Instant NOW = Instant.parse("2024-03-01T12:00:00Z");
+
+    private final OrderSnapshotSigner signer = new OrderSnapshotSigner(SECRET, MAX_AGE, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void acceptsWhatItSigned() {
+        PaymentRequest request = signer.sign(request());
+
+        assertThat(request.getSignature()).isNotBlank();
+        assertThat(request.getIssuedAt()).isNotNull();
+        assertThat(signer.verify(request)).isTrue();
+    }
+
+    @Test
+    void rejectsAnyChangedField() {
+        PaymentRequest orderId = signer.sign(request());
+        orderId.setOrderId("order-2");
+        PaymentRequest userId = signer.sign(request());
+        userId.setUserId("user-2");
+        PaymentRequest amount = signer.sign(request());
+        amount.setAmount(new BigDecimal("1.00"));
+        PaymentRequest method = signer.sign(request());
+        method.setPaymentMethod("PAYPAL");
+        PaymentRequest issuedAt = signer.sign(request());
+        issuedAt.setIssuedAt(issuedAt.getIssuedAt() - 1);
+
+        assertThat(signer.verify(orderId)).isFalse();
+        assertThat(signer.verify(userId)).isFalse();
+        assertThat(signer.verify(amount)).isFalse();
+        assertThat(signer.verify(method)).isFalse();
+        assertThat(signer.verify(issuedAt)).isFalse();
+    }
+
+    @Test
+    void amountScaleDoesNotMatter() {
+        PaymentRequest request = signer.sign(request());
+        request.setAmount(new BigDecimal("149.9000"));
+
+        assertThat(signer.verify(request)).isTrue();
+    }
+
+    @Test
+    void rejectsAnotherSecret() {
+        PaymentRequest request = new OrderSnapshotSigner("other-secret", MAX_AGE).sign(request());
+
+        assertThat(signer.verify(request)).isFalse();
+    }
+
+    @Test
+    void rejectsUnsignedRequests() {
+        PaymentRequest request = request();
+        request.setIssuedAt(NOW.getEpochSecond());
+
+        assertThat(signer.verify(request())).isFalse();
+        assertThat(signer.verify(request)).isFalse();
+    }
+
+    @Test
+    void rejectsSignaturesOutsideMaxAge() {
+        PaymentRequest old = signedAt(NOW.minus(Duration.ofMinutes(10)));
+        PaymentRequest recent = signedAt(NOW.minus(Duration.ofMinutes(4)));
+        PaymentRequest future = signedAt(NOW.plus(Duration.ofMinutes(10)));
+
+        assertThat(signer.verify(old)).isFalse();
+        assertThat(signer.verify(recent)).isTrue();
+        assertThat(signer.verify(future)).isFalse();
+    }
+
+    @Test
+    void withoutSecretSigningIsOffAndNothingVerifies() {
+        OrderSnapshotSigner disabled = new OrderSnapshotSigner(" ", MAX_AGE);
+        PaymentRequest request = disabled.sign(request());
+
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(request.getSignature()).isNull();
+        assertThat(disabled.verify(signer.sign(request()))).isFalse();
+    }
+
+    private static PaymentRequest signedAt(Instant issuedAt) {
+        return new OrderSnapshotSigner(SECRET, MAX_AGE, Clock.fixed(issuedAt, ZoneOffset.UTC)).sign(request());
+    }
+
+    private static PaymentRequest request() {
+        return new PaymentRequest("order-1", "user-1", new BigDecimal("149.90"), "CARD");
+    }
+}
@@ -0,0 +1,46 @@
+package com.main.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code --key=value} command line options of the load harness, with defaults applied at lookup.
+ */
+final class HarnessConfig {
+
+    private final Map<String, String> options;
+
+    private HarnessConfig(Map<String, String> options) {
+        this.options = options;
+    }
+
+    static HarnessConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            int split = arg.indexOf('=');
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        return new HarnessConfig(options);
+    }
+
+    String string(String key, String fallback) {
+        return options.getOrDefault(key, fallback);
+    }
+
+    int integer(String key, int fallback) {
+        String value = options.get(key);
+        return value == null ? fallback : Integer.parseInt(value);
+    }
+
+    double decimal(String key, double fallback) {
+        String value = options.get(key);
+        return value == null ? fallback : Double.parseDouble(value);
+    }
+
+    boolean has(String key) {
+        return options.containsKey(key);
+    }
+}
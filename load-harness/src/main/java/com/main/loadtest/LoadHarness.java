@@ -0,0 +1,240 @@
+package com.main.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.main.dtos.OrderItemRequestDto;
+import com.main.dtos.OrderRequest;
+import com.main.dtos.PaymentRequest;
+import com.main.dtos.StockUpdateRequest;
+import com.main.security.OrderSnapshotSigner;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Capacity test for the checkout path on a single machine. Starts an embedded Mongo (or uses
+ * {@code --mongo-uri}), launches the four services from their exec jars, seeds users and
+ * products, then drives open-loop traffic at place-order, the product batch lookup and payment
+ * processing (and, with {@code --rate.flash-sale}, stock decrements on one hot product), and
+ * prints throughput, error counts and latency percentiles per endpoint.
+ *
+ * <pre>
+ * mvn package -DskipTests
+ * java -jar load-harness/target/load-harness.jar --duration=60 --rate.place-order=100
+ * java -jar load-harness/target/load-harness.jar --rate.flash-sale=2000 --flash-sale.stripes=16
+ * </pre>
+ */
+public class LoadHarness {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadHarness.class);
+    private static final String SNAPSHOT_SECRET = "load-harness";
+
+    public static void main(String[] args) throws Exception {
+        HarnessConfig config = HarnessConfig.parse(args);
+        Path output = Path.of(config.string("output", "load-harness/target/report"));
+        Files.createDirectories(output);
+
+        TransitionWalker.ReachedState<RunningMongodProcess> mongod = null;
+        String mongoUri = config.string("mongo-uri", null);
+        if (mongoUri == null) {
+            mongod = Mongod.instance().start(Version.Main.V7_0);
+            mongoUri = "mongodb://" + mongod.current().getServerAddress() + "/E-CommerceSystem";
+            log.info("Embedded Mongo running at {}", mongoUri);
+        }
+
+        ServiceLauncher services = new ServiceLauncher(
+                Path.of(config.string("project-dir", ".")), output, config.integer("base-port", 18080));
+        Runtime.getRuntime().addShutdownHook(new Thread(services::close));
+        boolean drained;
+        try {
+            List<String> jvmOptions = Arrays.asList(config.string("jvm-opts", "-Xmx512m").trim().split("\\s+"));
+            services.startAll(mongoUri, SNAPSHOT_SECRET, jvmOptions);
+            drained = run(config, services, output);
+        } finally {
+            services.close();
+            if (mongod != null) {
+                mongod.close();
+            }
+        }
+        if (!drained) {
+            System.exit(1);
+        }
+    }
+
+    /* Returns false if some scenario never got all its requests back, see report */
+    private static boolean run(HarnessConfig config, ServiceLauncher services, Path output) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        ExecutorService clientPool = Executors.newFixedThreadPool(config.integer("client-threads", 16));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(clientPool)
+                .build();
+
+        Seeder seeder = new Seeder(client, objectMapper);
+        List<String> userIds = seeder.users(services.baseUrl(ServiceLauncher.USER), config.integer("users", 100));
+        List<String> productIds = seeder.products(services.baseUrl(ServiceLauncher.PRODUCT), config.integer("products", 200));
+        log.info("Seeded {} users and {} products", userIds.size(), productIds.size());
+
+        List<Scenario> scenarios = new ArrayList<>();
+        addScenario(scenarios, "place-order", config.decimal("rate.place-order", 50),
+                () -> placeOrder(services, objectMapper, userIds, productIds));
+        addScenario(scenarios, "products-batch", config.decimal("rate.products-batch", 200),
+                () -> productsBatch(services, productIds));
+        OrderSnapshotSigner signer = new OrderSnapshotSigner(SNAPSHOT_SECRET, Duration.ofMinutes(5));
+        addScenario(scenarios, "payments", config.decimal("rate.payments", 50),
+                () -> payment(services, objectMapper, signer, userIds));
+        double flashSaleRate = config.decimal("rate.flash-sale", 0);
+        if (flashSaleRate > 0) {
+            /* Run once with --flash-sale.stripes=0 for the single-document baseline */
+            String hotProductId = seeder.flashSaleProduct(services.baseUrl(ServiceLauncher.PRODUCT), config.integer("flash-sale.stripes", 8));
+            addScenario(scenarios, "flash-sale", flashSaleRate, () -> flashSale(services, objectMapper, hotProductId));
+        }
+
+        Duration warmup = Duration.ofSeconds(config.integer("warmup", 10));
+        Duration duration = Duration.ofSeconds(config.integer("duration", 60));
+        OpenLoopDriver driver = new OpenLoopDriver(client, config.integer("max-in-flight", 2000));
+        log.info("Driving {} scenarios for {}s after {}s warmup", scenarios.size(), duration.toSeconds(), warmup.toSeconds());
+
+        ExecutorService dispatchers = Executors.newFixedThreadPool(scenarios.size());
+        long start = System.nanoTime();
+        List<Future<ScenarioResult>> running = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            running.add(dispatchers.submit(() -> driver.run(scenario, start, warmup, duration)));
+        }
+        List<ScenarioResult> results = new ArrayList<>();
+        for (Future<ScenarioResult> result : running) {
+            results.add(result.get());
+        }
+        dispatchers.shutdown();
+        clientPool.shutdown();
+
+        report(results, System.out);
+        boolean drained = true;
+        for (ScenarioResult result : results) {
+            if (result.undrainedCount() > 0) {
+                drained = false;
+                continue;
+            }
+            try (PrintStream out = new PrintStream(Files.newOutputStream(output.resolve(result.scenario().name() + ".hgrm")))) {
+                result.latencies().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        log.info("Latency distributions written to {}", output.toAbsolutePath());
+        return drained;
+    }
+
+    private static void addScenario(List<Scenario> scenarios, String name, double rate, Supplier<HttpRequest> requests) {
+        if (rate > 0) {
+            scenarios.add(new Scenario(name, rate, requests));
+        }
+    }
+
+    private static HttpRequest placeOrder(ServiceLauncher services, ObjectMapper objectMapper, List<String> userIds, List<String> productIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int itemCount = 1 + random.nextInt(3);
+        List<OrderItemRequestDto> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new OrderItemRequestDto(productIds.get(random.nextInt(productIds.size())), 1));
+        }
+        OrderRequest order = new OrderRequest(userIds.get(random.nextInt(userIds.size())), items,
+                "1 Load Street", "1 Load Street", "CARD");
+        return post(services.baseUrl(ServiceLauncher.ORDER) + "/order/place-order", json(objectMapper, order));
+    }
+
+    private static HttpRequest productsBatch(ServiceLauncher services, List<String> productIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            if (i > 0) ids.append(',');
+            ids.append(productIds.get(random.nextInt(productIds.size())));
+        }
+        return HttpRequest.newBuilder(URI.create(services.baseUrl(ServiceLauncher.PRODUCT) + "/products/batch?productIds=" + ids))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    /* Signed, so payment-service accepts the order without looking it up */
+    private static HttpRequest payment(ServiceLauncher services, ObjectMapper objectMapper, OrderSnapshotSigner signer, List<String> userIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        PaymentRequest payment = signer.sign(new PaymentRequest(new ObjectId().toHexString(),
+                userIds.get(random.nextInt(userIds.size())), BigDecimal.valueOf(100 + random.nextInt(10_000), 2), "CARD"));
+        return post(services.baseUrl(ServiceLauncher.PAYMENT) + "/payments/process", json(objectMapper, payment));
+    }
+
+    private static HttpRequest flashSale(ServiceLauncher services, ObjectMapper objectMapper, String productId) {
+        StockUpdateRequest request = new StockUpdateRequest(List.of(new StockUpdateRequest.StockUpdateItem(productId, -1)));
+        return HttpRequest.newBuilder(URI.create(services.baseUrl(ServiceLauncher.PRODUCT) + "/products/update-stock"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(json(objectMapper, request)))
+                .build();
+    }
+
+    private static HttpRequest post(String url, byte[] body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private static byte[] json(ObjectMapper objectMapper, Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void report(List<ScenarioResult> results, PrintStream out) {
+        out.printf("%n%-16s %9s %9s %9s %8s %8s %10s %9s %9s %9s %9s %9s%n",
+                "scenario", "target/s", "actual/s", "ok", "errors", "dropped", "error %", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (ScenarioResult result : results) {
+            /* The slowest requests are the ones missing, so the percentiles would look better than the run was */
+            if (result.undrainedCount() > 0) {
+                out.printf("%-16s did not drain: %d requests never completed, results discarded%n",
+                        result.scenario().name(), result.undrainedCount());
+                continue;
+            }
+            long total = result.succeeded() + result.failed() + result.droppedCount();
+            double errorRate = total == 0 ? 0 : 100.0 * (result.failed() + result.droppedCount()) / total;
+            out.printf("%-16s %9.1f %9.1f %9d %8d %8d %9.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    result.scenario().name(), result.scenario().ratePerSecond(), result.throughput(),
+                    result.succeeded(), result.failed(), result.droppedCount(), errorRate,
+                    millis(result, 50), millis(result, 90), millis(result, 99), millis(result, 99.9),
+                    result.latencies().getMaxValue() / 1000.0);
+        }
+        for (ScenarioResult result : results) {
+            result.failures().forEach((cause, count) ->
+                    out.printf("  %s: %d x %s%n", result.scenario().name(), count.sum(), cause));
+        }
+    }
+
+    private static double millis(ScenarioResult result, double percentile) {
+        return result.latencies().getValueAtPercentile(percentile) / 1000.0;
+    }
+}
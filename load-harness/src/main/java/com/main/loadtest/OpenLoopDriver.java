@@ -0,0 +1,66 @@
+package com.main.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests on a fixed schedule no matter how fast responses come back, the way real
+ * users arrive. Latency is measured from each request's scheduled start rather than its actual
+ * send time, so a stalled server shows up as queueing delay instead of fewer samples.
+ */
+final class OpenLoopDriver {
+
+    /* Every request times out after 30 s, so anything still in flight after this was lost track of */
+    private static final long DRAIN_TIMEOUT_SECONDS = 60;
+
+    private final HttpClient client;
+    private final int maxInFlight;
+
+    OpenLoopDriver(HttpClient client, int maxInFlight) {
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+    }
+
+    ScenarioResult run(Scenario scenario, long startNanos, Duration warmup, Duration duration) throws InterruptedException {
+        ScenarioResult result = new ScenarioResult(scenario);
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / scenario.ratePerSecond());
+        long measureFrom = startNanos + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        for (long i = 0; ; i++) {
+            long intended = startNanos + i * interval;
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            boolean measured = intended - measureFrom >= 0;
+            /* Past the in-flight cap the server is hopelessly behind; count the arrival as dropped */
+            if (!inFlight.tryAcquire()) {
+                if (measured) result.dropped();
+                continue;
+            }
+            client.sendAsync(scenario.requests().get(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        if (measured) {
+                            result.record(System.nanoTime() - intended, response, error);
+                        }
+                    });
+        }
+
+        if (!inFlight.tryAcquire(maxInFlight, DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            result.undrained(maxInFlight - inFlight.availablePermits());
+        }
+        result.measuredFor(end - measureFrom);
+        return result;
+    }
+}
@@ -0,0 +1,11 @@
+package com.main.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.function.Supplier;
+
+/**
+ * One stream of traffic: a target arrival rate and a source of requests. Requests are taken
+ * from a single dispatcher thread, so the supplier does not need to be thread-safe.
+ */
+record Scenario(String name, double ratePerSecond, Supplier<HttpRequest> requests) {
+}
@@ -0,0 +1,83 @@
+package com.main.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies (in microseconds) and outcome counts of one scenario's measured window.
+ */
+final class ScenarioResult {
+
+    private final Scenario scenario;
+    private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private long measuredNanos;
+    private int undrained;
+
+    ScenarioResult(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    void record(long latencyNanos, HttpResponse<?> response, Throwable error) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), latencies.getHighestTrackableValue()));
+        if (error == null && response.statusCode() / 100 == 2) {
+            succeeded.increment();
+            return;
+        }
+        String cause = error != null ? error.getClass().getSimpleName() : "HTTP " + response.statusCode();
+        failures.computeIfAbsent(cause, key -> new LongAdder()).increment();
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    /** Requests still in flight when the run stopped waiting for them; their outcome is unknown. */
+    void undrained(int requests) {
+        this.undrained = requests;
+    }
+
+    int undrainedCount() {
+        return undrained;
+    }
+
+    void measuredFor(long nanos) {
+        this.measuredNanos = nanos;
+    }
+
+    Scenario scenario() {
+        return scenario;
+    }
+
+    Histogram latencies() {
+        return latencies;
+    }
+
+    long succeeded() {
+        return succeeded.sum();
+    }
+
+    long failed() {
+        return failures.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    long droppedCount() {
+        return dropped.sum();
+    }
+
+    Map<String, LongAdder> failures() {
+        return failures;
+    }
+
+    double throughput() {
+        return measuredNanos == 0 ? 0 : (succeeded() + failed()) / (measuredNanos / 1e9);
+    }
+}
@@ -0,0 +1,79 @@
+package com.main.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.main.dtos.ProductRequest;
+import com.main.dtos.ProductResponse;
+import com.main.dtos.UserRequest;
+import com.main.dtos.UserResponse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the users and products the traffic refers to, through the public APIs.
+ */
+final class Seeder {
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper;
+
+    Seeder(HttpClient client, ObjectMapper objectMapper) {
+        this.client = client;
+        this.objectMapper = objectMapper;
+    }
+
+    List<String> users(String baseUrl, int count) throws IOException, InterruptedException {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UserRequest user = new UserRequest("Load User " + i, "load" + i + "@example.com", String.format("9%09d", i));
+            ids.add(post(baseUrl + "/users/register", user, UserResponse.class).getId());
+        }
+        return ids;
+    }
+
+    List<String> products(String baseUrl, int count) throws IOException, InterruptedException {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            /* Stock high enough that a run never sells out */
+            ProductRequest product = new ProductRequest("Load Product " + i, "Seeded by the load harness", "category-" + (i % 10),
+                    new BigDecimal("9.99").add(BigDecimal.valueOf(i, 2)), 100_000_000, "LOAD-" + i, "brand-" + (i % 5));
+            ids.add(post(baseUrl + "/products/add", product, ProductResponse.class).getId());
+        }
+        return ids;
+    }
+
+    /** One hot product for the flash-sale scenario; {@code stripes} of 0 leaves it in regular inventory mode. */
+    String flashSaleProduct(String baseUrl, int stripes) throws IOException, InterruptedException {
+        ProductRequest product = new ProductRequest("Load Flash Sale Product", "Seeded by the load harness", "category-0",
+                new BigDecimal("1.99"), 100_000_000, "LOAD-FLASH", "brand-0");
+        String id = post(baseUrl + "/products/add", product, ProductResponse.class).getId();
+        if (stripes > 0) {
+            send(HttpRequest.newBuilder(URI.create(baseUrl + "/products/" + id + "/flash-sale?stripes=" + stripes))
+                    .PUT(HttpRequest.BodyPublishers.noBody())
+                    .build(), ProductResponse.class);
+        }
+        return id;
+    }
+
+    private <T> T post(String url, Object body, Class<T> responseType) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build(), responseType);
+    }
+
+    private <T> T send(HttpRequest request, Class<T> responseType) throws IOException, InterruptedException {
+        String url = request.uri().toString();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Seeding " + url + " failed with " + response.statusCode() + ": " + new String(response.body()));
+        }
+        return objectMapper.readValue(response.body(), responseType);
+    }
+}
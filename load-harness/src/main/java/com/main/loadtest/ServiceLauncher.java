@@ -0,0 +1,123 @@
+package com.main.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts each service from its executable jar in a JVM of its own, wired to the harness Mongo
+ * and to each other through Spring Cloud's simple discovery instead of a registry.
+ */
+final class ServiceLauncher implements AutoCloseable {
+
+    static final String USER = "user-service";
+    static final String PRODUCT = "product-service";
+    static final String PAYMENT = "payment-service";
+    static final String ORDER = "order-service";
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceLauncher.class);
+    private static final List<String> SERVICES = List.of(USER, PRODUCT, PAYMENT, ORDER);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private final Path projectDir;
+    private final Path logDir;
+    private final Map<String, Integer> ports = new LinkedHashMap<>();
+    private final List<Process> processes = new ArrayList<>();
+
+    ServiceLauncher(Path projectDir, Path logDir, int basePort) {
+        this.projectDir = projectDir;
+        this.logDir = logDir;
+        for (int i = 0; i < SERVICES.size(); i++) {
+            ports.put(SERVICES.get(i), basePort + i);
+        }
+    }
+
+    String baseUrl(String service) {
+        return "http://localhost:" + ports.get(service);
+    }
+
+    void startAll(String mongoUri, String snapshotSecret, List<String> jvmOptions) throws IOException, InterruptedException {
+        for (String service : SERVICES) {
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(jvmOptions);
+            command.add("-jar");
+            command.add(executableJar(service).toString());
+            command.add("--server.port=" + ports.get(service));
+            command.add("--spring.data.mongodb.uri=" + mongoUri);
+            command.add("--order.snapshot.secret=" + snapshotSecret);
+            command.add("--logging.level.com.main=WARN");
+            ports.forEach((target, port) ->
+                    command.add("--spring.cloud.discovery.client.simple.instances." + target + "[0].uri=http://localhost:" + port));
+
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(logDir.resolve(service + ".log").toFile())
+                    .start();
+            processes.add(process);
+            log.info("Started {} on port {} (pid {})", service, ports.get(service), process.pid());
+        }
+        for (String service : SERVICES) {
+            awaitHealthy(service);
+        }
+    }
+
+    private Path executableJar(String service) throws IOException {
+        try (DirectoryStream<Path> jars = Files.newDirectoryStream(projectDir.resolve(service).resolve("target"), "*-exec.jar")) {
+            for (Path jar : jars) {
+                return jar;
+            }
+        }
+        throw new IllegalStateException("No executable jar for " + service + ", run mvn package first");
+    }
+
+    private void awaitHealthy(String service) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl(service) + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    log.info("{} is up", service);
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(service + " did not become healthy, see " + logDir.resolve(service + ".log"));
+    }
+
+    @Override
+    public synchronized void close() {
+        processes.forEach(Process::destroy);
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        processes.clear();
+    }
+}
@@ -1,7 +1,13 @@
 package com.main.Exceptions;
 
-public class BusinessException extends RuntimeException {
-    public BusinessException(String message) {
-        super(message);
+import org.springframework.http.HttpStatus;
+
+/**
+ * Order-service business failure. Every one names the status it is answered with, so a client
+ * error is never reported as a failure of the service.
+ */
+public class BusinessException extends com.main.exceptions.BusinessException {
+    public BusinessException(String message, HttpStatus status) {
+        super(message, status);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,100 @@
+package com.main.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.main.entity.ArchivedOrder;
+import com.main.entity.Order;
+import com.main.repository.OrderHistoryFilter;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier for finished orders, kept in {@code orders_archive}. Orders come back out as the
+ * same {@link Order} entities the live collection holds, so callers can treat both tiers alike.
+ */
+@Component
+public class OrderArchive {
+
+    private static final String ORDER_ID = "orderId";
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OrderArchive(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Writes the orders to the archive; storing an order again replaces its earlier copy. */
+    public void store(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ArchivedOrder.class);
+        for (Order order : orders) {
+            bulk.upsert(new Query(Criteria.where(ORDER_ID).is(order.getOrderId())), new Update()
+                    .set("userId", order.getUserId())
+                    .set("orderDate", order.getOrderDate())
+                    .set("status", order.getStatus())
+                    .set("revision", order.getRevision())
+                    .set("body", compress(order)));
+        }
+        bulk.execute();
+    }
+
+    public void discard(Collection<String> orderIds) {
+        if (!orderIds.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where(ORDER_ID).in(orderIds)), ArchivedOrder.class);
+        }
+    }
+
+    public Optional<Order> find(String orderId) {
+        return Optional.ofNullable(mongoTemplate.findById(orderId, ArchivedOrder.class)).map(this::decompress);
+    }
+
+    public List<Order> findAllByUserId(String userId) {
+        return mongoTemplate.find(new Query(Criteria.where("userId").is(userId)), ArchivedOrder.class).stream()
+                .map(this::decompress)
+                .toList();
+    }
+
+    public List<Order> findHistoryPage(OrderHistoryFilter filter, LocalDateTime afterDate, String afterId, int limit) {
+        return mongoTemplate.find(filter.pageQuery(afterDate, afterId, limit), ArchivedOrder.class).stream()
+                .map(this::decompress)
+                .toList();
+    }
+
+    private byte[] compress(Order order) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(buffer)) {
+            objectMapper.writeValue(out, order);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not archive order " + order.getOrderId(), e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private Order decompress(ArchivedOrder archived) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(archived.getBody()))) {
+            return objectMapper.readValue(in, Order.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archived order " + archived.getOrderId(), e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.main.archive;
+
+import com.main.entity.Order;
+import com.main.repository.OrderRepository;
+import com.main.util.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves finished orders older than {@code order.archive.after-days} from the live collection to
+ * the archive. Each order is copied first and deleted second, so a run that dies half way leaves
+ * duplicates behind rather than losing orders; the live copy wins on reads and the next run
+ * finishes the move. Batches are paced to {@code order.archive.max-orders-per-second}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "order.archive.enabled", havingValue = "true")
+public class OrderArchiver {
+
+    private static final Set<OrderStatus> ARCHIVABLE = EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED, OrderStatus.FAILED);
+
+    private final OrderRepository orderRepository;
+    private final OrderArchive orderArchive;
+    private final Counter moved;
+    private final long afterDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long nanosPerBatch;
+
+    public OrderArchiver(OrderRepository orderRepository, OrderArchive orderArchive, MeterRegistry meterRegistry,
+                         @Value("${order.archive.after-days:90}") long afterDays,
+                         @Value("${order.archive.batch-size:200}") int batchSize,
+                         @Value("${order.archive.max-batches-per-run:50}") int maxBatchesPerRun,
+                         @Value("${order.archive.max-orders-per-second:500}") int maxOrdersPerSecond) {
+        this.orderRepository = orderRepository;
+        this.orderArchive = orderArchive;
+        this.moved = Counter.builder("order.archive.moved")
+                .description("Orders moved from the live collection to the archive")
+                .register(meterRegistry);
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.nanosPerBatch = TimeUnit.SECONDS.toNanos(batchSize) / Math.max(1, maxOrdersPerSecond);
+    }
+
+    @Scheduled(initialDelayString = "${order.archive.interval-ms:600000}", fixedDelayString = "${order.archive.interval-ms:600000}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int total = 0;
+        try {
+            for (int run = 0; run < maxBatchesPerRun; run++) {
+                long started = System.nanoTime();
+                List<Order> batch = orderRepository.findArchivable(cutoff, ARCHIVABLE, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                total += moveBatch(batch);
+                if (batch.size() < batchSize || !pace(started)) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Order archive run failed after moving {} orders, the rest is retried next run", total, e);
+            return;
+        }
+        if (total > 0) {
+            log.info("Archived {} orders placed before {}", total, cutoff);
+        }
+    }
+
+    private int moveBatch(List<Order> batch) {
+        orderArchive.store(batch);
+        /* Orders written after they were read stay live; their archive copy would be stale */
+        List<String> kept = orderRepository.removeArchived(batch);
+        orderArchive.discard(kept);
+        int count = batch.size() - kept.size();
+        moved.increment(count);
+        return count;
+    }
+
+    /** Sleeps out the rest of the batch's time slot. Returns false if the run should stop. */
+    private boolean pace(long started) {
+        long remaining = nanosPerBatch - (System.nanoTime() - started);
+        if (remaining <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.main.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    /* Runs the independent downstream calls of a checkout side by side */
+    @Bean
+    public ThreadPoolTaskExecutor orderFanOutExecutor(@Value("${order.fan-out.pool-size:32}") int poolSize,
+                                                      @Value("${order.fan-out.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("order-fan-out-");
+        executor.initialize();
+        return executor;
+    }
+
+    /* Sends payment chunks for the outbox relay */
+    @Bean
+    public ThreadPoolTaskExecutor paymentRelayExecutor(@Value("${order.payment.outbox.workers:8}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("payment-relay-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,12 +1,22 @@
 package com.main.controller;
 
+import com.main.dtos.OrderPlacementResult;
 import com.main.dtos.OrderRequest;
 import com.main.dtos.OrderResponse;
+import com.main.dtos.OrderSummaryResponse;
+import com.main.dtos.PageResponse;
+import com.main.idempotency.IdempotencyStore;
+import com.main.repository.OrderHistoryFilter;
 import com.main.service.OrderService;
+import com.main.util.OrderServiceConstants;
 import com.main.util.OrderStatus;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,10 +25,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -28,16 +40,34 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping("/place-order")
-    public ResponseEntity<OrderResponse> placeOrder(@Valid @RequestBody OrderRequest orderRequest) {
-        return ResponseEntity.ok(orderService.placeOrder(orderRequest));
+    public ResponseEntity<OrderResponse> placeOrder(@Valid @RequestBody OrderRequest orderRequest,
+                                                    @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        OrderResponse response = idempotencyKey == null
+                ? orderService.placeOrder(orderRequest)
+                : idempotencyStore.execute("order:place", idempotencyKey, orderRequest, OrderResponse.class,
+                        () -> orderService.placeOrder(orderRequest));
+        if (response.getStatus() == OrderStatus.PENDING) {
+            return ResponseEntity.accepted().body(response);
+        }
+        return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/place-orders")
+    public ResponseEntity<List<OrderPlacementResult>> placeOrders(@RequestBody @NotEmpty @Size(max = OrderServiceConstants.MAX_BATCH_SIZE) List<@Valid OrderRequest> orderRequests) {
+        log.info("Received a batch of {} orders", orderRequests.size());
+        return ResponseEntity.ok(orderService.placeOrders(orderRequests));
+    }
+
+    /* Writes the stored view bytes as they are; callers asking for CBOR also accept JSON */
     @GetMapping("/{id}")
-    public ResponseEntity<OrderResponse> getOrderDetails(@PathVariable String id) {
+    public ResponseEntity<byte[]> getOrderDetails(@PathVariable String id) {
         log.info("Fetching order details for orderId: {}", id);
-        return ResponseEntity.ok(orderService.getOrderDetails(id));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(orderService.getOrderDetailsJson(id));
     }
 
     @GetMapping("/user/{userId}")
@@ -45,6 +75,30 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getAllOrderDetailsByUser(userId));
     }
 
+    @GetMapping("/user/{userId}/history")
+    public ResponseEntity<PageResponse<OrderSummaryResponse>> getOrderHistory(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        OrderHistoryFilter filter = new OrderHistoryFilter(userId, status, from, to);
+        return ResponseEntity.ok(orderService.getOrderHistory(filter, cursor, limit));
+    }
+
+    @GetMapping("/user/{userId}/history/details")
+    public ResponseEntity<PageResponse<OrderResponse>> getOrderHistoryDetails(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        OrderHistoryFilter filter = new OrderHistoryFilter(userId, status, from, to);
+        return ResponseEntity.ok(orderService.getOrderHistoryDetails(filter, cursor, limit));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<OrderResponse> updateOrderDetails(@PathVariable String id, @RequestBody OrderRequest orderRequest) {
         return ResponseEntity.ok(orderService.updateOrderDetails(id, orderRequest));
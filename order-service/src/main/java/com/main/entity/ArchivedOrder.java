@@ -0,0 +1,30 @@
+package com.main.entity;
+
+import com.main.util.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A finished order moved out of the live collection. Only the fields that reads filter on are
+ * kept in the open; the order itself is stored as gzipped JSON in {@code body}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "orders_archive")
+@CompoundIndex(name = "user_history", def = "{'userId': 1, 'orderDate': -1, '_id': -1}")
+public class ArchivedOrder {
+    @Id
+    private String orderId;
+    private String userId;
+    private LocalDateTime orderDate;
+    private OrderStatus status;
+    private long revision;
+    private byte[] body;
+}
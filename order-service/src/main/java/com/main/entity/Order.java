@@ -3,6 +3,7 @@ package com.main.entity;
 import com.main.util.OrderStatus;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -11,6 +12,9 @@ import java.util.List;
 
 @Data
 @Document(collection = "users")
+@CompoundIndex(name = "user_history", def = "{'userId': 1, 'orderDate': -1, '_id': -1}")
+@CompoundIndex(name = "status_orderDate", def = "{'status': 1, 'orderDate': 1}")
+@CompoundIndex(name = "outbox_due", def = "{'outbox.nextAttemptAt': 1}", sparse = true)
 public class Order {
     @Id
     private String orderId;
@@ -23,4 +27,10 @@ public class Order {
     private LocalDateTime orderDate;
     private LocalDateTime updatedAt;
     private String paymentId;
+    /* Payment that settled after the order was cancelled and still has to be refunded */
+    private String refundPaymentId;
+    private String reservationId;
+    private PaymentOutbox outbox;
+    /* Bumped on every write, see OrderViewListener */
+    private long revision;
 }
@@ -0,0 +1,23 @@
+package com.main.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Read model for {@code GET /order/{id}}: the order's {@code OrderResponse}, already serialized
+ * to JSON. {@code revision} is the order revision it was built from, so an older write never
+ * replaces a newer one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "order_views")
+public class OrderView {
+    @Id
+    private String orderId;
+    private long revision;
+    private byte[] body;
+}
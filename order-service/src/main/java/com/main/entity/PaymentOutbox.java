@@ -0,0 +1,22 @@
+package com.main.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pending payment for an order placed in async mode. It is embedded in the order document
+ * so the order and its outbox entry are written together, and removed once payment settles.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentOutbox {
+    private String paymentMethod;
+    /* Payment calls made so far; 0 means it was never sent, so it cannot have been charged */
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String claimToken;
+}
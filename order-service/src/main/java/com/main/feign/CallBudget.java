@@ -0,0 +1,29 @@
+package com.main.feign;
+
+import feign.Request;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns what is left of a checkout's deadline into Feign request options, so a call already on
+ * the wire gives up when the checkout does instead of holding its pool thread until the client's
+ * own read timeout. Cancelling the future of a running Feign call does not interrupt it. The
+ * connect timeout stays at the one the Feign clients are configured with, or less.
+ */
+@Component
+public class CallBudget {
+
+    private final long maxConnectMillis;
+
+    public CallBudget(@Value("${spring.cloud.openfeign.client.config.default.connect-timeout:1000}") long maxConnectMillis) {
+        this.maxConnectMillis = maxConnectMillis;
+    }
+
+    public Request.Options until(long deadlineNanos) {
+        long remainingMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+        return new Request.Options(Math.min(remainingMillis, maxConnectMillis), TimeUnit.MILLISECONDS,
+                remainingMillis, TimeUnit.MILLISECONDS, true);
+    }
+}
@@ -2,14 +2,25 @@ package com.main.feign;
 
 import com.main.dtos.PaymentRequest;
 import com.main.dtos.PaymentResponse;
+import com.main.idempotency.IdempotencyStore;
+import feign.Request;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+
+import java.util.List;
 
 @FeignClient(name = "payment-service")
 public interface PaymentClient {
 
     @PostMapping("payments/process")
-    public ResponseEntity<PaymentResponse> processPayment(@RequestBody PaymentRequest paymentRequest);
+    public ResponseEntity<PaymentResponse> processPayment(@RequestBody PaymentRequest paymentRequest,
+                                                         @RequestHeader(IdempotencyStore.HEADER) String idempotencyKey,
+                                                         Request.Options options);
+
+    @PostMapping("payments/process-batch")
+    public ResponseEntity<List<PaymentResponse>> processPayments(@RequestBody List<PaymentRequest> paymentRequests,
+                                                                 Request.Options options);
 }
@@ -1,11 +1,16 @@
 package com.main.feign;
 
 import com.main.dtos.ProductResponse;
+import com.main.dtos.ReservationRequest;
+import com.main.dtos.ReservationResponse;
 import com.main.dtos.StockUpdateRequest;
+import com.main.dtos.StockUpdateResponse;
+import feign.Request;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -19,12 +24,34 @@ public interface ProductClient {
     ResponseEntity<ProductResponse> getProductDetails(@PathVariable String id);
 
     @GetMapping("/products/batch")
-    ResponseEntity<List<ProductResponse>> getProductsByIds(@RequestParam List<String> productIds);
+    ResponseEntity<List<ProductResponse>> getProductsByIds(@RequestParam List<String> productIds, Request.Options options);
 
     @PutMapping("/products/update-stock")
-    ResponseEntity<String> updateStock(@RequestBody StockUpdateRequest request);
+    ResponseEntity<StockUpdateResponse> updateStock(@RequestBody StockUpdateRequest request);
 
     @PutMapping("/products/{id}/update-stock")
     ResponseEntity<String> updateStock(@PathVariable("id") String productId,
                                        @RequestParam("quantityChange") int quantityChange);
+
+    @PostMapping("/products/reservations")
+    ResponseEntity<ReservationResponse> reserveStock(@RequestBody ReservationRequest request);
+
+    @PutMapping("/products/reservations/{id}/confirm")
+    ResponseEntity<ReservationResponse> confirmReservation(@PathVariable("id") String reservationId);
+
+    @PutMapping("/products/reservations/{id}/release")
+    ResponseEntity<ReservationResponse> releaseReservation(@PathVariable("id") String reservationId);
+
+    @PostMapping("/products/reservations/batch")
+    ResponseEntity<List<ReservationResponse>> reserveStockBatch(@RequestBody List<ReservationRequest> requests);
+
+    @PutMapping("/products/reservations/batch/confirm")
+    ResponseEntity<List<ReservationResponse>> confirmReservations(@RequestBody List<String> reservationIds);
+
+    @PutMapping("/products/reservations/batch/release")
+    ResponseEntity<List<ReservationResponse>> releaseReservations(@RequestBody List<String> reservationIds);
+
+    @PutMapping("/products/reservations/batch/extend")
+    ResponseEntity<List<ReservationResponse>> extendReservations(@RequestBody List<String> reservationIds,
+                                                                 @RequestParam("ttlSeconds") int ttlSeconds);
 }
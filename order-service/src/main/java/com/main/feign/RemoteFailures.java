@@ -0,0 +1,27 @@
+package com.main.feign;
+
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+
+/**
+ * Sorts failed calls by what is known about their effect downstream, for calls that must not
+ * be repeated blindly, such as payments.
+ */
+public final class RemoteFailures {
+
+    private RemoteFailures() {
+    }
+
+    /** The downstream answered with a 4xx that comes back the same on every retry; 409 and 429 only mean not now. */
+    public static boolean isRejected(Throwable error) {
+        return error instanceof FeignException feignException
+                && feignException.status() >= 400 && feignException.status() < 500
+                && feignException.status() != 409 && feignException.status() != 429;
+    }
+
+    /** The circuit breaker or bulkhead refused the call, so it never reached the downstream. */
+    public static boolean wasNotSent(Throwable error) {
+        return error instanceof CallNotPermittedException || error instanceof BulkheadFullException;
+    }
+}
@@ -1,13 +1,20 @@
 package com.main.feign;
 
 import com.main.dtos.UserResponse;
+import feign.Request;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
-@FeignClient(name = "user-service", fallback = UserClientFallback.class)
+import java.util.List;
+
+@FeignClient(name = "user-service")
 public interface UserClient {
 
     @GetMapping("/users/{id}")
-    UserResponse getUserById(@PathVariable("id") String id);
+    UserResponse getUserById(@PathVariable("id") String id, Request.Options options);
+
+    @GetMapping("/users/batch")
+    List<UserResponse> getUsersByIds(@RequestParam("ids") List<String> ids, Request.Options options);
 }
\ No newline at end of file
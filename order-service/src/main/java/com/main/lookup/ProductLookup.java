@@ -0,0 +1,173 @@
+package com.main.lookup;
+
+import com.main.dtos.ProductResponse;
+import com.main.feign.CallBudget;
+import com.main.feign.ProductClient;
+import com.main.feign.RemoteFailures;
+import com.main.util.OrderServiceConstants;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Product lookups for order placement, merged across callers. Ids asked for within
+ * {@code order.lookup.product-window} of each other go out in a single {@code /products/batch}
+ * call, sent by the caller that opened the batch, and each caller gets back its own products.
+ * An id already on its way in an earlier batch is not asked for again; the caller waits for
+ * that batch instead, so it may see data read a few milliseconds before it asked. A batch call is
+ * bounded by the latest deadline among the callers that joined it; each caller stops waiting at its own,
+ * failing with {@link OrderServiceConstants#ORDER_DEADLINE_EXCEEDED} while the batch carries on for the rest.
+ * A batch fails as a whole, so one caller's bad id would fail everyone in it: when a shared batch
+ * is rejected with a 4xx, each caller asks again for its own ids alone.
+ */
+@Component
+public class ProductLookup {
+
+    private final ProductClient productClient;
+    private final CallBudget callBudget;
+    private final long windowNanos;
+    private final int maxBatchIds;
+    private final Counter lookups;
+    private final Counter calls;
+
+    private final Object lock = new Object();
+    /* The batch fetching each id, open or in flight; guarded by lock */
+    private final Map<String, Batch> pendingById = new HashMap<>();
+    /* The batch still taking ids; guarded by lock */
+    private Batch open;
+
+    public ProductLookup(ProductClient productClient, CallBudget callBudget, MeterRegistry meterRegistry,
+                         @Value("${order.lookup.product-window:2ms}") Duration window,
+                         @Value("${order.lookup.product-max-batch:100}") int maxBatchIds) {
+        this.productClient = productClient;
+        this.callBudget = callBudget;
+        this.windowNanos = window.toNanos();
+        this.maxBatchIds = maxBatchIds;
+        this.lookups = Counter.builder("order.lookup.products")
+                .description("Product lookups asked for by order placement")
+                .register(meterRegistry);
+        this.calls = Counter.builder("order.lookup.products.calls")
+                .description("Batch calls sent to product-service for those lookups")
+                .register(meterRegistry);
+    }
+
+    public List<ProductResponse> getProductsByIds(List<String> productIds, long deadline) {
+        lookups.increment();
+        if (productIds.size() >= maxBatchIds) {
+            return fetch(productIds, deadline);
+        }
+
+        Set<Batch> waitFor = new LinkedHashSet<>();
+        Batch led = null;
+        synchronized (lock) {
+            for (String productId : productIds) {
+                Batch pending = pendingById.get(productId);
+                if (pending == null) {
+                    if (open == null || open.ids.size() >= maxBatchIds) {
+                        /* At most once per caller: a batch opened here cannot fill up with this caller's ids alone */
+                        open = new Batch(deadline);
+                        led = open;
+                    }
+                    pending = open;
+                    pending.ids.add(productId);
+                    pendingById.put(productId, pending);
+                }
+                if (deadline - pending.deadline > 0) {
+                    pending.deadline = deadline;
+                }
+                if (waitFor.add(pending)) {
+                    pending.callers++;
+                }
+            }
+        }
+        if (led != null) {
+            send(led);
+        }
+
+        Map<String, ProductResponse> found = new HashMap<>();
+        try {
+            for (Batch batch : waitFor) {
+                found.putAll(SingleFlight.join(batch.result, deadline));
+            }
+        } catch (FeignException e) {
+            if (RemoteFailures.isRejected(e) && shared(waitFor)) {
+                return fetch(productIds, deadline);
+            }
+            throw e;
+        }
+        return productIds.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    private boolean shared(Set<Batch> batches) {
+        synchronized (lock) {
+            return batches.stream().anyMatch(batch -> batch.callers > 1);
+        }
+    }
+
+    private void send(Batch batch) {
+        if (windowNanos > 0) {
+            LockSupport.parkNanos(windowNanos);
+        }
+        List<String> ids;
+        long deadline;
+        synchronized (lock) {
+            if (open == batch) {
+                open = null;
+            }
+            ids = new ArrayList<>(batch.ids);
+            deadline = batch.deadline;
+        }
+
+        Map<String, ProductResponse> products = new HashMap<>();
+        Throwable failure = null;
+        try {
+            for (ProductResponse product : fetch(ids, deadline)) {
+                products.put(product.getId(), product);
+            }
+        } catch (Throwable e) {
+            /* Errors too: the callers joined on this batch are only released by completing it */
+            failure = e;
+        }
+        synchronized (lock) {
+            ids.forEach(id -> pendingById.remove(id, batch));
+        }
+        if (failure != null) {
+            batch.result.completeExceptionally(failure);
+        } else {
+            batch.result.complete(products);
+        }
+    }
+
+    private List<ProductResponse> fetch(List<String> productIds, long deadline) {
+        calls.increment();
+        List<ProductResponse> products = productClient.getProductsByIds(productIds, callBudget.until(deadline)).getBody();
+        return products == null ? List.of() : products;
+    }
+
+    private static final class Batch {
+        /* Guarded by ProductLookup.lock until the batch is sent */
+        private final Set<String> ids = new LinkedHashSet<>();
+        /* System.nanoTime() deadline; guarded by ProductLookup.lock until the batch is sent */
+        private long deadline;
+        /* Callers waiting on this batch; guarded by ProductLookup.lock */
+        private int callers;
+        private final CompletableFuture<Map<String, ProductResponse>> result = new CompletableFuture<>();
+
+        private Batch(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+}
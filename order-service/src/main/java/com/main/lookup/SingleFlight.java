@@ -0,0 +1,77 @@
+package com.main.lookup;
+
+import com.main.Exceptions.BusinessException;
+import com.main.util.OrderServiceConstants;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Lets concurrent callers asking for the same key share one call: the first caller runs it on
+ * its own thread, the others wait for its result or its exception.
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    V get(K key, Function<K, V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return join(running);
+        }
+        try {
+            V value = call.apply(key);
+            inFlight.remove(key, mine);
+            mine.complete(value);
+            return value;
+        } catch (Throwable e) {
+            /* Errors too, or the waiters and every later caller of this key would block forever */
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Waits for a shared call and rethrows its failure as the caller would have seen it. */
+    static <V> V join(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            throw rethrow(e.getCause(), e);
+        }
+    }
+
+    /**
+     * Like {@link #join(CompletableFuture)}, but stops waiting at the caller's own
+     * {@code System.nanoTime()} deadline. The shared call carries on for whoever else waits on it.
+     */
+    static <V> V join(CompletableFuture<V> call, long deadline) {
+        try {
+            return call.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause(), new CompletionException(e.getCause()));
+        } catch (TimeoutException e) {
+            throw new BusinessException(OrderServiceConstants.ORDER_DEADLINE_EXCEEDED, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(OrderServiceConstants.ORDER_DEADLINE_EXCEEDED, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause, RuntimeException wrapped) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return wrapped;
+    }
+}
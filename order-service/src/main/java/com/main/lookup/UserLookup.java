@@ -0,0 +1,41 @@
+package com.main.lookup;
+
+import com.main.dtos.UserResponse;
+import com.main.feign.CallBudget;
+import com.main.feign.UserClient;
+import feign.FeignException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * User lookups for order placement, each bounded by the caller's deadline. Concurrent lookups of
+ * the same user share one call, which runs with the budget of the caller that started it.
+ */
+@Component
+public class UserLookup {
+
+    private final UserClient userClient;
+    private final CallBudget callBudget;
+    private final SingleFlight<String, UserResponse> byId = new SingleFlight<>();
+
+    public UserLookup(UserClient userClient, CallBudget callBudget) {
+        this.userClient = userClient;
+        this.callBudget = callBudget;
+    }
+
+    /** Null when user-service does not know the user, or it was deleted. */
+    public UserResponse getUserById(String userId, long deadline) {
+        return byId.get(userId, id -> {
+            try {
+                return userClient.getUserById(id, callBudget.until(deadline));
+            } catch (FeignException.NotFound e) {
+                return null;
+            }
+        });
+    }
+
+    public List<UserResponse> getUsersByIds(List<String> userIds, long deadline) {
+        return userClient.getUsersByIds(userIds, callBudget.until(deadline));
+    }
+}
@@ -0,0 +1,91 @@
+package com.main.mapper;
+
+import com.main.dtos.OrderItemDto;
+import com.main.dtos.OrderItemRequestDto;
+import com.main.dtos.OrderRequest;
+import com.main.dtos.OrderResponse;
+import com.main.dtos.OrderSummaryResponse;
+import com.main.dtos.PaymentRequest;
+import com.main.entity.Order;
+import com.main.entity.OrderItem;
+import com.main.security.OrderSnapshotSigner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Field-by-field replacement for the ModelMapper type maps that used to live in OrderConfig.
+ * Produces the same output, without reflection or per-call type map lookups.
+ */
+@Component
+public class OrderMapper {
+
+    private final OrderSnapshotSigner snapshotSigner;
+
+    public OrderMapper(OrderSnapshotSigner snapshotSigner) {
+        this.snapshotSigner = snapshotSigner;
+    }
+
+    public Order toEntity(OrderRequest request) {
+        Order order = new Order();
+        updateEntity(request, order);
+        return order;
+    }
+
+    public void updateEntity(OrderRequest request, Order order) {
+        order.setUserId(request.getUserId());
+        order.setItems(toItems(request.getItems()));
+        order.setShippingAddress(request.getShippingAddress());
+        order.setBillingAddress(request.getBillingAddress());
+    }
+
+    public OrderResponse toResponse(Order order) {
+        return toResponse(order, order.getPaymentId());
+    }
+
+    public OrderResponse toResponse(Order order, String paymentId) {
+        return new OrderResponse(
+                order.getOrderId(), order.getUserId(), toItemDtos(order.getItems()), order.getTotalAmount(), order.getStatus(),
+                order.getShippingAddress(), order.getBillingAddress(), order.getOrderDate(), order.getUpdatedAt(), paymentId);
+    }
+
+    public OrderSummaryResponse toSummary(Order order) {
+        return new OrderSummaryResponse(
+                order.getOrderId(), order.getStatus(), order.getTotalAmount(), order.getOrderDate(), order.getUpdatedAt(), order.getPaymentId());
+    }
+
+    /**
+     * Signed when a snapshot secret is configured, so payment-service can skip looking the order up.
+     */
+    public PaymentRequest toPaymentRequest(Order order, String paymentMethod) {
+        return snapshotSigner.sign(new PaymentRequest(order.getOrderId(), order.getUserId(), order.getTotalAmount(), paymentMethod));
+    }
+
+    public List<OrderItemDto> toItemDtos(List<OrderItem> items) {
+        if (items == null) return List.of();
+        List<OrderItemDto> dtos = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            OrderItemDto dto = new OrderItemDto();
+            dto.setProductId(item.getProductId());
+            dto.setProductName(item.getProductName());
+            dto.setQuantity(item.getQuantity());
+            dto.setPrice(item.getPrice());
+            dto.setTotal(item.getTotal());
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    private List<OrderItem> toItems(List<OrderItemRequestDto> itemDtos) {
+        if (itemDtos == null) return null;
+        List<OrderItem> items = new ArrayList<>(itemDtos.size());
+        for (OrderItemRequestDto dto : itemDtos) {
+            OrderItem item = new OrderItem();
+            item.setProductId(dto.getProductId());
+            item.setQuantity(dto.getQuantity());
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,60 @@
+package com.main.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers for the phases of order placement, tagged by phase and outcome, so the critical
+ * path of a checkout can be read off {@code /actuator/metrics/order.place.phase}.
+ */
+@Component
+public class OrderMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+    public static final String TIMEOUT = "timeout";
+
+    private static final String PHASE_TIMER = "order.place.phase";
+
+    private final MeterRegistry meterRegistry;
+
+    public OrderMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T time(String phase, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = ERROR;
+        try {
+            T result = call.get();
+            outcome = SUCCESS;
+            return result;
+        } finally {
+            record(phase, outcome, System.nanoTime() - start);
+        }
+    }
+
+    public void time(String phase, Runnable call) {
+        time(phase, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public void record(String phase, String outcome, long nanos) {
+        phaseTimer(phase, outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer phaseTimer(String phase, String outcome) {
+        return Timer.builder(PHASE_TIMER)
+                .description("Time spent in each phase of order placement")
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,243 @@
+package com.main.outbox;
+
+import com.main.dtos.PaymentRequest;
+import com.main.dtos.PaymentResponse;
+import com.main.entity.Order;
+import com.main.feign.CallBudget;
+import com.main.feign.PaymentClient;
+import com.main.feign.RemoteFailures;
+import com.main.mapper.OrderMapper;
+import com.main.repository.OrderRepository;
+import com.main.service.impl.OrderInventory;
+import com.main.util.OrderStatus;
+import com.main.util.PaymentStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sends payments for orders accepted in async mode, and for sync checkouts whose payment call
+ * ended without a known outcome. Each poll claims a batch of due outbox entries, sends them to
+ * payment-service in chunks on the relay pool, and applies each outcome. Only an answer from
+ * payment-service fails an order: a payment whose outcome is unknown may have been charged, so it
+ * is asked again under the same key, backing off up to {@code order.payment.outbox.max-backoff-ms},
+ * until that answer comes. Past {@code order.payment.outbox.alert-after-attempts} each retry is
+ * logged as an error and counted in {@code order.payment.outbox.unsettled}.
+ */
+@Slf4j
+@Component
+public class PaymentOutboxRelay {
+
+    private final OrderRepository orderRepository;
+    private final PaymentClient paymentClient;
+    private final CallBudget callBudget;
+    private final OrderInventory orderInventory;
+    private final OrderMapper orderMapper;
+    private final Executor relayExecutor;
+    private final int batchSize;
+    private final int chunkSize;
+    private final int alertAfterAttempts;
+    private final Duration lease;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final Counter unsettled;
+
+    public PaymentOutboxRelay(OrderRepository orderRepository, PaymentClient paymentClient, CallBudget callBudget,
+                              OrderInventory orderInventory, OrderMapper orderMapper, @Qualifier("paymentRelayExecutor") Executor relayExecutor,
+                              MeterRegistry meterRegistry,
+                              @Value("${order.payment.outbox.batch-size:200}") int batchSize,
+                              @Value("${order.payment.outbox.chunk-size:25}") int chunkSize,
+                              @Value("${order.payment.outbox.alert-after-attempts:5}") int alertAfterAttempts,
+                              @Value("${order.payment.outbox.lease-ms:30000}") long leaseMs,
+                              @Value("${order.payment.outbox.retry-backoff-ms:1000}") long retryBackoffMs,
+                              @Value("${order.payment.outbox.max-backoff-ms:60000}") long maxRetryBackoffMs) {
+        this.orderRepository = orderRepository;
+        this.paymentClient = paymentClient;
+        this.callBudget = callBudget;
+        this.orderInventory = orderInventory;
+        this.orderMapper = orderMapper;
+        this.relayExecutor = relayExecutor;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+        this.alertAfterAttempts = alertAfterAttempts;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+        this.maxRetryBackoff = Duration.ofMillis(maxRetryBackoffMs);
+        this.unsettled = Counter.builder("order.payment.outbox.unsettled")
+                .description("Outbox payments retried past the alert threshold without a known outcome")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.payment.outbox.poll-interval-ms:200}")
+    public void relay() {
+        try {
+            List<Order> claimed = orderRepository.claimPaymentOutbox(batchSize, lease);
+            if (claimed.isEmpty()) {
+                return;
+            }
+            log.debug("Relaying {} outbox payments", claimed.size());
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (int from = 0; from < claimed.size(); from += chunkSize) {
+                List<Order> chunk = claimed.subList(from, Math.min(from + chunkSize, claimed.size()));
+                chunks.add(CompletableFuture.runAsync(() -> send(chunk), relayExecutor));
+            }
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+        } catch (RuntimeException e) {
+            log.error("Payment outbox relay run failed, claimed entries will be retried after their lease", e);
+        }
+    }
+
+    private void send(List<Order> claimed) {
+        List<Order> orders = holdStock(claimed);
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<PaymentRequest> requests = orders.stream()
+                .map(order -> orderMapper.toPaymentRequest(order, order.getOutbox().getPaymentMethod()))
+                .toList();
+
+        List<PaymentResponse> responses;
+        try {
+            /* Bounded by the claim lease, after which another relay may send the same chunk */
+            responses = paymentClient.processPayments(requests, callBudget.until(System.nanoTime() + lease.toNanos())).getBody();
+        } catch (RuntimeException e) {
+            log.warn("Payment batch of {} orders failed: {}", orders.size(), e.getMessage());
+            if (RemoteFailures.isRejected(e)) {
+                /* The whole batch was refused as invalid, so none of it was charged */
+                orders.forEach(this::fail);
+            } else {
+                /* Each payment is keyed by order in payment-service, so resending cannot charge twice */
+                orders.forEach(this::retry);
+            }
+            return;
+        }
+
+        Map<String, PaymentResponse> responsesByOrder = responses == null ? Map.of() : responses.stream()
+                .filter(response -> response.getOrderId() != null)
+                .collect(Collectors.toMap(PaymentResponse::getOrderId, Function.identity(), (first, second) -> first));
+        for (Order order : orders) {
+            PaymentResponse response = responsesByOrder.get(order.getOrderId());
+            /* Left out of the response, or not final yet, means payment-service may still charge it */
+            if (response == null || !isFinal(response)) {
+                retry(order);
+            } else {
+                apply(order, response);
+            }
+        }
+    }
+
+    /*
+     * Retries can outlast a reservation's TTL, so every claim extends the holds. A hold that has
+     * lapsed is taken again under a new reservation. If the stock is gone by now, an order never
+     * sent to payment-service fails; one that may have been charged is asked again anyway, so a
+     * charge that went through is found and flagged for refund, see apply.
+     */
+    private List<Order> holdStock(List<Order> orders) {
+        List<Order> lapsed = orderInventory.extendAll(orders);
+        if (lapsed.isEmpty()) {
+            return orders;
+        }
+        List<Order> payable = new ArrayList<>(orders);
+        for (Order order : lapsed) {
+            String reservationId;
+            try {
+                reservationId = orderInventory.reserveAgain(order);
+            } catch (RuntimeException e) {
+                log.warn("Could not hold stock again for orderId: {}, retrying after the lease: {}", order.getOrderId(), e.getMessage());
+                payable.remove(order);
+                continue;
+            }
+            if (reservationId == null) {
+                if (order.getOutbox().getAttempts() == 0) {
+                    fail(order);
+                    payable.remove(order);
+                }
+                continue;
+            }
+            order.setReservationId(reservationId);
+            if (!orderRepository.replaceReservation(order.getOrderId(), order.getOutbox().getClaimToken(), reservationId)) {
+                /* Claimed again or cancelled meanwhile; whoever has it now settles it */
+                orderInventory.release(order);
+                payable.remove(order);
+            }
+        }
+        return payable;
+    }
+
+    private void apply(Order order, PaymentResponse response) {
+        String orderId = order.getOrderId();
+        String claimToken = order.getOutbox().getClaimToken();
+        String paymentId = response.getPaymentId();
+        if (!PaymentStatus.SUCCESS.name().equals(response.getStatus())) {
+            if (orderRepository.completePaymentOutbox(orderId, claimToken, OrderStatus.FAILED, paymentId)) {
+                orderInventory.release(order);
+            } else {
+                log.warn("Order {} changed while its payment was in flight, payment status {} not applied", orderId, response.getStatus());
+            }
+            return;
+        }
+
+        /* Stock first: a paid order only becomes PLACED once its stock is taken for good */
+        if (!orderInventory.confirm(order)) {
+            orderRepository.completePaymentOutbox(orderId, claimToken, OrderStatus.CANCELLED, paymentId);
+            if (orderRepository.flagRefundDue(orderId, paymentId)) {
+                log.error("Order {} was paid by {} after its stock ran out, cancelled and flagged for refund", orderId, paymentId);
+            }
+            return;
+        }
+        if (orderRepository.completePaymentOutbox(orderId, claimToken, OrderStatus.PLACED, paymentId)) {
+            return;
+        }
+        if (orderRepository.flagRefundDue(orderId, paymentId)) {
+            log.error("Order {} was cancelled while payment {} was in flight, flagged for refund", orderId, paymentId);
+            /* Cancelling a PENDING order only released its hold, which the confirm above has taken for good */
+            try {
+                orderInventory.adjustStock(order.getItems(), 1);
+            } catch (RuntimeException e) {
+                log.error("Stock of cancelled orderId: {} could not be given back: {}", orderId, e.getMessage());
+            }
+        } else {
+            log.warn("Order {} was claimed again while its payment was in flight, the new claim settles it", orderId);
+        }
+    }
+
+    private static boolean isFinal(PaymentResponse response) {
+        return PaymentStatus.SUCCESS.name().equals(response.getStatus())
+                || PaymentStatus.FAILED.name().equals(response.getStatus())
+                || PaymentStatus.CANCELLED.name().equals(response.getStatus());
+    }
+
+    /* Never gives up: the stock stays held and the order PENDING until payment-service answers */
+    private void retry(Order order) {
+        int attempts = order.getOutbox().getAttempts() + 1;
+        if (attempts >= alertAfterAttempts) {
+            log.error("Payment for orderId: {} has no known outcome after {} attempts, still retrying", order.getOrderId(), attempts);
+            unsettled.increment();
+        }
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (backoff.compareTo(maxRetryBackoff) > 0) {
+            backoff = maxRetryBackoff;
+        }
+        orderRepository.retryPaymentOutbox(order.getOrderId(), order.getOutbox().getClaimToken(), attempts, LocalDateTime.now().plus(backoff));
+    }
+
+    private void fail(Order order) {
+        if (orderRepository.completePaymentOutbox(order.getOrderId(), order.getOutbox().getClaimToken(), OrderStatus.FAILED, null)) {
+            orderInventory.release(order);
+        }
+    }
+}
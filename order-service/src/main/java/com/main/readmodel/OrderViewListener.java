@@ -0,0 +1,32 @@
+package com.main.readmodel;
+
+import com.main.entity.Order;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refreshes the order view after every {@code save}/{@code insert} of an order. Partial updates
+ * issued through MongoTemplate raise no events; the repository refreshes the view for those itself.
+ */
+@Component
+public class OrderViewListener extends AbstractMongoEventListener<Order> {
+
+    private final OrderViewStore orderViewStore;
+
+    public OrderViewListener(OrderViewStore orderViewStore) {
+        this.orderViewStore = orderViewStore;
+    }
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Order> event) {
+        Order order = event.getSource();
+        order.setRevision(order.getRevision() + 1);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Order> event) {
+        orderViewStore.put(event.getSource());
+    }
+}
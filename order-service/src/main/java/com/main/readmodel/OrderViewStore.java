@@ -0,0 +1,86 @@
+package com.main.readmodel;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.main.entity.Order;
+import com.main.entity.OrderView;
+import com.main.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Keeps the pre-serialized order responses in {@code order_views} in step with the orders.
+ * A view that could not be written is removed instead, so the next read rebuilds it from the order.
+ */
+@Slf4j
+@Component
+public class OrderViewStore {
+
+    private static final String ORDER_ID = "orderId";
+    private static final String REVISION = "revision";
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
+
+    public OrderViewStore(MongoTemplate mongoTemplate, OrderMapper orderMapper, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderMapper = orderMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Returns the stored JSON body of the order, or null if there is no view yet. */
+    public byte[] find(String orderId) {
+        Query query = new Query(Criteria.where(ORDER_ID).is(orderId));
+        query.fields().include("body");
+        OrderView view = mongoTemplate.findOne(query, OrderView.class);
+        return view == null ? null : view.getBody();
+    }
+
+    /** Serializes the order and stores it, unless a view of a later revision is already there. */
+    public byte[] put(Order order) {
+        byte[] body = render(order);
+        /* Matches only a view that is not newer; when a newer one exists the upsert's insert collides on _id */
+        Query notNewer = new Query(Criteria.where(ORDER_ID).is(order.getOrderId()).and(REVISION).lte(order.getRevision()));
+        try {
+            mongoTemplate.upsert(notNewer, new Update().set(REVISION, order.getRevision()).set("body", body), OrderView.class);
+        } catch (DuplicateKeyException e) {
+            log.debug("Order view {} already past revision {}", order.getOrderId(), order.getRevision());
+        } catch (DataAccessException e) {
+            log.warn("Could not write view of order {}, dropping it: {}", order.getOrderId(), e.getMessage());
+            evict(order.getOrderId());
+        }
+        return body;
+    }
+
+    public void remove(Collection<String> orderIds) {
+        if (!orderIds.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where(ORDER_ID).in(orderIds)), OrderView.class);
+        }
+    }
+
+    private void evict(String orderId) {
+        try {
+            mongoTemplate.remove(new Query(Criteria.where(ORDER_ID).is(orderId)), OrderView.class);
+        } catch (DataAccessException e) {
+            log.error("Order view {} may be stale, it could neither be written nor removed", orderId, e);
+        }
+    }
+
+    /** Serializes the order the way its view stores it, without storing anything. */
+    public byte[] render(Order order) {
+        try {
+            return objectMapper.writeValueAsBytes(orderMapper.toResponse(order));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order " + order.getOrderId(), e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.main.repository;
+
+import com.main.util.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class OrderHistoryFilter {
+
+    private static final String ORDER_ID = "orderId";
+    private static final String ORDER_DATE = "orderDate";
+
+    private String userId;
+    private OrderStatus status;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    /**
+     * Query for up to {@code limit} matching orders, newest first, that come after the given
+     * (orderDate, orderId) position. Works on the live and the archived orders alike.
+     */
+    public Query pageQuery(LocalDateTime afterDate, String afterId, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (status != null) {
+            criteria = criteria.and("status").is(status);
+        }
+        if (from != null || to != null) {
+            Criteria range = criteria.and(ORDER_DATE);
+            if (from != null) range.gte(from);
+            if (to != null) range.lt(to);
+        }
+        if (afterDate != null) {
+            Criteria keyset = new Criteria().orOperator(
+                    Criteria.where(ORDER_DATE).lt(afterDate),
+                    Criteria.where(ORDER_DATE).is(afterDate).and(ORDER_ID).lt(afterId));
+            criteria = new Criteria().andOperator(criteria, keyset);
+        }
+        return new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, ORDER_DATE, ORDER_ID))
+                .limit(limit);
+    }
+}
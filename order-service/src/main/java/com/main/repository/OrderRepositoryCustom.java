@@ -0,0 +1,65 @@
+package com.main.repository;
+
+import com.main.entity.Order;
+import com.main.util.OrderStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Claims up to {@code limit} orders whose payment outbox entry is due. A claim hides the
+     * entry for {@code lease}, so entries held by a crashed relay are picked up again later.
+     */
+    List<Order> claimPaymentOutbox(int limit, Duration lease);
+
+    /**
+     * Applies the payment outcome and removes the outbox entry, but only while the caller's
+     * claim is still current, and refreshes the order view. Returns false if the order changed
+     * in the meantime.
+     */
+    boolean completePaymentOutbox(String orderId, String claimToken, OrderStatus status, String paymentId);
+
+    void retryPaymentOutbox(String orderId, String claimToken, int attempts, LocalDateTime nextAttemptAt);
+
+    /**
+     * Points the order at a new stock reservation after its old hold lapsed, while the caller's
+     * claim is still current. Returns false if the order changed in the meantime.
+     */
+    boolean replaceReservation(String orderId, String claimToken, String reservationId);
+
+    /**
+     * Records a payment that went through for an order cancelled while it was in flight, so it
+     * can be refunded. Returns false if the order is not cancelled, e.g. because another relay
+     * claimed it again and will apply the same outcome itself.
+     */
+    boolean flagRefundDue(String orderId, String paymentId);
+
+    /**
+     * Writes the status, payment ID and refund flag of each order back in a single bulk request, then
+     * refreshes their views.
+     */
+    void updatePaymentOutcomes(List<Order> orders);
+
+    /**
+     * Returns up to {@code limit} of the user's orders, newest first, that come after the
+     * given (orderDate, orderId) position. With {@code summary} set the items array is not read.
+     */
+    List<Order> findHistoryPage(OrderHistoryFilter filter, LocalDateTime afterDate, String afterId, int limit, boolean summary);
+
+    /**
+     * Returns up to {@code limit} orders in one of {@code statuses} that were placed before
+     * {@code before}, oldest first. Walks only those statuses in the {@code status_orderDate} index,
+     * so orders that never finish are not scanned again on every run.
+     */
+    List<Order> findArchivable(LocalDateTime before, Collection<OrderStatus> statuses, int limit);
+
+    /**
+     * Deletes the given orders and their views, skipping any order written since it was read.
+     * Returns the IDs of the orders left in place.
+     */
+    List<String> removeArchived(List<Order> orders);
+}
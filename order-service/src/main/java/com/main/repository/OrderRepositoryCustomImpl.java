@@ -0,0 +1,173 @@
+package com.main.repository;
+
+import com.main.entity.Order;
+import com.main.readmodel.OrderViewStore;
+import com.main.util.OrderStatus;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final String ORDER_ID = "orderId";
+    private static final String OUTBOX = "outbox";
+    private static final String OUTBOX_NEXT_ATTEMPT = "outbox.nextAttemptAt";
+    private static final String OUTBOX_CLAIM_TOKEN = "outbox.claimToken";
+    private static final String REVISION = "revision";
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderViewStore orderViewStore;
+
+    public OrderRepositoryCustomImpl(MongoTemplate mongoTemplate, OrderViewStore orderViewStore) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderViewStore = orderViewStore;
+    }
+
+    @Override
+    public List<Order> claimPaymentOutbox(int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Query due = new Query(Criteria.where(OUTBOX_NEXT_ATTEMPT).lte(now)).limit(limit);
+        due.fields().include(ORDER_ID);
+        List<String> orderIds = mongoTemplate.find(due, Order.class).stream()
+                .map(Order::getOrderId)
+                .toList();
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+
+        /* Tag the batch with one token so it can be claimed and read back in two round trips */
+        String claimToken = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where(ORDER_ID).in(orderIds).and(OUTBOX_NEXT_ATTEMPT).lte(now)),
+                new Update().set(OUTBOX_CLAIM_TOKEN, claimToken).set(OUTBOX_NEXT_ATTEMPT, now.plus(lease)),
+                Order.class);
+        return mongoTemplate.find(new Query(Criteria.where(OUTBOX_CLAIM_TOKEN).is(claimToken)), Order.class);
+    }
+
+    @Override
+    public boolean completePaymentOutbox(String orderId, String claimToken, OrderStatus status, String paymentId) {
+        Update update = new Update()
+                .set("status", status)
+                .set("updatedAt", LocalDateTime.now())
+                .unset(OUTBOX)
+                .inc(REVISION, 1);
+        if (paymentId != null) {
+            update.set("paymentId", paymentId);
+        }
+        Order completed = mongoTemplate.findAndModify(claimed(orderId, claimToken), update,
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (completed == null) {
+            return false;
+        }
+        orderViewStore.put(completed);
+        return true;
+    }
+
+    @Override
+    public void retryPaymentOutbox(String orderId, String claimToken, int attempts, LocalDateTime nextAttemptAt) {
+        mongoTemplate.updateFirst(claimed(orderId, claimToken), new Update()
+                .set("outbox.attempts", attempts)
+                .set(OUTBOX_NEXT_ATTEMPT, nextAttemptAt)
+                .unset(OUTBOX_CLAIM_TOKEN), Order.class);
+    }
+
+    @Override
+    public boolean replaceReservation(String orderId, String claimToken, String reservationId) {
+        return mongoTemplate.updateFirst(claimed(orderId, claimToken), new Update().set("reservationId", reservationId), Order.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean flagRefundDue(String orderId, String paymentId) {
+        Query cancelled = new Query(Criteria.where(ORDER_ID).is(orderId).and("status").is(OrderStatus.CANCELLED));
+        Update update = new Update()
+                .set("refundPaymentId", paymentId)
+                .set("updatedAt", LocalDateTime.now())
+                .inc(REVISION, 1);
+        Order flagged = mongoTemplate.findAndModify(cancelled, update, FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (flagged == null) {
+            return false;
+        }
+        orderViewStore.put(flagged);
+        return true;
+    }
+
+    private Query claimed(String orderId, String claimToken) {
+        return new Query(Criteria.where(ORDER_ID).is(orderId).and(OUTBOX_CLAIM_TOKEN).is(claimToken));
+    }
+
+    @Override
+    public void updatePaymentOutcomes(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        for (Order order : orders) {
+            bulk.updateOne(
+                    new Query(Criteria.where(ORDER_ID).is(order.getOrderId())),
+                    new Update().set("status", order.getStatus()).set("paymentId", order.getPaymentId())
+                            .set("refundPaymentId", order.getRefundPaymentId()).set("updatedAt", now)
+                            .inc(REVISION, 1));
+        }
+        bulk.execute();
+
+        /* Read the orders back for their new revisions before refreshing the views */
+        List<String> orderIds = orders.stream().map(Order::getOrderId).toList();
+        mongoTemplate.find(new Query(Criteria.where(ORDER_ID).in(orderIds)), Order.class)
+                .forEach(orderViewStore::put);
+    }
+
+    @Override
+    public List<Order> findHistoryPage(OrderHistoryFilter filter, LocalDateTime afterDate, String afterId, int limit, boolean summary) {
+        Query query = filter.pageQuery(afterDate, afterId, limit);
+        if (summary) {
+            query.fields().exclude("items").exclude(OUTBOX);
+        }
+        return mongoTemplate.find(query, Order.class);
+    }
+
+    @Override
+    public List<Order> findArchivable(LocalDateTime before, Collection<OrderStatus> statuses, int limit) {
+        Query query = new Query(Criteria.where("status").in(statuses).and("orderDate").lt(before))
+                .with(Sort.by(Sort.Direction.ASC, "orderDate"))
+                .limit(limit);
+        return mongoTemplate.find(query, Order.class);
+    }
+
+    @Override
+    public List<String> removeArchived(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        for (Order order : orders) {
+            bulk.remove(new Query(Criteria.where(ORDER_ID).is(order.getOrderId()).and(REVISION).is(order.getRevision())));
+        }
+        int removed = bulk.execute().getDeletedCount();
+
+        List<String> orderIds = orders.stream().map(Order::getOrderId).toList();
+        List<String> kept = List.of();
+        if (removed < orders.size()) {
+            Query remaining = new Query(Criteria.where(ORDER_ID).in(orderIds));
+            remaining.fields().include(ORDER_ID);
+            kept = mongoTemplate.find(remaining, Order.class).stream().map(Order::getOrderId).toList();
+        }
+        Set<String> gone = new HashSet<>(orderIds);
+        kept.forEach(gone::remove);
+        orderViewStore.remove(gone);
+        return kept;
+    }
+}
@@ -1,15 +1,24 @@
 package com.main.service;
 
+import com.main.dtos.OrderPlacementResult;
 import com.main.dtos.OrderRequest;
 import com.main.dtos.OrderResponse;
+import com.main.dtos.OrderSummaryResponse;
+import com.main.dtos.PageResponse;
+import com.main.repository.OrderHistoryFilter;
 import com.main.util.OrderStatus;
 
 import java.util.List;
 
 public interface OrderService {
     OrderResponse placeOrder(OrderRequest orderRequest);
+    List<OrderPlacementResult> placeOrders(List<OrderRequest> orderRequests);
     OrderResponse getOrderDetails(String id);
+    /** The order's {@code OrderResponse} as stored JSON, served from the order view. */
+    byte[] getOrderDetailsJson(String id);
     List<OrderResponse> getAllOrderDetailsByUser(String userId);
+    PageResponse<OrderSummaryResponse> getOrderHistory(OrderHistoryFilter filter, String cursor, int limit);
+    PageResponse<OrderResponse> getOrderHistoryDetails(OrderHistoryFilter filter, String cursor, int limit);
     OrderResponse updateOrderDetails(String id, OrderRequest orderRequest);
     String cancelOrder(String id);
     void updateOrderStatus(String id, OrderStatus Status);
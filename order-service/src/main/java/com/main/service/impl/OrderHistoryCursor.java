@@ -0,0 +1,45 @@
+package com.main.service.impl;
+
+import com.main.Exceptions.BusinessException;
+import com.main.entity.Order;
+import com.main.util.OrderServiceConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a user's order history, the (orderDate, orderId) of the last order on a page.
+ * Handed to clients as opaque URL-safe Base64.
+ */
+@Slf4j
+final class OrderHistoryCursor {
+
+    private OrderHistoryCursor() {
+    }
+
+    static String encode(Order last) {
+        String position = last.getOrderDate() + "|" + last.getOrderId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** The orderDate and orderId of the cursor; anything that did not come from {@link #encode} is a bad request. */
+    static Position decode(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (position.length == 2 && ObjectId.isValid(position[1])) {
+                return new Position(LocalDateTime.parse(position[0]), position[1]);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.debug("Rejected order history cursor {}", cursor, e);
+        }
+        throw new BusinessException(OrderServiceConstants.INVALID_CURSOR + cursor, HttpStatus.BAD_REQUEST);
+    }
+
+    record Position(LocalDateTime orderDate, String orderId) {
+    }
+}
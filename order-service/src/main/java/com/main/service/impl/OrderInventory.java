@@ -0,0 +1,190 @@
+package com.main.service.impl;
+
+import com.main.Exceptions.BusinessException;
+import com.main.dtos.OrderItemRequestDto;
+import com.main.dtos.ReservationRequest;
+import com.main.dtos.ReservationResponse;
+import com.main.dtos.StockUpdateRequest;
+import com.main.entity.Order;
+import com.main.entity.OrderItem;
+import com.main.feign.ProductClient;
+import com.main.util.OrderServiceConstants;
+import com.main.util.ReservationStatus;
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stock operations an order needs from product-service: hold stock while payment runs,
+ * then confirm or release the hold, or adjust stock directly for orders outside a hold.
+ */
+@Slf4j
+@Component
+public class OrderInventory {
+
+    private final ProductClient productClient;
+    private final int reservationTtlSeconds;
+
+    public OrderInventory(ProductClient productClient,
+                          @Value("${order.reservation.ttl-seconds:300}") int reservationTtlSeconds) {
+        this.productClient = productClient;
+        this.reservationTtlSeconds = reservationTtlSeconds;
+    }
+
+    public String reserve(List<OrderItem> items) {
+        ReservationResponse reservation = productClient.reserveStock(toReservationRequest(items)).getBody();
+        if (reservation == null || reservation.getStatus() != ReservationStatus.HELD) {
+            throw new BusinessException(OrderServiceConstants.STOCK_RESERVATION_FAILED, HttpStatus.CONFLICT);
+        }
+        return reservation.getReservationId();
+    }
+
+    /**
+     * Holds stock for several orders in one call. The returned list lines up with {@code orders}
+     * and holds null for each order whose stock could not be reserved.
+     */
+    public List<String> reserveAll(List<Order> orders) {
+        List<ReservationRequest> requests = orders.stream()
+                .map(order -> toReservationRequest(order.getItems()))
+                .toList();
+        List<ReservationResponse> reservations = productClient.reserveStockBatch(requests).getBody();
+        if (reservations == null || reservations.size() != orders.size()) {
+            throw new BusinessException(OrderServiceConstants.STOCK_RESERVATION_FAILED, HttpStatus.BAD_GATEWAY);
+        }
+        return reservations.stream()
+                .map(reservation -> reservation.getStatus() == ReservationStatus.HELD ? reservation.getReservationId() : null)
+                .toList();
+    }
+
+    /**
+     * Confirms the holds of several paid orders. Returns the orders whose stock could not be
+     * taken, see {@link #confirm}.
+     */
+    public List<Order> confirmAll(List<Order> orders) {
+        if (orders.isEmpty()) return List.of();
+        List<ReservationResponse> confirmed;
+        try {
+            confirmed = productClient.confirmReservations(reservationIds(orders)).getBody();
+        } catch (FeignException e) {
+            log.warn("Batch confirm failed for {} orders, confirming one by one", orders.size());
+            return orders.stream().filter(order -> !confirm(order)).toList();
+        }
+
+        List<Order> unstocked = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            if (confirmed == null || confirmed.get(i).getStatus() != ReservationStatus.CONFIRMED) {
+                log.warn("Reservation {} could not be confirmed for orderId: {}, deducting stock directly",
+                        order.getReservationId(), order.getOrderId());
+                if (!deduct(order)) {
+                    unstocked.add(order);
+                }
+            }
+        }
+        return unstocked;
+    }
+
+    public void releaseAll(List<Order> orders) {
+        if (orders.isEmpty()) return;
+        try {
+            productClient.releaseReservations(reservationIds(orders));
+        } catch (FeignException e) {
+            log.warn("{} reservations could not be released, they will expire on their own", orders.size());
+        }
+    }
+
+    /**
+     * Pushes the holds of orders whose payment is still being retried another TTL out, and
+     * returns the orders whose hold had already lapsed. If product-service cannot be asked none
+     * are returned; a lapsed hold is then still caught when the paid order is confirmed.
+     */
+    public List<Order> extendAll(List<Order> orders) {
+        if (orders.isEmpty()) return List.of();
+        List<ReservationResponse> extended;
+        try {
+            extended = productClient.extendReservations(reservationIds(orders), reservationTtlSeconds).getBody();
+        } catch (FeignException e) {
+            log.warn("Reservations of {} orders could not be extended: {}", orders.size(), e.getMessage());
+            return List.of();
+        }
+        if (extended == null || extended.size() != orders.size()) {
+            return List.of();
+        }
+        List<Order> lapsed = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (extended.get(i).getStatus() != ReservationStatus.HELD) {
+                lapsed.add(orders.get(i));
+            }
+        }
+        return lapsed;
+    }
+
+    /** Holds the order's stock again after its hold lapsed; null if the stock is no longer there. */
+    public String reserveAgain(Order order) {
+        try {
+            return reserve(order.getItems());
+        } catch (FeignException.Conflict | BusinessException e) {
+            log.warn("Stock for orderId: {} could not be held again: {}", order.getOrderId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Makes the stock deduction of a paid order permanent. A hold that lapsed while payment was
+     * in flight is replaced by taking the stock directly, which the stock validator refuses if it
+     * has been sold since. Returns false in that case: the order cannot ship and its payment has
+     * to be refunded.
+     */
+    public boolean confirm(Order order) {
+        try {
+            productClient.confirmReservation(order.getReservationId());
+            return true;
+        } catch (FeignException e) {
+            log.warn("Reservation {} could not be confirmed for orderId: {}, deducting stock directly",
+                    order.getReservationId(), order.getOrderId());
+            return deduct(order);
+        }
+    }
+
+    private boolean deduct(Order order) {
+        try {
+            adjustStock(order.getItems(), -1);
+            return true;
+        } catch (FeignException e) {
+            log.error("Stock could not be deducted for paid orderId: {}: {}", order.getOrderId(), e.getMessage());
+            return false;
+        }
+    }
+
+    public void release(Order order) {
+        try {
+            productClient.releaseReservation(order.getReservationId());
+        } catch (FeignException e) {
+            log.warn("Reservation {} could not be released for orderId: {}, it will expire on its own",
+                    order.getReservationId(), order.getOrderId());
+        }
+    }
+
+    public void adjustStock(List<OrderItem> items, int multiplier) {
+        List<StockUpdateRequest.StockUpdateItem> stockUpdates = items.stream()
+                .map(item -> new StockUpdateRequest.StockUpdateItem(item.getProductId(), item.getQuantity() * multiplier))
+                .toList();
+        productClient.updateStock(new StockUpdateRequest(stockUpdates));
+    }
+
+    private ReservationRequest toReservationRequest(List<OrderItem> items) {
+        List<OrderItemRequestDto> reservedItems = items.stream()
+                .map(item -> new OrderItemRequestDto(item.getProductId(), item.getQuantity()))
+                .toList();
+        return new ReservationRequest(null, reservedItems, reservationTtlSeconds);
+    }
+
+    private static List<String> reservationIds(List<Order> orders) {
+        return orders.stream().map(Order::getReservationId).toList();
+    }
+}
@@ -1,34 +1,54 @@
 package com.main.service.impl;
 
 import com.main.Exceptions.BusinessException;
-import com.main.dtos.OrderItemDto;
+import com.main.archive.OrderArchive;
 import com.main.dtos.OrderRequest;
 import com.main.dtos.OrderItemRequestDto;
+import com.main.dtos.OrderPlacementResult;
 import com.main.dtos.OrderResponse;
+import com.main.dtos.OrderSummaryResponse;
+import com.main.dtos.PageResponse;
 import com.main.dtos.PaymentRequest;
 import com.main.dtos.PaymentResponse;
 import com.main.dtos.ProductResponse;
-import com.main.dtos.StockUpdateRequest;
 import com.main.dtos.UserResponse;
 import com.main.entity.Order;
 import com.main.entity.OrderItem;
+import com.main.entity.PaymentOutbox;
+import com.main.feign.CallBudget;
 import com.main.feign.PaymentClient;
-import com.main.feign.ProductClient;
-import com.main.feign.UserClient;
+import com.main.feign.RemoteFailures;
+import com.main.lookup.ProductLookup;
+import com.main.lookup.UserLookup;
+import com.main.mapper.OrderMapper;
+import com.main.metrics.OrderMetrics;
+import com.main.readmodel.OrderViewStore;
+import com.main.repository.OrderHistoryFilter;
 import com.main.repository.OrderRepository;
 import com.main.service.OrderService;
 import com.main.util.OrderServiceConstants;
 import com.main.util.OrderStatus;
 import com.main.util.PaymentStatus;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -36,171 +56,495 @@ import java.util.stream.Collectors;
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    /* Newest first, the order history pages are sorted in */
+    private static final Comparator<Order> HISTORY_ORDER = Comparator.comparing(Order::getOrderDate)
+            .thenComparing(Order::getOrderId)
+            .reversed();
+
     private final OrderRepository orderRepository;
-    private final ModelMapper modelMapper;
-    private final UserClient userClient;
-    private final ProductClient productClient;
+    private final OrderMapper orderMapper;
+    private final OrderViewStore orderViewStore;
+    private final OrderArchive orderArchive;
+    private final UserLookup userLookup;
+    private final ProductLookup productLookup;
     private final PaymentClient paymentClient;
-
-    public OrderServiceImpl(OrderRepository orderRepository, ModelMapper modelMapper, UserClient userClient, ProductClient productClient, PaymentClient paymentClient) {
+    private final CallBudget callBudget;
+    private final OrderInventory orderInventory;
+    private final Executor fanOutExecutor;
+    private final OrderMetrics orderMetrics;
+    private final long placeOrderTimeoutNanos;
+    private final boolean asyncPayment;
+
+    public OrderServiceImpl(OrderRepository orderRepository, OrderMapper orderMapper, OrderViewStore orderViewStore, OrderArchive orderArchive,
+                            UserLookup userLookup, ProductLookup productLookup, PaymentClient paymentClient, CallBudget callBudget,
+                            OrderInventory orderInventory, @Qualifier("orderFanOutExecutor") Executor fanOutExecutor, OrderMetrics orderMetrics,
+                            @Value("${order.place.timeout-ms:10000}") long placeOrderTimeoutMs,
+                            @Value("${order.payment.mode:sync}") String paymentMode) {
         this.orderRepository = orderRepository;
-        this.modelMapper = modelMapper;
-        this.userClient = userClient;
-        this.productClient = productClient;
+        this.orderMapper = orderMapper;
+        this.orderViewStore = orderViewStore;
+        this.orderArchive = orderArchive;
+        this.userLookup = userLookup;
+        this.productLookup = productLookup;
         this.paymentClient = paymentClient;
+        this.callBudget = callBudget;
+        this.orderInventory = orderInventory;
+        this.fanOutExecutor = fanOutExecutor;
+        this.orderMetrics = orderMetrics;
+        this.placeOrderTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(placeOrderTimeoutMs);
+        this.asyncPayment = "async".equalsIgnoreCase(paymentMode);
     }
 
     @Override
     public OrderResponse placeOrder(OrderRequest orderRequest) {
-        /* Verify user existence */
-        UserResponse user = userClient.getUserById(orderRequest.getUserId());
+        return orderMetrics.time("total", () -> doPlaceOrder(orderRequest));
+    }
+
+    private OrderResponse doPlaceOrder(OrderRequest orderRequest) {
+        long deadline = System.nanoTime() + placeOrderTimeoutNanos;
+
+        /* Verify user existence and retrieve product details side by side, neither needs the other */
+        List<String> productIds = orderRequest.getItems().stream()
+                .map(OrderItemRequestDto::getProductId)
+                .distinct()
+                .toList();
+        CompletableFuture<UserResponse> userCall = CompletableFuture.supplyAsync(
+                () -> orderMetrics.time("user", () -> userLookup.getUserById(orderRequest.getUserId(), deadline)), fanOutExecutor);
+        CompletableFuture<List<ProductResponse>> productCall = CompletableFuture.supplyAsync(
+                () -> orderMetrics.time("products", () -> productLookup.getProductsByIds(productIds, deadline)), fanOutExecutor);
+        awaitAll(deadline, userCall, productCall);
+
+        UserResponse user = userCall.join();
         if (user == null) {
             log.info(OrderServiceConstants.USER_NOT_EXISTS_LOG);
-            throw new BusinessException(OrderServiceConstants.USER_NOT_EXISTS);
+            throw new BusinessException(OrderServiceConstants.USER_NOT_EXISTS, HttpStatus.BAD_REQUEST);
         }
 
-        /* Retrieve product details */
-        List<String> productIds = orderRequest.getItems().stream()
+        List<ProductResponse> productList = productCall.join();
+        if (productList == null || productList.isEmpty()) {
+            throw new BusinessException(OrderServiceConstants.PRODUCT_NOT_FOUND, HttpStatus.BAD_REQUEST);
+        }
+
+        Order order = orderMetrics.time("validation", () -> buildOrder(orderRequest, toProductMap(productList)));
+
+        /* Hold stock until payment settles; the hold expires by itself if this flow never finishes */
+        checkDeadline(deadline);
+        order.setReservationId(orderMetrics.time("stock-reserve", () -> orderInventory.reserve(order.getItems())));
+
+        /* In async mode the outbox entry is saved with the order and the relay takes it from here */
+        if (asyncPayment) {
+            order.setOutbox(new PaymentOutbox(orderRequest.getPaymentMethod(), 0, LocalDateTime.now(), null));
+        }
+        orderMetrics.time("save-pending", () -> orderRepository.save(order));
+        if (asyncPayment) {
+            log.info("Order {} accepted, payment queued", order.getOrderId());
+            return orderMetrics.time("mapping", () -> orderMapper.toResponse(order));
+        }
+
+        // Process payment
+        PaymentResponse paymentResponse;
+        try {
+            checkDeadline(deadline);
+            paymentResponse = orderMetrics.time("payment", () -> processPayment(order, orderRequest, deadline));
+        } catch (RuntimeException e) {
+            if (!(e instanceof BusinessException) && !RemoteFailures.isRejected(e) && !RemoteFailures.wasNotSent(e)) {
+                /* The charge may have gone through; the outbox relay asks again under the same key and settles it */
+                log.warn("Payment outcome unknown for orderId: {}, handing it to the outbox: {}", order.getOrderId(), e.getMessage());
+                order.setOutbox(new PaymentOutbox(orderRequest.getPaymentMethod(), 1, LocalDateTime.now(), null));
+                orderRepository.save(order);
+                return orderMetrics.time("mapping", () -> orderMapper.toResponse(order));
+            }
+            log.error("Payment call failed for orderId: {}", order.getOrderId());
+            order.setStatus(OrderStatus.FAILED);
+            orderInventory.release(order);
+            orderRepository.save(order);
+            throw e;
+        }
+
+        if (PaymentStatus.SUCCESS.name().equals(paymentResponse.getStatus())) {
+            if (orderMetrics.time("stock-confirm", () -> orderInventory.confirm(order))) {
+                order.setStatus(OrderStatus.PLACED);
+            } else {
+                log.error("Order {} was paid by {} after its stock ran out, cancelled and flagged for refund",
+                        order.getOrderId(), paymentResponse.getPaymentId());
+                order.setStatus(OrderStatus.CANCELLED);
+                order.setRefundPaymentId(paymentResponse.getPaymentId());
+            }
+        } else {
+            order.setStatus(OrderStatus.FAILED);
+            orderMetrics.time("stock-release", () -> orderInventory.release(order)); // Return held stock on failure
+        }
+
+        orderMetrics.time("save-final", () -> orderRepository.save(order));
+
+        return orderMetrics.time("mapping", () -> orderMapper.toResponse(order, paymentResponse.getPaymentId()));
+    }
+
+    @Override
+    public List<OrderPlacementResult> placeOrders(List<OrderRequest> orderRequests) {
+        long deadline = System.nanoTime() + placeOrderTimeoutNanos;
+        log.info("Placing a batch of {} orders", orderRequests.size());
+
+        /* One lookup per service for the whole batch, however many orders share a user or product */
+        List<String> userIds = orderRequests.stream().map(OrderRequest::getUserId).distinct().toList();
+        List<String> productIds = orderRequests.stream()
+                .flatMap(request -> request.getItems().stream())
                 .map(OrderItemRequestDto::getProductId)
                 .distinct()
                 .toList();
-        ResponseEntity<List<ProductResponse>> response = productClient.getProductsByIds(productIds);
-        List<ProductResponse> productList = response.getBody();
-        if (productList == null || productList.isEmpty()) {
-            throw new BusinessException(OrderServiceConstants.PRODUCT_NOT_FOUND);
+        CompletableFuture<List<UserResponse>> userCall = CompletableFuture.supplyAsync(
+                () -> orderMetrics.time("user", () -> userLookup.getUsersByIds(userIds, deadline)), fanOutExecutor);
+        CompletableFuture<List<ProductResponse>> productCall = CompletableFuture.supplyAsync(
+                () -> orderMetrics.time("products", () -> productLookup.getProductsByIds(productIds, deadline)), fanOutExecutor);
+        awaitAll(deadline, userCall, productCall);
+
+        Set<String> knownUsers = userCall.join().stream().map(UserResponse::getId).collect(Collectors.toSet());
+        Map<String, ProductResponse> productMap = toProductMap(productCall.join() == null ? List.of() : productCall.join());
+
+        OrderPlacementResult[] results = new OrderPlacementResult[orderRequests.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < orderRequests.size(); i++) {
+            OrderRequest request = orderRequests.get(i);
+            if (!knownUsers.contains(request.getUserId())) {
+                results[i] = new OrderPlacementResult(i, null, OrderServiceConstants.USER_NOT_EXISTS);
+                continue;
+            }
+            try {
+                orders.add(buildOrder(request, productMap));
+                positions.add(i);
+            } catch (BusinessException e) {
+                results[i] = new OrderPlacementResult(i, null, e.getMessage());
+            }
+        }
+        if (orders.isEmpty()) {
+            return List.of(results);
         }
 
-        /* Map products by ID for efficient lookup */
-        Map<String, ProductResponse> productMap = productList.stream()
-                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+        checkDeadline(deadline);
+        List<String> reservationIds = orderInventory.reserveAll(orders);
+        List<Order> held = new ArrayList<>();
+        List<Integer> heldPositions = new ArrayList<>();
+        for (int k = 0; k < orders.size(); k++) {
+            Order order = orders.get(k);
+            if (reservationIds.get(k) == null) {
+                results[positions.get(k)] = new OrderPlacementResult(positions.get(k), null, OrderServiceConstants.STOCK_RESERVATION_FAILED);
+                continue;
+            }
+            order.setReservationId(reservationIds.get(k));
+            if (asyncPayment) {
+                order.setOutbox(new PaymentOutbox(orderRequests.get(positions.get(k)).getPaymentMethod(), 0, LocalDateTime.now(), null));
+            }
+            held.add(order);
+            heldPositions.add(positions.get(k));
+        }
+        if (held.isEmpty()) {
+            return List.of(results);
+        }
+        orderRepository.saveAll(held);
 
-        /* Map OrderRequest DTO to Order entity */
-        Order order = modelMapper.map(orderRequest, Order.class);
+        if (!asyncPayment) {
+            settlePayments(held, heldPositions, orderRequests, results, deadline);
+        }
+        for (int k = 0; k < held.size(); k++) {
+            if (results[heldPositions.get(k)] == null) {
+                results[heldPositions.get(k)] = new OrderPlacementResult(heldPositions.get(k), orderMapper.toResponse(held.get(k)), null);
+            }
+        }
+        return List.of(results);
+    }
+
+    /*
+     * Payments whose outcome is not known, because the call timed out, failed in transit, or
+     * payment-service left them out of its answer as retryable, stay PENDING with an outbox entry.
+     * The relay resends them under the same per-order key, so a charge that did go through is
+     * found instead of repeated. Only declined payments, or a batch that was refused outright,
+     * fail their orders and release the stock.
+     */
+    private void settlePayments(List<Order> orders, List<Integer> positions, List<OrderRequest> requests, OrderPlacementResult[] results,
+                                long deadline) {
+        List<PaymentRequest> paymentRequests = new ArrayList<>(orders.size());
+        for (int k = 0; k < orders.size(); k++) {
+            Order order = orders.get(k);
+            paymentRequests.add(orderMapper.toPaymentRequest(order, requests.get(positions.get(k)).getPaymentMethod()));
+        }
 
-        /* Populate OrderItem details with trusted product data */
+        Map<String, PaymentResponse> payments = Map.of();
+        boolean refused = false;
+        boolean sent = false;
+        if (System.nanoTime() - deadline > 0) {
+            log.warn("Deadline passed before paying for {} orders, handing them to the outbox", orders.size());
+        } else {
+            sent = true;
+            try {
+                List<PaymentResponse> responses = orderMetrics.time("payment",
+                        () -> paymentClient.processPayments(paymentRequests, callBudget.until(deadline)).getBody());
+                payments = responses == null ? Map.of() : responses.stream()
+                        .collect(Collectors.toMap(PaymentResponse::getOrderId, Function.identity(), (first, second) -> first));
+            } catch (RuntimeException e) {
+                refused = RemoteFailures.isRejected(e) || RemoteFailures.wasNotSent(e);
+                if (refused) {
+                    log.error("Batch payment call refused for {} orders", orders.size(), e);
+                } else {
+                    log.warn("Batch payment outcome unknown for {} orders, handing them to the outbox: {}", orders.size(), e.getMessage());
+                }
+            }
+        }
+
+        List<Order> paid = new ArrayList<>();
+        List<Order> unpaid = new ArrayList<>();
+        List<Order> queued = new ArrayList<>();
+        for (int k = 0; k < orders.size(); k++) {
+            Order order = orders.get(k);
+            PaymentResponse payment = payments.get(order.getOrderId());
+            if (payment == null && !refused) {
+                order.setOutbox(new PaymentOutbox(requests.get(positions.get(k)).getPaymentMethod(), sent ? 1 : 0, LocalDateTime.now(), null));
+                queued.add(order);
+            } else if (payment != null && PaymentStatus.SUCCESS.name().equals(payment.getStatus())) {
+                order.setStatus(OrderStatus.PLACED);
+                order.setPaymentId(payment.getPaymentId());
+                paid.add(order);
+            } else {
+                order.setStatus(OrderStatus.FAILED);
+                unpaid.add(order);
+                results[positions.get(k)] = new OrderPlacementResult(positions.get(k), orderMapper.toResponse(order),
+                        OrderServiceConstants.PAYMENT_FAILED);
+            }
+        }
+        if (!queued.isEmpty()) {
+            orderRepository.saveAll(queued);
+        }
+        for (Order order : orderInventory.confirmAll(paid)) {
+            log.error("Order {} was paid by {} after its stock ran out, cancelled and flagged for refund",
+                    order.getOrderId(), order.getPaymentId());
+            order.setStatus(OrderStatus.CANCELLED);
+            order.setRefundPaymentId(order.getPaymentId());
+            int position = positions.get(orders.indexOf(order));
+            results[position] = new OrderPlacementResult(position, orderMapper.toResponse(order), OrderServiceConstants.STOCK_SOLD_OUT_REFUND);
+        }
+        orderInventory.releaseAll(unpaid);
+        List<Order> settled = new ArrayList<>(paid);
+        settled.addAll(unpaid);
+        orderRepository.updatePaymentOutcomes(settled);
+    }
+
+    private Map<String, ProductResponse> toProductMap(List<ProductResponse> products) {
+        return products.stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity(), (first, second) -> first));
+    }
+
+    /**
+     * Builds a PENDING order from the request, pricing each item from the trusted product data.
+     */
+    private Order buildOrder(OrderRequest orderRequest, Map<String, ProductResponse> productMap) {
+        Order order = orderMapper.toEntity(orderRequest);
         for (OrderItem item : order.getItems()) {
             ProductResponse product = productMap.get(item.getProductId());
             if (product == null) {
-                throw new BusinessException(String.format(OrderServiceConstants.PRODUCT_NOT_FOUND, item.getProductId()));
+                throw new BusinessException(String.format(OrderServiceConstants.PRODUCT_NOT_FOUND, item.getProductId()),
+                        HttpStatus.BAD_REQUEST);
             }
             item.setProductName(product.getName());
             item.setPrice(product.getPrice());
             item.setTotal(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
         }
-
-        /* Validate stock availability */
         validateStockAvailability(order.getItems(), productMap);
 
-        /* Deduct stock */
-        updateStock(order.getItems(), -1);
-
-        /* Calculate total price directly */
         BigDecimal totalPrice = order.getItems().stream()
                 .map(OrderItem::getTotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         order.setTotalAmount(totalPrice);
         order.setStatus(OrderStatus.PENDING);
         order.setOrderDate(LocalDateTime.now());
+        return order;
+    }
 
-        orderRepository.save(order);
-
-        // Process payment
-        PaymentResponse paymentResponse = processPayment(order, orderRequest);
-
-        if (PaymentStatus.SUCCESS.name().equals(paymentResponse.getStatus())) {
-            order.setStatus(OrderStatus.PLACED);
-        } else {
-            order.setStatus(OrderStatus.FAILED);
-            updateStock(order.getItems(), 1); // Restore stock on failure
+    /**
+     * Waits for all calls up to the order deadline. The first failure, or running out of time,
+     * cancels the calls that have not started yet. A call already on the wire cannot be
+     * interrupted; it carries the same deadline as its read timeout (see CallBudget) and ends there.
+     */
+    private void awaitAll(long deadline, CompletableFuture<?>... calls) {
+        CompletableFuture<Object> firstFailure = new CompletableFuture<>();
+        for (CompletableFuture<?> call : calls) {
+            call.whenComplete((result, error) -> {
+                if (error != null) firstFailure.completeExceptionally(error);
+            });
         }
 
-        orderRepository.save(order);
-
-        // Map order items to OrderItemDto
-        List<OrderItemDto> orderItemDtos = order.getItems().stream()
-                .map(item -> {
-                    OrderItemDto dto = modelMapper.map(item, OrderItemDto.class);
-                    dto.setProductName(item.getProductName()); // Ensure productName is set
-                    return dto;
-                })
-                .toList();
+        long start = System.nanoTime();
+        String outcome = OrderMetrics.ERROR;
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(calls), firstFailure)
+                    .get(Math.max(0, deadline - start), TimeUnit.NANOSECONDS);
+            outcome = OrderMetrics.SUCCESS;
+        } catch (TimeoutException e) {
+            outcome = OrderMetrics.TIMEOUT;
+            throw new BusinessException(OrderServiceConstants.ORDER_DEADLINE_EXCEEDED, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(OrderServiceConstants.ORDER_DEADLINE_EXCEEDED, HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            if (!OrderMetrics.SUCCESS.equals(outcome)) {
+                for (CompletableFuture<?> call : calls) call.cancel(true);
+            }
+            orderMetrics.record("fan-out", outcome, System.nanoTime() - start);
+        }
+    }
 
-        return buildOrderResponse(order, paymentResponse, orderItemDtos);
+    private RuntimeException unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error instanceof RuntimeException runtimeException
+                ? runtimeException
+                : new BusinessException(error.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    private void checkDeadline(long deadline) {
+        if (System.nanoTime() - deadline > 0) {
+            throw new BusinessException(OrderServiceConstants.ORDER_DEADLINE_EXCEEDED, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
 
     private void validateStockAvailability(List<OrderItem> items, Map<String, ProductResponse> productMap) {
         for (OrderItem item : items) {
             ProductResponse product = productMap.get(item.getProductId());
             if (product == null) {
-                throw new BusinessException(String.format(OrderServiceConstants.PRODUCT_NOT_FOUND, item.getProductId()));
+                throw new BusinessException(String.format(OrderServiceConstants.PRODUCT_NOT_FOUND, item.getProductId()),
+                        HttpStatus.BAD_REQUEST);
             }
             if (product.getStockQuantity() < item.getQuantity()) {
                 throw new BusinessException(String.format(
                         OrderServiceConstants.PRODUCT_STOCK_INSUFFICIENT,
-                        product.getName(), product.getStockQuantity(), item.getQuantity()));
+                        product.getName(), product.getStockQuantity(), item.getQuantity()), HttpStatus.CONFLICT);
             }
         }
     }
 
-    private void updateStock(List<OrderItem> items, int multiplier) {
-        List<StockUpdateRequest.StockUpdateItem> stockUpdates = items.stream()
-                .map(item -> new StockUpdateRequest.StockUpdateItem(item.getProductId(), item.getQuantity() * multiplier))
-                .toList();
-        productClient.updateStock(new StockUpdateRequest(stockUpdates));
-    }
-
-    private PaymentResponse processPayment(Order order, OrderRequest request) {
-        return paymentClient.processPayment(new PaymentRequest(
-                order.getOrderId(), order.getUserId(), order.getTotalAmount(), request.getPaymentMethod())).getBody();
-    }
-
-    private OrderResponse buildOrderResponse(Order order, PaymentResponse paymentResponse, List<OrderItemDto> items) {
-        return new OrderResponse(
-                order.getOrderId(), order.getUserId(), items, order.getTotalAmount(), order.getStatus(),
-                order.getShippingAddress(), order.getBillingAddress(), order.getOrderDate(), order.getUpdatedAt(), paymentResponse.getPaymentId());
+    private PaymentResponse processPayment(Order order, OrderRequest request, long deadline) {
+        /* Keyed by order so a retried call is answered from the first attempt instead of charging again */
+        return paymentClient.processPayment(orderMapper.toPaymentRequest(order, request.getPaymentMethod()),
+                "order-" + order.getOrderId(), callBudget.until(deadline)).getBody();
     }
 
     @Override
     public OrderResponse getOrderDetails(String id) {
         log.info("Fetching order details for orderId: {}", id);
-        return orderRepository.findById(id)
-                .map(order -> modelMapper.map(order, OrderResponse.class))
+        return findLiveOrArchived(id)
+                .map(order -> orderMapper.toResponse(order))
+                .orElseThrow(() -> {
+                    log.error(OrderServiceConstants.ORDER_NOT_FOUND_LOG, id);
+                    return new BusinessException(String.format(OrderServiceConstants.ORDER_NOT_FOUND, id), HttpStatus.NOT_FOUND);
+                });
+    }
+
+    @Override
+    public byte[] getOrderDetailsJson(String id) {
+        byte[] body = orderViewStore.find(id);
+        if (body != null) {
+            return body;
+        }
+        /* No view yet, e.g. an order written before the read model existed */
+        Optional<Order> live = orderRepository.findById(id);
+        if (live.isPresent()) {
+            log.info("Building order view for orderId: {}", id);
+            return orderViewStore.put(live.get());
+        }
+        /* Archived orders have no view, they are rendered on each read */
+        return orderArchive.find(id)
+                .map(orderViewStore::render)
                 .orElseThrow(() -> {
                     log.error(OrderServiceConstants.ORDER_NOT_FOUND_LOG, id);
-                    return new BusinessException(String.format(OrderServiceConstants.ORDER_NOT_FOUND, id));
+                    return new BusinessException(String.format(OrderServiceConstants.ORDER_NOT_FOUND, id), HttpStatus.NOT_FOUND);
                 });
     }
 
+    private Optional<Order> findLiveOrArchived(String id) {
+        Optional<Order> live = orderRepository.findById(id);
+        return live.isPresent() ? live : orderArchive.find(id);
+    }
+
     @Override
     public List<OrderResponse> getAllOrderDetailsByUser(String userId) {
         log.info("Fetching all orders for userId: {}", userId);
-        List<Order> orders = orderRepository.findAllByUserId(userId);
+        List<Order> orders = withArchived(orderRepository.findAllByUserId(userId), orderArchive.findAllByUserId(userId));
 
         if (orders.isEmpty()) {
             log.warn("No orders found for userId: {}", userId);
-            throw new BusinessException(String.format(OrderServiceConstants.NO_ORDERS_FOUND_FOR_USER, userId));
+            throw new BusinessException(String.format(OrderServiceConstants.NO_ORDERS_FOUND_FOR_USER, userId), HttpStatus.NOT_FOUND);
         }
 
         return orders.stream()
-                .map(order -> modelMapper.map(order, OrderResponse.class))
+                .map(order -> orderMapper.toResponse(order))
                 .toList();
     }
 
+    @Override
+    public PageResponse<OrderSummaryResponse> getOrderHistory(OrderHistoryFilter filter, String cursor, int limit) {
+        log.info("Fetching order history page for userId: {}", filter.getUserId());
+        return historyPage(filter, cursor, limit, true, orderMapper::toSummary);
+    }
+
+    @Override
+    public PageResponse<OrderResponse> getOrderHistoryDetails(OrderHistoryFilter filter, String cursor, int limit) {
+        log.info("Fetching detailed order history page for userId: {}", filter.getUserId());
+        return historyPage(filter, cursor, limit, false, orderMapper::toResponse);
+    }
+
+    private <T> PageResponse<T> historyPage(OrderHistoryFilter filter, String cursor, int limit, boolean summary, Function<Order, T> mapper) {
+        LocalDateTime afterDate = null;
+        String afterId = null;
+        if (cursor != null) {
+            OrderHistoryCursor.Position position = OrderHistoryCursor.decode(cursor);
+            afterDate = position.orderDate();
+            afterId = position.orderId();
+        }
+        int pageSize = Math.max(1, Math.min(limit, OrderServiceConstants.MAX_PAGE_SIZE));
+
+        /* Read one extra row to learn whether another page follows, from both tiers, and keep the newest */
+        List<Order> orders = withArchived(
+                orderRepository.findHistoryPage(filter, afterDate, afterId, pageSize + 1, summary),
+                orderArchive.findHistoryPage(filter, afterDate, afterId, pageSize + 1));
+        orders.sort(HISTORY_ORDER);
+        if (orders.size() > pageSize + 1) {
+            orders = orders.subList(0, pageSize + 1);
+        }
+        boolean hasMore = orders.size() > pageSize;
+        List<Order> page = hasMore ? orders.subList(0, pageSize) : orders;
+        String nextCursor = hasMore ? OrderHistoryCursor.encode(page.get(pageSize - 1)) : null;
+        return new PageResponse<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+
+    /**
+     * Live orders followed by the archived ones not also still live, which happens while an
+     * order is being moved.
+     */
+    private static List<Order> withArchived(List<Order> live, List<Order> archived) {
+        List<Order> orders = new ArrayList<>(live);
+        if (!archived.isEmpty()) {
+            Set<String> liveIds = live.stream().map(Order::getOrderId).collect(Collectors.toSet());
+            archived.stream().filter(order -> !liveIds.contains(order.getOrderId())).forEach(orders::add);
+        }
+        return orders;
+    }
+
     @Override
     public OrderResponse updateOrderDetails(String id, OrderRequest orderRequest) {
         log.info("Updating order details for orderId: {}", id);
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> {
                     log.error("Order with orderId {} not found", id);
-                    return new BusinessException(String.format(OrderServiceConstants.ORDER_NOT_FOUND, id));
+                    return new BusinessException(String.format(OrderServiceConstants.ORDER_NOT_FOUND, id), HttpStatus.NOT_FOUND);
                 });
 
-        modelMapper.map(orderRequest, order);
+        orderMapper.updateEntity(orderRequest, order);
         Order savedOrder = orderRepository.save(order);
 
         log.info("Order with orderId: {} updated successfully", id);
-        return modelMapper.map(savedOrder, OrderResponse.class);
+        return orderMapper.toResponse(savedOrder);
     }
 
     @Override
@@ -210,21 +554,27 @@ public class OrderServiceImpl implements OrderService {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> {
                     log.error(OrderServiceConstants.ORDER_NOT_FOUND_LOG, id);
-                    return new BusinessException(String.format(OrderServiceConstants.ORDER_NOT_FOUND, id));
+                    return new BusinessException(String.format(OrderServiceConstants.ORDER_NOT_FOUND, id), HttpStatus.NOT_FOUND);
                 });
 
         if (order.getStatus() == OrderStatus.DELIVERED) {
             log.warn("Cancellation attempt for already delivered order: {}", id);
-            throw new BusinessException(OrderServiceConstants.ORDER_ALREADY_DELIVERED);
+            throw new BusinessException(OrderServiceConstants.ORDER_ALREADY_DELIVERED, HttpStatus.CONFLICT);
         }
 
         if (order.getStatus() == OrderStatus.CANCELLED) {
             log.warn(OrderServiceConstants.ORDER_ALREADY_CANCELLED, id);
-            throw new BusinessException(OrderServiceConstants.ORDER_ALREADY_CANCELLED);
+            throw new BusinessException(OrderServiceConstants.ORDER_ALREADY_CANCELLED, HttpStatus.CONFLICT);
         }
 
         log.info("Processing stock rollback for orderId: {}", id);
-        updateStock(order.getItems(), 1);
+        if (order.getStatus() == OrderStatus.PENDING && order.getReservationId() != null) {
+            /* Payment never settled, so the stock is still only held */
+            order.setOutbox(null);
+            orderInventory.release(order);
+        } else if (order.getStatus() != OrderStatus.FAILED) {
+            orderInventory.adjustStock(order.getItems(), 1);
+        }
 
         //TODO: Process refund (if applicable)
 
@@ -15,4 +15,11 @@ public class OrderServiceConstants {
     public static final String STOCK_ROLLBACK_PROCESSING = "Processing stock rollback for orderId: {}";
     public static final String ORDER_STATUS_UPDATED = "Updating order status to CANCELED for orderId: {}";
     public static final String ORDER_SUCCESSFULLY_CANCELLED = "Order successfully canceled: {}";
+    public static final String ORDER_DEADLINE_EXCEEDED = "Order could not be placed in time, please retry";
+    public static final String INVALID_CURSOR = "Invalid cursor: ";
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 200;
+    public static final String PAYMENT_FAILED = "Payment failed";
+    public static final String STOCK_RESERVATION_FAILED = "Could not reserve stock for the requested items";
+    public static final String STOCK_SOLD_OUT_REFUND = "Stock ran out before payment settled, the payment will be refunded";
 }
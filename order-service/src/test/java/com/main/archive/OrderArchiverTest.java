@@ -0,0 +1,155 @@
+package com.main.archive;
+
+import com.main.entity.Order;
+import com.main.repository.OrderRepository;
+import com.main.util.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Archive runs against in-memory stand-ins for both tiers. The live tier removes an order only
+ * at the revision it was read at, like the guarded bulk remove.
+ */
+class OrderArchiverTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderArchive orderArchive = mock(OrderArchive.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OrderArchiver archiver = new OrderArchiver(orderRepository, orderArchive, meterRegistry, 90, 2, 10, 1_000_000);
+    private final Map<String, Order> live = new LinkedHashMap<>();
+    private final Map<String, Order> archived = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(orderRepository.findArchivable(any(), any(), anyInt())).thenAnswer(invocation -> live.values().stream()
+                .filter(order -> invocation.<Collection<OrderStatus>>getArgument(1).contains(order.getStatus()))
+                .filter(order -> order.getOrderDate().isBefore(invocation.getArgument(0)))
+                .limit(invocation.<Integer>getArgument(2))
+                .map(OrderArchiverTest::copy)
+                .toList());
+        when(orderRepository.removeArchived(anyList())).thenAnswer(invocation -> {
+            List<String> kept = new ArrayList<>();
+            for (Order order : invocation.<List<Order>>getArgument(0)) {
+                Order current = live.get(order.getOrderId());
+                if (current != null && current.getRevision() == order.getRevision()) {
+                    live.remove(order.getOrderId());
+                } else if (current != null) {
+                    kept.add(order.getOrderId());
+                }
+            }
+            return kept;
+        });
+        doAnswer(invocation -> {
+            invocation.<List<Order>>getArgument(0).forEach(order -> archived.put(order.getOrderId(), copy(order)));
+            return null;
+        }).when(orderArchive).store(anyList());
+        doAnswer(invocation -> {
+            invocation.<Collection<String>>getArgument(0).forEach(archived::remove);
+            return null;
+        }).when(orderArchive).discard(any());
+    }
+
+    @Test
+    void finishedOldOrdersAreCopiedBeforeTheyAreDeleted() {
+        live("o1", OrderStatus.DELIVERED, 200);
+        live("o2", OrderStatus.CANCELLED, 150);
+        live("o3", OrderStatus.FAILED, 100);
+        live("o4", OrderStatus.PLACED, 200);
+        live("o5", OrderStatus.DELIVERED, 10);
+
+        archiver.archive();
+
+        assertThat(archived).containsOnlyKeys("o1", "o2", "o3");
+        assertThat(live).containsOnlyKeys("o4", "o5");
+        assertThat(meterRegistry.get("order.archive.moved").counter().count()).isEqualTo(3);
+        var inOrder = inOrder(orderArchive, orderRepository);
+        inOrder.verify(orderArchive).store(anyList());
+        inOrder.verify(orderRepository).removeArchived(anyList());
+    }
+
+    @Test
+    void anOrderChangedAfterItWasReadStaysLiveAndItsArchiveCopyIsDropped() {
+        live("o1", OrderStatus.DELIVERED, 200);
+        live("o2", OrderStatus.DELIVERED, 200);
+        doAnswer(invocation -> {
+            invocation.<List<Order>>getArgument(0).forEach(order -> archived.put(order.getOrderId(), copy(order)));
+            /* A refund lands on o2 between the copy and the delete */
+            live.get("o2").setRevision(live.get("o2").getRevision() + 1);
+            return null;
+        }).when(orderArchive).store(anyList());
+
+        archiver.archive();
+
+        assertThat(live).containsOnlyKeys("o2");
+        assertThat(archived).containsOnlyKeys("o1");
+        assertThat(meterRegistry.get("order.archive.moved").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void aCopyThatFailedDeletesNothing() {
+        live("o1", OrderStatus.DELIVERED, 200);
+        doThrow(new IllegalStateException("archive down")).when(orderArchive).store(anyList());
+
+        archiver.archive();
+
+        assertThat(live).containsOnlyKeys("o1");
+        verify(orderRepository, never()).removeArchived(anyList());
+    }
+
+    @Test
+    void aRunThatDiedAfterTheCopyIsFinishedByTheNextOne() {
+        live("o1", OrderStatus.DELIVERED, 200);
+        when(orderRepository.removeArchived(anyList())).thenThrow(new IllegalStateException("connection reset"))
+                .thenAnswer(invocation -> {
+                    invocation.<List<Order>>getArgument(0).forEach(order -> live.remove(order.getOrderId()));
+                    return List.of();
+                });
+
+        archiver.archive();
+        /* Both tiers hold the order now; reads prefer the live copy */
+        assertThat(live).containsOnlyKeys("o1");
+        assertThat(archived).containsOnlyKeys("o1");
+
+        archiver.archive();
+        assertThat(live).isEmpty();
+        assertThat(archived).containsOnlyKeys("o1");
+    }
+
+    private void live(String orderId, OrderStatus status, int daysAgo) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setStatus(status);
+        order.setOrderDate(LocalDateTime.now().minusDays(daysAgo));
+        order.setRevision(3);
+        live.put(orderId, order);
+    }
+
+    private static Order copy(Order order) {
+        Order copy = new Order();
+        copy.setOrderId(order.getOrderId());
+        copy.setStatus(order.getStatus());
+        copy.setOrderDate(order.getOrderDate());
+        copy.setRevision(order.getRevision());
+        return copy;
+    }
+}
@@ -0,0 +1,35 @@
+package com.main.feign;
+
+import feign.Request;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CallBudgetTest {
+
+    @Test
+    void connectingWaitsNoLongerThanTheConfiguredConnectTimeout() {
+        Request.Options options = new CallBudget(250).until(System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+
+        assertThat(options.connectTimeoutMillis()).isEqualTo(250);
+        assertThat(options.readTimeoutMillis()).isBetween(9_000, 10_000);
+    }
+
+    @Test
+    void bothTimeoutsShrinkToWhatIsLeftOfTheDeadline() {
+        Request.Options options = new CallBudget(1000).until(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertThat(options.connectTimeoutMillis()).isBetween(1, 100);
+        assertThat(options.readTimeoutMillis()).isEqualTo(options.connectTimeoutMillis());
+    }
+
+    @Test
+    void aDeadlineAlreadyPassedStillGivesAPositiveTimeout() {
+        Request.Options options = new CallBudget(1000).until(System.nanoTime() - TimeUnit.SECONDS.toNanos(1));
+
+        assertThat(options.connectTimeoutMillis()).isEqualTo(1);
+        assertThat(options.readTimeoutMillis()).isEqualTo(1);
+    }
+}
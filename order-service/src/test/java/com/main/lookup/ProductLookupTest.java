@@ -0,0 +1,181 @@
+package com.main.lookup;
+
+import com.main.Exceptions.BusinessException;
+import com.main.dtos.ProductResponse;
+import com.main.feign.CallBudget;
+import com.main.feign.ProductClient;
+import com.main.util.OrderServiceConstants;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductLookupTest {
+
+    /* Long enough for every caller of a test to join the batch its first caller opened */
+    private static final Duration WINDOW = Duration.ofMillis(300);
+
+    private final ProductClient productClient = mock(ProductClient.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /* The ids of every call sent to product-service */
+    private final List<List<String>> sent = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    ProductLookupTest() {
+        when(productClient.getProductsByIds(anyList(), any())).thenAnswer(invocation -> {
+            List<String> ids = List.copyOf(invocation.getArgument(0));
+            sent.add(ids);
+            if (ids.contains("slow")) {
+                release.await();
+            }
+            if (ids.contains("bad")) {
+                throw new FeignException.BadRequest("Unknown product bad", request(), null, null);
+            }
+            if (ids.contains("broken")) {
+                throw new StackOverflowError();
+            }
+            return ResponseEntity.ok(ids.stream().filter(id -> !id.equals("missing")).map(ProductLookupTest::product).toList());
+        });
+    }
+
+    @Test
+    void callersWithinTheWindowShareOneCall() throws Exception {
+        ProductLookup lookup = lookup(WINDOW, 100);
+
+        FutureTask<List<String>> first = start(lookup, "a", "b");
+        FutureTask<List<String>> second = start(lookup, "c", "b");
+        FutureTask<List<String>> third = start(lookup, "missing", "d");
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly("a", "b");
+        assertThat(second.get(5, TimeUnit.SECONDS)).containsExactly("c", "b");
+        assertThat(third.get(5, TimeUnit.SECONDS)).containsExactly("d");
+        assertThat(sent).singleElement().asList().containsExactlyInAnyOrder("a", "b", "c", "missing", "d");
+        assertThat(meterRegistry.get("order.lookup.products").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("order.lookup.products.calls").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void anIdAlreadyInFlightIsNotAskedForAgain() throws Exception {
+        ProductLookup lookup = lookup(Duration.ZERO, 100);
+
+        FutureTask<List<String>> first = start(lookup, "slow", "b");
+        awaitSent(1);
+        FutureTask<List<String>> second = start(lookup, "b", "c");
+        awaitSent(2);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly("slow", "b");
+        assertThat(second.get(5, TimeUnit.SECONDS)).containsExactly("b", "c");
+        assertThat(sent).containsExactly(List.of("slow", "b"), List.of("c"));
+    }
+
+    @Test
+    void aCallerWaitingOnAnotherCallersBatchGivesUpAtItsOwnDeadline() throws Exception {
+        ProductLookup lookup = lookup(Duration.ZERO, 100);
+
+        FutureTask<List<String>> first = start(lookup, "slow", "b");
+        awaitSent(1);
+
+        assertThatThrownBy(() -> lookup.getProductsByIds(List.of("b"), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50)))
+                .isInstanceOfSatisfying(BusinessException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE))
+                .hasMessage(OrderServiceConstants.ORDER_DEADLINE_EXCEEDED);
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly("slow", "b");
+        assertThat(sent).containsExactly(List.of("slow", "b"));
+    }
+
+    @Test
+    void aRequestAsLargeAsABatchGoesOutAlone() {
+        ProductLookup lookup = lookup(Duration.ofHours(1), 2);
+
+        assertThat(lookup.getProductsByIds(List.of("a", "b"), deadline())).extracting(ProductResponse::getId)
+                .containsExactly("a", "b");
+        assertThat(sent).containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    void aRejectedSharedBatchIsAskedForAgainByEachCallerAlone() throws Exception {
+        ProductLookup lookup = lookup(WINDOW, 100);
+
+        FutureTask<List<String>> first = start(lookup, "a", "bad");
+        FutureTask<List<String>> second = start(lookup, "b");
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).cause().isInstanceOf(FeignException.BadRequest.class);
+        assertThat(second.get(5, TimeUnit.SECONDS)).containsExactly("b");
+        assertThat(sent.get(0)).containsExactlyInAnyOrder("a", "bad", "b");
+        assertThat(sent.subList(1, sent.size())).containsExactlyInAnyOrder(List.of("a", "bad"), List.of("b"));
+    }
+
+    @Test
+    void aRejectedBatchOfOneCallerIsNotAskedForAgain() {
+        ProductLookup lookup = lookup(Duration.ZERO, 100);
+
+        assertThatThrownBy(() -> lookup.getProductsByIds(List.of("bad"), deadline()))
+                .isInstanceOf(FeignException.BadRequest.class);
+        assertThat(sent).hasSize(1);
+    }
+
+    @Test
+    void anErrorStillReleasesTheIdsOfItsBatch() {
+        ProductLookup lookup = lookup(Duration.ZERO, 100);
+
+        assertThatThrownBy(() -> lookup.getProductsByIds(List.of("broken", "a"), deadline()))
+                .isInstanceOf(StackOverflowError.class);
+        assertThat(lookup.getProductsByIds(List.of("a"), deadline())).extracting(ProductResponse::getId).containsExactly("a");
+        assertThat(sent).containsExactly(List.of("broken", "a"), List.of("a"));
+    }
+
+    private ProductLookup lookup(Duration window, int maxBatchIds) {
+        return new ProductLookup(productClient, new CallBudget(1000), meterRegistry, window, maxBatchIds);
+    }
+
+    private static FutureTask<List<String>> start(ProductLookup lookup, String... productIds) {
+        Callable<List<String>> caller = () -> lookup.getProductsByIds(List.of(productIds), deadline()).stream()
+                .map(ProductResponse::getId)
+                .toList();
+        FutureTask<List<String>> task = new FutureTask<>(caller);
+        new Thread(task).start();
+        return task;
+    }
+
+    private void awaitSent(int calls) throws InterruptedException {
+        while (sent.size() < calls) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static long deadline() {
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    }
+
+    private static ProductResponse product(String id) {
+        ProductResponse product = new ProductResponse();
+        product.setId(id);
+        return product;
+    }
+
+    private static Request request() {
+        return Request.create(Request.HttpMethod.GET, "/products/batch", Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+}
@@ -0,0 +1,95 @@
+package com.main.lookup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void aCallerArrivingDuringACallSharesItsResult() throws Exception {
+        FutureTask<String> first = start(() -> singleFlight.get("u1", key -> blockingCall(() -> "user " + key)));
+        started.await();
+        FutureTask<String> second = startAndPark(() -> singleFlight.get("u1", key -> "not called"));
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("user u1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get());
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void aCallAfterTheLastOneFinishedRunsAgain() {
+        assertThat(singleFlight.get("u1", key -> "first")).isEqualTo("first");
+        assertThat(singleFlight.get("u1", key -> "second")).isEqualTo("second");
+    }
+
+    @Test
+    void anExceptionReachesEveryWaiterAndIsNotRemembered() throws Exception {
+        FutureTask<String> first = start(() -> singleFlight.get("u1", key -> blockingCall(() -> {
+            throw new IllegalStateException("down");
+        })));
+        started.await();
+        FutureTask<String> second = startAndPark(() -> singleFlight.get("u1", key -> "not called"));
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).cause().isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).cause().isInstanceOf(IllegalStateException.class);
+        assertThat(singleFlight.get("u1", key -> "recovered")).isEqualTo("recovered");
+    }
+
+    @Test
+    void anErrorReleasesTheWaitersAndTheKey() throws Exception {
+        FutureTask<String> first = start(() -> singleFlight.get("u1", key -> blockingCall(() -> {
+            throw new StackOverflowError();
+        })));
+        started.await();
+        FutureTask<String> second = startAndPark(() -> singleFlight.get("u1", key -> "not called"));
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).cause().isInstanceOf(StackOverflowError.class);
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).cause().isInstanceOf(StackOverflowError.class);
+        assertThat(singleFlight.get("u1", key -> "recovered")).isEqualTo("recovered");
+    }
+
+    private String blockingCall(Supplier<String> result) {
+        calls.incrementAndGet();
+        started.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result.get();
+    }
+
+    private static <T> FutureTask<T> start(Callable<T> caller) {
+        FutureTask<T> task = new FutureTask<>(caller);
+        new Thread(task).start();
+        return task;
+    }
+
+    /* Returns once the caller is parked, which it can only be on the call already running */
+    private static <T> FutureTask<T> startAndPark(Callable<T> caller) throws InterruptedException {
+        FutureTask<T> task = new FutureTask<>(caller);
+        Thread thread = new Thread(task);
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING && !task.isDone()) {
+            Thread.sleep(1);
+        }
+        return task;
+    }
+}
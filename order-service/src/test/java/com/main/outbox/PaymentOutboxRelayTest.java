@@ -0,0 +1,276 @@
+package com.main.outbox;
+
+import com.main.dtos.PaymentRequest;
+import com.main.dtos.PaymentResponse;
+import com.main.entity.Order;
+import com.main.entity.OrderItem;
+import com.main.entity.PaymentOutbox;
+import com.main.feign.CallBudget;
+import com.main.feign.PaymentClient;
+import com.main.mapper.OrderMapper;
+import com.main.repository.OrderRepository;
+import com.main.security.OrderSnapshotSigner;
+import com.main.service.impl.OrderInventory;
+import com.main.util.OrderStatus;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentOutboxRelayTest {
+
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(60);
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final PaymentClient paymentClient = mock(PaymentClient.class);
+    private final OrderInventory orderInventory = mock(OrderInventory.class);
+    private final List<Order> claimed = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PaymentOutboxRelay relay = new PaymentOutboxRelay(orderRepository, paymentClient, new CallBudget(1000), orderInventory,
+            new OrderMapper(new OrderSnapshotSigner(null, Duration.ofMinutes(5))), Runnable::run, meterRegistry,
+            200, 25, 5, 30_000, 1000, MAX_BACKOFF.toMillis());
+
+    @BeforeEach
+    void setUp() {
+        when(orderRepository.completePaymentOutbox(anyString(), anyString(), any(), any())).thenReturn(true);
+        when(orderInventory.confirm(any())).thenReturn(true);
+        when(orderInventory.extendAll(anyList())).thenReturn(List.of());
+    }
+
+    @Test
+    void anUnknownOutcomeIsAskedAgainUnderTheSameKeyAndNeverFailed() {
+        Order order = claimed("o1", 0);
+        when(paymentClient.processPayments(anyList(), any())).thenThrow(unavailable());
+
+        relay.relay();
+        order.getOutbox().setAttempts(1);
+        relay.relay();
+
+        /* payment-service keys each payment of a batch by its order */
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PaymentRequest>> sent = ArgumentCaptor.forClass(List.class);
+        verify(paymentClient, times(2)).processPayments(sent.capture(), any());
+        assertThat(sent.getAllValues()).allSatisfy(requests ->
+                assertThat(requests).extracting(PaymentRequest::getOrderId).containsExactly("o1"));
+        verify(orderRepository).retryPaymentOutbox(eq("o1"), eq("token"), eq(1), any());
+        verify(orderRepository).retryPaymentOutbox(eq("o1"), eq("token"), eq(2), any());
+        verify(orderRepository, never()).completePaymentOutbox(anyString(), anyString(), any(), any());
+        verify(orderInventory, never()).release(any());
+    }
+
+    @Test
+    void retriesPastTheAlertThresholdAreCountedAndBackOffNoFurtherThanTheCap() {
+        claimed("o1", 40);
+        when(paymentClient.processPayments(anyList(), any())).thenThrow(unavailable());
+
+        LocalDateTime before = LocalDateTime.now();
+        relay.relay();
+
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(orderRepository).retryPaymentOutbox(eq("o1"), eq("token"), eq(41), nextAttempt.capture());
+        assertThat(nextAttempt.getValue()).isBefore(LocalDateTime.now().plus(MAX_BACKOFF).plusSeconds(1))
+                .isAfter(before.plus(MAX_BACKOFF).minusSeconds(1));
+        assertThat(meterRegistry.get("order.payment.outbox.unsettled").counter().count()).isEqualTo(1);
+        verify(orderRepository, never()).completePaymentOutbox(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void aPaymentLeftOutOfTheAnswerOrNotFinalYetIsRetried() {
+        claimed("o1", 0);
+        claimed("o2", 0);
+        when(paymentClient.processPayments(anyList(), any())).thenReturn(ResponseEntity.ok(List.of(payment("o2", "PENDING"))));
+
+        relay.relay();
+
+        verify(orderRepository).retryPaymentOutbox(eq("o1"), eq("token"), eq(1), any());
+        verify(orderRepository).retryPaymentOutbox(eq("o2"), eq("token"), eq(1), any());
+        verify(orderRepository, never()).completePaymentOutbox(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void aDeclineFailsTheOrderAndReleasesItsStock() {
+        Order order = claimed("o1", 2);
+        when(paymentClient.processPayments(anyList(), any())).thenReturn(ResponseEntity.ok(List.of(payment("o1", "FAILED"))));
+
+        relay.relay();
+
+        verify(orderRepository).completePaymentOutbox("o1", "token", OrderStatus.FAILED, "pay-o1");
+        verify(orderInventory).release(order);
+        verify(orderInventory, never()).confirm(any());
+    }
+
+    @Test
+    void aBatchRefusedAsInvalidFailsItsOrders() {
+        Order order = claimed("o1", 0);
+        when(paymentClient.processPayments(anyList(), any())).thenThrow(
+                new FeignException.BadRequest("invalid", request(), null, null));
+
+        relay.relay();
+
+        verify(orderRepository).completePaymentOutbox("o1", "token", OrderStatus.FAILED, null);
+        verify(orderInventory).release(order);
+    }
+
+    @Test
+    void aPaidOrderTakesItsStockBeforeItIsPlaced() {
+        Order order = claimed("o1", 0);
+        when(paymentClient.processPayments(anyList(), any())).thenReturn(ResponseEntity.ok(List.of(payment("o1", "SUCCESS"))));
+
+        relay.relay();
+
+        var inOrder = inOrder(orderInventory, orderRepository);
+        inOrder.verify(orderInventory).confirm(order);
+        inOrder.verify(orderRepository).completePaymentOutbox("o1", "token", OrderStatus.PLACED, "pay-o1");
+        verify(orderRepository, never()).flagRefundDue(anyString(), anyString());
+    }
+
+    @Test
+    void aCancelDuringAnInFlightPaymentFlagsARefundAndGivesTheStockBack() {
+        Order order = claimed("o1", 0);
+        when(paymentClient.processPayments(anyList(), any())).thenReturn(ResponseEntity.ok(List.of(payment("o1", "SUCCESS"))));
+        /* cancelOrder removed the outbox entry, so the claim no longer matches */
+        when(orderRepository.completePaymentOutbox("o1", "token", OrderStatus.PLACED, "pay-o1")).thenReturn(false);
+        when(orderRepository.flagRefundDue("o1", "pay-o1")).thenReturn(true);
+
+        relay.relay();
+
+        verify(orderRepository).flagRefundDue("o1", "pay-o1");
+        verify(orderInventory).adjustStock(order.getItems(), 1);
+    }
+
+    @Test
+    void aClaimLostToASecondRelayIsLeftToThatRelay() {
+        claimed("o1", 0);
+        when(paymentClient.processPayments(anyList(), any())).thenReturn(ResponseEntity.ok(List.of(payment("o1", "SUCCESS"))));
+        /* The lease ran out and another relay claimed the order under a new token */
+        when(orderRepository.completePaymentOutbox("o1", "token", OrderStatus.PLACED, "pay-o1")).thenReturn(false);
+        when(orderRepository.flagRefundDue("o1", "pay-o1")).thenReturn(false);
+
+        relay.relay();
+
+        verify(orderInventory, never()).adjustStock(anyList(), anyInt());
+        verify(orderInventory, never()).release(any());
+    }
+
+    @Test
+    void aDeclineWhoseClaimWasLostReleasesNothing() {
+        claimed("o1", 0);
+        when(paymentClient.processPayments(anyList(), any())).thenReturn(ResponseEntity.ok(List.of(payment("o1", "FAILED"))));
+        when(orderRepository.completePaymentOutbox("o1", "token", OrderStatus.FAILED, "pay-o1")).thenReturn(false);
+
+        relay.relay();
+
+        verify(orderInventory, never()).release(any());
+    }
+
+    @Test
+    void aPaidOrderWhoseStockIsGoneIsCancelledAndFlaggedForRefund() {
+        Order order = claimed("o1", 3);
+        when(paymentClient.processPayments(anyList(), any())).thenReturn(ResponseEntity.ok(List.of(payment("o1", "SUCCESS"))));
+        when(orderInventory.confirm(order)).thenReturn(false);
+        when(orderRepository.flagRefundDue("o1", "pay-o1")).thenReturn(true);
+
+        relay.relay();
+
+        verify(orderRepository).completePaymentOutbox("o1", "token", OrderStatus.CANCELLED, "pay-o1");
+        verify(orderRepository).flagRefundDue("o1", "pay-o1");
+        verify(orderRepository, never()).completePaymentOutbox("o1", "token", OrderStatus.PLACED, "pay-o1");
+    }
+
+    @Test
+    void aLapsedHoldIsTakenAgainBeforeThePaymentIsSent() {
+        Order order = claimed("o1", 2);
+        when(orderInventory.extendAll(anyList())).thenReturn(List.of(order));
+        when(orderInventory.reserveAgain(order)).thenReturn("r2");
+        when(orderRepository.replaceReservation("o1", "token", "r2")).thenReturn(true);
+        when(paymentClient.processPayments(anyList(), any())).thenReturn(ResponseEntity.ok(List.of(payment("o1", "SUCCESS"))));
+
+        relay.relay();
+
+        assertThat(order.getReservationId()).isEqualTo("r2");
+        verify(orderInventory).confirm(order);
+        verify(orderRepository).completePaymentOutbox("o1", "token", OrderStatus.PLACED, "pay-o1");
+    }
+
+    @Test
+    void anOrderNeverSentWhoseStockIsGoneFailsWithoutACharge() {
+        Order order = claimed("o1", 0);
+        when(orderInventory.extendAll(anyList())).thenReturn(List.of(order));
+        when(orderInventory.reserveAgain(order)).thenReturn(null);
+
+        relay.relay();
+
+        verify(paymentClient, never()).processPayments(anyList(), any());
+        verify(orderRepository).completePaymentOutbox("o1", "token", OrderStatus.FAILED, null);
+    }
+
+    @Test
+    void anOrderThatMayHaveBeenChargedIsAskedAgainEvenWithoutStock() {
+        Order order = claimed("o1", 1);
+        when(orderInventory.extendAll(anyList())).thenReturn(List.of(order));
+        when(orderInventory.reserveAgain(order)).thenReturn(null);
+        when(paymentClient.processPayments(anyList(), any())).thenReturn(ResponseEntity.ok(List.of(payment("o1", "FAILED"))));
+
+        relay.relay();
+
+        verify(paymentClient).processPayments(anyList(), any());
+        verify(orderRepository).completePaymentOutbox("o1", "token", OrderStatus.FAILED, "pay-o1");
+    }
+
+    private Order claimed(String orderId, int attempts) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setUserId("u1");
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(BigDecimal.TEN);
+        order.setReservationId("r-" + orderId);
+        OrderItem item = new OrderItem();
+        item.setProductId("p1");
+        item.setQuantity(1);
+        order.setItems(List.of(item));
+        order.setOutbox(new PaymentOutbox("CARD", attempts, LocalDateTime.now(), "token"));
+        claimed.add(order);
+        when(orderRepository.claimPaymentOutbox(anyInt(), any())).thenReturn(List.copyOf(claimed));
+        return order;
+    }
+
+    private static PaymentResponse payment(String orderId, String status) {
+        PaymentResponse payment = new PaymentResponse();
+        payment.setOrderId(orderId);
+        payment.setPaymentId("pay-" + orderId);
+        payment.setStatus(status);
+        return payment;
+    }
+
+    private static FeignException unavailable() {
+        return new FeignException.ServiceUnavailable("unavailable", request(), null, Map.of());
+    }
+
+    private static Request request() {
+        return Request.create(Request.HttpMethod.POST, "/payments/process-batch", Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+}
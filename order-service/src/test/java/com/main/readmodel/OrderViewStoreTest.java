@@ -0,0 +1,117 @@
+package com.main.readmodel;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.main.entity.Order;
+import com.main.entity.OrderView;
+import com.main.mapper.OrderMapper;
+import com.main.security.OrderSnapshotSigner;
+import com.main.util.OrderStatus;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Order views against an in-memory stand-in for {@code order_views} whose upsert behaves like the
+ * server's: it updates a view that is not newer, inserts when there is none, and collides on
+ * {@code _id} when a newer view is there.
+ */
+class OrderViewStoreTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final OrderViewStore orderViewStore = new OrderViewStore(mongoTemplate,
+            new OrderMapper(new OrderSnapshotSigner(null, Duration.ofMinutes(5))), objectMapper);
+    private final Map<String, OrderView> views = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(OrderView.class))).thenAnswer(invocation -> {
+            Document query = invocation.getArgument(0, Query.class).getQueryObject();
+            Document set = invocation.getArgument(1, Update.class).getUpdateObject().get("$set", Document.class);
+            String orderId = query.getString("orderId");
+            long notAfter = query.get("revision", Document.class).getLong("$lte");
+            OrderView view = views.get(orderId);
+            if (view != null && view.getRevision() > notAfter) {
+                throw new DuplicateKeyException("E11000 duplicate key error collection: order_views index: _id_");
+            }
+            views.put(orderId, new OrderView(orderId, set.getLong("revision"), (byte[]) set.get("body")));
+            return null;
+        });
+    }
+
+    @Test
+    void aLaterRevisionReplacesTheView() throws Exception {
+        orderViewStore.put(order(1, OrderStatus.PENDING));
+        orderViewStore.put(order(2, OrderStatus.PLACED));
+
+        assertThat(views.get("o1").getRevision()).isEqualTo(2);
+        assertThat(status(views.get("o1").getBody())).isEqualTo("PLACED");
+    }
+
+    @Test
+    void anOlderRevisionArrivingLateLeavesTheNewerViewInPlace() throws Exception {
+        orderViewStore.put(order(2, OrderStatus.PLACED));
+
+        byte[] body = orderViewStore.put(order(1, OrderStatus.PENDING));
+
+        assertThat(views.get("o1").getRevision()).isEqualTo(2);
+        assertThat(status(views.get("o1").getBody())).isEqualTo("PLACED");
+        /* The caller still gets the order it passed in */
+        assertThat(status(body)).isEqualTo("PENDING");
+        /* A collision means a newer view exists, so it is not removed */
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(OrderView.class));
+    }
+
+    @Test
+    void aViewThatCouldNotBeWrittenIsRemovedSoTheNextReadRebuildsIt() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(OrderView.class)))
+                .thenThrow(new DataAccessResourceFailureException("timed out"));
+
+        orderViewStore.put(order(3, OrderStatus.CANCELLED));
+
+        verify(mongoTemplate).remove(any(Query.class), eq(OrderView.class));
+    }
+
+    @Test
+    void everySaveBumpsTheRevisionBeforeTheViewIsWritten() {
+        OrderViewListener listener = new OrderViewListener(orderViewStore);
+        Order order = order(4, OrderStatus.PLACED);
+
+        listener.onBeforeConvert(new BeforeConvertEvent<>(order, "orders"));
+        listener.onAfterSave(new AfterSaveEvent<>(order, new Document(), "orders"));
+
+        assertThat(views.get("o1").getRevision()).isEqualTo(5);
+    }
+
+    private String status(byte[] body) throws Exception {
+        return objectMapper.readTree(body).get("status").asText();
+    }
+
+    private static Order order(long revision, OrderStatus status) {
+        Order order = new Order();
+        order.setOrderId("o1");
+        order.setUserId("u1");
+        order.setStatus(status);
+        order.setRevision(revision);
+        return order;
+    }
+}
@@ -0,0 +1,144 @@
+package com.main.repository;
+
+import com.main.entity.Order;
+import com.main.readmodel.OrderViewStore;
+import com.main.util.OrderStatus;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderRepositoryCustomImplTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final OrderViewStore orderViewStore = mock(OrderViewStore.class);
+    private final OrderRepositoryCustomImpl repository = new OrderRepositoryCustomImpl(mongoTemplate, orderViewStore);
+
+    @Test
+    void aClaimReadsBackOnlyTheOrdersItsOwnTokenWon() {
+        Order due = new Order();
+        due.setOrderId("o1");
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenAnswer(invocation -> {
+            Document query = invocation.getArgument(0, Query.class).getQueryObject();
+            return query.containsKey("outbox.claimToken") ? List.of(due) : List.of(due, order("o2"));
+        });
+
+        assertThat(repository.claimPaymentOutbox(10, Duration.ofSeconds(30))).containsExactly(due);
+
+        ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> tag = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(claim.capture(), tag.capture(), eq(Order.class));
+        /* Only entries still due are tagged, so an order another relay claimed in between keeps its token */
+        assertThat(claim.getValue().getQueryObject()).containsKey("outbox.nextAttemptAt");
+        Object token = tag.getValue().getUpdateObject().get("$set", Document.class).get("outbox.claimToken");
+        ArgumentCaptor<Query> reads = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(reads.capture(), eq(Order.class));
+        assertThat(reads.getAllValues().get(1).getQueryObject()).containsEntry("outbox.claimToken", token);
+    }
+
+    @Test
+    void twoClaimsNeverShareAToken() {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order("o1")));
+
+        repository.claimPaymentOutbox(10, Duration.ofSeconds(30));
+        repository.claimPaymentOutbox(10, Duration.ofSeconds(30));
+
+        ArgumentCaptor<Update> tags = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateMulti(any(Query.class), tags.capture(), eq(Order.class));
+        assertThat(tags.getAllValues())
+                .extracting(update -> update.getUpdateObject().get("$set", Document.class).get("outbox.claimToken"))
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    void completingMatchesOnlyTheCallersClaim() {
+        Order completed = order("o1");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Order.class)))
+                .thenReturn(completed);
+
+        assertThat(repository.completePaymentOutbox("o1", "token-1", OrderStatus.PLACED, "pay-1")).isTrue();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndModify(query.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(Order.class));
+        assertThat(query.getValue().getQueryObject())
+                .containsEntry("orderId", "o1")
+                .containsEntry("outbox.claimToken", "token-1");
+        verify(orderViewStore).put(completed);
+    }
+
+    @Test
+    void completingAClaimLostToAnotherRelayChangesNothing() {
+        /* The second relay's claim replaced the token, so the first relay's CAS matches no document */
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Order.class)))
+                .thenReturn(null);
+
+        assertThat(repository.completePaymentOutbox("o1", "token-1", OrderStatus.FAILED, null)).isFalse();
+
+        verify(orderViewStore, never()).put(any());
+    }
+
+    @Test
+    void aRetryAndANewReservationAreWrittenOnlyUnderTheClaim() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Order.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        repository.retryPaymentOutbox("o1", "token-1", 2, LocalDateTime.now());
+        assertThat(repository.replaceReservation("o1", "token-1", "r2")).isFalse();
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(queries.capture(), updates.capture(), eq(Order.class));
+        assertThat(queries.getAllValues()).allSatisfy(query ->
+                assertThat(query.getQueryObject()).containsEntry("outbox.claimToken", "token-1"));
+        /* A retry gives the claim up, so the next poll can claim the entry again once it is due */
+        assertThat(updates.getAllValues().get(0).getUpdateObject().get("$unset", Document.class)).containsKey("outbox.claimToken");
+    }
+
+    @Test
+    void removingArchivedOrdersKeepsThoseChangedSinceTheyWereRead() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 1, 0, List.of(), List.of()));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order("o2")));
+        Order first = order("o1");
+        first.setRevision(4);
+        Order second = order("o2");
+        second.setRevision(7);
+
+        assertThat(repository.removeArchived(List.of(first, second))).containsExactly("o2");
+
+        ArgumentCaptor<Query> removes = ArgumentCaptor.forClass(Query.class);
+        verify(bulk, times(2)).remove(removes.capture());
+        assertThat(removes.getAllValues()).extracting(Query::getQueryObject).containsExactly(
+                new Document("orderId", "o1").append("revision", 4L),
+                new Document("orderId", "o2").append("revision", 7L));
+        /* Only the view of the order that actually left is dropped */
+        verify(orderViewStore).remove(Set.of("o1"));
+    }
+
+    private static Order order(String orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        return order;
+    }
+}
@@ -0,0 +1,60 @@
+package com.main.service.impl;
+
+import com.main.Exceptions.BusinessException;
+import com.main.entity.Order;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderHistoryCursorTest {
+
+    @Test
+    void decodesWhatItEncoded() {
+        Order last = new Order();
+        last.setOrderDate(LocalDateTime.of(2024, 3, 1, 12, 30, 5, 123_000_000));
+        last.setOrderId(new ObjectId().toHexString());
+
+        OrderHistoryCursor.Position position = OrderHistoryCursor.decode(OrderHistoryCursor.encode(last));
+
+        assertThat(position.orderDate()).isEqualTo(last.getOrderDate());
+        assertThat(position.orderId()).isEqualTo(last.getOrderId());
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        Order last = new Order();
+        last.setOrderDate(LocalDateTime.of(2024, 12, 31, 23, 59, 59));
+        last.setOrderId(new ObjectId().toHexString());
+
+        assertThat(OrderHistoryCursor.encode(last)).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsCursorsItDidNotProduce() {
+        String validDate = "2024-03-01T12:30:05";
+        String validId = new ObjectId().toHexString();
+        for (String cursor : new String[] {
+                "%%%",
+                encode("no separator"),
+                encode("not-a-date|" + validId),
+                encode(validDate + "|not-an-object-id"),
+                encode(validDate + "|"),
+        }) {
+            assertThatThrownBy(() -> OrderHistoryCursor.decode(cursor))
+                    .as(cursor)
+                    .isInstanceOfSatisfying(BusinessException.class,
+                            e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+        }
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
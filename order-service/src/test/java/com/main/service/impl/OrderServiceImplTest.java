@@ -0,0 +1,330 @@
+package com.main.service.impl;
+
+import com.main.Exceptions.BusinessException;
+import com.main.archive.OrderArchive;
+import com.main.dtos.OrderItemRequestDto;
+import com.main.dtos.OrderPlacementResult;
+import com.main.dtos.OrderRequest;
+import com.main.dtos.OrderSummaryResponse;
+import com.main.dtos.PageResponse;
+import com.main.dtos.PaymentResponse;
+import com.main.dtos.ProductResponse;
+import com.main.dtos.UserResponse;
+import com.main.entity.Order;
+import com.main.feign.CallBudget;
+import com.main.feign.PaymentClient;
+import com.main.lookup.ProductLookup;
+import com.main.lookup.UserLookup;
+import com.main.mapper.OrderMapper;
+import com.main.metrics.OrderMetrics;
+import com.main.readmodel.OrderViewStore;
+import com.main.repository.OrderHistoryFilter;
+import com.main.repository.OrderRepository;
+import com.main.security.OrderSnapshotSigner;
+import com.main.util.OrderServiceConstants;
+import com.main.util.OrderStatus;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderServiceImplTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final UserLookup userLookup = mock(UserLookup.class);
+    private final ProductLookup productLookup = mock(ProductLookup.class);
+    private final OrderViewStore orderViewStore = mock(OrderViewStore.class);
+    private final OrderArchive orderArchive = mock(OrderArchive.class);
+    private final PaymentClient paymentClient = mock(PaymentClient.class);
+    private final OrderInventory orderInventory = mock(OrderInventory.class);
+    private final OrderServiceImpl orderService = new OrderServiceImpl(orderRepository,
+            new OrderMapper(new OrderSnapshotSigner(null, Duration.ofMinutes(5))), orderViewStore, orderArchive,
+            userLookup, productLookup, paymentClient, new CallBudget(1000), orderInventory, Runnable::run,
+            new OrderMetrics(new SimpleMeterRegistry()), 10_000, "sync");
+
+    @Test
+    void detailsComeFromTheViewWhenThereIsOne() {
+        when(orderViewStore.find("o1")).thenReturn(json("view"));
+
+        assertThat(orderService.getOrderDetailsJson("o1")).isEqualTo(json("view"));
+
+        verify(orderRepository, never()).findById(any());
+    }
+
+    @Test
+    void aLiveOrderWithoutAViewGetsOneBuilt() {
+        Order live = order("o1");
+        when(orderRepository.findById("o1")).thenReturn(Optional.of(live));
+        when(orderViewStore.put(live)).thenReturn(json("built"));
+
+        assertThat(orderService.getOrderDetailsJson("o1")).isEqualTo(json("built"));
+
+        verify(orderArchive, never()).find(any());
+    }
+
+    @Test
+    void anArchivedOrderIsRenderedWithoutStoringAView() {
+        Order archived = order("o1");
+        when(orderRepository.findById("o1")).thenReturn(Optional.empty());
+        when(orderArchive.find("o1")).thenReturn(Optional.of(archived));
+        when(orderViewStore.render(archived)).thenReturn(json("archived"));
+
+        assertThat(orderService.getOrderDetailsJson("o1")).isEqualTo(json("archived"));
+
+        verify(orderViewStore, never()).put(any());
+    }
+
+    @Test
+    void anOrderFoundNowhereIsNotFound() {
+        when(orderRepository.findById("o1")).thenReturn(Optional.empty());
+        when(orderArchive.find("o1")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> orderService.getOrderDetailsJson("o1"))
+                .isInstanceOfSatisfying(BusinessException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    void anOrderForAnUnknownUserIsABadRequest() {
+        assertThatThrownBy(() -> orderService.placeOrder(request(1, "ghost")))
+                .isInstanceOfSatisfying(BusinessException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    void cancellingADeliveredOrderIsAConflict() {
+        Order delivered = order("o1");
+        delivered.setStatus(OrderStatus.DELIVERED);
+        when(orderRepository.findById("o1")).thenReturn(Optional.of(delivered));
+
+        assertThatThrownBy(() -> orderService.cancelOrder("o1"))
+                .isInstanceOfSatisfying(BusinessException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.CONFLICT));
+    }
+
+    @Test
+    void historyPagesWalkBothTiersWithoutRepeatingOrSkippingAnOrder() {
+        LocalDateTime day = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<Order> live = new ArrayList<>();
+        List<Order> archived = new ArrayList<>();
+        /* Dates shared across tiers sit on page boundaries, and o4 is mid-move so both tiers hold it */
+        live.add(order(id(1), day.plusDays(3)));
+        archived.add(order(id(2), day.plusDays(3)));
+        live.add(order(id(3), day.plusDays(2)));
+        live.add(order(id(4), day.plusDays(1)));
+        archived.add(order(id(4), day.plusDays(1)));
+        archived.add(order(id(5), day.plusDays(1)));
+        live.add(order(id(6), day));
+        archived.add(order(id(7), day));
+        archived.add(order(id(8), day.minusDays(30)));
+        when(orderRepository.findHistoryPage(any(), any(), any(), anyInt(), anyBoolean())).thenAnswer(invocation ->
+                page(live, invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        when(orderArchive.findHistoryPage(any(), any(), any(), anyInt())).thenAnswer(invocation ->
+                page(archived, invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        OrderHistoryFilter filter = new OrderHistoryFilter("u1", null, null, null);
+
+        List<String> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageResponse<OrderSummaryResponse> page = orderService.getOrderHistory(filter, cursor, 2);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(2);
+            page.getItems().forEach(order -> walked.add(order.getOrderId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(walked).containsExactly(id(2), id(1), id(3), id(5), id(4), id(7), id(6), id(8));
+    }
+
+    @Test
+    void aBatchSettlesEachOrderOnItsOwnOutcome() {
+        batchCollaborators(List.of(0, 2, 3), List.of(payment(1, "SUCCESS"), payment(3, "FAILED")));
+
+        List<OrderPlacementResult> results = orderService.placeOrders(List.of(
+                request(1, "u1"), request(2, "u1"), request(3, "u1"), request(4, "u1"), request(5, "ghost")));
+
+        assertThat(results).extracting(OrderPlacementResult::getError).containsExactly(
+                null, OrderServiceConstants.STOCK_RESERVATION_FAILED, OrderServiceConstants.PAYMENT_FAILED, null,
+                OrderServiceConstants.USER_NOT_EXISTS);
+        assertThat(results.get(0).getOrder().getStatus()).isEqualTo(OrderStatus.PLACED);
+        /* Left out of the answer: its outcome is unknown, so it stays PENDING and held, and only it is queued for another try */
+        assertThat(results.get(3).getOrder().getStatus()).isEqualTo(OrderStatus.PENDING);
+        ArgumentCaptor<List<Order>> saved = listCaptor();
+        verify(orderRepository, times(2)).saveAll(saved.capture());
+        assertThat(saved.getAllValues().get(1)).extracting(Order::getOrderId).containsExactly("o4");
+        assertThat(saved.getAllValues().get(1).get(0).getOutbox().getAttempts()).isEqualTo(1);
+        /* Only the paid order takes its stock for good, only the declined one gives it back */
+        assertThat(confirmed()).extracting(Order::getOrderId).containsExactly("o1");
+        assertThat(released()).extracting(Order::getOrderId).containsExactly("o3");
+        ArgumentCaptor<List<Order>> settled = listCaptor();
+        verify(orderRepository).updatePaymentOutcomes(settled.capture());
+        assertThat(settled.getValue()).extracting(Order::getOrderId).containsExactly("o1", "o3");
+    }
+
+    @Test
+    void aPaidOrderWhoseStockRanOutIsCancelledForRefundWhileTheRestArePlaced() {
+        batchCollaborators(List.of(0, 1), List.of(payment(1, "SUCCESS"), payment(2, "SUCCESS")));
+        when(orderInventory.confirmAll(anyList())).thenAnswer(invocation -> invocation.<List<Order>>getArgument(0).stream()
+                .filter(order -> order.getOrderId().equals("o2"))
+                .toList());
+
+        List<OrderPlacementResult> results = orderService.placeOrders(List.of(request(1, "u1"), request(2, "u1")));
+
+        assertThat(results.get(0).getOrder().getStatus()).isEqualTo(OrderStatus.PLACED);
+        assertThat(results.get(1).getError()).isEqualTo(OrderServiceConstants.STOCK_SOLD_OUT_REFUND);
+        assertThat(results.get(1).getOrder().getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        ArgumentCaptor<List<Order>> settled = listCaptor();
+        verify(orderRepository).updatePaymentOutcomes(settled.capture());
+        assertThat(settled.getValue()).filteredOn(order -> order.getOrderId().equals("o2"))
+                .extracting(Order::getRefundPaymentId).containsExactly("pay-o2");
+    }
+
+    @Test
+    void aBatchWithAnUnknownOutcomeIsQueuedWholeAndFailsNothing() {
+        batchCollaborators(List.of(0, 1), List.of());
+        when(paymentClient.processPayments(anyList(), any())).thenThrow(
+                new FeignException.GatewayTimeout("timed out", feignRequest(), null, Map.of()));
+
+        List<OrderPlacementResult> results = orderService.placeOrders(List.of(request(1, "u1"), request(2, "u1")));
+
+        assertThat(results).extracting(OrderPlacementResult::getError).containsOnlyNulls();
+        assertThat(results).extracting(result -> result.getOrder().getStatus()).containsOnly(OrderStatus.PENDING);
+        assertThat(released()).isEmpty();
+        assertThat(confirmed()).isEmpty();
+    }
+
+    @Test
+    void aBatchRefusedAsInvalidFailsEveryOrderAndReleasesItsStock() {
+        batchCollaborators(List.of(0, 1), List.of());
+        when(paymentClient.processPayments(anyList(), any())).thenThrow(
+                new FeignException.BadRequest("invalid", feignRequest(), null, Map.of()));
+
+        List<OrderPlacementResult> results = orderService.placeOrders(List.of(request(1, "u1"), request(2, "u1")));
+
+        assertThat(results).extracting(OrderPlacementResult::getError).containsOnly(OrderServiceConstants.PAYMENT_FAILED);
+        assertThat(released()).extracting(Order::getOrderId).containsExactly("o1", "o2");
+    }
+
+    /*
+     * u1 exists, p1 is in stock, the orders at the held positions get a reservation and the rest
+     * do not, and saving an order names it "o" plus the number in its shipping address.
+     */
+    private void batchCollaborators(List<Integer> held, List<PaymentResponse> payments) {
+        UserResponse user = new UserResponse();
+        user.setId("u1");
+        when(userLookup.getUsersByIds(anyList(), anyLong())).thenReturn(List.of(user));
+        ProductResponse product = new ProductResponse();
+        product.setId("p1");
+        product.setName("Kettle");
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(100);
+        when(productLookup.getProductsByIds(anyList(), anyLong())).thenReturn(List.of(product));
+        when(orderInventory.reserveAll(anyList())).thenAnswer(invocation -> {
+            List<String> reservations = new ArrayList<>();
+            for (int k = 0; k < invocation.<List<Order>>getArgument(0).size(); k++) {
+                reservations.add(held.contains(k) ? "r" + k : null);
+            }
+            return reservations;
+        });
+        when(orderRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            orders.forEach(order -> order.setOrderId("o" + order.getShippingAddress().substring("addr-".length())));
+            return orders;
+        });
+        when(paymentClient.processPayments(anyList(), any())).thenReturn(ResponseEntity.ok(payments));
+        when(orderInventory.confirmAll(anyList())).thenReturn(List.of());
+    }
+
+    private static OrderRequest request(int number, String userId) {
+        OrderRequest request = new OrderRequest();
+        request.setUserId(userId);
+        request.setItems(List.of(new OrderItemRequestDto("p1", 1)));
+        request.setShippingAddress("addr-" + number);
+        request.setPaymentMethod("CARD");
+        return request;
+    }
+
+    private static PaymentResponse payment(int number, String status) {
+        PaymentResponse payment = new PaymentResponse();
+        payment.setOrderId("o" + number);
+        payment.setPaymentId("pay-o" + number);
+        payment.setStatus(status);
+        return payment;
+    }
+
+    private List<Order> confirmed() {
+        ArgumentCaptor<List<Order>> orders = listCaptor();
+        verify(orderInventory).confirmAll(orders.capture());
+        return orders.getValue();
+    }
+
+    private List<Order> released() {
+        ArgumentCaptor<List<Order>> orders = listCaptor();
+        verify(orderInventory).releaseAll(orders.capture());
+        return orders.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Order>> listCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private static Request feignRequest() {
+        return Request.create(Request.HttpMethod.POST, "/payments/process-batch", Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+
+    /* What the keyset page query returns from one tier: newest first, strictly after the position */
+    private static List<Order> page(List<Order> tier, LocalDateTime afterDate, String afterId, int limit) {
+        Comparator<Order> newestFirst = Comparator.comparing(Order::getOrderDate).thenComparing(Order::getOrderId).reversed();
+        return tier.stream()
+                .filter(order -> afterDate == null || order.getOrderDate().isBefore(afterDate)
+                        || order.getOrderDate().isEqual(afterDate) && order.getOrderId().compareTo(afterId) < 0)
+                .sorted(newestFirst)
+                .limit(limit)
+                .toList();
+    }
+
+    private static String id(int n) {
+        return String.format("%024x", n);
+    }
+
+    private static Order order(String orderId, LocalDateTime orderDate) {
+        Order order = order(orderId);
+        order.setUserId("u1");
+        order.setOrderDate(orderDate);
+        order.setItems(List.of());
+        return order;
+    }
+
+    private static Order order(String orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        return order;
+    }
+
+    private static byte[] json(String marker) {
+        return ("{\"marker\":\"" + marker + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+}
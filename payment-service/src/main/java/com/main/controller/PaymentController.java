@@ -2,6 +2,7 @@ package com.main.controller;
 
 import com.main.dtos.PaymentRequest;
 import com.main.dtos.PaymentResponse;
+import com.main.idempotency.IdempotencyStore;
 import com.main.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,9 +11,12 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/payments")
 @RequiredArgsConstructor
@@ -22,10 +26,16 @@ public class PaymentController {
     private final PaymentService paymentService;
 
     @PostMapping("/process")
-    public ResponseEntity<PaymentResponse> processPayment(@RequestBody PaymentRequest paymentRequest) {
+    public ResponseEntity<PaymentResponse> processPayment(@RequestBody PaymentRequest paymentRequest,
+                                                         @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
         log.info("Received payment request for orderId: {}", paymentRequest.getOrderId());
-        PaymentResponse response = paymentService.processPayment(paymentRequest);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(paymentService.processPayment(paymentRequest, idempotencyKey));
+    }
+
+    @PostMapping("/process-batch")
+    public ResponseEntity<List<PaymentResponse>> processPayments(@RequestBody List<PaymentRequest> paymentRequests) {
+        log.info("Received payment batch of {} requests", paymentRequests.size());
+        return ResponseEntity.ok(paymentService.processPayments(paymentRequests));
     }
 
     @GetMapping("/{orderId}")
@@ -0,0 +1,28 @@
+package com.main.mapper;
+
+import com.main.dtos.PaymentRequest;
+import com.main.dtos.PaymentResponse;
+import com.main.entity.Payment;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PaymentMapper {
+
+    public Payment toEntity(PaymentRequest request) {
+        Payment payment = new Payment();
+        payment.setOrderId(request.getOrderId());
+        payment.setUserId(request.getUserId());
+        payment.setAmount(request.getAmount());
+        payment.setPaymentMethod(request.getPaymentMethod());
+        return payment;
+    }
+
+    /* Status goes out by enum name, as ModelMapper's enum-to-string conversion did */
+    public PaymentResponse toResponse(Payment payment) {
+        PaymentResponse response = new PaymentResponse();
+        response.setPaymentId(payment.getPaymentId());
+        response.setOrderId(payment.getOrderId());
+        response.setStatus(payment.getStatus() == null ? null : payment.getStatus().name());
+        return response;
+    }
+}
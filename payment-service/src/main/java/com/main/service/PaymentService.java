@@ -3,9 +3,25 @@ package com.main.service;
 import com.main.dtos.PaymentRequest;
 import com.main.dtos.PaymentResponse;
 
+import java.util.List;
+
 public interface PaymentService {
 
     PaymentResponse processPayment(PaymentRequest paymentRequest);
 
+    /**
+     * Processes the payment at most once per idempotency key; a repeat gets the first outcome back.
+     * Without a key it is the same as {@link #processPayment(PaymentRequest)}.
+     */
+    PaymentResponse processPayment(PaymentRequest paymentRequest, String idempotencyKey);
+
+    /**
+     * Processes each payment under the key {@code order-<orderId>}, the one order-service also uses
+     * for single payments, so a batch resent after a lost response cannot charge anyone twice.
+     * Payments that failed for good come back FAILED; those that may succeed on a retry are left
+     * out of the response.
+     */
+    List<PaymentResponse> processPayments(List<PaymentRequest> paymentRequests);
+
     PaymentResponse retrievePaymentDetails(String id);
 }
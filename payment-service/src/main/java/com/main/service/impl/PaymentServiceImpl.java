@@ -7,17 +7,21 @@ import com.main.entity.Payment;
 import com.main.exception.PaymentExceptions;
 import com.main.exceptions.BusinessException;
 import com.main.feign_client.OrderClient;
+import com.main.idempotency.IdempotencyStore;
+import com.main.mapper.PaymentMapper;
 import com.main.repository.PaymentRepository;
+import com.main.security.OrderSnapshotSigner;
 import com.main.service.PaymentService;
 import com.main.util.OrderStatus;
 import com.main.util.PaymentStatus;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Random;
 
@@ -25,15 +29,23 @@ import java.util.Random;
 @Service
 public class PaymentServiceImpl implements PaymentService {
 
+    private static final String IDEMPOTENCY_SCOPE = "payment:process";
+    private static final String ORDER_KEY_PREFIX = "order-";
+
     private final PaymentRepository paymentRepository;
-    private final ModelMapper modelMapper;
+    private final PaymentMapper paymentMapper;
     private final OrderClient orderClient;
+    private final OrderSnapshotSigner snapshotSigner;
+    private final IdempotencyStore idempotencyStore;
     private final Random random = new Random();
 
-    public PaymentServiceImpl(PaymentRepository paymentRepository, ModelMapper modelMapper, OrderClient orderClient) {
+    public PaymentServiceImpl(PaymentRepository paymentRepository, PaymentMapper paymentMapper, OrderClient orderClient,
+                              OrderSnapshotSigner snapshotSigner, IdempotencyStore idempotencyStore) {
         this.paymentRepository = paymentRepository;
-        this.modelMapper = modelMapper;
+        this.paymentMapper = paymentMapper;
         this.orderClient = orderClient;
+        this.snapshotSigner = snapshotSigner;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @Override
@@ -41,13 +53,21 @@ public class PaymentServiceImpl implements PaymentService {
         log.info("Initiating payment process for orderId: {}", paymentRequest.getOrderId());
 
         validatePaymentRequest(paymentRequest);
-        Payment payment = modelMapper.map(paymentRequest, Payment.class);
-
-        OrderResponse orderDetails = orderClient.getOrderDetails(payment.getOrderId());
-
-        if (Objects.isNull(orderDetails)) {
-            log.error("No order found with ID: {}. Please place an order first.", payment.getOrderId());
-            throw new PaymentExceptions("No order found with ID: " + payment.getOrderId() + ". Please place an order first.");
+        Payment payment = paymentMapper.toEntity(paymentRequest);
+
+        /* A signed snapshot vouches for the order itself; only unsigned requests are checked with order-service */
+        boolean signed = snapshotSigner.verify(paymentRequest);
+        if (!signed) {
+            if (paymentRequest.getSignature() != null && snapshotSigner.isEnabled()) {
+                log.error("Rejected order snapshot with bad or expired signature for orderId: {}", payment.getOrderId());
+                throw new BusinessException("Order snapshot signature is invalid or expired", HttpStatus.FORBIDDEN);
+            }
+            OrderResponse orderDetails = orderClient.getOrderDetails(payment.getOrderId());
+
+            if (Objects.isNull(orderDetails)) {
+                log.error("No order found with ID: {}. Please place an order first.", payment.getOrderId());
+                throw new PaymentExceptions("No order found with ID: " + payment.getOrderId() + ". Please place an order first.");
+            }
         }
 
         log.info("Order verification successful for orderId: {}", payment.getOrderId());
@@ -66,11 +86,61 @@ public class PaymentServiceImpl implements PaymentService {
 
         payment.setTransactionDate(LocalDateTime.now());
         paymentRepository.save(payment);
-        orderClient.updateOrderStatus(payment.getOrderId(), OrderStatus.PLACED.name());
-        log.info("Order status updated to 'PAID' for orderId: {}", payment.getOrderId());
+        if (!signed) {
+            orderClient.updateOrderStatus(payment.getOrderId(), OrderStatus.PLACED.name());
+            log.info("Order status updated to 'PAID' for orderId: {}", payment.getOrderId());
+        }
 
         // Return payment response
-        return modelMapper.map(payment, PaymentResponse.class);
+        return paymentMapper.toResponse(payment);
+    }
+
+    @Override
+    public PaymentResponse processPayment(PaymentRequest paymentRequest, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return processPayment(paymentRequest);
+        }
+        /* The snapshot signature is fresh on every attempt, so it is left out of the fingerprint */
+        PaymentRequest fingerprint = new PaymentRequest(paymentRequest.getOrderId(), paymentRequest.getUserId(),
+                paymentRequest.getAmount(), paymentRequest.getPaymentMethod());
+        return idempotencyStore.execute(IDEMPOTENCY_SCOPE, idempotencyKey, fingerprint, PaymentResponse.class,
+                () -> processPayment(paymentRequest));
+    }
+
+    @Override
+    public List<PaymentResponse> processPayments(List<PaymentRequest> paymentRequests) {
+        log.info("Processing payment batch of {} requests", paymentRequests.size());
+        List<PaymentResponse> responses = new ArrayList<>(paymentRequests.size());
+        for (PaymentRequest paymentRequest : paymentRequests) {
+            try {
+                responses.add(processPayment(paymentRequest, ORDER_KEY_PREFIX + paymentRequest.getOrderId()));
+            } catch (RuntimeException e) {
+                /* One bad payment must not fail the whole batch */
+                if (!isFinal(e)) {
+                    log.warn("Payment for orderId: {} in batch can be retried: {}", paymentRequest.getOrderId(), e.getMessage());
+                    continue;
+                }
+                log.warn("Payment failed for orderId: {} in batch: {}", paymentRequest.getOrderId(), e.getMessage());
+                PaymentResponse failed = new PaymentResponse();
+                failed.setOrderId(paymentRequest.getOrderId());
+                failed.setStatus(PaymentStatus.FAILED.name());
+                responses.add(failed);
+            }
+        }
+        return responses;
+    }
+
+    /*
+     * Declined or invalid requests fail the same way every time. Anything else, such as order-service
+     * or Mongo being unavailable, or the same key still in progress, may go through on a retry.
+     */
+    private static boolean isFinal(RuntimeException e) {
+        if (e instanceof PaymentExceptions) {
+            return true;
+        }
+        return e instanceof BusinessException businessException
+                && businessException.getStatus().is4xxClientError()
+                && businessException.getStatus() != HttpStatus.CONFLICT;
     }
 
     private void validatePaymentRequest(PaymentRequest request) {
@@ -105,7 +175,7 @@ public class PaymentServiceImpl implements PaymentService {
                 });
 
         log.info("Payment details retrieved successfully for orderId: {}", orderId);
-        return modelMapper.map(payment, PaymentResponse.class);
+        return paymentMapper.toResponse(payment);
     }
 
 }
@@ -0,0 +1,115 @@
+package com.main.service.impl;
+
+import com.main.dtos.PaymentRequest;
+import com.main.dtos.PaymentResponse;
+import com.main.exceptions.BusinessException;
+import com.main.feign_client.OrderClient;
+import com.main.idempotency.IdempotencyStore;
+import com.main.mapper.PaymentMapper;
+import com.main.repository.PaymentRepository;
+import com.main.security.OrderSnapshotSigner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batch payments against an in-memory stand-in for the idempotency store that answers a key it
+ * has seen with the first response, and can be told to fail a key instead.
+ */
+class PaymentServiceImplTest {
+
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final OrderClient orderClient = mock(OrderClient.class);
+    private final IdempotencyStore idempotencyStore = mock(IdempotencyStore.class);
+    private final OrderSnapshotSigner snapshotSigner = new OrderSnapshotSigner("test-secret", Duration.ofMinutes(5));
+    private final PaymentServiceImpl paymentService = new PaymentServiceImpl(paymentRepository, new PaymentMapper(), orderClient,
+            snapshotSigner, idempotencyStore);
+    private final Map<String, PaymentResponse> answered = new HashMap<>();
+    private final Map<String, RuntimeException> failing = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(idempotencyStore.execute(eq("payment:process"), anyString(), any(), eq(PaymentResponse.class), any()))
+                .thenAnswer(invocation -> {
+                    String key = invocation.getArgument(1);
+                    keys.add(key);
+                    if (failing.containsKey(key)) {
+                        throw failing.get(key);
+                    }
+                    if (!answered.containsKey(key)) {
+                        answered.put(key, invocation.<Supplier<PaymentResponse>>getArgument(4).get());
+                    }
+                    return answered.get(key);
+                });
+    }
+
+    @Test
+    void eachPaymentInABatchIsKeyedByItsOrder() {
+        paymentService.processPayments(List.of(request("o1", 10), request("o2", 20)));
+
+        assertThat(keys).containsExactly("order-o1", "order-o2");
+    }
+
+    @Test
+    void aResentBatchIsAnsweredFromTheFirstAttemptWithoutChargingAgain() {
+        List<PaymentRequest> batch = List.of(request("o1", 10), request("o2", 20));
+
+        List<PaymentResponse> first = paymentService.processPayments(batch);
+        List<PaymentResponse> second = paymentService.processPayments(batch);
+
+        assertThat(second).isEqualTo(first);
+        verify(paymentRepository, times(2)).save(any());
+        /* Signed snapshots vouch for the orders, order-service is not asked */
+        verify(orderClient, never()).getOrderDetails(anyString());
+    }
+
+    @Test
+    void onlyFinalFailuresAreAnsweredAndTheRestAreLeftOutToBeRetried() {
+        failing.put("order-o1", new BusinessException("Request with this key is still in progress", HttpStatus.CONFLICT));
+        failing.put("order-o3", new DataAccessResourceFailureException("Mongo unavailable"));
+
+        List<PaymentResponse> responses = paymentService.processPayments(List.of(
+                request("o1", 10), request("o2", 0), request("o3", 30), request("o4", 40)));
+
+        assertThat(responses).extracting(PaymentResponse::getOrderId, PaymentResponse::getStatus)
+                .containsExactly(tuple("o2", "FAILED"), tuple("o4", "SUCCESS"));
+    }
+
+    @Test
+    void aRetryOfAPaymentLeftOutIsStillKeyedByItsOrder() {
+        failing.put("order-o1", new DataAccessResourceFailureException("Mongo unavailable"));
+        assertThat(paymentService.processPayments(List.of(request("o1", 10)))).isEmpty();
+
+        failing.clear();
+        List<PaymentResponse> retried = paymentService.processPayments(List.of(request("o1", 10)));
+
+        assertThat(keys).containsExactly("order-o1", "order-o1");
+        assertThat(retried).extracting(PaymentResponse::getStatus).containsExactly("SUCCESS");
+        verify(paymentRepository, times(1)).save(any());
+    }
+
+    private PaymentRequest request(String orderId, int amount) {
+        return snapshotSigner.sign(new PaymentRequest(orderId, "u1", BigDecimal.valueOf(amount), "CARD"));
+    }
+}
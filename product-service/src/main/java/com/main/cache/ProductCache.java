@@ -0,0 +1,162 @@
+package com.main.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.main.dtos.ProductResponse;
+import com.main.dtos.StockUpdateResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded in-process cache of active products. Only non-deleted products are stored, so a
+ * hit can always be served as-is. Readers take the product's {@link #generation} before loading
+ * it and pass it to {@link #put}, so a load that started before an eviction is never cached after it.
+ * <p>
+ * A write that changes catalog fields (name, price, category, brand, deletion) must {@link #evict}
+ * the product, which also drops the catalog. Stock moves on every checkout, so stock writes go
+ * through {@link #changeStock} instead, which updates the cached products in place and leaves the
+ * catalog alone; the catalog's stock figures may trail by up to the TTL.
+ */
+@Component
+public class ProductCache {
+
+    private static final String CATALOG_KEY = "all";
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<String, Entry> products;
+    private final Cache<String, List<ProductResponse>> catalog;
+    /* Bumped before every eviction; striped by id so unrelated evictions rarely cost a put */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public ProductCache(MeterRegistry meterRegistry,
+                        @Value("${product.cache.max-size:100000}") long maxSize,
+                        @Value("${product.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.catalog = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "products");
+        CaffeineCacheMetrics.monitor(meterRegistry, catalog, "product-catalog");
+    }
+
+    /* The generation the product was loaded at tells a stock change whether the load already saw it */
+    private record Entry(ProductResponse product, long generation) {
+    }
+
+    public ProductResponse get(String id) {
+        Entry entry = products.getIfPresent(id);
+        return entry == null ? null : entry.product();
+    }
+
+    public Map<String, ProductResponse> getAll(Collection<String> ids) {
+        return products.getAllPresent(ids).entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, cached -> cached.getValue().product()));
+    }
+
+    public long generation(String id) {
+        return generations.get(stripe(id));
+    }
+
+    /* Checked under the entry's lock, which an eviction of the same id also takes */
+    public void put(ProductResponse product, long generation) {
+        int stripe = stripe(product.getId());
+        products.asMap().compute(product.getId(),
+                (id, current) -> generations.get(stripe) == generation ? new Entry(product, generation) : current);
+    }
+
+    public List<ProductResponse> getCatalog(Supplier<List<ProductResponse>> loader) {
+        return catalog.get(CATALOG_KEY, key -> loader.get());
+    }
+
+    public void evict(String id) {
+        generations.incrementAndGet(stripe(id));
+        products.invalidate(id);
+        catalog.invalidateAll();
+    }
+
+    public void evictAll(Collection<String> ids) {
+        ids.forEach(id -> generations.incrementAndGet(stripe(id)));
+        products.invalidateAll(ids);
+        catalog.invalidateAll();
+    }
+
+    /** Drops products whose stock was set to a value not known here, but not the catalog. */
+    public void evictStock(Collection<String> ids) {
+        ids.forEach(id -> generations.incrementAndGet(stripe(id)));
+        products.invalidateAll(ids);
+    }
+
+    /**
+     * Runs a write of these stock changes and then moves the stock of the cached products by
+     * them, if it was applied. The generations are bumped before the write, so a product loaded
+     * before that cannot include the change and is moved, while one loaded during the write may or
+     * may not include it and is dropped. Flash-sale products keep their stock in stripes and are left as they are.
+     */
+    public StockUpdateResponse changeStock(Map<String, Integer> changes, Supplier<StockUpdateResponse> write) {
+        Map<String, Long> before = new HashMap<>();
+        changes.keySet().forEach(id -> before.put(id, generations.incrementAndGet(stripe(id))));
+        StockUpdateResponse response;
+        try {
+            response = write.get();
+        } catch (RuntimeException e) {
+            products.invalidateAll(changes.keySet());
+            throw e;
+        }
+        changes.forEach((id, change) -> products.asMap().computeIfPresent(id, (key, cached) -> {
+            if (cached.generation() >= before.get(id)) {
+                return null;
+            }
+            if (!response.isApplied() || cached.product().getStockStripes() != null) {
+                return cached;
+            }
+            return new Entry(withStock(cached.product(), cached.product().getStockQuantity() + change), cached.generation());
+        }));
+        return response;
+    }
+
+    public void clear() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        products.invalidateAll();
+        catalog.invalidateAll();
+    }
+
+    /* Cached responses are handed out as they are, so a change goes into a copy */
+    private static ProductResponse withStock(ProductResponse product, int stockQuantity) {
+        ProductResponse copy = new ProductResponse();
+        copy.setId(product.getId());
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setCategory(product.getCategory());
+        copy.setPrice(product.getPrice());
+        copy.setStockQuantity(stockQuantity);
+        copy.setStockStripes(product.getStockStripes());
+        copy.setSku(product.getSku());
+        copy.setBrand(product.getBrand());
+        copy.setCreatedAt(product.getCreatedAt());
+        copy.setUpdatedAt(product.getUpdatedAt());
+        return copy;
+    }
+
+    private static int stripe(String id) {
+        return (id.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+    }
+}
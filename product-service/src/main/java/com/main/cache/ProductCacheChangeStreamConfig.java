@@ -0,0 +1,93 @@
+package com.main.cache;
+
+import com.main.entity.Product;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the product cache coherent across instances by evicting on every change to the
+ * products collection. Updates that only touch stock leave the catalog cached, like local stock
+ * writes do. Change streams need a replica set, so this is opt-in.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.cache.change-stream.enabled", havingValue = "true")
+public class ProductCacheChangeStreamConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCacheChangeStreamConfig.class);
+    private static final Set<String> STOCK_FIELDS = Set.of("stockQuantity", "stockStripes");
+    /* Not part of the cached response */
+    private static final Set<String> UNCACHED_FIELDS = Set.of("orderCount");
+
+    /* The container does not auto-start; once running, the context stops it on shutdown */
+    @Bean
+    public MessageListenerContainer productChangeStreamContainer(MongoTemplate mongoTemplate, ProductCache productCache) {
+        DefaultMessageListenerContainer container = new DefaultMessageListenerContainer(mongoTemplate,
+                new SimpleAsyncTaskExecutor("product-change-stream-"), error -> {
+            /* Events may have been missed, so nothing cached can be trusted any more */
+            log.warn("Product change stream failed, clearing product cache", error);
+            productCache.clear();
+        });
+        container.start();
+        return container;
+    }
+
+    @Bean
+    public Subscription productCacheSubscription(MessageListenerContainer productChangeStreamContainer,
+                                                 MongoTemplate mongoTemplate, ProductCache productCache) {
+        MessageListener<ChangeStreamDocument<Document>, Document> listener = message -> {
+            BsonValue key = message.getRaw().getDocumentKey() == null ? null : message.getRaw().getDocumentKey().get("_id");
+            if (key == null) {
+                productCache.clear();
+                return;
+            }
+            String id = key.isObjectId() ? key.asObjectId().getValue().toHexString() : key.asString().getValue();
+            List<String> fields = changedFields(message.getRaw().getUpdateDescription());
+            if (fields == null) {
+                productCache.evict(id);
+            } else if (!UNCACHED_FIELDS.containsAll(fields)) {
+                if (fields.stream().allMatch(field -> STOCK_FIELDS.contains(field) || UNCACHED_FIELDS.contains(field))) {
+                    productCache.evictStock(List.of(id));
+                } else {
+                    productCache.evict(id);
+                }
+            }
+        };
+        ChangeStreamRequest<Document> request = ChangeStreamRequest.builder(listener)
+                .collection(mongoTemplate.getCollectionName(Product.class))
+                .build();
+        return productChangeStreamContainer.register(request, Document.class);
+    }
+
+    /* The top-level fields an update set or removed; null for inserts, replaces and deletes */
+    private static List<String> changedFields(UpdateDescription update) {
+        if (update == null) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        if (update.getUpdatedFields() != null) {
+            update.getUpdatedFields().keySet().forEach(field -> fields.add(field.split("\\.")[0]));
+        }
+        if (update.getRemovedFields() != null) {
+            update.getRemovedFields().forEach(field -> fields.add(field.split("\\.")[0]));
+        }
+        return fields;
+    }
+}
@@ -1,9 +1,19 @@
 package com.main.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.main.dtos.PageResponse;
+import com.main.dtos.ProductImportResponse;
 import com.main.dtos.ProductRequest;
 import com.main.dtos.ProductResponse;
+import com.main.dtos.ProductSearchResponse;
 import com.main.dtos.StockUpdateRequest;
-import com.main.repository.ProductRepository;
+import com.main.dtos.StockUpdateResponse;
+import com.main.dtos.SuggestionResponse;
+import com.main.importer.ImportFormat;
+import com.main.repository.ProductFilter;
+import com.main.service.InventoryService;
+import com.main.service.ProductImportService;
 import com.main.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,6 +23,9 @@ import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,10 +33,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,12 +55,20 @@ import java.util.Optional;
 public class ProductController {
 
     private final ProductService productService;
+    private final InventoryService inventoryService;
+    private final ProductImportService productImportService;
     private final ModelMapper modelMapper;
+    private final ObjectMapper objectMapper;
     private static final Logger log = LoggerFactory.getLogger(ProductController.class);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
-    public ProductController(ProductService productService, ModelMapper modelMapper) {
+    public ProductController(ProductService productService, InventoryService inventoryService,
+                             ProductImportService productImportService, ModelMapper modelMapper, ObjectMapper objectMapper) {
         this.productService = productService;
+        this.inventoryService = inventoryService;
+        this.productImportService = productImportService;
         this.modelMapper = modelMapper;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Add a new product", description = "Creates a new product in the system")
@@ -53,6 +82,21 @@ public class ProductController {
         return ResponseEntity.status(201).body(response);
     }
 
+    @Operation(summary = "Bulk import products", description = "Streams NDJSON or CSV (header row of ProductRequest field names), validates every row and upserts by SKU in unordered batches; invalid rows are reported and skipped")
+    @ApiResponse(responseCode = "200", description = "Import finished; failed rows are listed in the response")
+    @ApiResponse(responseCode = "400", description = "Batch size out of range or the body could not be read")
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<ProductImportResponse> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(required = false) Integer batchSize,
+            InputStream body) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        ImportFormat format = ImportFormat.of(mediaType);
+        log.info("Received {} product import", format);
+        Charset charset = mediaType.getCharset() == null ? StandardCharsets.UTF_8 : mediaType.getCharset();
+        return ResponseEntity.ok(productImportService.importProducts(body, format, charset, batchSize));
+    }
+
     @Operation(summary = "Get product details", description = "Retrieves product details by ID")
     @ApiResponse(responseCode = "200", description = "Product details retrieved successfully")
     @ApiResponse(responseCode = "404", description = "Product not found")
@@ -74,6 +118,74 @@ public class ProductController {
         return ResponseEntity.ok(responseList);
     }
 
+    @Operation(summary = "Get a page of products", description = "Keyset-paginated listing ordered by ID, with optional filters")
+    @ApiResponse(responseCode = "200", description = "Page of products retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    @GetMapping("/page")
+    public ResponseEntity<PageResponse<ProductResponse>> getProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice) {
+        log.info("Fetching product page after cursor: {}", cursor);
+        ProductFilter filter = new ProductFilter(category, brand, minPrice, maxPrice);
+        return ResponseEntity.ok(productService.getProductsPage(filter, cursor, limit));
+    }
+
+    @Operation(summary = "Search products", description = "Full-text search over name, description, category, brand and SKU, ranked by relevance, with category and brand facet counts")
+    @ApiResponse(responseCode = "200", description = "Search results retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Empty query or result window out of range")
+    @ApiResponse(responseCode = "503", description = "Search index is still loading")
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponse> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice) {
+        log.info("Searching products for: {}", query);
+        ProductFilter filter = new ProductFilter(category, brand, minPrice, maxPrice);
+        return ResponseEntity.ok(productService.searchProducts(query, filter, offset, limit));
+    }
+
+    @Operation(summary = "Autocomplete", description = "Suggests product names, brands and categories starting with the typed prefix, most ordered first")
+    @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully")
+    @ApiResponse(responseCode = "503", description = "Suggestions are still loading")
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.suggest(prefix, limit));
+    }
+
+    @Operation(summary = "Stream all products", description = "Streams matching products as NDJSON straight from a database cursor")
+    @ApiResponse(responseCode = "200", description = "Products streamed successfully")
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice) {
+        log.info("Streaming product catalog");
+        ProductFilter filter = new ProductFilter(category, brand, minPrice, maxPrice);
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                productService.forEachProduct(filter, product -> {
+                    try {
+                        writer.write(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     @Operation(summary = "Update product details", description = "Updates product information by ID")
     @ApiResponse(responseCode = "200", description = "Product updated successfully")
     @ApiResponse(responseCode = "404", description = "Product not found")
@@ -104,9 +216,33 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    @Operation(summary = "Update stock", description = "Applies all stock changes atomically or none of them")
+    @ApiResponse(responseCode = "200", description = "All stock changes applied")
+    @ApiResponse(responseCode = "409", description = "Insufficient stock or unknown product, nothing applied")
     @PutMapping("/update-stock")
-    public ResponseEntity<String> updateStock(@RequestBody StockUpdateRequest request) {
-        productService.updateStock(request);
-        return ResponseEntity.ok("Stock updated successfully");
+    public ResponseEntity<StockUpdateResponse> updateStock(@RequestBody StockUpdateRequest request) {
+        StockUpdateResponse response = productService.updateStock(request);
+        return ResponseEntity.status(response.isApplied() ? HttpStatus.OK : HttpStatus.CONFLICT).body(response);
+    }
+
+    @Operation(summary = "Start flash-sale inventory", description = "Splits the product's stock into stripes so concurrent checkouts of it do not queue on one document; stockQuantity then reports the stripe sum, refreshed in the background")
+    @ApiResponse(responseCode = "200", description = "Product switched to flash-sale mode")
+    @ApiResponse(responseCode = "400", description = "Unknown product or stripe count out of range")
+    @ApiResponse(responseCode = "409", description = "Product is already in flash-sale mode")
+    @PutMapping("/{id}/flash-sale")
+    public ResponseEntity<ProductResponse> enableFlashSale(
+            @PathVariable("id") String id,
+            @RequestParam(defaultValue = "8") int stripes) {
+        log.info("Enabling flash-sale inventory with {} stripes for product ID: {}", stripes, id);
+        return ResponseEntity.ok(inventoryService.enableFlashSale(id, stripes));
+    }
+
+    @Operation(summary = "Stop flash-sale inventory", description = "Folds the stripes back into the product's stock")
+    @ApiResponse(responseCode = "200", description = "Product switched back to regular inventory")
+    @ApiResponse(responseCode = "400", description = "Unknown product")
+    @DeleteMapping("/{id}/flash-sale")
+    public ResponseEntity<ProductResponse> disableFlashSale(@PathVariable("id") String id) {
+        log.info("Disabling flash-sale inventory for product ID: {}", id);
+        return ResponseEntity.ok(inventoryService.disableFlashSale(id));
     }
 }
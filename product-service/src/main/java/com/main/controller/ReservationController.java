@@ -0,0 +1,97 @@
+package com.main.controller;
+
+import com.main.dtos.ReservationRequest;
+import com.main.dtos.ReservationResponse;
+import com.main.service.ReservationService;
+import com.main.util.ReservationStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/products/reservations")
+@Tag(name = "Reservation Controller", description = "APIs for holding stock during checkout")
+public class ReservationController {
+
+    private final ReservationService reservationService;
+    private static final Logger log = LoggerFactory.getLogger(ReservationController.class);
+
+    public ReservationController(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    @Operation(summary = "Reserve stock", description = "Deducts stock and holds it until confirmed, released or expired")
+    @ApiResponse(responseCode = "201", description = "Stock reserved")
+    @ApiResponse(responseCode = "409", description = "Insufficient stock or unknown product, nothing reserved")
+    @PostMapping
+    public ResponseEntity<ReservationResponse> reserve(@Valid @RequestBody ReservationRequest request) {
+        log.info("Reserving stock for reference: {}", request.getReference());
+        ReservationResponse response = reservationService.reserve(request);
+        HttpStatus status = response.getStatus() == ReservationStatus.HELD ? HttpStatus.CREATED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(response);
+    }
+
+    @Operation(summary = "Confirm reservation", description = "Makes the held stock deduction permanent")
+    @ApiResponse(responseCode = "200", description = "Reservation confirmed")
+    @PutMapping("/{id}/confirm")
+    public ResponseEntity<ReservationResponse> confirm(@PathVariable("id") String id) {
+        log.info("Confirming reservation: {}", id);
+        return ResponseEntity.ok(reservationService.confirm(id));
+    }
+
+    @Operation(summary = "Release reservation", description = "Returns the held stock")
+    @ApiResponse(responseCode = "200", description = "Reservation released")
+    @PutMapping("/{id}/release")
+    public ResponseEntity<ReservationResponse> release(@PathVariable("id") String id) {
+        log.info("Releasing reservation: {}", id);
+        return ResponseEntity.ok(reservationService.release(id));
+    }
+
+    @Operation(summary = "Reserve stock for a batch", description = "Holds stock for each request, in one write when the whole batch fits")
+    @ApiResponse(responseCode = "200", description = "One reservation per request, HELD or REJECTED")
+    @PostMapping("/batch")
+    public ResponseEntity<List<ReservationResponse>> reserveAll(@Valid @RequestBody @NotEmpty List<@Valid ReservationRequest> requests) {
+        log.info("Reserving stock for a batch of {}", requests.size());
+        return ResponseEntity.ok(reservationService.reserveAll(requests));
+    }
+
+    @Operation(summary = "Confirm reservations", description = "Confirms every held reservation in the list")
+    @ApiResponse(responseCode = "200", description = "Current state of each reservation")
+    @PutMapping("/batch/confirm")
+    public ResponseEntity<List<ReservationResponse>> confirmAll(@RequestBody List<String> ids) {
+        log.info("Confirming {} reservations", ids.size());
+        return ResponseEntity.ok(reservationService.confirmAll(ids));
+    }
+
+    @Operation(summary = "Release reservations", description = "Releases every held reservation in the list")
+    @ApiResponse(responseCode = "200", description = "Current state of each reservation")
+    @PutMapping("/batch/release")
+    public ResponseEntity<List<ReservationResponse>> releaseAll(@RequestBody List<String> ids) {
+        log.info("Releasing {} reservations", ids.size());
+        return ResponseEntity.ok(reservationService.releaseAll(ids));
+    }
+
+    @Operation(summary = "Extend reservations", description = "Keeps every reservation in the list that is still held for another ttlSeconds; expired ones are left alone")
+    @ApiResponse(responseCode = "200", description = "Current state of each reservation")
+    @PutMapping("/batch/extend")
+    public ResponseEntity<List<ReservationResponse>> extendAll(@RequestBody List<String> ids,
+                                                               @RequestParam("ttlSeconds") int ttlSeconds) {
+        log.info("Extending {} reservations by {}s", ids.size(), ttlSeconds);
+        return ResponseEntity.ok(reservationService.extendAll(ids, ttlSeconds));
+    }
+}
@@ -0,0 +1,41 @@
+package com.main.entity;
+
+import com.main.util.FeedStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Progress of one WMS stock feed file, saved after every batch. {@code offset} and {@code line}
+ * point just past the last batch written, so an interrupted ingestion resumes there.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "feed_checkpoints")
+public class FeedCheckpoint {
+
+    /** File name, size and modification time, so a re-dropped file with new content starts over */
+    @Id
+    private String id;
+    private String file;
+    private FeedStatus status;
+    private long offset;
+    private long line;
+    private long changed;
+    private long unchanged;
+    private long unknown;
+    private long conflicts;
+    private long skipped;
+    private long malformed;
+    /** The first malformed rows and unknown SKUs, for the WMS team to fix */
+    private List<String> problems;
+    private String failure;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+}
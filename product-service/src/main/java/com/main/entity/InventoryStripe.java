@@ -0,0 +1,31 @@
+package com.main.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One slice of a flash-sale product's stock. Checkouts decrement whichever stripe has enough,
+ * so concurrent writes spread over several documents instead of queueing on the product.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "inventory_stripes")
+public class InventoryStripe {
+
+    /** {@code productId:stripe}, so a stripe can be addressed without a lookup */
+    @Id
+    private String id;
+    @Indexed
+    private String productId;
+    private int stripe;
+    private int quantity;
+
+    public static String id(String productId, int stripe) {
+        return productId + ":" + stripe;
+    }
+}
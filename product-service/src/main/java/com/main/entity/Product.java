@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -13,6 +16,12 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "products")
+/* Price trails the sort key so a price range is checked from the index while it is walked in _id order */
+@CompoundIndex(name = "active_category_brand_id_price", def = "{'isDeleted': 1, 'category': 1, 'brand': 1, '_id': 1, 'price': 1}")
+@CompoundIndex(name = "active_brand_id_price", def = "{'isDeleted': 1, 'brand': 1, '_id': 1, 'price': 1}")
+/* One active product per SKU; products created without a SKU are left out */
+@CompoundIndex(name = "sku_active_unique", def = "{'sku': 1}", unique = true,
+        partialFilter = "{'isDeleted': false, 'sku': {'$exists': true}}")
 public class Product {
 
     @Id
@@ -20,10 +29,15 @@ public class Product {
     private String name;
     private String description;
     private String category;
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
     private int stockQuantity;
     private String sku;
     private String brand;
+    /** Confirmed orders that contained this product; ranks autocomplete suggestions */
+    private long orderCount;
+    /** Number of inventory stripes while the product is in flash-sale mode, otherwise null */
+    private Integer stockStripes;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Boolean isDeleted = Boolean.FALSE;
@@ -0,0 +1,207 @@
+package com.main.feed;
+
+import com.main.cache.ProductCache;
+import com.main.entity.FeedCheckpoint;
+import com.main.entity.Product;
+import com.main.repository.FeedCheckpointRepository;
+import com.main.repository.ProductRepository;
+import com.main.repository.ReservationRepository;
+import com.main.repository.StockCorrection;
+import com.main.util.FeedStatus;
+import com.main.util.ProductServiceContant;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Syncs stockQuantity with a WMS snapshot file. The file is read in batches of SKUs; each batch
+ * is diffed against the stored stock with one indexed query and only the products whose stock
+ * differs are written, as one unordered bulk update. A checkpoint is saved after every batch.
+ * The file counts what is on the shelf, so stock that open reservations hold is taken off it
+ * first: stockQuantity is what is left to sell. Flash-sale products are left alone, since their
+ * stock lives in stripes.
+ */
+@Component
+public class InventoryFeedIngester {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryFeedIngester.class);
+
+    private final ProductRepository productRepository;
+    private final ReservationRepository reservationRepository;
+    private final FeedCheckpointRepository checkpointRepository;
+    private final ProductCache productCache;
+    private final SkuTable skus;
+    private final int batchSize;
+    private final Duration staleAfter;
+    private final Counter changedRows;
+    private final Counter unchangedRows;
+    private final Counter unknownRows;
+    private final Counter conflictRows;
+    private final Counter skippedRows;
+    private final Counter malformedRows;
+
+    public InventoryFeedIngester(ProductRepository productRepository, ReservationRepository reservationRepository,
+                                 FeedCheckpointRepository checkpointRepository,
+                                 ProductCache productCache, MeterRegistry meterRegistry,
+                                 @Value("${product.feed.batch-size:5000}") int batchSize,
+                                 @Value("${product.feed.stale-after-ms:300000}") long staleAfterMs,
+                                 @Value("${product.feed.sku-cache-size:1000000}") int skuCacheSize) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.productCache = productCache;
+        this.skus = new SkuTable(skuCacheSize);
+        this.batchSize = batchSize;
+        this.staleAfter = Duration.ofMillis(staleAfterMs);
+        this.changedRows = rows(meterRegistry, "changed");
+        this.unchangedRows = rows(meterRegistry, "unchanged");
+        this.unknownRows = rows(meterRegistry, "unknown");
+        this.conflictRows = rows(meterRegistry, "conflict");
+        this.skippedRows = rows(meterRegistry, "skipped");
+        this.malformedRows = rows(meterRegistry, "malformed");
+    }
+
+    /**
+     * Ingests the file from its checkpoint and returns the checkpoint as it ends up. If another
+     * instance is on the file, or it was already done, returns the stored checkpoint untouched.
+     * A first line that does not parse is taken to be a header.
+     */
+    public FeedCheckpoint ingest(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        String name = file.getFileName().toString();
+        String id = name + ":" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+        FeedCheckpoint checkpoint = checkpointRepository.claim(id, name, LocalDateTime.now().minus(staleAfter)).orElse(null);
+        if (checkpoint == null) {
+            return checkpointRepository.findById(id).orElseThrow();
+        }
+        if (checkpoint.getProblems() == null) {
+            checkpoint.setProblems(new ArrayList<>());
+        }
+
+        long started = System.nanoTime();
+        long startLine = checkpoint.getLine();
+        if (checkpoint.getOffset() > 0) {
+            log.info("Resuming stock feed {} at line {}", name, startLine);
+        }
+        try (InventoryFeedReader reader = new InventoryFeedReader(file, checkpoint.getOffset(), checkpoint.getLine())) {
+            InventoryFeedReader.Row row = new InventoryFeedReader.Row();
+            /* SKU to quantity; a SKU repeated within a batch keeps its last quantity */
+            Map<String, Integer> batch = new HashMap<>();
+            boolean more = true;
+            while (more) {
+                batch.clear();
+                while (batch.size() < batchSize && (more = reader.next(row))) {
+                    if (row.error() == null) {
+                        batch.put(skus.intern(row), row.quantity());
+                    } else if (row.line() > 1) {
+                        checkpoint.setMalformed(checkpoint.getMalformed() + 1);
+                        malformedRows.increment();
+                        problem(checkpoint, "line " + row.line() + ": " + row.error());
+                    }
+                }
+                apply(batch, checkpoint);
+                checkpoint.setOffset(reader.position());
+                checkpoint.setLine(reader.line());
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.save(checkpoint);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Stock feed {} failed at line {}, will resume from the checkpoint", name, checkpoint.getLine(), e);
+            checkpoint.setStatus(FeedStatus.FAILED);
+            checkpoint.setFailure(e.toString());
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            return checkpointRepository.save(checkpoint);
+        }
+
+        checkpoint.setStatus(FeedStatus.COMPLETED);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+        log.info("Stock feed {} done: {} lines in {} ms, {} changed, {} unchanged, {} unknown SKUs, {} conflicts, {} flash-sale, {} malformed",
+                name, checkpoint.getLine() - startLine, (System.nanoTime() - started) / 1_000_000, checkpoint.getChanged(),
+                checkpoint.getUnchanged(), checkpoint.getUnknown(), checkpoint.getConflicts(), checkpoint.getSkipped(),
+                checkpoint.getMalformed());
+        return checkpoint;
+    }
+
+    private void apply(Map<String, Integer> batch, FeedCheckpoint checkpoint) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<String> found = new HashSet<>();
+        List<Product> products = new ArrayList<>();
+        int skipped = 0;
+        for (Product product : productRepository.findStockBySku(batch.keySet())) {
+            found.add(product.getSku());
+            if (product.getStockStripes() != null) {
+                skipped++;
+            } else {
+                products.add(product);
+            }
+        }
+
+        /* Read after the stock: a hold placed in between changes the stock, so its correction conflicts */
+        Map<String, Integer> held = products.isEmpty()
+                ? Map.of()
+                : reservationRepository.sumHeld(products.stream().map(Product::getId).toList());
+        List<StockCorrection> corrections = new ArrayList<>();
+        int unchanged = 0;
+        for (Product product : products) {
+            int quantity = Math.max(0, batch.get(product.getSku()) - held.getOrDefault(product.getId(), 0));
+            if (product.getStockQuantity() == quantity) {
+                unchanged++;
+            } else {
+                corrections.add(new StockCorrection(product.getId(), product.getStockQuantity(), quantity));
+            }
+        }
+
+        /* A conflict means a checkout changed the stock since it was read; the next snapshot corrects it */
+        long changed = productRepository.correctStock(corrections);
+        productCache.evictStock(corrections.stream().map(StockCorrection::getProductId).toList());
+
+        int unknown = batch.size() - found.size();
+        if (unknown > 0 && checkpoint.getProblems().size() < ProductServiceContant.MAX_FEED_PROBLEMS) {
+            batch.keySet().stream()
+                    .filter(sku -> !found.contains(sku))
+                    .forEach(sku -> problem(checkpoint, "unknown SKU " + sku));
+        }
+        checkpoint.setChanged(checkpoint.getChanged() + changed);
+        checkpoint.setConflicts(checkpoint.getConflicts() + corrections.size() - changed);
+        checkpoint.setUnchanged(checkpoint.getUnchanged() + unchanged);
+        checkpoint.setSkipped(checkpoint.getSkipped() + skipped);
+        checkpoint.setUnknown(checkpoint.getUnknown() + unknown);
+        changedRows.increment(changed);
+        conflictRows.increment(corrections.size() - changed);
+        unchangedRows.increment(unchanged);
+        skippedRows.increment(skipped);
+        unknownRows.increment(unknown);
+    }
+
+    private static void problem(FeedCheckpoint checkpoint, String problem) {
+        if (checkpoint.getProblems().size() < ProductServiceContant.MAX_FEED_PROBLEMS) {
+            checkpoint.getProblems().add(problem);
+        }
+    }
+
+    private static Counter rows(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("product.feed.rows")
+                .description("Stock feed rows by what ingesting them did")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
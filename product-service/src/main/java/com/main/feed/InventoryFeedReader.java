@@ -0,0 +1,232 @@
+package com.main.feed;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Walks a WMS stock snapshot ({@code sku,quantity} per line) through memory-mapped windows of
+ * the file. Rows are parsed straight from the mapped bytes into a reusable {@link Row}, so
+ * reading allocates nothing per row and the file never passes through the heap.
+ */
+public class InventoryFeedReader implements Closeable {
+
+    public static final int MAX_ROW_BYTES = 1024;
+    public static final int MAX_SKU_BYTES = 128;
+
+    private static final int WINDOW_BYTES = 64 << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowBytes;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private long line;
+
+    /** One parsed row; reused for every call to {@link #next(Row)}. */
+    public static final class Row {
+        private final byte[] sku = new byte[MAX_SKU_BYTES];
+        private int skuLength;
+        private int quantity;
+        private long line;
+        private String error;
+
+        /** Decodes the SKU; allocates, so the hot path looks SKUs up by bytes instead. */
+        public String sku() {
+            return new String(sku, 0, skuLength, StandardCharsets.UTF_8);
+        }
+
+        /** Hash of the SKU bytes, the same as {@link Arrays#hashCode(byte[])} of {@link #skuBytes()}. */
+        public int skuHash() {
+            int hash = 1;
+            for (int i = 0; i < skuLength; i++) {
+                hash = 31 * hash + sku[i];
+            }
+            return hash;
+        }
+
+        public boolean skuEquals(byte[] other) {
+            return Arrays.equals(sku, 0, skuLength, other, 0, other.length);
+        }
+
+        public byte[] skuBytes() {
+            return Arrays.copyOf(sku, skuLength);
+        }
+
+        public int quantity() {
+            return quantity;
+        }
+
+        public long line() {
+            return line;
+        }
+
+        /** Why the row could not be parsed, or null */
+        public String error() {
+            return error;
+        }
+    }
+
+    /** Opens the file and continues after {@code line} lines, which end at byte {@code offset}. */
+    public InventoryFeedReader(Path file, long offset, long line) throws IOException {
+        this(file, offset, line, WINDOW_BYTES);
+    }
+
+    InventoryFeedReader(Path file, long offset, long line, int windowBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowBytes = windowBytes;
+        this.position = offset;
+        this.line = line;
+    }
+
+    /** Byte offset just past the last row returned; resuming here continues with the next row. */
+    public long position() {
+        return position;
+    }
+
+    public long line() {
+        return line;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /** Reads the next non-blank row into {@code row}; false at the end of the file. */
+    public boolean next(Row row) throws IOException {
+        while (position < size) {
+            map(position);
+            int start = (int) (position - windowStart);
+            int limit = window.limit();
+            int scanLimit = Math.min(limit, start + MAX_ROW_BYTES + 1);
+            int end = start;
+            while (end < scanLimit && window.get(end) != '\n') {
+                end++;
+            }
+            if (end == limit && windowStart + limit < size && start > 0) {
+                /* The row runs past this window: map a new one starting at the row */
+                window = null;
+                continue;
+            }
+            line++;
+            row.line = line;
+            if (end == scanLimit && scanLimit < limit) {
+                row.error = "Row is longer than " + MAX_ROW_BYTES + " bytes";
+                skipLine();
+                return true;
+            }
+            position = Math.min(windowStart + end + 1, size);
+            if (parse(start, end, row)) {
+                return true;
+            }
+        }
+        position = size;
+        return false;
+    }
+
+    /* Returns false for a blank line */
+    private boolean parse(int start, int end, Row row) {
+        if (end > start && window.get(end - 1) == '\r') {
+            end--;
+        }
+        int comma = start;
+        while (comma < end && window.get(comma) != ',') {
+            comma++;
+        }
+        int skuStart = skipSpaces(start, comma);
+        int skuEnd = trimSpaces(skuStart, comma);
+        if (skuEnd - skuStart >= 2 && window.get(skuStart) == '"' && window.get(skuEnd - 1) == '"') {
+            skuStart++;
+            skuEnd--;
+        }
+        if (comma == end) {
+            row.error = skuStart == skuEnd ? null : "Expected sku,quantity";
+            return skuStart != skuEnd;
+        }
+        row.error = null;
+        row.skuLength = 0;
+        if (skuStart == skuEnd) {
+            row.error = "SKU is empty";
+            return true;
+        }
+        if (skuEnd - skuStart > MAX_SKU_BYTES) {
+            row.error = "SKU is longer than " + MAX_SKU_BYTES + " bytes";
+            return true;
+        }
+        for (int i = skuStart; i < skuEnd; i++) {
+            row.sku[row.skuLength++] = window.get(i);
+        }
+
+        int digitsStart = skipSpaces(comma + 1, end);
+        int digitsEnd = trimSpaces(digitsStart, end);
+        if (digitsStart == digitsEnd) {
+            row.error = "Quantity is empty";
+            return true;
+        }
+        long quantity = 0;
+        for (int i = digitsStart; i < digitsEnd; i++) {
+            byte b = window.get(i);
+            if (b < '0' || b > '9') {
+                row.error = "Quantity is not a non-negative whole number";
+                return true;
+            }
+            quantity = quantity * 10 + (b - '0');
+            if (quantity > Integer.MAX_VALUE) {
+                row.error = "Quantity is too large";
+                return true;
+            }
+        }
+        row.quantity = (int) quantity;
+        return true;
+    }
+
+    private int skipSpaces(int from, int to) {
+        while (from < to && (window.get(from) == ' ' || window.get(from) == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimSpaces(int from, int to) {
+        while (to > from && (window.get(to - 1) == ' ' || window.get(to - 1) == '\t')) {
+            to--;
+        }
+        return to;
+    }
+
+    private void skipLine() throws IOException {
+        while (position < size) {
+            map(position);
+            int at = (int) (position - windowStart);
+            int limit = window.limit();
+            while (at < limit && window.get(at) != '\n') {
+                at++;
+            }
+            position = windowStart + Math.min(at + 1, limit);
+            if (at < limit) {
+                return;
+            }
+        }
+    }
+
+    private void map(long at) throws IOException {
+        if (window != null && at >= windowStart && at < windowStart + window.limit()) {
+            return;
+        }
+        windowStart = at;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, at, Math.min(windowBytes, size - at));
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,90 @@
+package com.main.feed;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Interns the SKUs of feed rows by their bytes, so a SKU already seen in an earlier batch or feed
+ * is not decoded into a new String again. Open addressing with linear probing; emptied once it
+ * holds {@code capacity} SKUs, which only costs decoding them again.
+ */
+final class SkuTable {
+
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final int capacity;
+    private byte[][] keys;
+    private String[] skus;
+    private int[] hashes;
+    private int size;
+
+    SkuTable(int capacity) {
+        this.capacity = capacity;
+        clear();
+    }
+
+    /** The SKU of the row, decoded only if no earlier row had the same bytes. */
+    synchronized String intern(InventoryFeedReader.Row row) {
+        int hash = row.skuHash();
+        int mask = keys.length - 1;
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && row.skuEquals(keys[slot])) {
+                return skus[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] key = row.skuBytes();
+        String sku = new String(key, StandardCharsets.UTF_8);
+        if (size >= capacity) {
+            clear();
+        } else if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        insert(key, sku, hash);
+        return sku;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void insert(byte[] key, String sku, int hash) {
+        int mask = keys.length - 1;
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        skus[slot] = sku;
+        hashes[slot] = hash;
+        size++;
+    }
+
+    private void grow() {
+        byte[][] oldKeys = keys;
+        String[] oldSkus = skus;
+        int[] oldHashes = hashes;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldSkus[i], oldHashes[i]);
+            }
+        }
+    }
+
+    private void clear() {
+        allocate(INITIAL_SLOTS);
+    }
+
+    private void allocate(int slots) {
+        keys = new byte[slots][];
+        skus = new String[slots];
+        hashes = new int[slots];
+        size = 0;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,14 @@
+package com.main.importer;
+
+import org.springframework.http.MediaType;
+
+public enum ImportFormat {
+    NDJSON,
+    CSV;
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    public static ImportFormat of(MediaType contentType) {
+        return TEXT_CSV.isCompatibleWith(contentType) ? CSV : NDJSON;
+    }
+}
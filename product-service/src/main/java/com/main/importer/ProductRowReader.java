@@ -0,0 +1,191 @@
+package com.main.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an import body one row at a time, so memory is bounded by {@link #MAX_ROW_CHARS} rather
+ * than by the file. NDJSON rows are single lines. CSV rows follow RFC 4180 (quoted fields may hold
+ * commas, quotes and line breaks) and the first row names the {@code ProductRequest} fields.
+ * Rows that cannot be read come back with an error instead of fields, and reading carries on.
+ */
+public class ProductRowReader {
+
+    public static final int MAX_ROW_CHARS = 64 * 1024;
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final Reader reader;
+    private final ImportFormat format;
+    private final ObjectMapper objectMapper;
+
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> values = new ArrayList<>();
+    private List<String> header;
+    private long line = 1;
+    private int rowChars;
+    private String malformed;
+    private boolean started;
+
+    public record Row(long line, JsonNode fields, String error) {
+    }
+
+    public ProductRowReader(Reader reader, ImportFormat format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Returns the next non-blank row, or null at the end of the input. */
+    public Row next() throws IOException {
+        while (true) {
+            long start = line;
+            if (format == ImportFormat.CSV ? !readRecord() : !readLine()) {
+                return null;
+            }
+            if (isBlank()) {
+                continue;
+            }
+            if (malformed != null) {
+                return new Row(start, null, malformed);
+            }
+            if (format == ImportFormat.NDJSON) {
+                return jsonRow(start);
+            }
+            if (header == null) {
+                header = values.stream().map(String::trim).toList();
+                continue;
+            }
+            return csvRow(start);
+        }
+    }
+
+    private Row jsonRow(long start) {
+        try {
+            JsonNode fields = objectMapper.readTree(field.toString());
+            return fields.isObject()
+                    ? new Row(start, fields, null)
+                    : new Row(start, null, "Row is not a JSON object");
+        } catch (JsonProcessingException e) {
+            return new Row(start, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Row csvRow(long start) {
+        if (values.size() != header.size()) {
+            return new Row(start, null, "Expected " + header.size() + " columns but found " + values.size());
+        }
+        ObjectNode fields = objectMapper.createObjectNode();
+        for (int i = 0; i < values.size(); i++) {
+            /* An empty cell means the field is absent, so it fails validation like a missing JSON field */
+            if (!values.get(i).isEmpty()) {
+                fields.put(header.get(i), values.get(i));
+            }
+        }
+        return new Row(start, fields, null);
+    }
+
+    private boolean readLine() throws IOException {
+        reset();
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+        while (c != -1 && c != '\n') {
+            append(c);
+            c = read();
+        }
+        line++;
+        stripCarriageReturn();
+        return true;
+    }
+
+    private boolean readRecord() throws IOException {
+        reset();
+        values.clear();
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    malformed = "Quoted field is never closed";
+                    values.add(field.toString());
+                    return true;
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                append(c);
+            } else if (c == -1 || c == '\n') {
+                if (c == '\n') {
+                    line++;
+                }
+                stripCarriageReturn();
+                values.add(field.toString());
+                return true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else {
+                append(c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        int c = reader.read();
+        if (!started) {
+            started = true;
+            if (c == BYTE_ORDER_MARK) {
+                c = reader.read();
+            }
+        }
+        return c;
+    }
+
+    /* Keeps reading an oversized row to find where it ends, but stops storing it */
+    private void append(int c) {
+        if (++rowChars > MAX_ROW_CHARS) {
+            malformed = "Row is longer than " + MAX_ROW_CHARS + " characters";
+        } else {
+            field.append((char) c);
+        }
+    }
+
+    private void reset() {
+        field.setLength(0);
+        rowChars = 0;
+        malformed = null;
+    }
+
+    private void stripCarriageReturn() {
+        if (!field.isEmpty() && field.charAt(field.length() - 1) == '\r') {
+            field.setLength(field.length() - 1);
+        }
+    }
+
+    private boolean isBlank() {
+        return format == ImportFormat.CSV
+                ? values.size() == 1 && values.get(0).isBlank()
+                : field.toString().isBlank();
+    }
+}
@@ -0,0 +1,45 @@
+package com.main.mapper;
+
+import com.main.dtos.ProductRequest;
+import com.main.dtos.ProductResponse;
+import com.main.entity.Product;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps products to and from their DTOs without reflection; used on every read path.
+ */
+@Component
+public class ProductMapper {
+
+    public Product toEntity(ProductRequest request) {
+        Product product = new Product();
+        updateEntity(request, product);
+        return product;
+    }
+
+    public void updateEntity(ProductRequest request, Product product) {
+        product.setName(request.getName());
+        product.setDescription(request.getDescription());
+        product.setCategory(request.getCategory());
+        product.setPrice(request.getPrice());
+        product.setStockQuantity(request.getStockQuantity());
+        product.setSku(request.getSku());
+        product.setBrand(request.getBrand());
+    }
+
+    public ProductResponse toResponse(Product product) {
+        ProductResponse response = new ProductResponse();
+        response.setId(product.getId());
+        response.setName(product.getName());
+        response.setDescription(product.getDescription());
+        response.setCategory(product.getCategory());
+        response.setPrice(product.getPrice());
+        response.setStockQuantity(product.getStockQuantity());
+        response.setSku(product.getSku());
+        response.setBrand(product.getBrand());
+        response.setStockStripes(product.getStockStripes());
+        response.setCreatedAt(product.getCreatedAt());
+        response.setUpdatedAt(product.getUpdatedAt());
+        return response;
+    }
+}
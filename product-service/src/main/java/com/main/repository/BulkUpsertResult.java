@@ -0,0 +1,15 @@
+package com.main.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class BulkUpsertResult {
+    private int inserted;
+    private int updated;
+    /** Write errors by position in the batch */
+    private Map<Integer, String> errors;
+}
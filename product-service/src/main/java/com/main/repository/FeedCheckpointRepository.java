@@ -0,0 +1,7 @@
+package com.main.repository;
+
+import com.main.entity.FeedCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface FeedCheckpointRepository extends MongoRepository<FeedCheckpoint, String>, FeedCheckpointRepositoryCustom {
+}
@@ -0,0 +1,16 @@
+package com.main.repository;
+
+import com.main.entity.FeedCheckpoint;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface FeedCheckpointRepositoryCustom {
+
+    /**
+     * Marks a feed file as being ingested by the caller and returns its checkpoint, creating it on
+     * first sight. Empty if the file is already completed, or running elsewhere with a heartbeat
+     * newer than {@code staleBefore}.
+     */
+    Optional<FeedCheckpoint> claim(String id, String file, LocalDateTime staleBefore);
+}
@@ -0,0 +1,47 @@
+package com.main.repository;
+
+import com.main.entity.FeedCheckpoint;
+import com.main.util.FeedStatus;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public class FeedCheckpointRepositoryCustomImpl implements FeedCheckpointRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public FeedCheckpointRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<FeedCheckpoint> claim(String id, String file, LocalDateTime staleBefore) {
+        Query query = new Query(Criteria.where("id").is(id).orOperator(
+                Criteria.where("status").is(FeedStatus.FAILED),
+                Criteria.where("status").is(FeedStatus.RUNNING).and("updatedAt").lt(staleBefore)));
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .set("status", FeedStatus.RUNNING)
+                .set("updatedAt", now)
+                .unset("failure")
+                .setOnInsert("file", file)
+                .setOnInsert("offset", 0L)
+                .setOnInsert("line", 0L)
+                .setOnInsert("problems", List.of())
+                .setOnInsert("startedAt", now);
+        try {
+            return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), FeedCheckpoint.class));
+        } catch (DuplicateKeyException e) {
+            /* The checkpoint exists but is completed or held by a live ingester */
+            return Optional.empty();
+        }
+    }
+}
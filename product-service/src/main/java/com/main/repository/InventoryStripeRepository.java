@@ -0,0 +1,10 @@
+package com.main.repository;
+
+import com.main.entity.InventoryStripe;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface InventoryStripeRepository extends MongoRepository<InventoryStripe, String>, InventoryStripeRepositoryCustom {
+    List<InventoryStripe> findByProductId(String productId);
+}
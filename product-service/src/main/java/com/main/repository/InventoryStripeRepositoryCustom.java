@@ -0,0 +1,24 @@
+package com.main.repository;
+
+import java.util.Map;
+
+public interface InventoryStripeRepositoryCustom {
+
+    /** Creates the missing stripes {@code 0..stripes-1} of a product, empty. Existing stripes are left alone. */
+    void createStripes(String productId, int stripes);
+
+    /** Takes {@code quantity} from one stripe only if it holds at least that much. */
+    boolean take(String productId, int stripe, int quantity);
+
+    /** Adds {@code quantity} (possibly negative, unguarded) to a stripe; false if the stripe no longer exists. */
+    boolean give(String productId, int stripe, int quantity);
+
+    /** Adds to several stripes of a product with one unordered bulk write. */
+    void giveAll(String productId, Map<Integer, Integer> quantities);
+
+    /**
+     * Removes every stripe of a product one at a time and returns the stock they held. Each
+     * removal is atomic, so a concurrent decrement either lands before it or finds no stripe.
+     */
+    int drain(String productId);
+}
@@ -0,0 +1,74 @@
+package com.main.repository;
+
+import com.main.entity.InventoryStripe;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+
+public class InventoryStripeRepositoryCustomImpl implements InventoryStripeRepositoryCustom {
+
+    private static final String ID = "id";
+    private static final String PRODUCT_ID = "productId";
+    private static final String STRIPE = "stripe";
+    private static final String QUANTITY = "quantity";
+
+    private final MongoTemplate mongoTemplate;
+
+    public InventoryStripeRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void createStripes(String productId, int stripes) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryStripe.class);
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            bulk.upsert(byId(productId, stripe), new Update()
+                    .setOnInsert(PRODUCT_ID, productId)
+                    .setOnInsert(STRIPE, stripe)
+                    .setOnInsert(QUANTITY, 0));
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public boolean take(String productId, int stripe, int quantity) {
+        Query query = new Query(Criteria.where(ID).is(InventoryStripe.id(productId, stripe)).and(QUANTITY).gte(quantity));
+        return mongoTemplate.updateFirst(query, new Update().inc(QUANTITY, -quantity), InventoryStripe.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean give(String productId, int stripe, int quantity) {
+        return mongoTemplate.updateFirst(byId(productId, stripe), new Update().inc(QUANTITY, quantity), InventoryStripe.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public void giveAll(String productId, Map<Integer, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryStripe.class);
+        quantities.forEach((stripe, quantity) -> bulk.updateOne(byId(productId, stripe), new Update().inc(QUANTITY, quantity)));
+        bulk.execute();
+    }
+
+    @Override
+    public int drain(String productId) {
+        int drained = 0;
+        Query query = new Query(Criteria.where(PRODUCT_ID).is(productId));
+        InventoryStripe stripe;
+        while ((stripe = mongoTemplate.findAndRemove(query, InventoryStripe.class)) != null) {
+            drained += stripe.getQuantity();
+        }
+        return drained;
+    }
+
+    private Query byId(String productId, int stripe) {
+        return new Query(Criteria.where(ID).is(InventoryStripe.id(productId, stripe)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.main.repository;
+
+import com.main.entity.Product;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Puts the server-side rules the product repository relies on in place before the service takes
+ * traffic. The stock validator is what makes a short decrement fail on its own inside an unordered
+ * bulk write, see {@link ProductRepositoryCustom#applyStockChanges}. Prices written as strings
+ * before they were stored as Decimal128 are converted, so price range filters see them.
+ */
+@Component
+public class ProductCollectionSetup {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCollectionSetup.class);
+    /* Replaced by the same indexes with price appended, and by the unique SKU index */
+    private static final List<String> SUPERSEDED_INDEXES = List.of("active_category_brand_id", "active_brand_id", "sku_active");
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProductCollectionSetup(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @PostConstruct
+    public void setUp() {
+        installStockValidator();
+        migratePrices();
+    }
+
+    private void installStockValidator() {
+        String collection = mongoTemplate.getCollectionName(Product.class);
+        if (!mongoTemplate.collectionExists(collection)) {
+            try {
+                mongoTemplate.createCollection(collection);
+            } catch (DataAccessException e) {
+                log.debug("Collection {} was created concurrently", collection);
+            }
+        }
+        /* Moderate: documents that already break the rule can still be fixed by later writes */
+        Document validator = new Document("$or", List.of(
+                new Document("stockQuantity", new Document("$exists", false)),
+                new Document("stockQuantity", new Document("$gte", 0))));
+        mongoTemplate.executeCommand(new Document("collMod", collection)
+                .append("validator", validator)
+                .append("validationLevel", "moderate")
+                .append("validationAction", "error"));
+        log.info("Installed the non-negative stock validator on {}", collection);
+    }
+
+    private void migratePrices() {
+        /* Safe to run on every start: only string prices are touched, and one that does not parse is left as it is */
+        Document toDecimal = new Document("$convert", new Document("input", "$price")
+                .append("to", "decimal")
+                .append("onError", "$price"));
+        long converted = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class)).updateMany(
+                new Document("price", new Document("$type", "string")),
+                List.of(new Document("$set", new Document("price", toDecimal))))
+                .getModifiedCount();
+        if (converted > 0) {
+            log.info("Converted the price of {} products from string to Decimal128", converted);
+        }
+
+        IndexOperations indexes = mongoTemplate.indexOps(Product.class);
+        indexes.getIndexInfo().stream()
+                .map(IndexInfo::getName)
+                .filter(SUPERSEDED_INDEXES::contains)
+                .forEach(name -> {
+                    indexes.dropIndex(name);
+                    log.info("Dropped superseded product index {}", name);
+                });
+    }
+}
@@ -0,0 +1,15 @@
+package com.main.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+public class ProductFilter {
+    private String category;
+    private String brand;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
@@ -3,8 +3,11 @@ package com.main.repository;
 import com.main.entity.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface ProductRepository extends MongoRepository<Product, String> {
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
     List<Product> findAllByIsDeletedFalse();
+
+    List<Product> findBySkuInAndIsDeletedFalse(Collection<String> skus);
 }
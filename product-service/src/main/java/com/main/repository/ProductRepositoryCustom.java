@@ -0,0 +1,87 @@
+package com.main.repository;
+
+import com.main.dtos.StockUpdateResponse;
+import com.main.entity.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Applies all stock changes in one bulk write. Unknown ids and products in flash-sale mode are
+     * rejected before anything is written; otherwise each change is a server-side {@code $inc} that
+     * the collection validator refuses if it would take {@code stockQuantity} below zero. The call
+     * is all-or-nothing: if any item is rejected, the items already applied are reverted. A write
+     * or rollback that is never acknowledged is rethrown after logging the changes it left unknown.
+     */
+    StockUpdateResponse applyStockChanges(Map<String, Integer> changes);
+
+    /**
+     * Returns up to {@code limit} active products matching the filter with an id greater than
+     * {@code afterId}, in id order. Seeks through the index instead of skipping rows.
+     */
+    List<Product> findPage(ProductFilter filter, String afterId, int limit);
+
+    /**
+     * Streams all active products matching the filter from a server cursor. The caller must
+     * close the stream.
+     */
+    Stream<Product> streamAll(ProductFilter filter);
+
+    /**
+     * Creates or overwrites the catalog fields of each product, matched by SKU among the active
+     * products, with one unordered bulk write, then sets the stock of those that are not striped
+     * with another. The SKUs must be distinct. A failed write does not stop the others; it is
+     * reported by its position in the list.
+     */
+    BulkUpsertResult upsertBySku(List<Product> products);
+
+    /** Id, SKU, stock and stripe count of the active products with these SKUs. */
+    List<Product> findStockBySku(Collection<String> skus);
+
+    /**
+     * Applies the corrections with one unordered bulk write. Each is a compare-and-set on the
+     * stock, so a checkout that lands after the stock was read is not overwritten; flash-sale
+     * products are never matched. Returns how many products were changed.
+     */
+    long correctStock(List<StockCorrection> corrections);
+
+    /**
+     * Sets the catalog fields of an active product from {@code details} and moves its stock by
+     * {@code stockChange}, leaving every other field, and stock written meanwhile, as it is.
+     * A stock change only applies to a product not in flash-sale mode and never takes it below
+     * zero. Returns the product as updated, or empty if nothing matched.
+     */
+    Optional<Product> updateDetails(String productId, Product details, int stockChange);
+
+    /** Marks an active product deleted and returns it as updated; empty if it is missing or already deleted. */
+    Optional<Product> markDeleted(String productId);
+
+    /** Adds to each product's {@code orderCount} with one unordered bulk write. */
+    void incrementOrderCounts(Map<String, Integer> orders);
+
+    /** Stripe counts of the products in flash-sale mode, optionally limited to {@code productIds}. */
+    Map<String, Integer> findStockStripes(Collection<String> productIds);
+
+    /**
+     * Switches an active product to flash-sale mode and returns it as it was before, so the
+     * caller knows how much stock to move into the stripes. Empty if it was already striped.
+     */
+    Optional<Product> startStriping(String productId, int stripes);
+
+    /**
+     * Switches a product back to regular mode with zero stock, ready for the drained stripes
+     * to be added back. Empty if it was not striped.
+     */
+    Optional<Product> stopStriping(String productId);
+
+    /** Sets the stock a striped product reports; false if it is no longer striped or already shows that stock. */
+    boolean updateStripedStock(String productId, int stockQuantity);
+
+    /** Unguarded {@code $inc} of each product's stock, for giving back stock that was already taken. */
+    void addStock(Map<String, Integer> quantities);
+}
@@ -0,0 +1,365 @@
+package com.main.repository;
+
+import com.main.dtos.StockUpdateResponse;
+import com.main.entity.Product;
+import com.main.util.StockUpdateStatus;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductRepositoryCustomImpl.class);
+
+    private static final int DOCUMENT_VALIDATION_FAILURE = 121;
+    private static final String ID = "id";
+    private static final String STOCK_QUANTITY = "stockQuantity";
+    private static final String IS_DELETED = "isDeleted";
+    private static final String NAME = "name";
+    private static final String ORDER_COUNT = "orderCount";
+    private static final String STOCK_STRIPES = "stockStripes";
+    private static final String SKU = "sku";
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProductRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public StockUpdateResponse applyStockChanges(Map<String, Integer> changes) {
+        List<Map.Entry<String, Integer>> items = new ArrayList<>(changes.entrySet());
+        StockUpdateStatus[] statuses = new StockUpdateStatus[items.size()];
+        Arrays.fill(statuses, StockUpdateStatus.APPLIED);
+
+        /*
+         * Products are only ever soft-deleted, so an id missing here stays missing and nothing
+         * has to be written to find out. Flash-sale products keep their stock in stripes and are
+         * rejected the same way as a short decrement.
+         */
+        Query lookup = new Query(Criteria.where(ID).in(changes.keySet()));
+        lookup.fields().include(STOCK_STRIPES);
+        Map<String, Integer> stripes = new HashMap<>();
+        mongoTemplate.find(lookup, Product.class).forEach(product -> stripes.put(product.getId(), product.getStockStripes()));
+        List<Integer> planned = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            String productId = items.get(i).getKey();
+            if (!stripes.containsKey(productId)) {
+                statuses[i] = StockUpdateStatus.NOT_FOUND;
+            } else if (stripes.get(productId) != null) {
+                statuses[i] = StockUpdateStatus.INSUFFICIENT_STOCK;
+            } else {
+                planned.add(i);
+            }
+        }
+        if (planned.size() < items.size()) {
+            planned.forEach(i -> statuses[i] = StockUpdateStatus.ROLLED_BACK);
+            return response(items, statuses);
+        }
+
+        /*
+         * Each change is a plain $inc. The collection validator (see ProductCollectionSetup) fails
+         * any write that would take stockQuantity below zero, and in an unordered bulk write that
+         * fails just that item, so the server still tells us per item what happened.
+         */
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (Map.Entry<String, Integer> item : items) {
+            bulk.updateOne(new Query(Criteria.where(ID).is(item.getKey()).and(STOCK_STRIPES).is(null)),
+                    new Update().inc(STOCK_QUANTITY, item.getValue()));
+        }
+
+        BulkOperationException failure = null;
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            result = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() == DOCUMENT_VALIDATION_FAILURE) {
+                    statuses[error.getIndex()] = StockUpdateStatus.INSUFFICIENT_STOCK;
+                } else {
+                    statuses[error.getIndex()] = null;
+                    failure = e;
+                }
+            }
+        } catch (RuntimeException e) {
+            /* The write was sent but never acknowledged, so nothing is known to roll back */
+            log.error("Outcome of stock changes {} is unknown", changes, e);
+            throw e;
+        }
+        markUnmatched(items, statuses, result.getMatchedCount());
+
+        boolean applied = Arrays.stream(statuses).allMatch(StockUpdateStatus.APPLIED::equals);
+        if (!applied) {
+            rollback(items, statuses);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return response(items, statuses);
+    }
+
+    @Override
+    public List<Product> findPage(ProductFilter filter, String afterId, int limit) {
+        Criteria criteria = activeMatching(filter);
+        if (afterId != null) {
+            criteria = criteria.and(ID).gt(afterId);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, ID)).limit(limit);
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public Stream<Product> streamAll(ProductFilter filter) {
+        Query query = new Query(activeMatching(filter))
+                .with(Sort.by(Sort.Direction.ASC, ID))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, Product.class);
+    }
+
+    @Override
+    public BulkUpsertResult upsertBySku(List<Product> products) {
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations catalog = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        BulkOperations stock = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (Product product : products) {
+            catalog.upsert(new Query(Criteria.where(SKU).is(product.getSku()).and(IS_DELETED).is(Boolean.FALSE)), new Update()
+                    .set(NAME, product.getName())
+                    .set("description", product.getDescription())
+                    .set("category", product.getCategory())
+                    .set("price", new Decimal128(product.getPrice()))
+                    .set("brand", product.getBrand())
+                    .set("updatedAt", now)
+                    .setOnInsert(STOCK_QUANTITY, product.getStockQuantity())
+                    .setOnInsert("createdAt", now)
+                    .setOnInsert(ORDER_COUNT, 0L));
+            /* Striped stock lives in the stripes; its stockQuantity only mirrors them */
+            stock.updateOne(new Query(Criteria.where(SKU).is(product.getSku()).and(IS_DELETED).is(Boolean.FALSE)
+                    .and(STOCK_STRIPES).is(null)), new Update().set(STOCK_QUANTITY, product.getStockQuantity()));
+        }
+
+        Map<Integer, String> errors = new HashMap<>();
+        BulkWriteResult result = execute(catalog, errors);
+        execute(stock, errors);
+        return new BulkUpsertResult(result.getUpserts().size(), result.getMatchedCount(), errors);
+    }
+
+    /* Runs an unordered bulk write, adding the failed positions that are not reported yet */
+    private static BulkWriteResult execute(BulkOperations bulk, Map<Integer, String> errors) {
+        try {
+            return bulk.execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> errors.putIfAbsent(error.getIndex(), error.getMessage()));
+            return e.getResult();
+        }
+    }
+
+    @Override
+    public List<Product> findStockBySku(Collection<String> skus) {
+        Query query = new Query(Criteria.where(SKU).in(skus).and(IS_DELETED).is(Boolean.FALSE));
+        query.fields().include(SKU, STOCK_QUANTITY, STOCK_STRIPES);
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public long correctStock(List<StockCorrection> corrections) {
+        if (corrections.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (StockCorrection correction : corrections) {
+            bulk.updateOne(new Query(Criteria.where(ID).is(correction.getProductId())
+                            .and(STOCK_QUANTITY).is(correction.getExpected())
+                            .and(STOCK_STRIPES).is(null)),
+                    new Update().set(STOCK_QUANTITY, correction.getQuantity()));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public Optional<Product> updateDetails(String productId, Product details, int stockChange) {
+        /* ne rather than is false: documents written before isDeleted existed have no such field */
+        Criteria criteria = Criteria.where(ID).is(productId).and(IS_DELETED).ne(Boolean.TRUE);
+        Update update = new Update()
+                .set(NAME, details.getName())
+                .set("description", details.getDescription())
+                .set("category", details.getCategory())
+                .set("price", details.getPrice())
+                .set(SKU, details.getSku())
+                .set("brand", details.getBrand())
+                .set("updatedAt", details.getUpdatedAt());
+        if (stockChange != 0) {
+            criteria = criteria.and(STOCK_STRIPES).is(null);
+            if (stockChange < 0) {
+                criteria = criteria.and(STOCK_QUANTITY).gte(-stockChange);
+            }
+            update.inc(STOCK_QUANTITY, stockChange);
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                new Query(criteria), update, FindAndModifyOptions.options().returnNew(true), Product.class));
+    }
+
+    @Override
+    public Optional<Product> markDeleted(String productId) {
+        Query query = new Query(Criteria.where(ID).is(productId).and(IS_DELETED).ne(Boolean.TRUE));
+        Update update = new Update().set(IS_DELETED, Boolean.TRUE).set("updatedAt", LocalDateTime.now());
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                query, update, FindAndModifyOptions.options().returnNew(true), Product.class));
+    }
+
+    @Override
+    public void incrementOrderCounts(Map<String, Integer> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        orders.forEach((productId, count) ->
+                bulk.updateOne(new Query(Criteria.where(ID).is(productId)), new Update().inc(ORDER_COUNT, count)));
+        bulk.execute();
+    }
+
+    @Override
+    public Map<String, Integer> findStockStripes(Collection<String> productIds) {
+        Criteria criteria = Criteria.where(STOCK_STRIPES).ne(null);
+        if (productIds != null) {
+            criteria = criteria.and(ID).in(productIds);
+        }
+        Query query = new Query(criteria);
+        query.fields().include(STOCK_STRIPES);
+        Map<String, Integer> stripes = new HashMap<>();
+        mongoTemplate.find(query, Product.class).forEach(product -> stripes.put(product.getId(), product.getStockStripes()));
+        return stripes;
+    }
+
+    @Override
+    public Optional<Product> startStriping(String productId, int stripes) {
+        Query query = new Query(Criteria.where(ID).is(productId).and(IS_DELETED).is(Boolean.FALSE).and(STOCK_STRIPES).is(null));
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, new Update().set(STOCK_STRIPES, stripes), Product.class));
+    }
+
+    @Override
+    public Optional<Product> stopStriping(String productId) {
+        Query query = new Query(Criteria.where(ID).is(productId).and(STOCK_STRIPES).ne(null));
+        Update update = new Update().unset(STOCK_STRIPES).set(STOCK_QUANTITY, 0);
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                query, update, FindAndModifyOptions.options().returnNew(true), Product.class));
+    }
+
+    @Override
+    public boolean updateStripedStock(String productId, int stockQuantity) {
+        Query query = new Query(Criteria.where(ID).is(productId).and(STOCK_STRIPES).ne(null)
+                .and(STOCK_QUANTITY).ne(stockQuantity));
+        return mongoTemplate.updateFirst(query, new Update().set(STOCK_QUANTITY, stockQuantity), Product.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public void addStock(Map<String, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        quantities.forEach((productId, quantity) ->
+                bulk.updateOne(new Query(Criteria.where(ID).is(productId)), new Update().inc(STOCK_QUANTITY, quantity)));
+        bulk.execute();
+    }
+
+    private Criteria activeMatching(ProductFilter filter) {
+        Criteria criteria = Criteria.where(IS_DELETED).is(Boolean.FALSE);
+        if (filter.getCategory() != null) {
+            criteria = criteria.and("category").is(filter.getCategory());
+        }
+        if (filter.getBrand() != null) {
+            criteria = criteria.and("brand").is(filter.getBrand());
+        }
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            Criteria price = criteria.and("price");
+            if (filter.getMinPrice() != null) price.gte(filter.getMinPrice());
+            if (filter.getMaxPrice() != null) price.lte(filter.getMaxPrice());
+        }
+        return criteria;
+    }
+
+    /*
+     * A product switched to flash-sale mode between the lookup and the write matches nothing.
+     * Those are the ones striped now; if the switch came just after an item's $inc, that change
+     * went into the stripes with the rest of the stock and cannot be told apart, so it is logged.
+     */
+    private void markUnmatched(List<Map.Entry<String, Integer>> items, StockUpdateStatus[] statuses, int matched) {
+        List<String> written = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (statuses[i] == StockUpdateStatus.APPLIED) {
+                written.add(items.get(i).getKey());
+            }
+        }
+        int unmatched = written.size() - matched;
+        if (unmatched <= 0) {
+            return;
+        }
+        Map<String, Integer> striped = findStockStripes(written);
+        for (int i = 0; i < items.size(); i++) {
+            if (statuses[i] == StockUpdateStatus.APPLIED && striped.containsKey(items.get(i).getKey())) {
+                statuses[i] = StockUpdateStatus.INSUFFICIENT_STOCK;
+            }
+        }
+        if (striped.size() != unmatched) {
+            log.error("{} stock changes matched nothing but {} products were switched to flash-sale mode: {}",
+                    unmatched, striped.size(), striped.keySet());
+        }
+    }
+
+    private void rollback(List<Map.Entry<String, Integer>> items, StockUpdateStatus[] statuses) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        Map<String, Integer> reverted = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (statuses[i] == StockUpdateStatus.APPLIED) {
+                String productId = items.get(i).getKey();
+                bulk.updateOne(new Query(Criteria.where(ID).is(productId)),
+                        new Update().inc(STOCK_QUANTITY, -items.get(i).getValue()));
+                reverted.put(productId, items.get(i).getValue());
+                statuses[i] = StockUpdateStatus.ROLLED_BACK;
+            }
+        }
+        if (reverted.isEmpty()) {
+            return;
+        }
+        try {
+            bulk.execute();
+            log.info("Rolled back {} stock operations", reverted.size());
+        } catch (RuntimeException e) {
+            /* Increments never fail validation, so this is a lost connection; say exactly what is left */
+            log.error("Rollback of stock changes {} did not complete", reverted, e);
+            throw e;
+        }
+    }
+
+    private static StockUpdateResponse response(List<Map.Entry<String, Integer>> items, StockUpdateStatus[] statuses) {
+        List<StockUpdateResponse.StockUpdateResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            results.add(new StockUpdateResponse.StockUpdateResult(
+                    items.get(i).getKey(), items.get(i).getValue(), statuses[i]));
+        }
+        return new StockUpdateResponse(Arrays.stream(statuses).allMatch(StockUpdateStatus.APPLIED::equals), results);
+    }
+}
@@ -0,0 +1,13 @@
+package com.main.repository;
+
+import com.main.entity.Reservation;
+import com.main.util.ReservationStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ReservationRepository extends MongoRepository<Reservation, String>, ReservationRepositoryCustom {
+    List<Reservation> findByStatusAndExpiresAtBefore(ReservationStatus status, LocalDateTime time, Limit limit);
+}
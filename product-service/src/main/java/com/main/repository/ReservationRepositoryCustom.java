@@ -0,0 +1,33 @@
+package com.main.repository;
+
+import com.main.entity.Reservation;
+import com.main.util.ReservationStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ReservationRepositoryCustom {
+
+    /**
+     * Moves a reservation from {@code expected} to {@code next} in a single findAndModify, so
+     * confirm, release and the expiry sweeper can never both act on the same hold.
+     */
+    Optional<Reservation> compareAndSetStatus(String id, ReservationStatus expected, ReservationStatus next);
+
+    /**
+     * Like {@link #compareAndSetStatus}, but only while the hold is still before its {@code expiresAt},
+     * so a hold that has run out but not yet been swept cannot be confirmed.
+     */
+    Optional<Reservation> compareAndSetUnexpiredStatus(String id, ReservationStatus expected, ReservationStatus next, LocalDateTime now);
+
+    /**
+     * Pushes a hold that has not run out yet back to {@code expiresAt}, never earlier than it was.
+     * Empty if the reservation is no longer HELD or already expired.
+     */
+    Optional<Reservation> extendUnexpired(String id, LocalDateTime now, LocalDateTime expiresAt);
+
+    /** Quantity of each of these products that is held by HELD reservations; products with none are left out. */
+    Map<String, Integer> sumHeld(Collection<String> productIds);
+}
@@ -0,0 +1,73 @@
+package com.main.repository;
+
+import com.main.entity.Reservation;
+import com.main.util.ReservationStatus;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public class ReservationRepositoryCustomImpl implements ReservationRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public ReservationRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<Reservation> compareAndSetStatus(String id, ReservationStatus expected, ReservationStatus next) {
+        return compareAndSet(Criteria.where("id").is(id).and("status").is(expected), next);
+    }
+
+    @Override
+    public Optional<Reservation> compareAndSetUnexpiredStatus(String id, ReservationStatus expected, ReservationStatus next,
+                                                              LocalDateTime now) {
+        return compareAndSet(Criteria.where("id").is(id).and("status").is(expected).and("expiresAt").gt(now), next);
+    }
+
+    @Override
+    public Optional<Reservation> extendUnexpired(String id, LocalDateTime now, LocalDateTime expiresAt) {
+        Query held = new Query(Criteria.where("id").is(id).and("status").is(ReservationStatus.HELD).and("expiresAt").gt(now));
+        Update update = new Update()
+                .max("expiresAt", expiresAt)
+                .set("updatedAt", now);
+        return Optional.ofNullable(mongoTemplate.findAndModify(held, update, FindAndModifyOptions.options().returnNew(true), Reservation.class));
+    }
+
+    @Override
+    public Map<String, Integer> sumHeld(Collection<String> productIds) {
+        /* Served by status_expiresAt: only the holds still open are unwound */
+        TypedAggregation<Reservation> aggregation = Aggregation.newAggregation(Reservation.class,
+                Aggregation.match(Criteria.where("status").is(ReservationStatus.HELD).and("items.productId").in(productIds)),
+                Aggregation.unwind("items"),
+                Aggregation.match(Criteria.where("items.productId").in(productIds)),
+                Aggregation.group("items.productId").sum("items.quantity").as("quantity"));
+        Map<String, Integer> held = new HashMap<>();
+        for (Document sum : mongoTemplate.aggregate(aggregation, Document.class)) {
+            held.put(sum.getString("_id"), ((Number) sum.get("quantity")).intValue());
+        }
+        return held;
+    }
+
+    private Optional<Reservation> compareAndSet(Criteria criteria, ReservationStatus next) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                new Query(criteria), statusUpdate(next), FindAndModifyOptions.options().returnNew(true), Reservation.class));
+    }
+
+    private Update statusUpdate(ReservationStatus next) {
+        return new Update()
+                .set("status", next)
+                .set("updatedAt", LocalDateTime.now());
+    }
+}
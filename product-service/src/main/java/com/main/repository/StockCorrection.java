@@ -0,0 +1,13 @@
+package com.main.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** Sets a product's stock to {@code quantity}, provided it still holds {@code expected}. */
+@Data
+@AllArgsConstructor
+public class StockCorrection {
+    private String productId;
+    private int expected;
+    private int quantity;
+}
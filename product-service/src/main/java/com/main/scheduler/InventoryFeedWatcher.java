@@ -0,0 +1,79 @@
+package com.main.scheduler;
+
+import com.main.entity.FeedCheckpoint;
+import com.main.feed.InventoryFeedIngester;
+import com.main.util.FeedStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Picks up WMS stock snapshots ({@code *.csv}) dropped into the feed directory, oldest name
+ * first, and moves each one to {@code processed/} once ingested. Stops at the first file that
+ * does not complete, so an older snapshot is never applied over a newer one.
+ */
+@Component
+public class InventoryFeedWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryFeedWatcher.class);
+
+    private final InventoryFeedIngester ingester;
+    private final String directory;
+    private final long settleMs;
+
+    public InventoryFeedWatcher(InventoryFeedIngester ingester,
+                                @Value("${product.feed.directory:}") String directory,
+                                @Value("${product.feed.settle-ms:10000}") long settleMs) {
+        this.ingester = ingester;
+        this.directory = directory;
+        this.settleMs = settleMs;
+    }
+
+    @Scheduled(fixedDelayString = "${product.feed.poll-interval-ms:60000}")
+    public void ingestNewFeeds() {
+        if (directory.isBlank()) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(Path.of(directory))) {
+            files = listing.filter(Files::isRegularFile)
+                    .filter(file -> file.getFileName().toString().endsWith(".csv"))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Could not list stock feed directory {}", directory, e);
+            return;
+        }
+
+        for (Path file : files) {
+            try {
+                /* A file modified moments ago may still be being copied in */
+                if (Files.getLastModifiedTime(file).toMillis() > System.currentTimeMillis() - settleMs) {
+                    return;
+                }
+                FeedCheckpoint checkpoint = ingester.ingest(file);
+                if (checkpoint.getStatus() != FeedStatus.COMPLETED) {
+                    return;
+                }
+                Path processed = file.resolveSibling("processed");
+                Files.createDirectories(processed);
+                Files.move(file, processed.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            } catch (NoSuchFileException e) {
+                log.debug("Stock feed {} was moved by another instance", file);
+            } catch (IOException | RuntimeException e) {
+                log.error("Stock feed {} could not be ingested, will retry on next run", file, e);
+                return;
+            }
+        }
+    }
+}
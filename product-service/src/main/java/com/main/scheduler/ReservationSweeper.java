@@ -0,0 +1,42 @@
+package com.main.scheduler;
+
+import com.main.service.ReservationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives back stock held by reservations that were neither confirmed nor released in time,
+ * e.g. because the order-service instance that created them went away mid-checkout.
+ */
+@Component
+public class ReservationSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationSweeper.class);
+
+    private final ReservationService reservationService;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public ReservationSweeper(ReservationService reservationService,
+                              @Value("${product.reservation.sweep-batch-size:200}") int batchSize,
+                              @Value("${product.reservation.sweep-max-batches:50}") int maxBatchesPerRun) {
+        this.reservationService = reservationService;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${product.reservation.sweep-interval-ms:5000}")
+    public void releaseExpiredReservations() {
+        try {
+            int batches = 0;
+            while (batches++ < maxBatchesPerRun && reservationService.releaseExpired(batchSize) == batchSize) {
+                log.debug("Expired reservation batch {} was full, sweeping again", batches);
+            }
+        } catch (RuntimeException e) {
+            log.error("Reservation sweep failed, will retry on next run", e);
+        }
+    }
+}
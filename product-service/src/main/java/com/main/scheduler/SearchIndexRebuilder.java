@@ -0,0 +1,40 @@
+package com.main.scheduler;
+
+import com.main.search.ProductAutocomplete;
+import com.main.search.ProductSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the product search index and suggestions at startup and rebuilds them periodically,
+ * which picks up product changes made by other instances and drops the garbage left by updates.
+ */
+@Component
+public class SearchIndexRebuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexRebuilder.class);
+
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductAutocomplete productAutocomplete;
+
+    public SearchIndexRebuilder(ProductSearchIndex productSearchIndex, ProductAutocomplete productAutocomplete) {
+        this.productSearchIndex = productSearchIndex;
+        this.productAutocomplete = productAutocomplete;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${product.search.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        try {
+            productSearchIndex.rebuild();
+        } catch (RuntimeException e) {
+            log.error("Product search index rebuild failed, keeping the current index", e);
+        }
+        try {
+            productAutocomplete.rebuild();
+        } catch (RuntimeException e) {
+            log.error("Product suggestions rebuild failed, keeping the current ones", e);
+        }
+    }
+}
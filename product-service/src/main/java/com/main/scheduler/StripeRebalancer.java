@@ -0,0 +1,32 @@
+package com.main.scheduler;
+
+import com.main.service.InventoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps flash-sale stripes even, so decrements rarely miss on their first stripe, and keeps each
+ * striped product's stockQuantity close to the stock actually left.
+ */
+@Component
+public class StripeRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(StripeRebalancer.class);
+
+    private final InventoryService inventoryService;
+
+    public StripeRebalancer(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${product.flash-sale.rebalance-interval-ms:1000}")
+    public void rebalanceStripes() {
+        try {
+            inventoryService.rebalance();
+        } catch (RuntimeException e) {
+            log.error("Stripe rebalance failed, will retry on next run", e);
+        }
+    }
+}
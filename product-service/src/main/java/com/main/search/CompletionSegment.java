@@ -0,0 +1,424 @@
+package com.main.search;
+
+import com.main.entity.Product;
+import com.main.util.SuggestionType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Prefix index of product names, brands and categories for autocomplete. The bulk of it is
+ * frozen after a rebuild into one sorted, packed array of UTF-8 keys with a max segment tree
+ * over the key weights, so the best suggestions under any prefix come out of a binary search
+ * and a few tree lookups. Suggestions added afterwards go to a small sorted delta until the
+ * next rebuild; weights change in place. Not thread-safe.
+ */
+final class CompletionSegment {
+
+    /* A product name is also suggested from its second and third word, so "iphone" finds "Apple iPhone 15" */
+    private static final int MAX_WORD_STARTS = 3;
+    /* Longer prefixes than this narrow the results very little */
+    private static final int MAX_KEY_BYTES = 48;
+    private static final int NONE = -1;
+    private static final long DEAD = -1;
+    private static final SuggestionType[] TYPES = SuggestionType.values();
+    private static final long STRING_HEADER_BYTES = 40;
+    private static final long ENTRY_BYTES = 64;
+
+    /* Suggestions by ordinal */
+    private String[] texts = new String[1024];
+    private String[] productIds = new String[1024];
+    private byte[] types = new byte[1024];
+    private long[] weights = new long[1024];
+    /* For product suggestions: the brand and category suggestions they count towards */
+    private int[] brandOf = new int[1024];
+    private int[] categoryOf = new int[1024];
+    /* For brand and category suggestions: how many live products carry them */
+    private int[] members = new int[1024];
+    private int count;
+    private int liveCount;
+
+    private final Map<String, Integer> products = new HashMap<>();
+    private final Map<String, Integer> brands = new HashMap<>();
+    private final Map<String, Integer> categories = new HashMap<>();
+
+    /* Frozen keys, sorted; keyBytes[keyOffsets[k] .. keyOffsets[k + 1]) is key k */
+    private byte[] keyBytes = new byte[0];
+    private int[] keyOffsets = {0};
+    private int[] keySuggestions = new int[0];
+    /* Bottom-up max segment tree over key weights; each node holds the key index of its best leaf */
+    private int[] tree = new int[0];
+    /* Keys of each frozen suggestion, for in-place weight updates */
+    private int[] suggestionKeyStarts = {0};
+    private int[] suggestionKeys = new int[0];
+    private int frozenCount;
+    private boolean frozen;
+
+    private final TreeMap<String, List<Integer>> delta = new TreeMap<>();
+    private int deltaKeys;
+    private long stringBytes;
+
+    void upsert(Product product) {
+        Integer existing = products.get(product.getId());
+        if (Boolean.TRUE.equals(product.getIsDeleted())) {
+            if (existing != null) {
+                remove(product.getId());
+            }
+            return;
+        }
+        if (existing != null) {
+            int suggestion = existing;
+            if (Objects.equals(texts[suggestion], product.getName())
+                    && Objects.equals(textOf(brandOf[suggestion]), product.getBrand())
+                    && Objects.equals(textOf(categoryOf[suggestion]), product.getCategory())) {
+                return;
+            }
+            remove(product.getId());
+        }
+
+        long orders = Math.max(0, product.getOrderCount());
+        int brand = facet(brands, product.getBrand(), SuggestionType.BRAND);
+        int category = facet(categories, product.getCategory(), SuggestionType.CATEGORY);
+        if (product.getName() != null && !product.getName().isBlank()) {
+            int suggestion = add(product.getName(), SuggestionType.PRODUCT, product.getId(), orders);
+            brandOf[suggestion] = brand;
+            categoryOf[suggestion] = category;
+            products.put(product.getId(), suggestion);
+        } else {
+            /* Nothing to suggest for the product itself, but it still counts towards its facets */
+            int suggestion = add(null, SuggestionType.PRODUCT, product.getId(), DEAD);
+            brandOf[suggestion] = brand;
+            categoryOf[suggestion] = category;
+            products.put(product.getId(), suggestion);
+        }
+        join(brand, orders);
+        join(category, orders);
+    }
+
+    void remove(String productId) {
+        Integer suggestion = products.remove(productId);
+        if (suggestion == null) {
+            return;
+        }
+        long orders = Math.max(0, weights[suggestion]);
+        setWeight(suggestion, DEAD);
+        leave(brandOf[suggestion], orders, brands);
+        leave(categoryOf[suggestion], orders, categories);
+    }
+
+    /** Adds orders to a product and to its brand and category. */
+    void recordOrders(String productId, int orders) {
+        Integer suggestion = products.get(productId);
+        if (suggestion == null) {
+            return;
+        }
+        if (weights[suggestion] != DEAD) {
+            setWeight(suggestion, weights[suggestion] + orders);
+        }
+        addWeight(brandOf[suggestion], orders);
+        addWeight(categoryOf[suggestion], orders);
+    }
+
+    /**
+     * Returns up to {@code limit} live suggestions with a key starting with the folded prefix,
+     * heaviest first. A suggestion reachable through several keys is returned once.
+     */
+    List<Suggestion> complete(String prefix, int limit) {
+        byte[] prefixBytes = truncate(prefix.getBytes(StandardCharsets.UTF_8));
+        Set<Integer> seen = new HashSet<>();
+        List<Suggestion> found = new ArrayList<>(limit);
+
+        int from = lowerBound(prefixBytes);
+        int to = prefixEnd(prefixBytes, from);
+        if (from < to) {
+            PriorityQueue<long[]> ranges = new PriorityQueue<>((a, b) -> compareKeys((int) b[2], (int) a[2]));
+            ranges.add(new long[]{from, to, best(from, to)});
+            while (!ranges.isEmpty() && found.size() < limit) {
+                long[] range = ranges.poll();
+                int key = (int) range[2];
+                int suggestion = keySuggestions[key];
+                if (weights[suggestion] == DEAD) {
+                    break;
+                }
+                if (seen.add(suggestion)) {
+                    found.add(suggestion(suggestion));
+                }
+                if (range[0] < key) ranges.add(new long[]{range[0], key, best((int) range[0], key)});
+                if (key + 1 < range[1]) ranges.add(new long[]{key + 1, range[1], best(key + 1, (int) range[1])});
+            }
+        }
+
+        String deltaPrefix = new String(prefixBytes, StandardCharsets.UTF_8);
+        for (List<Integer> suggestions : delta.subMap(deltaPrefix, true, deltaPrefix + Character.MAX_VALUE, true).values()) {
+            for (int suggestion : suggestions) {
+                if (weights[suggestion] != DEAD && seen.add(suggestion)) {
+                    found.add(suggestion(suggestion));
+                }
+            }
+        }
+        found.sort((a, b) -> a.popularity() != b.popularity()
+                ? Long.compare(b.popularity(), a.popularity())
+                : a.text().compareTo(b.text()));
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    /**
+     * Moves every live suggestion into the packed arrays and rebuilds the tree. Called once
+     * after a rebuild has loaded all products; later additions go to the delta.
+     */
+    void freeze() {
+        List<byte[]> keys = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int suggestion = 0; suggestion < count; suggestion++) {
+            if (weights[suggestion] == DEAD) {
+                continue;
+            }
+            for (String key : keysOf(texts[suggestion])) {
+                keys.add(truncate(key.getBytes(StandardCharsets.UTF_8)));
+                owners.add(suggestion);
+            }
+        }
+
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(keys.get(a), keys.get(b)));
+
+        int total = 0;
+        for (byte[] key : keys) total += key.length;
+        keyBytes = new byte[total];
+        keyOffsets = new int[order.length + 1];
+        keySuggestions = new int[order.length];
+        int offset = 0;
+        for (int k = 0; k < order.length; k++) {
+            byte[] key = keys.get(order[k]);
+            System.arraycopy(key, 0, keyBytes, offset, key.length);
+            keyOffsets[k] = offset;
+            offset += key.length;
+            keySuggestions[k] = owners.get(order[k]);
+        }
+        keyOffsets[order.length] = offset;
+
+        /* Group keys by suggestion so a weight change can find its leaves */
+        frozenCount = count;
+        suggestionKeyStarts = new int[count + 1];
+        for (int suggestion : keySuggestions) suggestionKeyStarts[suggestion + 1]++;
+        for (int s = 0; s < count; s++) suggestionKeyStarts[s + 1] += suggestionKeyStarts[s];
+        suggestionKeys = new int[keySuggestions.length];
+        int[] next = Arrays.copyOf(suggestionKeyStarts, count);
+        for (int k = 0; k < keySuggestions.length; k++) {
+            suggestionKeys[next[keySuggestions[k]]++] = k;
+        }
+
+        int leaves = keySuggestions.length;
+        tree = new int[2 * leaves];
+        for (int k = 0; k < leaves; k++) tree[leaves + k] = k;
+        for (int node = leaves - 1; node > 0; node--) {
+            tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+        }
+        delta.clear();
+        deltaKeys = 0;
+        frozen = true;
+    }
+
+    int liveCount() {
+        return liveCount;
+    }
+
+    int keyCount() {
+        return keySuggestions.length + deltaKeys;
+    }
+
+    /**
+     * Rough heap footprint in bytes: arrays at their length, strings at their length plus an
+     * object header, map and delta entries at a typical per-entry overhead.
+     */
+    long memoryBytes() {
+        return keyBytes.length
+                + 4L * (keyOffsets.length + keySuggestions.length + tree.length + suggestionKeyStarts.length + suggestionKeys.length)
+                + (long) texts.length * (4 + 4 + 1 + 8 + 4 + 4 + 4)
+                + stringBytes
+                + ENTRY_BYTES * (products.size() + brands.size() + categories.size() + deltaKeys);
+    }
+
+    private int add(String text, SuggestionType type, String productId, long weight) {
+        int suggestion = count++;
+        if (suggestion == texts.length) {
+            grow();
+        }
+        texts[suggestion] = text;
+        types[suggestion] = (byte) type.ordinal();
+        productIds[suggestion] = productId;
+        weights[suggestion] = weight;
+        brandOf[suggestion] = NONE;
+        categoryOf[suggestion] = NONE;
+        members[suggestion] = 0;
+        stringBytes += stringBytes(text) + stringBytes(productId);
+        if (weight != DEAD) {
+            liveCount++;
+        }
+        if (weight != DEAD && frozen) {
+            for (String key : keysOf(text)) {
+                delta.computeIfAbsent(new String(truncate(key.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8),
+                        k -> new ArrayList<>(1)).add(suggestion);
+                deltaKeys++;
+            }
+        }
+        return suggestion;
+    }
+
+    private int facet(Map<String, Integer> facets, String text, SuggestionType type) {
+        if (text == null || text.isBlank()) {
+            return NONE;
+        }
+        return facets.computeIfAbsent(text, t -> add(t, type, null, 0));
+    }
+
+    private void join(int facet, long orders) {
+        if (facet != NONE) {
+            members[facet]++;
+            addWeight(facet, orders);
+        }
+    }
+
+    private void leave(int facet, long orders, Map<String, Integer> facets) {
+        if (facet == NONE) {
+            return;
+        }
+        if (--members[facet] == 0) {
+            facets.remove(texts[facet]);
+            setWeight(facet, DEAD);
+        } else {
+            addWeight(facet, -orders);
+        }
+    }
+
+    private void addWeight(int suggestion, long orders) {
+        if (suggestion != NONE && weights[suggestion] != DEAD) {
+            setWeight(suggestion, Math.max(0, weights[suggestion] + orders));
+        }
+    }
+
+    private void setWeight(int suggestion, long weight) {
+        if (weights[suggestion] != DEAD && weight == DEAD) {
+            liveCount--;
+        }
+        weights[suggestion] = weight;
+        if (suggestion >= frozenCount) {
+            return;
+        }
+        int leaves = keySuggestions.length;
+        for (int i = suggestionKeyStarts[suggestion]; i < suggestionKeyStarts[suggestion + 1]; i++) {
+            for (int node = (leaves + suggestionKeys[i]) >>> 1; node > 0; node >>>= 1) {
+                tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+    }
+
+    /** Best key in {@code [from, to)}, walking the tree bottom-up. */
+    private int best(int from, int to) {
+        int leaves = keySuggestions.length;
+        int best = from;
+        for (int low = from + leaves, high = to + leaves; low < high; low >>>= 1, high >>>= 1) {
+            if ((low & 1) == 1) best = better(best, tree[low++]);
+            if ((high & 1) == 1) best = better(best, tree[--high]);
+        }
+        return best;
+    }
+
+    /* Heavier key wins; on a tie the alphabetically first one */
+    private int better(int a, int b) {
+        return compareKeys(a, b) >= 0 ? a : b;
+    }
+
+    private int compareKeys(int a, int b) {
+        int byWeight = Long.compare(weights[keySuggestions[a]], weights[keySuggestions[b]]);
+        return byWeight != 0 ? byWeight : Integer.compare(b, a);
+    }
+
+    /** First key not less than the prefix. */
+    private int lowerBound(byte[] prefix) {
+        int low = 0;
+        int high = keySuggestions.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Arrays.compareUnsigned(keyBytes, keyOffsets[middle], keyOffsets[middle + 1], prefix, 0, prefix.length) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /** First key at or after {@code from} that does not start with the prefix. */
+    private int prefixEnd(byte[] prefix, int from) {
+        int low = from;
+        int high = keySuggestions.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (startsWith(middle, prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean startsWith(int key, byte[] prefix) {
+        int start = keyOffsets[key];
+        return keyOffsets[key + 1] - start >= prefix.length
+                && Arrays.equals(keyBytes, start, start + prefix.length, prefix, 0, prefix.length);
+    }
+
+    private Suggestion suggestion(int suggestion) {
+        return new Suggestion(texts[suggestion], TYPES[types[suggestion]], productIds[suggestion], weights[suggestion]);
+    }
+
+    private String textOf(int suggestion) {
+        return suggestion == NONE ? null : texts[suggestion];
+    }
+
+    private static List<String> keysOf(String text) {
+        String folded = SearchTokenizer.fold(text);
+        List<String> keys = new ArrayList<>(MAX_WORD_STARTS);
+        int start = 0;
+        while (start >= 0 && keys.size() < MAX_WORD_STARTS && start < folded.length()) {
+            keys.add(folded.substring(start));
+            int space = folded.indexOf(' ', start);
+            start = space < 0 ? -1 : space + 1;
+        }
+        return keys;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : STRING_HEADER_BYTES + value.length();
+    }
+
+    private static byte[] truncate(byte[] key) {
+        return key.length <= MAX_KEY_BYTES ? key : Arrays.copyOf(key, MAX_KEY_BYTES);
+    }
+
+    private void grow() {
+        int capacity = texts.length * 2;
+        texts = Arrays.copyOf(texts, capacity);
+        productIds = Arrays.copyOf(productIds, capacity);
+        types = Arrays.copyOf(types, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        brandOf = Arrays.copyOf(brandOf, capacity);
+        categoryOf = Arrays.copyOf(categoryOf, capacity);
+        members = Arrays.copyOf(members, capacity);
+    }
+
+    record Suggestion(String text, SuggestionType type, String productId, long popularity) {
+    }
+}
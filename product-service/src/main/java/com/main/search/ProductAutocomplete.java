@@ -0,0 +1,106 @@
+package com.main.search;
+
+import com.main.dtos.SuggestionResponse;
+import com.main.entity.Product;
+import com.main.exceptions.BusinessException;
+import com.main.repository.ProductRepository;
+import com.main.util.ProductServiceContant;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Type-ahead suggestions over product names, brands and categories, ranked by confirmed orders.
+ * Loaded and swapped in the same way as {@link ProductSearchIndex}; product writes and orders on
+ * this instance are applied as they happen.
+ */
+@Component
+public class ProductAutocomplete extends SwappableIndex<CompletionSegment> {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductAutocomplete.class);
+
+    private final Timer completeTimer;
+    private volatile long memoryBytes;
+    private volatile int keys;
+    private volatile int suggestions;
+
+    public ProductAutocomplete(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        super(productRepository, CompletionSegment::new);
+        this.completeTimer = Timer.builder("product.autocomplete")
+                .description("Time spent looking up suggestions for one prefix")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("product.autocomplete.memory", this, autocomplete -> autocomplete.memoryBytes)
+                .description("Estimated heap used by the suggestion index")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        Gauge.builder("product.autocomplete.keys", this, autocomplete -> autocomplete.keys).register(meterRegistry);
+        Gauge.builder("product.autocomplete.suggestions", this, autocomplete -> autocomplete.suggestions).register(meterRegistry);
+    }
+
+    public List<SuggestionResponse> complete(String prefix, int limit) {
+        if (!isReady()) {
+            throw new BusinessException(ProductServiceContant.AUTOCOMPLETE_NOT_READY, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        String folded = SearchTokenizer.fold(prefix);
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+        /* A trailing space means the word is finished: "red " should not suggest "reddish" */
+        String key = Character.isWhitespace(prefix.charAt(prefix.length() - 1)) ? folded + ' ' : folded;
+        int size = Math.max(1, Math.min(limit, ProductServiceContant.MAX_SUGGESTIONS));
+        return completeTimer.record(() -> read(segment -> segment.complete(key, size).stream()
+                .map(s -> new SuggestionResponse(s.text(), s.type(), s.productId(), s.popularity()))
+                .toList()));
+    }
+
+    /** Indexes the saved state of a product; deleted products are dropped. */
+    public void index(Product product) {
+        write(segment -> segment.upsert(product));
+    }
+
+    public void remove(String productId) {
+        write(segment -> segment.remove(productId));
+    }
+
+    /**
+     * Adds confirmed orders, counted per product, to the products and their brands and categories.
+     * Not replayed onto a segment being rebuilt: the counts are already in the stored orderCount,
+     * and the rebuild may have read them.
+     */
+    public void recordOrders(Map<String, Integer> orders) {
+        writeCurrent(segment -> orders.forEach(segment::recordOrders));
+    }
+
+    /** Streams all active products into a fresh, frozen segment and swaps it in. */
+    public void rebuild() {
+        long millis = rebuildSegment();
+        log.info("Product suggestions rebuilt with {} suggestions and {} keys ({} KB) in {} ms",
+                suggestions, keys, memoryBytes / 1024, millis);
+    }
+
+    @Override
+    protected void load(CompletionSegment fresh, Product product) {
+        fresh.upsert(product);
+    }
+
+    @Override
+    protected void loaded(CompletionSegment fresh) {
+        fresh.freeze();
+    }
+
+    @Override
+    protected void publishStats(CompletionSegment segment) {
+        memoryBytes = segment.memoryBytes();
+        keys = segment.keyCount();
+        suggestions = segment.liveCount();
+    }
+}
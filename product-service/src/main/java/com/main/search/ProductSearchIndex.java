@@ -0,0 +1,83 @@
+package com.main.search;
+
+import com.main.entity.Product;
+import com.main.exceptions.BusinessException;
+import com.main.repository.ProductFilter;
+import com.main.repository.ProductRepository;
+import com.main.util.ProductServiceContant;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * In-process full-text index of the active products, so search never touches MongoDB. Built by
+ * streaming the collection and swapped in whole; product writes on this instance are applied as
+ * they happen. Writes made elsewhere (other instances, direct database edits) show up at the next
+ * rebuild.
+ */
+@Component
+public class ProductSearchIndex extends SwappableIndex<SearchSegment> {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private final Timer searchTimer;
+    private volatile int documents;
+    private volatile int terms;
+
+    public ProductSearchIndex(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        super(productRepository, SearchSegment::new);
+        this.searchTimer = Timer.builder("product.search")
+                .description("Time spent inside the product search index")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("product.search.documents", this, index -> index.documents).register(meterRegistry);
+        Gauge.builder("product.search.terms", this, index -> index.terms).register(meterRegistry);
+    }
+
+    public SearchHits search(String query, ProductFilter filter, int offset, int limit) {
+        if (!isReady()) {
+            throw new BusinessException(ProductServiceContant.SEARCH_NOT_READY, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        Set<String> queryTerms = SearchTokenizer.terms(query);
+        if (queryTerms.isEmpty()) {
+            throw new BusinessException(ProductServiceContant.INVALID_SEARCH_QUERY + query, HttpStatus.BAD_REQUEST);
+        }
+        return searchTimer.record(() -> read(segment -> segment.search(queryTerms, filter.getCategory(), filter.getBrand(),
+                filter.getMinPrice(), filter.getMaxPrice(), offset, limit, ProductServiceContant.SEARCH_FACET_LIMIT)));
+    }
+
+    /** Indexes the saved state of a product; deleted products are dropped from the index. */
+    public void index(Product product) {
+        write(segment -> segment.upsert(product));
+    }
+
+    public void remove(String productId) {
+        write(segment -> segment.remove(productId));
+    }
+
+    /**
+     * Streams all active products into a fresh segment and swaps it in. Also compacts away the
+     * versions that updates and deletes left behind. Searches keep using the old segment meanwhile.
+     */
+    public void rebuild() {
+        long millis = rebuildSegment();
+        log.info("Product search index rebuilt with {} products and {} terms in {} ms", documents, terms, millis);
+    }
+
+    @Override
+    protected void load(SearchSegment fresh, Product product) {
+        fresh.upsert(product);
+    }
+
+    @Override
+    protected void publishStats(SearchSegment segment) {
+        documents = segment.liveCount();
+        terms = segment.termCount();
+    }
+}
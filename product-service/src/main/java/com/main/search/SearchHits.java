@@ -0,0 +1,16 @@
+package com.main.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Product ids of one result window in relevance order, the number of matching products and the
+ * category and brand facet counts, most frequent first.
+ */
+public record SearchHits(List<String> productIds, int total,
+                         Map<String, Integer> categories, Map<String, Integer> brands) {
+
+    static SearchHits empty() {
+        return new SearchHits(List.of(), 0, Map.of(), Map.of());
+    }
+}
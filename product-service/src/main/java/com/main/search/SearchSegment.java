@@ -0,0 +1,403 @@
+package com.main.search;
+
+import com.main.entity.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Inverted index over the active products. Every indexed version of a product gets a new
+ * ordinal, so posting lists only ever grow at the end and stay sorted; replaced and deleted
+ * ordinals are masked out by {@code live} until the next rebuild drops them. Not thread-safe.
+ */
+final class SearchSegment {
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float SKU_WEIGHT = 3f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    /* Term weight saturation, as in BM25: repeating a word helps less each time */
+    private static final float SATURATION = 1.2f;
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int SLICE_SIZE = 65_536;
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Facet categories = new Facet();
+    private final Facet brands = new Facet();
+    private final BitSet live = new BitSet();
+    private String[] productIds = new String[INITIAL_CAPACITY];
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private int[] categoryOrdinals = new int[INITIAL_CAPACITY];
+    private int[] brandOrdinals = new int[INITIAL_CAPACITY];
+    private int size;
+    private int liveCount;
+
+    void upsert(Product product) {
+        remove(product.getId());
+        if (Boolean.TRUE.equals(product.getIsDeleted())) {
+            return;
+        }
+        int doc = size++;
+        if (doc == productIds.length) {
+            grow();
+        }
+        productIds[doc] = product.getId();
+        prices[doc] = product.getPrice() == null ? NONE : toCents(product.getPrice(), RoundingMode.HALF_UP);
+        categoryOrdinals[doc] = categories.ordinal(product.getCategory());
+        brandOrdinals[doc] = brands.ordinal(product.getBrand());
+        ordinals.put(product.getId(), doc);
+        live.set(doc);
+        liveCount++;
+
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, product.getName(), NAME_WEIGHT);
+        addField(weights, product.getSku(), SKU_WEIGHT);
+        addField(weights, product.getBrand(), BRAND_WEIGHT);
+        addField(weights, product.getCategory(), CATEGORY_WEIGHT);
+        addField(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new Postings()).add(doc, weight / (weight + SATURATION)));
+    }
+
+    void remove(String productId) {
+        Integer doc = ordinals.remove(productId);
+        if (doc != null) {
+            live.clear(doc);
+            liveCount--;
+        }
+    }
+
+    int liveCount() {
+        return liveCount;
+    }
+
+    int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * Returns products containing every term, filtered by category, brand and an inclusive price
+     * range (any of which may be null). Each facet is counted with all filters applied except its
+     * own, so a client can show the alternatives to the category or brand it picked.
+     */
+    SearchHits search(Collection<String> terms, String category, String brand,
+                      BigDecimal minPrice, BigDecimal maxPrice, int offset, int limit, int facetLimit) {
+        int categoryFilter = category == null ? NONE : categories.find(category);
+        int brandFilter = brand == null ? NONE : brands.find(brand);
+        if ((category != null && categoryFilter == NONE) || (brand != null && brandFilter == NONE)) {
+            return SearchHits.empty();
+        }
+
+        /* Drive the intersection from the rarest term and skip ahead in the others */
+        Postings[] lists = new Postings[terms.size()];
+        int t = 0;
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return SearchHits.empty();
+            }
+            lists[t++] = list;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        float[] idf = new float[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            /* Posting sizes still count replaced versions, so clamp rather than let idf go negative */
+            int documentFrequency = Math.min(lists[i].size, liveCount);
+            idf[i] = (float) Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        }
+
+        Query query = new Query(lists, idf, categoryFilter, brandFilter,
+                minPrice == null ? Long.MIN_VALUE : toCents(minPrice, RoundingMode.CEILING),
+                maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice, RoundingMode.FLOOR),
+                offset + limit);
+
+        /* Broad terms are split into slices scanned in parallel, each with its own counts and top docs */
+        int leadSize = lists[0].size;
+        int slices = Math.min(PARALLELISM, (leadSize + SLICE_SIZE - 1) / SLICE_SIZE);
+        Scan result;
+        if (slices <= 1) {
+            result = scan(query, 0, leadSize);
+        } else {
+            result = IntStream.range(0, slices).parallel()
+                    .mapToObj(slice -> scan(query, (int) ((long) leadSize * slice / slices), (int) ((long) leadSize * (slice + 1) / slices)))
+                    .reduce(Scan::merge)
+                    .orElseThrow();
+        }
+
+        int[] ranked = result.top.sortedDocs();
+        List<String> ids = new ArrayList<>(Math.max(0, ranked.length - offset));
+        for (int i = offset; i < ranked.length; i++) {
+            ids.add(productIds[ranked[i]]);
+        }
+        return new SearchHits(ids, result.total,
+                categories.top(result.categoryCounts, facetLimit), brands.top(result.brandCounts, facetLimit));
+    }
+
+    /** Intersects the lead posting list between {@code from} and {@code to} with the other terms. */
+    private Scan scan(Query query, int from, int to) {
+        Postings[] lists = query.lists;
+        Postings lead = lists[0];
+        int[] cursors = new int[lists.length];
+        Scan scan = new Scan(categories.size(), brands.size(), query.window);
+        candidates:
+        for (int i = from; i < to; i++) {
+            int doc = lead.docs[i];
+            if (!live.get(doc) || prices[doc] < query.minCents || prices[doc] > query.maxCents) {
+                continue;
+            }
+            float score = query.idf[0] * lead.impacts[i];
+            for (int l = 1; l < lists.length; l++) {
+                Postings list = lists[l];
+                int cursor = list.advance(cursors[l], doc);
+                cursors[l] = cursor;
+                if (cursor == list.size) {
+                    break candidates;
+                }
+                if (list.docs[cursor] != doc) {
+                    continue candidates;
+                }
+                score += query.idf[l] * list.impacts[cursor];
+            }
+
+            int categoryOrdinal = categoryOrdinals[doc];
+            int brandOrdinal = brandOrdinals[doc];
+            boolean categoryMatch = query.categoryFilter == NONE || categoryOrdinal == query.categoryFilter;
+            boolean brandMatch = query.brandFilter == NONE || brandOrdinal == query.brandFilter;
+            if (brandMatch && categoryOrdinal != NONE) {
+                scan.categoryCounts[categoryOrdinal]++;
+            }
+            if (categoryMatch && brandOrdinal != NONE) {
+                scan.brandCounts[brandOrdinal]++;
+            }
+            if (categoryMatch && brandMatch) {
+                scan.total++;
+                scan.top.offer(score, doc);
+            }
+        }
+        return scan;
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        SearchTokenizer.forEachToken(text, term -> weights.merge(term, weight, Float::sum));
+    }
+
+    private static long toCents(BigDecimal price, RoundingMode rounding) {
+        return price.setScale(2, rounding).unscaledValue().longValue();
+    }
+
+    private void grow() {
+        int capacity = productIds.length * 2;
+        productIds = Arrays.copyOf(productIds, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        categoryOrdinals = Arrays.copyOf(categoryOrdinals, capacity);
+        brandOrdinals = Arrays.copyOf(brandOrdinals, capacity);
+    }
+
+    private record Query(Postings[] lists, float[] idf, int categoryFilter, int brandFilter,
+                         long minCents, long maxCents, int window) {
+    }
+
+    /** Matches found in one slice of the lead posting list. */
+    private static final class Scan {
+
+        private final int[] categoryCounts;
+        private final int[] brandCounts;
+        private final TopDocs top;
+        private int total;
+
+        Scan(int categories, int brands, int window) {
+            this.categoryCounts = new int[categories];
+            this.brandCounts = new int[brands];
+            this.top = new TopDocs(window);
+        }
+
+        Scan merge(Scan other) {
+            for (int i = 0; i < categoryCounts.length; i++) categoryCounts[i] += other.categoryCounts[i];
+            for (int i = 0; i < brandCounts.length; i++) brandCounts[i] += other.brandCounts[i];
+            top.addAll(other.top);
+            total += other.total;
+            return this;
+        }
+    }
+
+    /**
+     * Ascending product ordinals containing a term, with the term's saturated field-weighted
+     * frequency (its impact), so scoring a match is a single multiply.
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private float[] impacts = new float[4];
+        private int size;
+
+        void add(int doc, float impact) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                impacts = Arrays.copyOf(impacts, size * 2);
+            }
+            docs[size] = doc;
+            impacts[size] = impact;
+            size++;
+        }
+
+        /** First position at or after {@code from} whose ordinal is at least {@code target}, or size. */
+        int advance(int from, int target) {
+            if (from >= size || docs[from] >= target) {
+                return from;
+            }
+            /* Gallop first: the next match is usually close to the cursor */
+            int low = from;
+            int step = 1;
+            while (low + step < size && docs[low + step] < target) {
+                low += step;
+                step <<= 1;
+            }
+            int position = Arrays.binarySearch(docs, low + 1, Math.min(low + step + 1, size), target);
+            return position >= 0 ? position : -position - 1;
+        }
+    }
+
+    /** Dictionary of the distinct values of one facet field. */
+    private static final class Facet {
+
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int ordinal(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            return ordinals.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        int find(String value) {
+            return ordinals.getOrDefault(value, NONE);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        Map<String, Integer> top(int[] counts, int limit) {
+            /* Insertion into a short ranked array; facets have far more values than are returned */
+            int[] best = new int[Math.min(limit, counts.length)];
+            if (best.length == 0) {
+                return Map.of();
+            }
+            int found = 0;
+            for (int value = 0; value < counts.length; value++) {
+                if (counts[value] == 0 || (found == best.length && !ranksBefore(counts, value, best[found - 1]))) {
+                    continue;
+                }
+                int position = found == best.length ? found - 1 : found++;
+                while (position > 0 && ranksBefore(counts, value, best[position - 1])) {
+                    best[position] = best[position - 1];
+                    position--;
+                }
+                best[position] = value;
+            }
+            Map<String, Integer> top = new LinkedHashMap<>();
+            for (int i = 0; i < found; i++) {
+                top.put(values.get(best[i]), counts[best[i]]);
+            }
+            return top;
+        }
+
+        private boolean ranksBefore(int[] counts, int value, int other) {
+            return counts[value] != counts[other]
+                    ? counts[value] > counts[other]
+                    : values.get(value).compareTo(values.get(other)) < 0;
+        }
+    }
+
+    /**
+     * Bounded min-heap of the best (score, ordinal) pairs packed into longs. A positive float's
+     * bits sort like the float itself; the inverted ordinal makes older products win ties.
+     */
+    private static final class TopDocs {
+
+        private final long[] heap;
+        private int size;
+
+        TopDocs(int capacity) {
+            this.heap = new long[capacity];
+        }
+
+        void offer(float score, int doc) {
+            offer(((long) Float.floatToIntBits(score) << 32) | (~doc & 0xFFFFFFFFL));
+        }
+
+        void addAll(TopDocs other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.heap[i]);
+            }
+        }
+
+        private void offer(long entry) {
+            if (size < heap.length) {
+                heap[size] = entry;
+                siftUp(size++);
+            } else if (heap.length > 0 && entry > heap[0]) {
+                heap[0] = entry;
+                siftDown(0);
+            }
+        }
+
+        int[] sortedDocs() {
+            long[] entries = Arrays.copyOf(heap, size);
+            Arrays.sort(entries);
+            int[] docs = new int[size];
+            for (int i = 0; i < size; i++) {
+                docs[i] = ~(int) entries[size - 1 - i];
+            }
+            return docs;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= heap[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && heap[left] < heap[smallest]) smallest = left;
+                if (right < size && heap[right] < heap[smallest]) smallest = right;
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.main.search;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into lower-case, accent-free tokens on anything that is not a letter or digit.
+ * Indexing and queries must go through the same method so their terms line up.
+ */
+final class SearchTokenizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private SearchTokenizer() {
+    }
+
+    static void forEachToken(String text, Consumer<String> consumer) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean tokenChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                emit(normalized, start, i, consumer);
+                start = -1;
+            }
+        }
+    }
+
+    static Set<String> terms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        forEachToken(text, terms::add);
+        return terms;
+    }
+
+    /**
+     * Normalizes text the same way as tokens but keeps it as one string, with every run of
+     * separators collapsed to a single space. Used for prefix matching, where word order matters.
+     */
+    static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String normalized = normalize(text);
+        StringBuilder folded = new StringBuilder(normalized.length());
+        boolean separator = false;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (separator && folded.length() > 0) {
+                    folded.append(' ');
+                }
+                folded.append(c);
+                separator = false;
+            } else {
+                separator = true;
+            }
+        }
+        return folded.toString();
+    }
+
+    private static void emit(String text, int start, int end, Consumer<String> consumer) {
+        /* Single letters match far too much to be worth a posting list; single digits are kept for sizes and models */
+        if (end - start > 1 || Character.isDigit(text.charAt(start))) {
+            consumer.accept(text.substring(start, end));
+        }
+    }
+
+    private static String normalize(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7F) {
+                return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lower;
+    }
+}
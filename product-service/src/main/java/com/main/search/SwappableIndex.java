@@ -0,0 +1,131 @@
+package com.main.search;
+
+import com.main.entity.Product;
+import com.main.repository.ProductFilter;
+import com.main.repository.ProductRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory segment over the active products, built by streaming the collection and swapped in
+ * whole. Reads keep using the old segment while a rebuild streams. Writes made on this instance are
+ * applied to the current segment as they happen.
+ */
+abstract class SwappableIndex<S> {
+
+    private static final ProductFilter ALL_PRODUCTS = new ProductFilter(null, null, null, null);
+
+    private final ProductRepository productRepository;
+    private final Supplier<S> newSegment;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /* Guarded by lock */
+    private S segment;
+    /* Writes made while a rebuild is streaming, replayed onto the new segment before the swap; guarded by lock */
+    private List<Consumer<S>> pendingWrites;
+    private volatile boolean ready;
+
+    protected SwappableIndex(ProductRepository productRepository, Supplier<S> newSegment) {
+        this.productRepository = productRepository;
+        this.newSegment = newSegment;
+        this.segment = newSegment.get();
+    }
+
+    /** Adds one streamed product to a segment that is being built. */
+    protected abstract void load(S fresh, Product product);
+
+    /** Called after every product has been loaded, before pending writes are replayed. */
+    protected void loaded(S fresh) {
+    }
+
+    /** Called under the write lock whenever the current segment changed. */
+    protected abstract void publishStats(S segment);
+
+    protected boolean isReady() {
+        return ready;
+    }
+
+    protected <T> T read(Function<S, T> read) {
+        lock.readLock().lock();
+        try {
+            return read.apply(segment);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a write to the current segment and, while a rebuild is streaming, replays it onto the
+     * new segment as well. The stream may or may not have seen the write already, so it has to give
+     * the same result when applied twice.
+     */
+    protected void write(Consumer<S> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(segment);
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+            publishStats(segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a write to the current segment only. For writes that are not idempotent and that the
+     * database already reflects; a rebuild streaming meanwhile may miss them until the next one.
+     */
+    protected void writeCurrent(Consumer<S> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(segment);
+            publishStats(segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Streams all active products into a fresh segment and swaps it in; returns the time taken in ms. */
+    protected long rebuildSegment() {
+        long started = System.nanoTime();
+        S fresh = newSegment.get();
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try (Stream<Product> products = productRepository.streamAll(ALL_PRODUCTS)) {
+            products.forEach(product -> load(fresh, product));
+            loaded(fresh);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingWrites.forEach(write -> write.accept(fresh));
+            pendingWrites = null;
+            segment = fresh;
+            publishStats(segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+}
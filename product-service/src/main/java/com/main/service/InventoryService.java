@@ -0,0 +1,22 @@
+package com.main.service;
+
+import com.main.dtos.ProductResponse;
+import com.main.dtos.StockUpdateResponse;
+
+import java.util.Map;
+
+public interface InventoryService {
+
+    /**
+     * Applies stock changes to regular and flash-sale products alike, all-or-nothing, with the
+     * same per-item results as a plain bulk stock update.
+     */
+    StockUpdateResponse applyStockChanges(Map<String, Integer> changes);
+
+    ProductResponse enableFlashSale(String productId, int stripes);
+
+    ProductResponse disableFlashSale(String productId);
+
+    /** Evens out the stripes of every flash-sale product and publishes their sums as stockQuantity. */
+    void rebalance();
+}
@@ -0,0 +1,16 @@
+package com.main.service;
+
+import com.main.dtos.ProductImportResponse;
+import com.main.importer.ImportFormat;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+public interface ProductImportService {
+
+    /**
+     * Reads products from {@code body} row by row and upserts them by SKU in batches of
+     * {@code batchSize} (the configured default when null). Invalid rows are reported and skipped.
+     */
+    ProductImportResponse importProducts(InputStream body, ImportFormat format, Charset charset, Integer batchSize);
+}
@@ -1,11 +1,17 @@
 package com.main.service;
 
+import com.main.dtos.PageResponse;
 import com.main.dtos.ProductRequest;
 import com.main.dtos.ProductResponse;
+import com.main.dtos.ProductSearchResponse;
 import com.main.dtos.StockUpdateRequest;
+import com.main.dtos.StockUpdateResponse;
+import com.main.dtos.SuggestionResponse;
+import com.main.repository.ProductFilter;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ProductService {
 
@@ -15,11 +21,19 @@ public interface ProductService {
 
     List<ProductResponse> getAllProductsDetails();
 
+    PageResponse<ProductResponse> getProductsPage(ProductFilter filter, String cursor, int limit);
+
+    ProductSearchResponse searchProducts(String query, ProductFilter filter, int offset, int limit);
+
+    List<SuggestionResponse> suggest(String prefix, int limit);
+
+    void forEachProduct(ProductFilter filter, Consumer<ProductResponse> consumer);
+
     ProductResponse updateProduct(String id, ProductRequest productRequest);
 
     String deleteProduct(String id);
 
     List<ProductResponse> getProductsByIds(List<String> productIds);
 
-    void updateStock(StockUpdateRequest request);
+    StockUpdateResponse updateStock(StockUpdateRequest request);
 }
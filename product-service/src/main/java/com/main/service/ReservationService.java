@@ -0,0 +1,25 @@
+package com.main.service;
+
+import com.main.dtos.ReservationRequest;
+import com.main.dtos.ReservationResponse;
+
+import java.util.List;
+
+public interface ReservationService {
+
+    ReservationResponse reserve(ReservationRequest request);
+
+    ReservationResponse confirm(String reservationId);
+
+    ReservationResponse release(String reservationId);
+
+    List<ReservationResponse> reserveAll(List<ReservationRequest> requests);
+
+    List<ReservationResponse> confirmAll(List<String> reservationIds);
+
+    List<ReservationResponse> releaseAll(List<String> reservationIds);
+
+    List<ReservationResponse> extendAll(List<String> reservationIds, int ttlSeconds);
+
+    int releaseExpired(int batchSize);
+}
@@ -0,0 +1,323 @@
+package com.main.service.impl;
+
+import com.main.cache.ProductCache;
+import com.main.dtos.ProductResponse;
+import com.main.dtos.StockUpdateResponse;
+import com.main.entity.InventoryStripe;
+import com.main.entity.Product;
+import com.main.exceptions.BusinessException;
+import com.main.mapper.ProductMapper;
+import com.main.repository.InventoryStripeRepository;
+import com.main.repository.ProductRepository;
+import com.main.service.InventoryService;
+import com.main.util.ProductServiceContant;
+import com.main.util.StockUpdateStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stock writes for both inventory modes. A flash-sale product keeps its stock in N stripe
+ * documents and a decrement takes from any stripe that has enough, so concurrent checkouts of
+ * one hot SKU write to different documents. The product's own stockQuantity is only a mirror
+ * of the stripe sum, refreshed by {@link #rebalance()}.
+ */
+@Service
+public class InventoryServiceImpl implements InventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryServiceImpl.class);
+
+    private final ProductRepository productRepository;
+    private final InventoryStripeRepository stripeRepository;
+    private final ProductMapper productMapper;
+    private final ProductCache productCache;
+
+    /* Stripe counts of the flash-sale products as last seen; refreshed by rebalance() and after a failed update */
+    private final Map<String, Integer> stripedProducts = new ConcurrentHashMap<>();
+
+    public InventoryServiceImpl(ProductRepository productRepository, InventoryStripeRepository stripeRepository,
+                                ProductMapper productMapper, ProductCache productCache) {
+        this.productRepository = productRepository;
+        this.stripeRepository = stripeRepository;
+        this.productMapper = productMapper;
+        this.productCache = productCache;
+    }
+
+    @Override
+    public StockUpdateResponse applyStockChanges(Map<String, Integer> changes) {
+        StockUpdateResponse response = apply(changes);
+        /* A rejection may only mean another instance switched a product's mode since we last looked */
+        if (!response.isApplied() && refreshModes(changes.keySet())) {
+            log.info("Inventory mode changed for some of {}, retrying stock update", changes.keySet());
+            response = apply(changes);
+        }
+        return response;
+    }
+
+    @Override
+    public ProductResponse enableFlashSale(String productId, int stripes) {
+        if (stripes < 1 || stripes > ProductServiceContant.MAX_STOCK_STRIPES) {
+            throw new BusinessException(String.format(ProductServiceContant.INVALID_STOCK_STRIPES,
+                    ProductServiceContant.MAX_STOCK_STRIPES), HttpStatus.BAD_REQUEST);
+        }
+        Product product = findActiveProduct(productId);
+        if (product.getStockStripes() != null) {
+            throw alreadyStriped(product);
+        }
+
+        /* Stripes exist before the switch so the first decrement after it always finds them */
+        stripeRepository.createStripes(productId, stripes);
+        Product before = productRepository.startStriping(productId, stripes)
+                .orElseThrow(() -> alreadyStriped(findActiveProduct(productId)));
+        stripeRepository.giveAll(productId, split(before.getStockQuantity(), stripes));
+        stripedProducts.put(productId, stripes);
+        productCache.evict(productId);
+
+        before.setStockStripes(stripes);
+        log.info("Product {} switched to flash-sale mode with {} stock over {} stripes", productId, before.getStockQuantity(), stripes);
+        return productMapper.toResponse(before);
+    }
+
+    @Override
+    public ProductResponse disableFlashSale(String productId) {
+        boolean stopped = productRepository.stopStriping(productId).isPresent();
+        stripedProducts.remove(productId);
+
+        /* Also run when the product was not striped, to recover from a disable that died halfway */
+        int drained = stripeRepository.drain(productId);
+        if (drained != 0) {
+            productRepository.addStock(Map.of(productId, drained));
+        }
+        productCache.evict(productId);
+        if (stopped) {
+            log.info("Product {} switched back to regular inventory with {} stock", productId, drained);
+        }
+        return productMapper.toResponse(findActiveProduct(productId));
+    }
+
+    @Override
+    public void rebalance() {
+        Map<String, Integer> striped = productRepository.findStockStripes(null);
+        stripedProducts.keySet().retainAll(striped.keySet());
+        stripedProducts.putAll(striped);
+        striped.forEach((productId, stripes) -> {
+            try {
+                rebalance(productId, stripes);
+            } catch (RuntimeException e) {
+                log.warn("Could not rebalance stripes of product {}", productId, e);
+            }
+        });
+    }
+
+    private StockUpdateResponse apply(Map<String, Integer> changes) {
+        Map<String, Integer> regular = new LinkedHashMap<>();
+        Map<String, Integer> striped = new LinkedHashMap<>();
+        changes.forEach((productId, change) ->
+                (stripedProducts.containsKey(productId) ? striped : regular).put(productId, change));
+        if (striped.isEmpty()) {
+            return productRepository.applyStockChanges(changes);
+        }
+
+        /* Every item is attempted, like the unordered bulk write, so each one gets a real status */
+        Map<String, StockUpdateStatus> statuses = new HashMap<>();
+        List<StripeChange> applied = new ArrayList<>();
+        striped.forEach((productId, change) -> {
+            List<StripeChange> taken = change(productId, stripedProducts.getOrDefault(productId, 1), change);
+            statuses.put(productId, taken == null ? StockUpdateStatus.INSUFFICIENT_STOCK : StockUpdateStatus.APPLIED);
+            if (taken != null) {
+                applied.addAll(taken);
+            }
+        });
+        boolean stripesApplied = statuses.values().stream().allMatch(StockUpdateStatus.APPLIED::equals);
+
+        StockUpdateResponse regularResponse = regular.isEmpty()
+                ? new StockUpdateResponse(true, List.of())
+                : productRepository.applyStockChanges(regular);
+        regularResponse.getResults().forEach(result -> statuses.put(result.getProductId(), result.getStatus()));
+
+        boolean allApplied = stripesApplied && regularResponse.isApplied();
+        if (!allApplied) {
+            revert(applied);
+            striped.keySet().forEach(productId -> statuses.replace(productId, StockUpdateStatus.APPLIED, StockUpdateStatus.ROLLED_BACK));
+            if (regularResponse.isApplied() && !regular.isEmpty()) {
+                Map<String, Integer> reverse = new LinkedHashMap<>();
+                regular.forEach((productId, change) -> reverse.put(productId, -change));
+                productRepository.addStock(reverse);
+                regular.keySet().forEach(productId -> statuses.put(productId, StockUpdateStatus.ROLLED_BACK));
+            }
+        }
+
+        List<StockUpdateResponse.StockUpdateResult> results = new ArrayList<>(changes.size());
+        changes.forEach((productId, change) ->
+                results.add(new StockUpdateResponse.StockUpdateResult(productId, change, statuses.get(productId))));
+        return new StockUpdateResponse(allApplied, results);
+    }
+
+    /* Returns the stripe writes that made up the change, or null if it could not be applied */
+    private List<StripeChange> change(String productId, int stripes, int change) {
+        int first = ThreadLocalRandom.current().nextInt(stripes);
+        if (change >= 0) {
+            return change == 0 || stripeRepository.give(productId, first, change)
+                    ? List.of(new StripeChange(productId, first, change))
+                    : null;
+        }
+        int quantity = -change;
+        if (stripeRepository.take(productId, first, quantity)) {
+            return List.of(new StripeChange(productId, first, change));
+        }
+
+        /* That stripe is short: take from the fullest ones, splitting the quantity if no single stripe has it */
+        List<InventoryStripe> available = stripeRepository.findByProductId(productId).stream()
+                .filter(stripe -> stripe.getStripe() < stripes && stripe.getQuantity() > 0)
+                .sorted(Comparator.comparingInt(InventoryStripe::getQuantity).reversed())
+                .toList();
+        List<StripeChange> taken = new ArrayList<>();
+        int remaining = quantity;
+        for (InventoryStripe stripe : available) {
+            int amount = Math.min(stripe.getQuantity(), remaining);
+            if (stripeRepository.take(productId, stripe.getStripe(), amount)) {
+                taken.add(new StripeChange(productId, stripe.getStripe(), -amount));
+                remaining -= amount;
+                if (remaining == 0) {
+                    return taken;
+                }
+            }
+        }
+        revert(taken);
+        return null;
+    }
+
+    private void revert(List<StripeChange> changes) {
+        for (StripeChange change : changes) {
+            if (change.quantity() != 0) {
+                give(change.productId(), change.stripe(), -change.quantity());
+            }
+        }
+    }
+
+    private void give(String productId, int stripe, int quantity) {
+        if (!stripeRepository.give(productId, stripe, quantity)) {
+            /* The stripe was drained by a concurrent disable; the stock belongs on the product now */
+            productRepository.addStock(Map.of(productId, quantity));
+        }
+    }
+
+    private void rebalance(String productId, int stripes) {
+        List<InventoryStripe> current = stripeRepository.findByProductId(productId);
+        int total = current.stream().mapToInt(InventoryStripe::getQuantity).sum();
+        if (productRepository.updateStripedStock(productId, total)) {
+            productCache.evictStock(List.of(productId));
+        }
+
+        /* Only stripes seen just now are written to, so a stale stripe count never sends stock to a missing stripe */
+        int[] quantities = new int[stripes];
+        List<Integer> present = new ArrayList<>(stripes);
+        List<InventoryStripe> leftovers = new ArrayList<>();
+        for (InventoryStripe stripe : current) {
+            if (stripe.getStripe() < stripes) {
+                quantities[stripe.getStripe()] = stripe.getQuantity();
+                present.add(stripe.getStripe());
+            } else if (stripe.getQuantity() > 0) {
+                leftovers.add(stripe);
+            }
+        }
+        if (present.isEmpty()) {
+            return;
+        }
+        for (InventoryStripe leftover : leftovers) {
+            /* Left over from an earlier sale with more stripes */
+            int target = present.get(leftover.getStripe() % present.size());
+            if (move(productId, leftover.getStripe(), target, leftover.getQuantity())) {
+                quantities[target] += leftover.getQuantity();
+            }
+        }
+
+        /*
+         * A stripe under half its fair share sends most decrements down the slow path, so top it
+         * up from the fullest stripes. Moves are guarded takes, safe against concurrent checkouts.
+         */
+        int fair = total / present.size();
+        Integer[] order = present.toArray(new Integer[0]);
+        Arrays.sort(order, Comparator.comparingInt(stripe -> quantities[stripe]));
+        int low = 0;
+        int high = order.length - 1;
+        int moved = 0;
+        while (low < high && quantities[order[low]] * 2 < fair && quantities[order[high]] > fair) {
+            int amount = Math.min(fair - quantities[order[low]], quantities[order[high]] - fair);
+            if (move(productId, order[high], order[low], amount)) {
+                quantities[order[low]] += amount;
+                moved += amount;
+            }
+            quantities[order[high]] -= amount;
+            if (quantities[order[high]] <= fair) {
+                high--;
+            }
+            if (quantities[order[low]] * 2 >= fair) {
+                low++;
+            }
+        }
+        if (moved > 0) {
+            log.debug("Moved {} units between stripes of product {}", moved, productId);
+        }
+    }
+
+    private boolean move(String productId, int from, int to, int quantity) {
+        if (!stripeRepository.take(productId, from, quantity)) {
+            return false;
+        }
+        give(productId, to, quantity);
+        return true;
+    }
+
+    private boolean refreshModes(Collection<String> productIds) {
+        Map<String, Integer> current = productRepository.findStockStripes(productIds);
+        boolean changed = false;
+        for (String productId : productIds) {
+            Integer stripes = current.get(productId);
+            Integer previous = stripes == null ? stripedProducts.remove(productId) : stripedProducts.put(productId, stripes);
+            changed |= !Objects.equals(previous, stripes);
+        }
+        return changed;
+    }
+
+    private static Map<Integer, Integer> split(int quantity, int stripes) {
+        Map<Integer, Integer> split = new HashMap<>();
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            int share = quantity / stripes + (stripe < quantity % stripes ? 1 : 0);
+            if (share != 0) {
+                split.put(stripe, share);
+            }
+        }
+        return split;
+    }
+
+    private Product findActiveProduct(String productId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new BusinessException(ProductServiceContant.PRODUCT_NOT_FOUND + productId, HttpStatus.BAD_REQUEST));
+        if (Boolean.TRUE.equals(product.getIsDeleted())) {
+            throw new BusinessException(ProductServiceContant.PRODUCT_NOT_FOUND + productId, HttpStatus.BAD_REQUEST);
+        }
+        return product;
+    }
+
+    private BusinessException alreadyStriped(Product product) {
+        return new BusinessException(String.format(ProductServiceContant.FLASH_SALE_ALREADY_ON,
+                product.getId(), product.getStockStripes()), HttpStatus.CONFLICT);
+    }
+
+    private record StripeChange(String productId, int stripe, int quantity) {
+    }
+}
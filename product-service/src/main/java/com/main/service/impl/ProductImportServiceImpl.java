@@ -0,0 +1,177 @@
+package com.main.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.main.cache.ProductCache;
+import com.main.dtos.ProductImportResponse;
+import com.main.dtos.ProductRequest;
+import com.main.entity.Product;
+import com.main.exceptions.BusinessException;
+import com.main.importer.ImportFormat;
+import com.main.importer.ProductRowReader;
+import com.main.mapper.ProductMapper;
+import com.main.repository.BulkUpsertResult;
+import com.main.repository.ProductRepository;
+import com.main.search.ProductAutocomplete;
+import com.main.search.ProductSearchIndex;
+import com.main.service.ProductImportService;
+import com.main.util.ProductServiceContant;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+    private static final int READ_BUFFER_CHARS = 64 * 1024;
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductAutocomplete productAutocomplete;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int defaultBatchSize;
+
+    public ProductImportServiceImpl(ProductRepository productRepository, ProductMapper productMapper, ProductCache productCache,
+                                    ProductSearchIndex productSearchIndex, ProductAutocomplete productAutocomplete,
+                                    ObjectMapper objectMapper, Validator validator,
+                                    @Value("${product.import.batch-size:1000}") int defaultBatchSize) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.productCache = productCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productAutocomplete = productAutocomplete;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    @Override
+    public ProductImportResponse importProducts(InputStream body, ImportFormat format, Charset charset, Integer batchSize) {
+        int size = batchSize == null ? defaultBatchSize : batchSize;
+        if (size < 1 || size > ProductServiceContant.MAX_IMPORT_BATCH_SIZE) {
+            throw new BusinessException(String.format(ProductServiceContant.INVALID_IMPORT_BATCH_SIZE,
+                    ProductServiceContant.MAX_IMPORT_BATCH_SIZE), HttpStatus.BAD_REQUEST);
+        }
+
+        long started = System.nanoTime();
+        ImportProgress progress = new ImportProgress();
+        ProductRowReader reader = new ProductRowReader(
+                new BufferedReader(new InputStreamReader(body, charset), READ_BUFFER_CHARS), format, objectMapper);
+        /* Keyed by SKU: a SKU seen twice flushes the batch first, so the later row wins */
+        Map<String, ImportedRow> batch = new LinkedHashMap<>();
+        try {
+            for (ProductRowReader.Row row = reader.next(); row != null; row = reader.next()) {
+                progress.rows++;
+                ProductRequest request = toRequest(row, progress);
+                if (request == null) {
+                    continue;
+                }
+                if (batch.containsKey(request.getSku())) {
+                    write(batch, progress);
+                }
+                batch.put(request.getSku(), new ImportedRow(row.line(), request));
+                if (batch.size() >= size) {
+                    write(batch, progress);
+                }
+            }
+        } catch (IOException e) {
+            /* Batches already written stay; the caller can re-send the file since rows are upserts */
+            log.warn("Product import aborted after {} rows", progress.rows, e);
+            throw new BusinessException(String.format(ProductServiceContant.IMPORT_READ_FAILED, progress.rows), HttpStatus.BAD_REQUEST);
+        }
+        write(batch, progress);
+
+        log.info("Imported {} product rows in {} ms: {} inserted, {} updated, {} failed", progress.rows,
+                (System.nanoTime() - started) / 1_000_000, progress.inserted, progress.updated, progress.failed);
+        return progress.toResponse();
+    }
+
+    private ProductRequest toRequest(ProductRowReader.Row row, ImportProgress progress) {
+        if (row.error() != null) {
+            progress.fail(row.line(), null, row.error());
+            return null;
+        }
+        String sku = row.fields().path("sku").asText(null);
+        ProductRequest request;
+        try {
+            request = objectMapper.treeToValue(row.fields(), ProductRequest.class);
+        } catch (JsonProcessingException e) {
+            progress.fail(row.line(), sku, "Invalid value: " + e.getOriginalMessage());
+            return null;
+        }
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            progress.fail(row.line(), sku, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return null;
+        }
+        return request;
+    }
+
+    private void write(Map<String, ImportedRow> batch, ImportProgress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<ImportedRow> rows = new ArrayList<>(batch.values());
+        batch.clear();
+        List<Product> products = rows.stream().map(row -> productMapper.toEntity(row.request())).toList();
+        BulkUpsertResult result = productRepository.upsertBySku(products);
+        progress.inserted += result.getInserted();
+        progress.updated += result.getUpdated();
+        result.getErrors().forEach((index, message) ->
+                progress.fail(rows.get(index).line(), rows.get(index).request().getSku(), message));
+
+        /* The bulk write does not return updated documents, so read the batch back for the caches and indexes */
+        List<Product> saved = productRepository.findBySkuInAndIsDeletedFalse(products.stream().map(Product::getSku).toList());
+        productCache.evictAll(saved.stream().map(Product::getId).toList());
+        for (Product product : saved) {
+            productSearchIndex.index(product);
+            productAutocomplete.index(product);
+        }
+    }
+
+    private record ImportedRow(long line, ProductRequest request) {
+    }
+
+    private static final class ImportProgress {
+        private long rows;
+        private long inserted;
+        private long updated;
+        private long failed;
+        private final List<ProductImportResponse.RowError> errors = new ArrayList<>();
+
+        void fail(long line, String sku, String message) {
+            failed++;
+            if (errors.size() < ProductServiceContant.MAX_IMPORT_ERRORS) {
+                errors.add(new ProductImportResponse.RowError(line, sku, message));
+            }
+        }
+
+        ProductImportResponse toResponse() {
+            return new ProductImportResponse(rows, inserted, updated, failed, errors, failed > errors.size());
+        }
+    }
+}
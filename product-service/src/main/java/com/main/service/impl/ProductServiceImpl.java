@@ -1,26 +1,43 @@
 package com.main.service.impl;
 
+import com.main.cache.ProductCache;
+import com.main.dtos.PageResponse;
 import com.main.dtos.ProductRequest;
 import com.main.dtos.ProductResponse;
+import com.main.dtos.ProductSearchResponse;
 import com.main.dtos.StockUpdateRequest;
+import com.main.dtos.StockUpdateResponse;
+import com.main.dtos.SuggestionResponse;
 import com.main.entity.Product;
 import com.main.exceptions.BusinessException;
 import com.main.exceptions.ProductException;
+import com.main.mapper.ProductMapper;
+import com.main.repository.ProductFilter;
 import com.main.repository.ProductRepository;
+import com.main.search.ProductAutocomplete;
+import com.main.search.ProductSearchIndex;
+import com.main.search.SearchHits;
+import com.main.service.InventoryService;
 import com.main.service.ProductService;
 import com.main.util.ProductServiceContant;
-import org.modelmapper.ModelMapper;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductServiceImpl implements ProductService {
@@ -28,27 +45,46 @@ public class ProductServiceImpl implements ProductService {
     private static final Logger log = LoggerFactory.getLogger(ProductServiceImpl.class);
 
     private final ProductRepository productRepository;
-    private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductAutocomplete productAutocomplete;
+    private final InventoryService inventoryService;
 
-    public ProductServiceImpl(ProductRepository productRepository, ModelMapper modelMapper) {
+    public ProductServiceImpl(ProductRepository productRepository, ProductMapper productMapper, ProductCache productCache,
+                              ProductSearchIndex productSearchIndex, ProductAutocomplete productAutocomplete,
+                              InventoryService inventoryService) {
         this.productRepository = productRepository;
-        this.modelMapper = modelMapper;
+        this.productMapper = productMapper;
+        this.productCache = productCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productAutocomplete = productAutocomplete;
+        this.inventoryService = inventoryService;
     }
 
     @Override
     public ProductResponse addProduct(ProductRequest productRequest) {
         log.info("Registering new user with email: ");
-        Product product = modelMapper.map(productRequest, Product.class);
+        Product product = productMapper.toEntity(productRequest);
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(null);
-        Product savedProduct = productRepository.save(product);
+        Product savedProduct = save(product);
+        productCache.evict(savedProduct.getId());
+        productSearchIndex.index(savedProduct);
+        productAutocomplete.index(savedProduct);
         log.info("Product registered successfully with ID: {}", savedProduct.getId());
-        return modelMapper.map(savedProduct, ProductResponse.class);
+        return productMapper.toResponse(savedProduct);
     }
 
     @Override
     public Optional<ProductResponse> getProductDetails(String id)  {
         log.info("Fetching details for product with ID: {}", id);
+        ProductResponse cached = productCache.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long generation = productCache.generation(id);
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new BusinessException(ProductServiceContant.PRODUCT_NOT_FOUND + id, HttpStatus.BAD_REQUEST));
         if (Boolean.TRUE.equals(product.getIsDeleted())) {
@@ -57,94 +93,177 @@ public class ProductServiceImpl implements ProductService {
         }
 
         log.info("Product details retrieved successfully for ID: {}", id);
-        return Optional.ofNullable(modelMapper.map(product, ProductResponse.class));
+        ProductResponse response = productMapper.toResponse(product);
+        productCache.put(response, generation);
+        return Optional.of(response);
     }
 
     @Override
     public List<ProductResponse> getAllProductsDetails() {
         log.info("Fetching all products");
-        List<Product> products = productRepository.findAllByIsDeletedFalse();
-        log.info("Found {} active users", products.size());
-        return products.stream()
-                .map(product -> modelMapper.map(product, ProductResponse.class)).toList();
+        return productCache.getCatalog(() -> {
+            List<Product> products = productRepository.findAllByIsDeletedFalse();
+            log.info("Found {} active products", products.size());
+            return products.stream()
+                    .map(product -> productMapper.toResponse(product)).toList();
+        });
+    }
+
+    @Override
+    public PageResponse<ProductResponse> getProductsPage(ProductFilter filter, String cursor, int limit) {
+        if (cursor != null && !ObjectId.isValid(cursor)) {
+            throw new BusinessException(ProductServiceContant.INVALID_CURSOR + cursor, HttpStatus.BAD_REQUEST);
+        }
+        int pageSize = Math.max(1, Math.min(limit, ProductServiceContant.MAX_PAGE_SIZE));
+
+        /* Read one extra row to learn whether another page follows */
+        List<Product> products = productRepository.findPage(filter, cursor, pageSize + 1);
+        boolean hasMore = products.size() > pageSize;
+        List<ProductResponse> items = products.stream()
+                .limit(pageSize)
+                .map(productMapper::toResponse)
+                .toList();
+        String nextCursor = hasMore ? items.get(items.size() - 1).getId() : null;
+        return new PageResponse<>(items, nextCursor);
+    }
+
+    @Override
+    public ProductSearchResponse searchProducts(String query, ProductFilter filter, int offset, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, ProductServiceContant.MAX_SEARCH_RESULTS));
+        if (offset < 0 || offset + pageSize > ProductServiceContant.MAX_SEARCH_WINDOW) {
+            throw new BusinessException(String.format(ProductServiceContant.INVALID_SEARCH_WINDOW,
+                    ProductServiceContant.MAX_SEARCH_WINDOW), HttpStatus.BAD_REQUEST);
+        }
+        SearchHits hits = productSearchIndex.search(query, filter, offset, pageSize);
+
+        /* The index only ranks ids; details and live stock come from the cache, in ranked order */
+        Map<String, ProductResponse> products = getProductsByIds(hits.productIds()).stream()
+                .collect(Collectors.toMap(ProductResponse::getId, product -> product, (a, b) -> a));
+        List<ProductResponse> items = hits.productIds().stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new ProductSearchResponse(items, hits.total(), hits.categories(), hits.brands());
+    }
+
+    @Override
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        return productAutocomplete.complete(prefix, limit);
+    }
+
+    @Override
+    public void forEachProduct(ProductFilter filter, Consumer<ProductResponse> consumer) {
+        try (Stream<Product> products = productRepository.streamAll(filter)) {
+            products.map(productMapper::toResponse).forEach(consumer);
+        }
     }
 
     @Override
     public ProductResponse updateProduct(String id, ProductRequest productRequest) {
         log.info("Updating product details for ID: {}", id);
-        Product product = productRepository.findById(id)
-                .orElseThrow(() ->  new BusinessException(ProductServiceContant.PRODUCT_NOT_FOUND + id, HttpStatus.BAD_REQUEST));
+        Product product = findActive(id, "Cannot update a deleted product");
 
-        if (Boolean.TRUE.equals(product.getIsDeleted())) {
-            log.warn("Attempted to update a deleted product with ID: {}", id);
-            throw new IllegalStateException("Cannot update a deleted product");
+        Product details = new Product();
+        productMapper.updateEntity(productRequest, details);
+        details.setUpdatedAt(LocalDateTime.now());
+        /*
+         * Only the catalog fields are written, so checkouts and stock moves since the read are kept;
+         * the requested stock is applied as a move from the stock that was read. Striped stock is
+         * left to the stripes.
+         */
+        int stockChange = product.getStockStripes() == null ? details.getStockQuantity() - product.getStockQuantity() : 0;
+        Product updatedProduct;
+        try {
+            updatedProduct = productRepository.updateDetails(id, details, stockChange).orElse(null);
+        } catch (DuplicateKeyException e) {
+            throw new BusinessException(ProductServiceContant.DUPLICATE_SKU + details.getSku(), HttpStatus.CONFLICT);
         }
-
-        modelMapper.map(productRequest, product);
-        product.setUpdatedAt(LocalDateTime.now());
-        Product updatedUser = productRepository.save(product);
+        if (updatedProduct == null) {
+            findActive(id, "Cannot update a deleted product");
+            throw new BusinessException(String.format(ProductServiceContant.STOCK_CHANGED, id, stockChange), HttpStatus.CONFLICT);
+        }
+        productCache.evict(id);
+        productSearchIndex.index(updatedProduct);
+        productAutocomplete.index(updatedProduct);
         log.info("Product details updated successfully for ID: {}", id);
-        return modelMapper.map(updatedUser, ProductResponse.class);
+        return productMapper.toResponse(updatedProduct);
     }
 
     @Override
     public String deleteProduct(String id) {
         log.info("Deleting user with ID: {}", id);
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> {
-                    log.error("Product not found with ID: {}", id);
-                    return new BusinessException(ProductServiceContant.PRODUCT_NOT_FOUND + id, HttpStatus.BAD_REQUEST);
-                });
-
-        if (Boolean.TRUE.equals(product.getIsDeleted())) {
-            log.warn("Product with ID: {} is already marked as deleted", id);
-            throw new IllegalStateException("Product is already deleted");
+        if (productRepository.markDeleted(id).isEmpty()) {
+            findActive(id, "Product is already deleted");
         }
-
-        product.setIsDeleted(true);
-        productRepository.save(product);
+        productCache.evict(id);
+        productSearchIndex.remove(id);
+        productAutocomplete.remove(id);
         log.info("Product successfully marked as deleted with ID: {}", id);
         return ProductServiceContant.PRODUCT_DELETED_RESPONSE;
     }
 
     @Override
     public List<ProductResponse> getProductsByIds(List<String> productIds) {
-        List<Product> productList = productRepository.findAllById(productIds);
-        List<ProductResponse> productResponseList = new ArrayList<>();
-        for (Product product : productList) {
-           productResponseList.add(modelMapper.map(product, ProductResponse.class));
+        Map<String, ProductResponse> cached = productCache.getAll(productIds);
+        List<ProductResponse> productResponseList = new ArrayList<>(cached.values());
+        if (cached.size() == productIds.size()) {
+            return productResponseList;
+        }
+
+        List<String> missingIds = productIds.stream()
+                .filter(id -> !cached.containsKey(id))
+                .toList();
+        Map<String, Long> generations = new HashMap<>();
+        missingIds.forEach(id -> generations.put(id, productCache.generation(id)));
+        for (Product product : productRepository.findAllById(missingIds)) {
+            ProductResponse response = productMapper.toResponse(product);
+            if (!Boolean.TRUE.equals(product.getIsDeleted())) {
+                productCache.put(response, generations.get(product.getId()));
+            }
+            productResponseList.add(response);
         }
         return productResponseList;
     }
 
     @Override
-    public void updateStock(StockUpdateRequest request) {
-        List<String> productIds = request.getStockUpdates().stream()
-                .map(StockUpdateRequest.StockUpdateItem::getProductId)
-                .toList();
-
-        List<Product> products = productRepository.findAllById(productIds);
-        if (products.isEmpty()) {
-            throw new ProductException("No products found for the given IDs");
+    public StockUpdateResponse updateStock(StockUpdateRequest request) {
+        if (request.getStockUpdates() == null || request.getStockUpdates().isEmpty()) {
+            throw new ProductException("No stock updates in request");
         }
 
-        Map<String, Product> productMap = products.stream()
-                .collect(Collectors.toMap(Product::getId, product -> product));
-
-        for (StockUpdateRequest.StockUpdateItem item : request.getStockUpdates()) {
-            Product product = productMap.get(item.getProductId());
+        /* Merge repeated product IDs so each product gets a single guarded update */
+        Map<String, Integer> changes = request.getStockUpdates().stream()
+                .collect(Collectors.toMap(
+                        StockUpdateRequest.StockUpdateItem::getProductId,
+                        StockUpdateRequest.StockUpdateItem::getQuantityChange,
+                        Integer::sum,
+                        LinkedHashMap::new));
 
-            if (product == null) {
-                throw new ProductException("Product not found: " + item.getProductId());
-            }
-
-            if (product.getStockQuantity() + item.getQuantityChange() < 0) {
-                throw new ProductException("Insufficient stock for product: " + product.getName());
-            }
+        StockUpdateResponse response = productCache.changeStock(changes, () -> inventoryService.applyStockChanges(changes));
+        if (!response.isApplied()) {
+            log.warn("Stock update rejected and rolled back: {}", response.getResults());
+        }
+        return response;
+    }
 
-            product.setStockQuantity(product.getStockQuantity() + item.getQuantityChange());
+    private Product findActive(String id, String deletedMessage) {
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Product not found with ID: {}", id);
+                    return new BusinessException(ProductServiceContant.PRODUCT_NOT_FOUND + id, HttpStatus.BAD_REQUEST);
+                });
+        if (Boolean.TRUE.equals(product.getIsDeleted())) {
+            log.warn("Product with ID: {} is marked as deleted", id);
+            throw new IllegalStateException(deletedMessage);
         }
+        return product;
+    }
 
-        productRepository.saveAll(products);
+    private Product save(Product product) {
+        try {
+            return productRepository.save(product);
+        } catch (DuplicateKeyException e) {
+            throw new BusinessException(ProductServiceContant.DUPLICATE_SKU + product.getSku(), HttpStatus.CONFLICT);
+        }
     }
 }
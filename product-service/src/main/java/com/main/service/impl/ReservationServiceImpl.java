@@ -0,0 +1,315 @@
+package com.main.service.impl;
+
+import com.main.cache.ProductCache;
+import com.main.dtos.OrderItemRequestDto;
+import com.main.dtos.ReservationRequest;
+import com.main.dtos.ReservationResponse;
+import com.main.dtos.StockUpdateResponse;
+import com.main.entity.Reservation;
+import com.main.exceptions.BusinessException;
+import com.main.repository.ProductRepository;
+import com.main.repository.ReservationRepository;
+import com.main.search.ProductAutocomplete;
+import com.main.service.InventoryService;
+import com.main.service.ReservationService;
+import com.main.util.ProductServiceContant;
+import com.main.util.ReservationStatus;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+public class ReservationServiceImpl implements ReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationServiceImpl.class);
+
+    private final ReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductAutocomplete productAutocomplete;
+    private final InventoryService inventoryService;
+    private final int defaultTtlSeconds;
+    private final int maxTtlSeconds;
+
+    public ReservationServiceImpl(ReservationRepository reservationRepository,
+                                  ProductRepository productRepository,
+                                  ProductCache productCache,
+                                  ProductAutocomplete productAutocomplete,
+                                  InventoryService inventoryService,
+                                  @Value("${product.reservation.default-ttl-seconds:600}") int defaultTtlSeconds,
+                                  @Value("${product.reservation.max-ttl-seconds:3600}") int maxTtlSeconds) {
+        this.reservationRepository = reservationRepository;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.productAutocomplete = productAutocomplete;
+        this.inventoryService = inventoryService;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+    }
+
+    @Override
+    public ReservationResponse reserve(ReservationRequest request) {
+        Map<String, Integer> quantities = quantities(request);
+
+        /* Deduct the stock up front; the reservation only records how to give it back */
+        Map<String, Integer> changes = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> changes.put(productId, -quantity));
+        StockUpdateResponse stock = productCache.changeStock(changes, () -> inventoryService.applyStockChanges(changes));
+        if (!stock.isApplied()) {
+            log.warn("Reservation rejected for reference {}: {}", request.getReference(), stock.getResults());
+            return new ReservationResponse(null, request.getReference(), ReservationStatus.REJECTED, null, stock.getResults());
+        }
+
+        Reservation reservation = insertHolding(List.of(newReservation(request, quantities, LocalDateTime.now())), changes).get(0);
+
+        log.info("Stock held under reservation {} until {}", reservation.getId(), reservation.getExpiresAt());
+        return toResponse(reservation, stock.getResults());
+    }
+
+    @Override
+    public ReservationResponse confirm(String reservationId) {
+        Optional<Reservation> confirmed = reservationRepository.compareAndSetUnexpiredStatus(
+                reservationId, ReservationStatus.HELD, ReservationStatus.CONFIRMED, LocalDateTime.now());
+        if (confirmed.isPresent()) {
+            recordOrders(List.of(confirmed.get()));
+            log.info("Reservation {} confirmed", reservationId);
+            return toResponse(confirmed.get(), null);
+        }
+
+        Reservation reservation = findReservation(reservationId);
+        if (reservation.getStatus() == ReservationStatus.CONFIRMED) {
+            return toResponse(reservation, null);
+        }
+        /* Still HELD here means it ran out and the sweeper has not got to it yet */
+        Object state = reservation.getStatus() == ReservationStatus.HELD ? "expired" : reservation.getStatus();
+        throw new BusinessException(String.format(ProductServiceContant.RESERVATION_NOT_HELD,
+                reservationId, state, "confirmed"), HttpStatus.CONFLICT);
+    }
+
+    @Override
+    public ReservationResponse release(String reservationId) {
+        Optional<Reservation> released = reservationRepository.compareAndSetStatus(
+                reservationId, ReservationStatus.HELD, ReservationStatus.RELEASED);
+        if (released.isPresent()) {
+            restoreStock(List.of(released.get()));
+            log.info("Reservation {} released", reservationId);
+            return toResponse(released.get(), null);
+        }
+
+        Reservation reservation = findReservation(reservationId);
+        if (reservation.getStatus() == ReservationStatus.RELEASED || reservation.getStatus() == ReservationStatus.EXPIRED) {
+            return toResponse(reservation, null);
+        }
+        throw new BusinessException(String.format(ProductServiceContant.RESERVATION_NOT_HELD,
+                reservationId, reservation.getStatus(), "released"), HttpStatus.CONFLICT);
+    }
+
+    @Override
+    public List<ReservationResponse> reserveAll(List<ReservationRequest> requests) {
+        List<Map<String, Integer>> quantities = requests.stream().map(this::quantities).toList();
+        Map<String, Integer> changes = new LinkedHashMap<>();
+        quantities.forEach(items -> items.forEach((productId, quantity) -> changes.merge(productId, -quantity, Integer::sum)));
+
+        /* Try the whole batch as one guarded write; only if that fails is each request held on its own */
+        StockUpdateResponse stock = productCache.changeStock(changes, () -> inventoryService.applyStockChanges(changes));
+        if (!stock.isApplied()) {
+            log.info("Batch of {} reservations did not fit in stock together, reserving one by one", requests.size());
+            return requests.stream().map(this::reserve).toList();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Reservation> reservations = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            reservations.add(newReservation(requests.get(i), quantities.get(i), now));
+        }
+        List<Reservation> saved = insertHolding(reservations, changes);
+        log.info("Stock held under {} reservations", saved.size());
+        return saved.stream().map(reservation -> toResponse(reservation, null)).toList();
+    }
+
+    @Override
+    public List<ReservationResponse> confirmAll(List<String> reservationIds) {
+        /* Claimed one by one so a retried batch only counts the orders this call actually confirmed */
+        LocalDateTime now = LocalDateTime.now();
+        List<Reservation> confirmed = reservationIds.stream()
+                .map(id -> reservationRepository.compareAndSetUnexpiredStatus(id, ReservationStatus.HELD, ReservationStatus.CONFIRMED, now))
+                .flatMap(Optional::stream)
+                .toList();
+        log.info("Confirmed {} of {} reservations", confirmed.size(), reservationIds.size());
+        recordOrders(confirmed);
+        return findAll(reservationIds);
+    }
+
+    @Override
+    public List<ReservationResponse> releaseAll(List<String> reservationIds) {
+        /* Claimed one by one so stock is only given back for holds this call actually released */
+        List<Reservation> released = reservationIds.stream()
+                .map(id -> reservationRepository.compareAndSetStatus(id, ReservationStatus.HELD, ReservationStatus.RELEASED))
+                .flatMap(Optional::stream)
+                .toList();
+        restoreStock(released);
+        log.info("Released {} of {} reservations", released.size(), reservationIds.size());
+        return findAll(reservationIds);
+    }
+
+    @Override
+    public List<ReservationResponse> extendAll(List<String> reservationIds, int ttlSeconds) {
+        /* Only holds still running are extended; one that ran out may already be on its way back to stock */
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusSeconds(Math.min(ttlSeconds, maxTtlSeconds));
+        long extended = reservationIds.stream()
+                .map(id -> reservationRepository.extendUnexpired(id, now, expiresAt))
+                .filter(Optional::isPresent)
+                .count();
+        log.info("Extended {} of {} reservations", extended, reservationIds.size());
+        return findAll(reservationIds);
+    }
+
+    @Override
+    public int releaseExpired(int batchSize) {
+        List<Reservation> expired = reservationRepository.findByStatusAndExpiresAtBefore(
+                ReservationStatus.HELD, LocalDateTime.now(), Limit.of(batchSize));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        /* Claim each hold first so a late confirm or release cannot race the sweeper */
+        List<Reservation> claimed = expired.stream()
+                .map(reservation -> reservationRepository.compareAndSetStatus(
+                        reservation.getId(), ReservationStatus.HELD, ReservationStatus.EXPIRED))
+                .flatMap(Optional::stream)
+                .toList();
+        restoreStock(claimed);
+        log.info("Released {} expired reservations", claimed.size());
+        return expired.size();
+    }
+
+    /*
+     * The stock is already deducted, so a failed insert must give it back. The ids are assigned
+     * up front so an insert that may have landed anyway can be deleted first; if even that fails
+     * the stock stays held and is logged, rather than risk a reservation that can be released twice.
+     */
+    private List<Reservation> insertHolding(List<Reservation> reservations, Map<String, Integer> changes) {
+        reservations.forEach(reservation -> reservation.setId(new ObjectId().toHexString()));
+        try {
+            return reservationRepository.insert(reservations);
+        } catch (RuntimeException e) {
+            List<String> ids = reservations.stream().map(Reservation::getId).toList();
+            try {
+                reservationRepository.deleteAllById(ids);
+            } catch (RuntimeException cleanup) {
+                log.error("Could not save or remove reservations {}, stock {} stays held", ids, changes, cleanup);
+                throw e;
+            }
+            Map<String, Integer> restore = new LinkedHashMap<>();
+            changes.forEach((productId, change) -> restore.put(productId, -change));
+            StockUpdateResponse response = productCache.changeStock(restore, () -> inventoryService.applyStockChanges(restore));
+            if (!response.isApplied()) {
+                log.error("Could not give back stock for unsaved reservations {}: {}", ids, response.getResults());
+            }
+            throw e;
+        }
+    }
+
+    private void restoreStock(List<Reservation> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> changes = mergeItems(reservations);
+        StockUpdateResponse response = productCache.changeStock(changes, () -> inventoryService.applyStockChanges(changes));
+        if (response.isApplied()) {
+            return;
+        }
+
+        /* One bad product should not block the rest of the batch */
+        if (reservations.size() > 1) {
+            reservations.forEach(reservation -> restoreStock(List.of(reservation)));
+        } else {
+            log.error("Could not restore stock for reservation {}: {}", reservations.get(0).getId(), response.getResults());
+        }
+    }
+
+    /* Popularity only ranks suggestions, so a failure here must not fail the confirm */
+    private void recordOrders(List<Reservation> reservations) {
+        Map<String, Integer> orders = new LinkedHashMap<>();
+        for (Reservation reservation : reservations) {
+            for (Reservation.ReservedItem item : reservation.getItems()) {
+                orders.merge(item.getProductId(), 1, Integer::sum);
+            }
+        }
+        try {
+            productRepository.incrementOrderCounts(orders);
+            productAutocomplete.recordOrders(orders);
+        } catch (RuntimeException e) {
+            log.warn("Could not record orders for {} products", orders.size(), e);
+        }
+    }
+
+    private Map<String, Integer> mergeItems(List<Reservation> reservations) {
+        Map<String, Integer> changes = new LinkedHashMap<>();
+        for (Reservation reservation : reservations) {
+            for (Reservation.ReservedItem item : reservation.getItems()) {
+                changes.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        return changes;
+    }
+
+    private Map<String, Integer> quantities(ReservationRequest request) {
+        return request.getItems().stream()
+                .collect(Collectors.toMap(OrderItemRequestDto::getProductId, OrderItemRequestDto::getQuantity,
+                        Integer::sum, LinkedHashMap::new));
+    }
+
+    private Reservation newReservation(ReservationRequest request, Map<String, Integer> quantities, LocalDateTime now) {
+        int ttlSeconds = request.getTtlSeconds() == null ? defaultTtlSeconds : Math.min(request.getTtlSeconds(), maxTtlSeconds);
+        List<Reservation.ReservedItem> items = quantities.entrySet().stream()
+                .map(entry -> new Reservation.ReservedItem(entry.getKey(), entry.getValue()))
+                .toList();
+        return new Reservation(null, request.getReference(), items, ReservationStatus.HELD, now.plusSeconds(ttlSeconds), now, null);
+    }
+
+    private List<ReservationResponse> findAll(List<String> reservationIds) {
+        return toResponses(reservationIds, loadAll(reservationIds));
+    }
+
+    private Map<String, Reservation> loadAll(List<String> reservationIds) {
+        Map<String, Reservation> byId = new LinkedHashMap<>();
+        reservationRepository.findAllById(reservationIds).forEach(reservation -> byId.put(reservation.getId(), reservation));
+        return byId;
+    }
+
+    /* Answers in request order; IDs that do not exist come back as REJECTED */
+    private List<ReservationResponse> toResponses(List<String> reservationIds, Map<String, Reservation> byId) {
+        return reservationIds.stream()
+                .map(id -> {
+                    Reservation reservation = byId.get(id);
+                    return reservation == null
+                            ? new ReservationResponse(id, null, ReservationStatus.REJECTED, null, null)
+                            : toResponse(reservation, null);
+                })
+                .toList();
+    }
+
+    private Reservation findReservation(String reservationId) {
+        return reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new BusinessException(ProductServiceContant.RESERVATION_NOT_FOUND + reservationId, HttpStatus.NOT_FOUND));
+    }
+
+    private ReservationResponse toResponse(Reservation reservation, List<StockUpdateResponse.StockUpdateResult> results) {
+        return new ReservationResponse(reservation.getId(), reservation.getReference(), reservation.getStatus(),
+                reservation.getExpiresAt(), results);
+    }
+}
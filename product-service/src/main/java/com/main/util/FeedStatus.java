@@ -0,0 +1,7 @@
+package com.main.util;
+
+public enum FeedStatus {
+    RUNNING,
+    FAILED,
+    COMPLETED;
+}
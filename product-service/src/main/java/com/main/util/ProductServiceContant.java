@@ -3,5 +3,27 @@ package com.main.util;
 public class ProductServiceContant {
     public static final String PRODUCT_DELETED_RESPONSE = "User delete successfully";
     public static final String PRODUCT_NOT_FOUND = "User not found with ID: ";
+    public static final String INVALID_CURSOR = "Invalid page cursor: ";
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final String RESERVATION_NOT_FOUND = "Reservation not found with ID: ";
+    public static final String RESERVATION_NOT_HELD = "Reservation %s is %s and can no longer be %s";
+    public static final String SEARCH_NOT_READY = "Product search index is still loading";
+    public static final String INVALID_SEARCH_QUERY = "Search query has no searchable words: ";
+    public static final String INVALID_SEARCH_WINDOW = "Search results are limited to the first %d matches";
+    public static final int MAX_SEARCH_RESULTS = 100;
+    public static final int MAX_SEARCH_WINDOW = 1000;
+    public static final int SEARCH_FACET_LIMIT = 20;
+    public static final String AUTOCOMPLETE_NOT_READY = "Product suggestions are still loading";
+    public static final int MAX_SUGGESTIONS = 20;
+    public static final int MAX_STOCK_STRIPES = 64;
+    public static final String INVALID_STOCK_STRIPES = "Stripe count must be between 1 and %d";
+    public static final int MAX_IMPORT_BATCH_SIZE = 10_000;
+    public static final int MAX_IMPORT_ERRORS = 1000;
+    public static final String INVALID_IMPORT_BATCH_SIZE = "Import batch size must be between 1 and %d";
+    public static final String IMPORT_READ_FAILED = "Import body could not be read after %d rows";
+    public static final int MAX_FEED_PROBLEMS = 100;
+    public static final String DUPLICATE_SKU = "Another active product already has SKU: ";
+    public static final String STOCK_CHANGED = "Stock of product %s changed meanwhile and cannot be moved by %d, retry with its current stock";
+    public static final String FLASH_SALE_ALREADY_ON = "Product %s is already in flash-sale mode with %d stripes";
 
 }
@@ -0,0 +1,99 @@
+package com.main.cache;
+
+import com.main.dtos.ProductResponse;
+import com.main.dtos.StockUpdateResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCacheTest {
+
+    private static final StockUpdateResponse APPLIED = new StockUpdateResponse(true, List.of());
+    private static final StockUpdateResponse REJECTED = new StockUpdateResponse(false, List.of());
+
+    private final ProductCache cache = new ProductCache(new SimpleMeterRegistry(), 1000, 300);
+
+    @Test
+    void anAppliedStockChangeMovesTheCachedStockAndKeepsTheCatalog() {
+        ProductResponse lamp = cached(product("lamp", 10, null));
+        List<ProductResponse> catalog = cache.getCatalog(() -> List.of(lamp));
+
+        cache.changeStock(Map.of("lamp", -3), () -> APPLIED);
+
+        assertThat(cache.get("lamp").getStockQuantity()).isEqualTo(7);
+        assertThat(cache.get("lamp").getName()).isEqualTo("lamp");
+        /* The response handed out before is not changed under its reader */
+        assertThat(lamp.getStockQuantity()).isEqualTo(10);
+        assertThat(cache.getCatalog(List::of)).isSameAs(catalog);
+    }
+
+    @Test
+    void aRejectedStockChangeLeavesTheCachedStock() {
+        cached(product("lamp", 10, null));
+
+        cache.changeStock(Map.of("lamp", -30), () -> REJECTED);
+
+        assertThat(cache.get("lamp").getStockQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void aProductLoadedDuringTheWriteIsDropped() {
+        cache.changeStock(Map.of("lamp", -3), () -> {
+            /* May or may not have read the change, so it cannot be moved */
+            cached(product("lamp", 7, null));
+            return APPLIED;
+        });
+
+        assertThat(cache.get("lamp")).isNull();
+    }
+
+    @Test
+    void aLoadThatStartedBeforeTheWriteIsNotCachedAfterIt() {
+        long generation = cache.generation("lamp");
+        cache.changeStock(Map.of("lamp", -3), () -> APPLIED);
+
+        cache.put(product("lamp", 10, null), generation);
+
+        assertThat(cache.get("lamp")).isNull();
+    }
+
+    @Test
+    void flashSaleStockIsLeftToTheRebalance() {
+        cached(product("hot", 100, 8));
+
+        cache.changeStock(Map.of("hot", -1), () -> APPLIED);
+
+        assertThat(cache.get("hot").getStockQuantity()).isEqualTo(100);
+    }
+
+    @Test
+    void aCatalogChangeDropsTheCatalogButAStockEvictionDoesNot() {
+        cached(product("lamp", 10, null));
+        List<ProductResponse> catalog = cache.getCatalog(() -> List.of(cache.get("lamp")));
+
+        cache.evictStock(List.of("lamp"));
+        assertThat(cache.get("lamp")).isNull();
+        assertThat(cache.getCatalog(List::of)).isSameAs(catalog);
+
+        cache.evict("lamp");
+        assertThat(cache.getCatalog(List::of)).isEmpty();
+    }
+
+    private ProductResponse cached(ProductResponse product) {
+        cache.put(product, cache.generation(product.getId()));
+        return product;
+    }
+
+    private static ProductResponse product(String id, int stock, Integer stripes) {
+        ProductResponse product = new ProductResponse();
+        product.setId(id);
+        product.setName(id);
+        product.setStockQuantity(stock);
+        product.setStockStripes(stripes);
+        return product;
+    }
+}
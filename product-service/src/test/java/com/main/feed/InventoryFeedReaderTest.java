@@ -0,0 +1,110 @@
+package com.main.feed;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventoryFeedReaderTest {
+
+    private static final String FEED = "SKU-1,10\r\n\n \"SKU-2\" , 7 \nSKU-3,0\r\n\r\nSKU-4,12345\nSKU-5,3";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rowsAreParsedSkippingBlankLines() throws IOException {
+        assertThat(readAll(write(FEED), 1 << 20)).containsExactly(
+                "1 SKU-1=10", "3 SKU-2=7", "4 SKU-3=0", "6 SKU-4=12345", "7 SKU-5=3");
+    }
+
+    @Test
+    void rowsStraddlingWindowsReadTheSameAsWithOneWindow() throws IOException {
+        Path file = write(FEED);
+        List<String> expected = readAll(file, 1 << 20);
+
+        /* Every window at least one row long, so each row boundary lands in every spot of a window */
+        for (int windowBytes = 16; windowBytes <= FEED.length(); windowBytes++) {
+            assertThat(readAll(file, windowBytes)).as("window of %d bytes", windowBytes).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void readingResumesAfterTheLastRowReturned() throws IOException {
+        Path file = write(FEED);
+        InventoryFeedReader.Row row = new InventoryFeedReader.Row();
+        long position;
+        long line;
+        try (InventoryFeedReader reader = new InventoryFeedReader(file, 0, 0, 16)) {
+            reader.next(row);
+            reader.next(row);
+            position = reader.position();
+            line = reader.line();
+        }
+
+        try (InventoryFeedReader reader = new InventoryFeedReader(file, position, line, 16)) {
+            assertThat(reader.next(row)).isTrue();
+            assertThat(row.line()).isEqualTo(4);
+            assertThat(row.sku()).isEqualTo("SKU-3");
+        }
+    }
+
+    @Test
+    void badRowsCarryAnErrorAndReadingCarriesOn() throws IOException {
+        Path file = write(String.join("\n",
+                "no-comma",
+                ",5",
+                "SKU-1,",
+                "SKU-2,-3",
+                "SKU-3,2147483648",
+                "x".repeat(InventoryFeedReader.MAX_SKU_BYTES + 1) + ",1",
+                "SKU-4,4"));
+
+        assertThat(readAll(file, 1 << 20)).containsExactly(
+                "1 Expected sku,quantity",
+                "2 SKU is empty",
+                "3 Quantity is empty",
+                "4 Quantity is not a non-negative whole number",
+                "5 Quantity is too large",
+                "6 SKU is longer than " + InventoryFeedReader.MAX_SKU_BYTES + " bytes",
+                "7 SKU-4=4");
+    }
+
+    @Test
+    void anOverlongRowIsSkippedToItsEnd() throws IOException {
+        Path file = write("SKU-1,1\n" + "x".repeat(3 * InventoryFeedReader.MAX_ROW_BYTES) + ",1\nSKU-2,2\n");
+
+        for (int windowBytes : new int[] {2 * InventoryFeedReader.MAX_ROW_BYTES, 1 << 20}) {
+            assertThat(readAll(file, windowBytes)).as("window of %d bytes", windowBytes).containsExactly(
+                    "1 SKU-1=1", "2 Row is longer than " + InventoryFeedReader.MAX_ROW_BYTES + " bytes", "3 SKU-2=2");
+        }
+    }
+
+    @Test
+    void anEmptyFileHasNoRows() throws IOException {
+        assertThat(readAll(write(""), 16)).isEmpty();
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.write(directory.resolve("feed.csv"), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> readAll(Path file, int windowBytes) throws IOException {
+        List<String> rows = new ArrayList<>();
+        InventoryFeedReader.Row row = new InventoryFeedReader.Row();
+        try (InventoryFeedReader reader = new InventoryFeedReader(file, 0, 0, windowBytes)) {
+            while (reader.next(row)) {
+                rows.add(row.line() + " " + (row.error() != null ? row.error() : row.sku() + "=" + row.quantity()));
+            }
+            assertThat(reader.position()).isEqualTo(reader.size());
+        }
+        return rows;
+    }
+}
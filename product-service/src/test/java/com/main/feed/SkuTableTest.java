@@ -0,0 +1,64 @@
+package com.main.feed;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SkuTableTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void theSameSkuBytesGiveTheSameString() throws IOException {
+        SkuTable table = new SkuTable(100);
+        List<String> skus = internAll(table, "A-1,1\nB-2,1\n\"A-1\",2\n");
+
+        assertThat(skus).containsExactly("A-1", "B-2", "A-1");
+        assertThat(skus.get(2)).isSameAs(skus.get(0));
+        assertThat(table.size()).isEqualTo(2);
+    }
+
+    @Test
+    void growingKeepsEverySku() throws IOException {
+        SkuTable table = new SkuTable(100_000);
+        String feed = IntStream.range(0, 5000).mapToObj(i -> "SKU-" + i + ",1").collect(Collectors.joining("\n"));
+        List<String> first = internAll(table, feed);
+        List<String> second = internAll(table, feed);
+
+        assertThat(table.size()).isEqualTo(5000);
+        for (int i = 0; i < first.size(); i++) {
+            assertThat(second.get(i)).isEqualTo("SKU-" + i).isSameAs(first.get(i));
+        }
+    }
+
+    @Test
+    void aFullTableStartsOver() throws IOException {
+        SkuTable table = new SkuTable(3);
+        internAll(table, "A,1\nB,1\nC,1\nD,1\n");
+
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    private List<String> internAll(SkuTable table, String feed) throws IOException {
+        Path file = Files.write(directory.resolve("feed.csv"), feed.getBytes(StandardCharsets.UTF_8));
+        List<String> skus = new ArrayList<>();
+        InventoryFeedReader.Row row = new InventoryFeedReader.Row();
+        try (InventoryFeedReader reader = new InventoryFeedReader(file, 0, 0)) {
+            while (reader.next(row)) {
+                skus.add(table.intern(row));
+            }
+        }
+        return skus;
+    }
+}
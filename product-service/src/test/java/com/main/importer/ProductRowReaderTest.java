@@ -0,0 +1,93 @@
+package com.main.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductRowReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void ndjsonRowsAreReadLineByLineSkippingBlankLines() throws IOException {
+        List<ProductRowReader.Row> rows = readAll(ImportFormat.NDJSON,
+                "\uFEFF{\"name\":\"Lamp\"}\r\n\n   \n{\"name\":\"Desk\"}");
+
+        assertThat(rows).extracting(ProductRowReader.Row::line).containsExactly(1L, 4L);
+        assertThat(rows).extracting(row -> row.fields().get("name").asText()).containsExactly("Lamp", "Desk");
+        assertThat(rows).extracting(ProductRowReader.Row::error).containsOnlyNulls();
+    }
+
+    @Test
+    void aBadNdjsonRowIsReportedAndReadingCarriesOn() throws IOException {
+        List<ProductRowReader.Row> rows = readAll(ImportFormat.NDJSON, "{\"name\":\n[1,2]\n{\"name\":\"Desk\"}\n");
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).error()).startsWith("Malformed JSON");
+        assertThat(rows.get(1).error()).isEqualTo("Row is not a JSON object");
+        assertThat(rows.get(2).fields().get("name").asText()).isEqualTo("Desk");
+    }
+
+    @Test
+    void csvRowsAreKeyedByTheHeader() throws IOException {
+        List<ProductRowReader.Row> rows = readAll(ImportFormat.CSV, " name , sku,price\r\nLamp,L-1,9.99\r\n\r\nDesk,,120\r\n");
+
+        assertThat(rows).extracting(ProductRowReader.Row::line).containsExactly(2L, 4L);
+        assertThat(rows.get(0).fields().toString()).isEqualTo("{\"name\":\"Lamp\",\"sku\":\"L-1\",\"price\":\"9.99\"}");
+        /* An empty cell leaves the field out */
+        assertThat(rows.get(1).fields().has("sku")).isFalse();
+    }
+
+    @Test
+    void quotedCsvFieldsMayHoldCommasQuotesAndLineBreaks() throws IOException {
+        List<ProductRowReader.Row> rows = readAll(ImportFormat.CSV,
+                "name,description\n\"Lamp, brass\",\"Says \"\"hi\"\"\nand glows\"\nDesk,Oak\n");
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).fields().get("name").asText()).isEqualTo("Lamp, brass");
+        assertThat(rows.get(0).fields().get("description").asText()).isEqualTo("Says \"hi\"\nand glows");
+        /* The line break inside the quotes still counts towards the line numbers */
+        assertThat(rows.get(1).line()).isEqualTo(4);
+    }
+
+    @Test
+    void aCsvRowWithTheWrongNumberOfColumnsIsReported() throws IOException {
+        List<ProductRowReader.Row> rows = readAll(ImportFormat.CSV, "name,sku\nLamp\nDesk,D-1\n");
+
+        assertThat(rows.get(0).error()).isEqualTo("Expected 2 columns but found 1");
+        assertThat(rows.get(1).fields().get("sku").asText()).isEqualTo("D-1");
+    }
+
+    @Test
+    void anUnclosedQuoteIsReported() throws IOException {
+        List<ProductRowReader.Row> rows = readAll(ImportFormat.CSV, "name,sku\nLamp,\"L-1\n");
+
+        assertThat(rows).singleElement().extracting(ProductRowReader.Row::error).isEqualTo("Quoted field is never closed");
+    }
+
+    @Test
+    void anOversizedRowIsReportedAndTheNextRowIsStillRead() throws IOException {
+        String oversized = "{\"name\":\"" + "x".repeat(ProductRowReader.MAX_ROW_CHARS) + "\"}";
+        List<ProductRowReader.Row> rows = readAll(ImportFormat.NDJSON, oversized + "\n{\"name\":\"Desk\"}\n");
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).error()).isEqualTo("Row is longer than " + ProductRowReader.MAX_ROW_CHARS + " characters");
+        assertThat(rows.get(1).line()).isEqualTo(2);
+        assertThat(rows.get(1).fields().get("name").asText()).isEqualTo("Desk");
+    }
+
+    private List<ProductRowReader.Row> readAll(ImportFormat format, String body) throws IOException {
+        ProductRowReader reader = new ProductRowReader(new StringReader(body), format, objectMapper);
+        List<ProductRowReader.Row> rows = new ArrayList<>();
+        for (ProductRowReader.Row row = reader.next(); row != null; row = reader.next()) {
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,194 @@
+package com.main.repository;
+
+import com.main.dtos.StockUpdateResponse;
+import com.main.entity.Product;
+import com.main.util.StockUpdateStatus;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stock changes against a mocked server: the bulk write reports per item what the validator
+ * refused, and the rollback bulk is checked for exactly the items that were applied.
+ */
+class ProductRepositoryCustomImplTest {
+
+    private static final int DOCUMENT_VALIDATION_FAILURE = 121;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations write = mock(BulkOperations.class);
+    private final BulkOperations rollback = mock(BulkOperations.class);
+    private final ProductRepositoryCustomImpl repository = new ProductRepositoryCustomImpl(mongoTemplate);
+    /* Products the lookup finds, by id, with their stripe count or null */
+    private final Map<String, Integer> products = new LinkedHashMap<>();
+    /* Products switched to stripes after the lookup, seen only by the re-read of unmatched items */
+    private final Map<String, Integer> stripedLater = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Product.class))).thenReturn(write, rollback);
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenAnswer(invocation -> {
+            boolean stripedOnly = invocation.getArgument(0, Query.class).getQueryObject().containsKey("stockStripes");
+            Map<String, Integer> source = stripedOnly ? stripedLater : products;
+            List<Product> found = new ArrayList<>();
+            source.forEach((id, stripes) -> {
+                Product product = new Product();
+                product.setId(id);
+                product.setStockStripes(stripes);
+                found.add(product);
+            });
+            return found;
+        });
+    }
+
+    @Test
+    void changesThatAllFitAreAppliedWithoutARollback() {
+        products.put("a", null);
+        products.put("b", null);
+        when(write.execute()).thenReturn(matched(2));
+
+        StockUpdateResponse response = repository.applyStockChanges(changes("a", -2, "b", 3));
+
+        assertThat(response.isApplied()).isTrue();
+        assertThat(response.getResults()).extracting(StockUpdateResponse.StockUpdateResult::getStatus)
+                .containsOnly(StockUpdateStatus.APPLIED);
+        verify(mongoTemplate, times(1)).bulkOps(any(BulkOperations.BulkMode.class), eq(Product.class));
+    }
+
+    @Test
+    void aDecrementTheValidatorRefusesIsShortAndTheRestIsRolledBack() {
+        products.put("a", null);
+        products.put("b", null);
+        when(write.execute()).thenThrow(refused(matched(1), DOCUMENT_VALIDATION_FAILURE, 0));
+
+        StockUpdateResponse response = repository.applyStockChanges(changes("a", -5, "b", -1));
+
+        assertThat(response.isApplied()).isFalse();
+        assertThat(response.getResults()).extracting(StockUpdateResponse.StockUpdateResult::getStatus)
+                .containsExactly(StockUpdateStatus.INSUFFICIENT_STOCK, StockUpdateStatus.ROLLED_BACK);
+        assertThat(rolledBack()).containsExactly(Map.entry("b", 1));
+    }
+
+    @Test
+    void aProductSwitchedToStripesDuringTheWriteIsRefusedAndTheRestRolledBack() {
+        products.put("a", null);
+        products.put("b", null);
+        /* The write skips a by its stockStripes guard, which only the matched count shows */
+        stripedLater.put("a", 4);
+        when(write.execute()).thenReturn(matched(1));
+
+        StockUpdateResponse response = repository.applyStockChanges(changes("a", -1, "b", -1));
+
+        assertThat(response.getResults()).extracting(StockUpdateResponse.StockUpdateResult::getStatus)
+                .containsExactly(StockUpdateStatus.INSUFFICIENT_STOCK, StockUpdateStatus.ROLLED_BACK);
+        assertThat(rolledBack()).containsExactly(Map.entry("b", 1));
+    }
+
+    @Test
+    void unknownAndFlashSaleProductsAreRefusedBeforeAnythingIsWritten() {
+        products.put("a", null);
+        products.put("hot", 4);
+
+        StockUpdateResponse response = repository.applyStockChanges(changes("a", -1, "hot", -1, "gone", -1));
+
+        assertThat(response.getResults()).extracting(StockUpdateResponse.StockUpdateResult::getStatus)
+                .containsExactly(StockUpdateStatus.ROLLED_BACK, StockUpdateStatus.INSUFFICIENT_STOCK, StockUpdateStatus.NOT_FOUND);
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Product.class));
+    }
+
+    @Test
+    void anItemThatFailedForAnotherReasonIsRethrownAfterTheRestIsRolledBack() {
+        products.put("a", null);
+        products.put("b", null);
+        BulkOperationException failure = refused(matched(1), 11600, 0);
+        when(write.execute()).thenThrow(failure);
+
+        assertThatThrownBy(() -> repository.applyStockChanges(changes("a", -1, "b", -1))).isSameAs(failure);
+
+        assertThat(rolledBack()).containsExactly(Map.entry("b", 1));
+    }
+
+    @Test
+    void aWriteThatWasNeverAcknowledgedIsNotRolledBack() {
+        products.put("a", null);
+        when(write.execute()).thenThrow(new IllegalStateException("connection reset"));
+
+        assertThatThrownBy(() -> repository.applyStockChanges(changes("a", -1))).hasMessage("connection reset");
+
+        verify(mongoTemplate, times(1)).bulkOps(any(BulkOperations.BulkMode.class), eq(Product.class));
+    }
+
+    @Test
+    void theValidatorRefusesStockBelowZero() {
+        when(mongoTemplate.getCollectionName(Product.class)).thenReturn("products");
+        when(mongoTemplate.collectionExists("products")).thenReturn(true);
+        when(mongoTemplate.getCollection("products")).thenThrow(new IllegalStateException("not part of this test"));
+
+        assertThatThrownBy(() -> new ProductCollectionSetup(mongoTemplate).setUp()).hasMessage("not part of this test");
+
+        ArgumentCaptor<Document> command = ArgumentCaptor.forClass(Document.class);
+        verify(mongoTemplate).executeCommand(command.capture());
+        assertThat(command.getValue().getString("validationAction")).isEqualTo("error");
+        assertThat(command.getValue().get("validator", Document.class).getList("$or", Document.class))
+                .contains(new Document("stockQuantity", new Document("$gte", 0)));
+    }
+
+    /* Product id to the quantity the rollback bulk gives back */
+    private Map<String, Integer> rolledBack() {
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(rollback).updateOne(queries.capture(), updates.capture());
+        verify(rollback).execute();
+        Map<String, Integer> given = new LinkedHashMap<>();
+        for (int i = 0; i < queries.getAllValues().size(); i++) {
+            given.put(queries.getAllValues().get(i).getQueryObject().getString("id"),
+                    updates.getAllValues().get(i).getUpdateObject().get("$inc", Document.class).getInteger("stockQuantity"));
+        }
+        return given;
+    }
+
+    private static Map<String, Integer> changes(Object... idsAndChanges) {
+        Map<String, Integer> changes = new LinkedHashMap<>();
+        for (int i = 0; i < idsAndChanges.length; i += 2) {
+            changes.put((String) idsAndChanges[i], (Integer) idsAndChanges[i + 1]);
+        }
+        return changes;
+    }
+
+    private static BulkWriteResult matched(int count) {
+        return BulkWriteResult.acknowledged(0, count, 0, count, List.of(), List.of());
+    }
+
+    private static BulkOperationException refused(BulkWriteResult result, int code, int index) {
+        BulkWriteError error = new BulkWriteError(code, "refused", new BsonDocument(), index);
+        return new BulkOperationException("refused",
+                new MongoBulkWriteException(result, List.of(error), null, new ServerAddress(), Set.of()));
+    }
+}
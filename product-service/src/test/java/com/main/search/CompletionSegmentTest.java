@@ -0,0 +1,186 @@
+package com.main.search;
+
+import com.main.entity.Product;
+import com.main.util.SuggestionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class CompletionSegmentTest {
+
+    @Test
+    void heaviestFirstThenAlphabetical() {
+        CompletionSegment segment = new CompletionSegment();
+        segment.upsert(product("p1", "Red lamp", null, null, 5));
+        segment.upsert(product("p2", "Red mug", null, null, 9));
+        segment.upsert(product("p3", "Red apron", null, null, 5));
+        segment.upsert(product("p4", "Blue mug", null, null, 50));
+        segment.freeze();
+
+        assertThat(texts(segment.complete("red", 10))).containsExactly("Red mug", "Red apron", "Red lamp");
+        assertThat(texts(segment.complete("red", 2))).containsExactly("Red mug", "Red apron");
+        assertThat(segment.complete("green", 10)).isEmpty();
+    }
+
+    @Test
+    void namesAreFoundFromTheirFirstThreeWords() {
+        CompletionSegment segment = new CompletionSegment();
+        segment.upsert(product("p1", "Apple iPhone 15 Pro", null, null, 1));
+        segment.freeze();
+
+        assertThat(texts(segment.complete("iphone", 10))).containsExactly("Apple iPhone 15 Pro");
+        assertThat(texts(segment.complete("15", 10))).containsExactly("Apple iPhone 15 Pro");
+        assertThat(segment.complete("pro", 10)).isEmpty();
+    }
+
+    @Test
+    void aSuggestionReachedThroughSeveralKeysComesBackOnce() {
+        CompletionSegment segment = new CompletionSegment();
+        segment.upsert(product("p1", "Tea tea tea", null, null, 1));
+        segment.freeze();
+
+        assertThat(texts(segment.complete("tea", 10))).containsExactly("Tea tea tea");
+    }
+
+    @Test
+    void brandsAndCategoriesCarryTheOrdersOfTheirProducts() {
+        CompletionSegment segment = new CompletionSegment();
+        segment.upsert(product("p1", "Kettle", "Kitchenly", "Kitchen", 3));
+        segment.upsert(product("p2", "Knife", "Kitchenly", "Kitchen", 4));
+        segment.freeze();
+
+        assertThat(segment.complete("kitchen", 10))
+                .extracting(CompletionSegment.Suggestion::text, CompletionSegment.Suggestion::type, CompletionSegment.Suggestion::popularity)
+                .containsExactly(tuple("Kitchen", SuggestionType.CATEGORY, 7L), tuple("Kitchenly", SuggestionType.BRAND, 7L));
+        assertThat(segment.liveCount()).isEqualTo(4);
+    }
+
+    @Test
+    void recordedOrdersReorderFrozenSuggestions() {
+        CompletionSegment segment = new CompletionSegment();
+        segment.upsert(product("p1", "Oat milk", "Oaty", null, 10));
+        segment.upsert(product("p2", "Oat bar", "Oaty", null, 2));
+        segment.freeze();
+
+        segment.recordOrders("p2", 20);
+        segment.recordOrders("unknown", 100);
+
+        assertThat(segment.complete("oat", 10))
+                .extracting(CompletionSegment.Suggestion::text, CompletionSegment.Suggestion::popularity)
+                .containsExactly(tuple("Oaty", 32L), tuple("Oat bar", 22L), tuple("Oat milk", 10L));
+    }
+
+    @Test
+    void productsAddedAfterFreezeAreFoundAlongsideFrozenOnes() {
+        CompletionSegment segment = new CompletionSegment();
+        segment.upsert(product("p1", "Desk lamp", null, null, 4));
+        segment.freeze();
+        int frozenKeys = segment.keyCount();
+
+        segment.upsert(product("p2", "Desk chair", null, null, 8));
+        segment.upsert(product("p1", "Desk lamp LED", null, null, 4));
+
+        assertThat(texts(segment.complete("desk", 10))).containsExactly("Desk chair", "Desk lamp LED");
+        assertThat(segment.keyCount()).isGreaterThan(frozenKeys);
+    }
+
+    @Test
+    void removedProductsAndEmptiedFacetsDisappear() {
+        CompletionSegment segment = new CompletionSegment();
+        segment.upsert(product("p1", "Sun hat", "Sunny", null, 6));
+        segment.upsert(product("p2", "Sun cream", "Sunny", null, 1));
+        segment.freeze();
+
+        segment.remove("p1");
+        assertThat(segment.complete("sun", 10))
+                .extracting(CompletionSegment.Suggestion::text, CompletionSegment.Suggestion::popularity)
+                .containsExactly(tuple("Sun cream", 1L), tuple("Sunny", 1L));
+
+        Product deleted = product("p2", "Sun cream", "Sunny", null, 1);
+        deleted.setIsDeleted(true);
+        segment.upsert(deleted);
+        assertThat(segment.complete("sun", 10)).isEmpty();
+        assertThat(segment.liveCount()).isZero();
+    }
+
+    @Test
+    void agreesWithABruteForceScan() {
+        Random random = new Random(42);
+        String[] words = {"red", "rose", "ring", "rope", "robe", "blue", "bowl", "box", "bag", "lamp", "lace", "lid"};
+        CompletionSegment segment = new CompletionSegment();
+        Map<String, String> names = new HashMap<>();
+        Map<String, Long> orders = new HashMap<>();
+        /* Weights 3000 apart, and fewer orders recorded below, so the expected order is never decided by a tie */
+        List<Long> weights = new ArrayList<>();
+        for (long w = 0; w < 1500; w++) weights.add(w * 3000);
+        Collections.shuffle(weights, random);
+
+        for (int i = 0; i < 1500; i++) {
+            String id = "p" + i;
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + i;
+            names.put(id, name);
+            orders.put(id, weights.get(i));
+            segment.upsert(product(id, name, null, null, weights.get(i)));
+            if (i == 1000) {
+                segment.freeze();
+            }
+        }
+        for (int i = 0; i < 300; i++) {
+            String id = "p" + random.nextInt(1500);
+            if (random.nextInt(10) == 0) {
+                segment.remove(id);
+                names.remove(id);
+            } else if (names.containsKey(id)) {
+                int recorded = 1 + random.nextInt(9);
+                segment.recordOrders(id, recorded);
+                orders.merge(id, (long) recorded, Long::sum);
+            }
+        }
+
+        for (String prefix : new String[] {"r", "ro", "rope", "b", "bo", "la", "lid ", "red r", "1", "12", "zz"}) {
+            List<String> expected = names.entrySet().stream()
+                    .filter(e -> keysOf(e.getValue()).stream().anyMatch(key -> key.startsWith(prefix)))
+                    .sorted(Comparator.comparing((Map.Entry<String, String> e) -> -orders.get(e.getKey()))
+                            .thenComparing(Map.Entry::getValue))
+                    .limit(10)
+                    .map(Map.Entry::getValue)
+                    .toList();
+            assertThat(texts(segment.complete(prefix, 10))).as(prefix).containsExactlyElementsOf(expected);
+        }
+    }
+
+    private static List<String> keysOf(String name) {
+        String folded = SearchTokenizer.fold(name);
+        List<String> keys = new ArrayList<>();
+        int start = 0;
+        while (start >= 0 && keys.size() < 3 && start < folded.length()) {
+            keys.add(folded.substring(start));
+            int space = folded.indexOf(' ', start);
+            start = space < 0 ? -1 : space + 1;
+        }
+        return keys;
+    }
+
+    private static List<String> texts(List<CompletionSegment.Suggestion> suggestions) {
+        return suggestions.stream().map(CompletionSegment.Suggestion::text).toList();
+    }
+
+    private static Product product(String id, String name, String brand, String category, long orderCount) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setCategory(category);
+        product.setOrderCount(orderCount);
+        return product;
+    }
+}
@@ -0,0 +1,59 @@
+package com.main.search;
+
+import com.main.dtos.SuggestionResponse;
+import com.main.entity.Product;
+import com.main.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductAutocompleteTest {
+
+    private ProductRepository productRepository;
+    private ProductAutocomplete autocomplete;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        autocomplete = new ProductAutocomplete(productRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void ordersRecordedDuringARebuildAreNotCountedTwice() {
+        /* The stored count already includes the orders recorded while the stream runs */
+        Product stored = product("p1", "Green tea", 5);
+        when(productRepository.streamAll(any())).thenAnswer(invocation -> Stream.of(stored)
+                .peek(product -> autocomplete.recordOrders(Map.of("p1", 2))));
+
+        autocomplete.rebuild();
+
+        assertThat(autocomplete.complete("green", 10)).extracting(SuggestionResponse::getPopularity).containsExactly(5L);
+    }
+
+    @Test
+    void productWritesDuringARebuildAreReplayedOntoTheNewSegment() {
+        when(productRepository.streamAll(any())).thenAnswer(invocation -> Stream.of(product("p1", "Green tea", 1))
+                .peek(product -> autocomplete.index(product("p2", "Green coffee", 0))));
+
+        autocomplete.rebuild();
+
+        assertThat(autocomplete.complete("green", 10)).extracting(SuggestionResponse::getText)
+                .containsExactly("Green tea", "Green coffee");
+    }
+
+    private static Product product(String id, String name, long orderCount) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setOrderCount(orderCount);
+        return product;
+    }
+}
@@ -0,0 +1,173 @@
+package com.main.search;
+
+import com.main.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class SearchSegmentTest {
+
+    @Test
+    void matchesOnlyProductsWithEveryTerm() {
+        SearchSegment segment = new SearchSegment();
+        segment.upsert(product("p1", "Red desk lamp", "Lumo", "Lighting", "20.00"));
+        segment.upsert(product("p2", "Red chair", "Sitwell", "Furniture", "80.00"));
+        segment.upsert(product("p3", "Blue desk lamp", "Lumo", "Lighting", "25.00"));
+
+        SearchHits hits = search(segment, Set.of("red", "lamp"));
+
+        assertThat(hits.productIds()).containsExactly("p1");
+        assertThat(hits.total()).isEqualTo(1);
+        assertThat(search(segment, Set.of("red", "sofa")).productIds()).isEmpty();
+    }
+
+    @Test
+    void nameMatchesOutrankDescriptionMatches() {
+        SearchSegment segment = new SearchSegment();
+        Product described = product("p1", "Reading light", "Lumo", "Lighting", "20.00");
+        described.setDescription("A small lamp for the bedside");
+        segment.upsert(described);
+        segment.upsert(product("p2", "Desk lamp", "Lumo", "Lighting", "20.00"));
+
+        assertThat(search(segment, Set.of("lamp")).productIds()).containsExactly("p2", "p1");
+    }
+
+    @Test
+    void rareTermsWeighMoreThanCommonOnes() {
+        SearchSegment segment = new SearchSegment();
+        Product lampInName = product("lamp-name", "Lamp", "Lumo", "Lighting", "20.00");
+        lampInName.setDescription("brass");
+        Product brassInName = product("brass-name", "Brass", "Lumo", "Lighting", "20.00");
+        brassInName.setDescription("lamp");
+        segment.upsert(lampInName);
+        segment.upsert(brassInName);
+        /* Alone the two are mirror images and tie; once "lamp" is common, the name holding "brass" counts for more */
+        assertThat(search(segment, Set.of("lamp", "brass")).productIds()).containsExactly("lamp-name", "brass-name");
+
+        for (int i = 0; i < 20; i++) {
+            segment.upsert(product("filler" + i, "Lamp " + i, "Lumo", "Lighting", "20.00"));
+        }
+        assertThat(search(segment, Set.of("lamp", "brass")).productIds()).containsExactly("brass-name", "lamp-name");
+    }
+
+    @Test
+    void tiesGoToTheOlderProductAndTheWindowSlides() {
+        SearchSegment segment = new SearchSegment();
+        for (int i = 0; i < 10; i++) {
+            segment.upsert(product("p" + i, "Plain mug", "Cupco", "Kitchen", "5.00"));
+        }
+
+        SearchHits first = segment.search(Set.of("mug"), null, null, null, null, 0, 3, 10);
+        SearchHits second = segment.search(Set.of("mug"), null, null, null, null, 3, 3, 10);
+
+        assertThat(first.productIds()).containsExactly("p0", "p1", "p2");
+        assertThat(second.productIds()).containsExactly("p3", "p4", "p5");
+        assertThat(second.total()).isEqualTo(10);
+    }
+
+    @Test
+    void filtersByCategoryBrandAndInclusivePriceRange() {
+        SearchSegment segment = new SearchSegment();
+        segment.upsert(product("cheap", "Oak table", "Woodie", "Furniture", "99.99"));
+        segment.upsert(product("edge", "Oak table", "Woodie", "Furniture", "100.00"));
+        segment.upsert(product("dear", "Oak table", "Woodie", "Furniture", "250.00"));
+        segment.upsert(product("other", "Oak table", "Timber", "Outdoor", "150.00"));
+
+        SearchHits hits = segment.search(Set.of("oak"), "Furniture", "Woodie",
+                new BigDecimal("100"), new BigDecimal("250"), 0, 10, 10);
+
+        assertThat(hits.productIds()).containsExactly("edge", "dear");
+        assertThat(segment.search(Set.of("oak"), "Garden", null, null, null, 0, 10, 10).total()).isZero();
+    }
+
+    @Test
+    void eachFacetIgnoresItsOwnFilter() {
+        SearchSegment segment = new SearchSegment();
+        segment.upsert(product("p1", "Wool scarf", "Knitco", "Accessories", "30.00"));
+        segment.upsert(product("p2", "Wool scarf", "Knitco", "Accessories", "30.00"));
+        segment.upsert(product("p3", "Wool hat", "Knitco", "Hats", "20.00"));
+        segment.upsert(product("p4", "Wool scarf", "Loomy", "Accessories", "35.00"));
+
+        SearchHits hits = segment.search(Set.of("wool"), "Accessories", "Knitco", null, null, 0, 10, 10);
+
+        assertThat(hits.productIds()).containsExactly("p1", "p2");
+        assertThat(hits.categories()).containsExactly(entry("Accessories", 2), entry("Hats", 1));
+        assertThat(hits.brands()).containsExactly(entry("Knitco", 2), entry("Loomy", 1));
+    }
+
+    @Test
+    void facetsAreCutToTheLimitMostFrequentFirst() {
+        SearchSegment segment = new SearchSegment();
+        segment.upsert(product("p1", "Pen", "Inky", "B", "1.00"));
+        segment.upsert(product("p2", "Pen", "Inky", "A", "1.00"));
+        segment.upsert(product("p3", "Pen", "Inky", "C", "1.00"));
+        segment.upsert(product("p4", "Pen", "Inky", "C", "1.00"));
+
+        SearchHits hits = segment.search(Set.of("pen"), null, null, null, null, 0, 10, 2);
+
+        /* Equal counts are broken alphabetically */
+        assertThat(hits.categories()).containsExactly(entry("C", 2), entry("A", 1));
+    }
+
+    @Test
+    void upsertReplacesAndRemoveOrDeleteDrops() {
+        SearchSegment segment = new SearchSegment();
+        segment.upsert(product("p1", "Green kettle", "Boilo", "Kitchen", "40.00"));
+        segment.upsert(product("p2", "Green teapot", "Boilo", "Kitchen", "30.00"));
+        segment.upsert(product("p1", "Steel kettle", "Boilo", "Kitchen", "40.00"));
+
+        assertThat(search(segment, Set.of("green")).productIds()).containsExactly("p2");
+        assertThat(search(segment, Set.of("kettle")).productIds()).containsExactly("p1");
+
+        segment.remove("p1");
+        Product deleted = product("p2", "Green teapot", "Boilo", "Kitchen", "30.00");
+        deleted.setIsDeleted(true);
+        segment.upsert(deleted);
+
+        assertThat(segment.liveCount()).isZero();
+        assertThat(search(segment, Set.of("kettle")).productIds()).isEmpty();
+        assertThat(search(segment, Set.of("green")).productIds()).isEmpty();
+    }
+
+    @Test
+    void slicedScansAgreeWithTheSequentialRanking() {
+        SearchSegment segment = new SearchSegment();
+        int products = 150_000;
+        IntStream.range(0, products).forEach(i -> {
+            /* Every 1000th product also has the word in its name, so it outranks the rest */
+            Product product = product("p" + i, i % 1000 == 0 ? "Cable cable" : "Cord", "Wired", "Cables", "3.00");
+            product.setDescription("cable");
+            segment.upsert(product);
+        });
+
+        SearchHits hits = segment.search(Set.of("cable"), null, null, null, null, 0, 200, 10);
+
+        assertThat(hits.total()).isEqualTo(products);
+        assertThat(hits.productIds()).hasSize(200);
+        assertThat(hits.productIds().subList(0, 150))
+                .containsExactlyElementsOf(IntStream.range(0, 150).mapToObj(i -> "p" + i * 1000).toList());
+        assertThat(hits.productIds().subList(150, 200))
+                .containsExactlyElementsOf(IntStream.range(1, 1000).filter(i -> i % 1000 != 0).limit(50)
+                        .mapToObj(i -> "p" + i).toList());
+        assertThat(hits.categories()).containsExactly(entry("Cables", products));
+    }
+
+    private static SearchHits search(SearchSegment segment, Set<String> terms) {
+        return segment.search(terms, null, null, null, null, 0, 10, 10);
+    }
+
+    private static Product product(String id, String name, String brand, String category, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setCategory(category);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+}
@@ -0,0 +1,192 @@
+package com.main.service.impl;
+
+import com.main.cache.ProductCache;
+import com.main.dtos.StockUpdateResponse;
+import com.main.entity.InventoryStripe;
+import com.main.entity.Product;
+import com.main.mapper.ProductMapper;
+import com.main.repository.InventoryStripeRepository;
+import com.main.repository.ProductRepository;
+import com.main.util.StockUpdateStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Flash-sale stock over stripes, against an in-memory stand-in for the stripe collection whose
+ * take and give behave like the guarded updates.
+ */
+class InventoryServiceImplTest {
+
+    private static final String HOT = "hot";
+
+    private ProductRepository productRepository;
+    private InventoryStripeRepository stripeRepository;
+    private InventoryServiceImpl inventoryService;
+    /* Stripe number to quantity, for the product HOT */
+    private final Map<Integer, Integer> stripes = new TreeMap<>();
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        stripeRepository = mock(InventoryStripeRepository.class);
+        inventoryService = new InventoryServiceImpl(productRepository, stripeRepository, new ProductMapper(), mock(ProductCache.class));
+
+        doAnswer(invocation -> {
+            for (int stripe = 0; stripe < invocation.<Integer>getArgument(1); stripe++) stripes.putIfAbsent(stripe, 0);
+            return null;
+        }).when(stripeRepository).createStripes(eq(HOT), anyInt());
+        when(stripeRepository.take(eq(HOT), anyInt(), anyInt())).thenAnswer(invocation -> {
+            int stripe = invocation.getArgument(1);
+            int quantity = invocation.getArgument(2);
+            Integer held = stripes.get(stripe);
+            if (held == null || held < quantity) {
+                return false;
+            }
+            stripes.put(stripe, held - quantity);
+            return true;
+        });
+        when(stripeRepository.give(eq(HOT), anyInt(), anyInt())).thenAnswer(invocation ->
+                stripes.computeIfPresent(invocation.getArgument(1), (stripe, held) -> held + invocation.<Integer>getArgument(2)) != null);
+        doAnswer(invocation -> {
+            invocation.<Map<Integer, Integer>>getArgument(1).forEach((stripe, quantity) -> stripes.merge(stripe, quantity, Integer::sum));
+            return null;
+        }).when(stripeRepository).giveAll(eq(HOT), anyMap());
+        when(stripeRepository.findByProductId(HOT)).thenAnswer(invocation -> stripes.entrySet().stream()
+                .map(stripe -> new InventoryStripe(InventoryStripe.id(HOT, stripe.getKey()), HOT, stripe.getKey(), stripe.getValue()))
+                .toList());
+    }
+
+    @Test
+    void enablingSplitsTheStockEvenlyOverTheStripes() {
+        enableFlashSale(10, 4);
+
+        assertThat(stripes).containsExactlyEntriesOf(new TreeMap<>(Map.of(0, 3, 1, 3, 2, 2, 3, 2)));
+    }
+
+    @Test
+    void aDecrementTakesExactlyItsQuantityEvenAcrossStripes() {
+        enableFlashSale(10, 4);
+
+        StockUpdateResponse response = inventoryService.applyStockChanges(Map.of(HOT, -7));
+
+        assertThat(response.isApplied()).isTrue();
+        assertThat(response.getResults()).extracting(StockUpdateResponse.StockUpdateResult::getStatus)
+                .containsExactly(StockUpdateStatus.APPLIED);
+        assertThat(total()).isEqualTo(3);
+        assertThat(stripes.values()).allMatch(quantity -> quantity >= 0);
+        verify(productRepository, never()).applyStockChanges(any());
+    }
+
+    @Test
+    void aDecrementLargerThanTheStockTakesNothing() {
+        enableFlashSale(10, 4);
+
+        StockUpdateResponse response = inventoryService.applyStockChanges(Map.of(HOT, -11));
+
+        assertThat(response.isApplied()).isFalse();
+        assertThat(response.getResults()).extracting(StockUpdateResponse.StockUpdateResult::getStatus)
+                .containsExactly(StockUpdateStatus.INSUFFICIENT_STOCK);
+        assertThat(stripes).containsExactlyEntriesOf(new TreeMap<>(Map.of(0, 3, 1, 3, 2, 2, 3, 2)));
+    }
+
+    @Test
+    void anIncrementGoesToOneStripe() {
+        enableFlashSale(4, 4);
+
+        assertThat(inventoryService.applyStockChanges(Map.of(HOT, 5)).isApplied()).isTrue();
+        assertThat(total()).isEqualTo(9);
+    }
+
+    @Test
+    void aRejectedRegularItemRollsTheStripesBack() {
+        enableFlashSale(10, 2);
+        when(productRepository.applyStockChanges(Map.of("plain", -1))).thenReturn(new StockUpdateResponse(false,
+                List.of(new StockUpdateResponse.StockUpdateResult("plain", -1, StockUpdateStatus.INSUFFICIENT_STOCK))));
+        when(productRepository.findStockStripes(any())).thenReturn(Map.of(HOT, 2));
+        Map<String, Integer> changes = new TreeMap<>(Map.of(HOT, -4, "plain", -1));
+
+        StockUpdateResponse response = inventoryService.applyStockChanges(changes);
+
+        assertThat(response.isApplied()).isFalse();
+        assertThat(response.getResults())
+                .extracting(StockUpdateResponse.StockUpdateResult::getProductId, StockUpdateResponse.StockUpdateResult::getStatus)
+                .containsExactly(
+                        tuple(HOT, StockUpdateStatus.ROLLED_BACK),
+                        tuple("plain", StockUpdateStatus.INSUFFICIENT_STOCK));
+        assertThat(total()).isEqualTo(10);
+    }
+
+    @Test
+    void stockGivenBackToADrainedStripeGoesToTheProduct() {
+        enableFlashSale(10, 2);
+        when(productRepository.applyStockChanges(Map.of("plain", -1))).thenReturn(new StockUpdateResponse(false,
+                List.of(new StockUpdateResponse.StockUpdateResult("plain", -1, StockUpdateStatus.INSUFFICIENT_STOCK))));
+        when(productRepository.findStockStripes(any())).thenReturn(Map.of(HOT, 2));
+        /* The sale is switched off between the take and the rollback */
+        when(stripeRepository.give(eq(HOT), anyInt(), anyInt())).thenAnswer(invocation -> {
+            stripes.clear();
+            return false;
+        });
+
+        inventoryService.applyStockChanges(new TreeMap<>(Map.of(HOT, -4, "plain", -1)));
+
+        verify(productRepository).addStock(Map.of(HOT, 4));
+    }
+
+    @Test
+    void rebalanceTopsUpStarvedStripesAndPublishesTheSum() {
+        enableFlashSale(0, 4);
+        stripes.putAll(Map.of(0, 40, 1, 0, 2, 2, 3, 38));
+        when(productRepository.findStockStripes(null)).thenReturn(Map.of(HOT, 4));
+
+        inventoryService.rebalance();
+
+        verify(productRepository).updateStripedStock(HOT, 80);
+        assertThat(total()).isEqualTo(80);
+        assertThat(stripes.values()).allMatch(quantity -> quantity * 2 >= 20);
+    }
+
+    @Test
+    void rebalanceFoldsLeftoverStripesOfAnEarlierSaleIn() {
+        enableFlashSale(0, 2);
+        stripes.putAll(Map.of(0, 5, 1, 5, 2, 6, 3, 4));
+        when(productRepository.findStockStripes(null)).thenReturn(Map.of(HOT, 2));
+
+        inventoryService.rebalance();
+
+        assertThat(stripes.get(2)).isZero();
+        assertThat(stripes.get(3)).isZero();
+        assertThat(stripes.get(0) + stripes.get(1)).isEqualTo(20);
+    }
+
+    private void enableFlashSale(int stock, int stripeCount) {
+        Product product = new Product();
+        product.setId(HOT);
+        product.setStockQuantity(stock);
+        when(productRepository.findById(HOT)).thenReturn(Optional.of(product));
+        when(productRepository.startStriping(HOT, stripeCount)).thenReturn(Optional.of(product));
+        inventoryService.enableFlashSale(HOT, stripeCount);
+        when(productRepository.findStockStripes(any())).thenReturn(Map.of(HOT, stripeCount));
+    }
+
+    private int total() {
+        return stripes.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
@@ -0,0 +1,118 @@
+package com.main.service.impl;
+
+import com.main.cache.ProductCache;
+import com.main.dtos.ProductRequest;
+import com.main.entity.Product;
+import com.main.exceptions.BusinessException;
+import com.main.mapper.ProductMapper;
+import com.main.repository.ProductRepository;
+import com.main.search.ProductAutocomplete;
+import com.main.search.ProductSearchIndex;
+import com.main.service.InventoryService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductServiceImplTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSearchIndex productSearchIndex = mock(ProductSearchIndex.class);
+    private final ProductServiceImpl productService = new ProductServiceImpl(productRepository, new ProductMapper(),
+            mock(ProductCache.class), productSearchIndex, mock(ProductAutocomplete.class), mock(InventoryService.class));
+
+    @Test
+    void anUpdateWritesTheCatalogFieldsAndMovesStockByTheRequestedDifference() {
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product(10, null)));
+        when(productRepository.updateDetails(eq("p1"), any(), anyInt())).thenReturn(Optional.of(product(13, null)));
+
+        productService.updateProduct("p1", request(12));
+
+        ArgumentCaptor<Product> details = ArgumentCaptor.forClass(Product.class);
+        verify(productRepository).updateDetails(eq("p1"), details.capture(), eq(2));
+        assertThat(details.getValue().getName()).isEqualTo("Renamed");
+        verify(productRepository, never()).save(any());
+    }
+
+    @Test
+    void anUpdateLeavesTheStockOfAStripedProductToTheStripes() {
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product(10, 4)));
+        when(productRepository.updateDetails(eq("p1"), any(), anyInt())).thenReturn(Optional.of(product(10, 4)));
+
+        productService.updateProduct("p1", request(50));
+
+        verify(productRepository).updateDetails(eq("p1"), any(), eq(0));
+    }
+
+    @Test
+    void anUpdateWhoseStockMoveNoLongerFitsIsAConflict() {
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product(10, null)));
+        when(productRepository.updateDetails(eq("p1"), any(), anyInt())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> productService.updateProduct("p1", request(0)))
+                .isInstanceOfSatisfying(BusinessException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.CONFLICT));
+        verify(productSearchIndex, never()).index(any());
+    }
+
+    @Test
+    void anUpdateToASkuAnotherProductHasIsAConflict() {
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product(10, null)));
+        when(productRepository.updateDetails(eq("p1"), any(), anyInt())).thenThrow(new DuplicateKeyException("sku"));
+
+        assertThatThrownBy(() -> productService.updateProduct("p1", request(10)))
+                .isInstanceOfSatisfying(BusinessException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.CONFLICT));
+    }
+
+    @Test
+    void aDeleteOnlySetsTheFlag() {
+        when(productRepository.markDeleted("p1")).thenReturn(Optional.of(product(10, null)));
+
+        productService.deleteProduct("p1");
+
+        verify(productRepository, never()).save(any());
+        verify(productSearchIndex).remove("p1");
+    }
+
+    @Test
+    void deletingTwiceOrAMissingProductFailsAsBefore() {
+        Product deleted = product(10, null);
+        deleted.setIsDeleted(true);
+        when(productRepository.markDeleted(any())).thenReturn(Optional.empty());
+        when(productRepository.findById("p1")).thenReturn(Optional.of(deleted));
+
+        assertThatThrownBy(() -> productService.deleteProduct("p1")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> productService.deleteProduct("p2"))
+                .isInstanceOfSatisfying(BusinessException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private static Product product(int stockQuantity, Integer stockStripes) {
+        Product product = new Product();
+        product.setId("p1");
+        product.setName("Kettle");
+        product.setStockQuantity(stockQuantity);
+        product.setStockStripes(stockStripes);
+        return product;
+    }
+
+    private static ProductRequest request(int stockQuantity) {
+        ProductRequest request = new ProductRequest();
+        request.setName("Renamed");
+        request.setPrice(BigDecimal.TEN);
+        request.setStockQuantity(stockQuantity);
+        request.setSku("SKU-1");
+        return request;
+    }
+}
@@ -0,0 +1,269 @@
+package com.main.service.impl;
+
+import com.main.cache.ProductCache;
+import com.main.dtos.OrderItemRequestDto;
+import com.main.dtos.ReservationRequest;
+import com.main.dtos.ReservationResponse;
+import com.main.dtos.StockUpdateResponse;
+import com.main.entity.Reservation;
+import com.main.exceptions.BusinessException;
+import com.main.repository.ProductRepository;
+import com.main.repository.ReservationRepository;
+import com.main.search.ProductAutocomplete;
+import com.main.service.InventoryService;
+import com.main.util.ReservationStatus;
+import com.main.util.StockUpdateStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The reservation lifecycle against in-memory stand-ins for the stock and the reservation
+ * collection, whose stock writes and status changes behave like the guarded updates.
+ */
+class ReservationServiceImplTest {
+
+    private static final String PRODUCT = "p1";
+
+    private final ReservationRepository reservationRepository = mock(ReservationRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final ReservationServiceImpl reservationService = new ReservationServiceImpl(reservationRepository, productRepository,
+            new ProductCache(new SimpleMeterRegistry(), 100, 300), mock(ProductAutocomplete.class), inventoryService, 600, 3600);
+    private final Map<String, Integer> stock = new HashMap<>();
+    private final Map<String, Reservation> stored = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        /* All or nothing, like the bulk write with its rollback */
+        when(inventoryService.applyStockChanges(anyMap())).thenAnswer(invocation -> {
+            Map<String, Integer> changes = invocation.getArgument(0);
+            boolean applied = changes.entrySet().stream()
+                    .allMatch(change -> stock.getOrDefault(change.getKey(), 0) + change.getValue() >= 0);
+            List<StockUpdateResponse.StockUpdateResult> results = new ArrayList<>();
+            changes.forEach((productId, change) -> {
+                boolean fits = stock.getOrDefault(productId, 0) + change >= 0;
+                if (applied) {
+                    stock.merge(productId, change, Integer::sum);
+                }
+                results.add(new StockUpdateResponse.StockUpdateResult(productId, change, applied ? StockUpdateStatus.APPLIED
+                        : fits ? StockUpdateStatus.ROLLED_BACK : StockUpdateStatus.INSUFFICIENT_STOCK));
+            });
+            return new StockUpdateResponse(applied, results);
+        });
+        when(reservationRepository.insert(anyList())).thenAnswer(invocation -> {
+            List<Reservation> reservations = invocation.getArgument(0);
+            reservations.forEach(reservation -> stored.put(reservation.getId(), copy(reservation)));
+            return reservations;
+        });
+        when(reservationRepository.compareAndSetStatus(anyString(), any(), any())).thenAnswer(invocation ->
+                compareAndSet(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), null));
+        when(reservationRepository.compareAndSetUnexpiredStatus(anyString(), any(), any(), any())).thenAnswer(invocation ->
+                compareAndSet(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        when(reservationRepository.extendUnexpired(anyString(), any(), any())).thenAnswer(invocation -> {
+            Reservation reservation = stored.get(invocation.<String>getArgument(0));
+            LocalDateTime now = invocation.getArgument(1);
+            LocalDateTime expiresAt = invocation.getArgument(2);
+            if (reservation == null || reservation.getStatus() != ReservationStatus.HELD || !reservation.getExpiresAt().isAfter(now)) {
+                return Optional.empty();
+            }
+            if (expiresAt.isAfter(reservation.getExpiresAt())) {
+                reservation.setExpiresAt(expiresAt);
+            }
+            return Optional.of(copy(reservation));
+        });
+        when(reservationRepository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(stored.get(invocation.<String>getArgument(0))).map(ReservationServiceImplTest::copy));
+        when(reservationRepository.findAllById(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0).stream()
+                .filter(stored::containsKey)
+                .map(id -> copy(stored.get(id)))
+                .toList());
+        when(reservationRepository.findByStatusAndExpiresAtBefore(any(), any(), any())).thenAnswer(invocation -> stored.values().stream()
+                .filter(reservation -> reservation.getStatus() == invocation.getArgument(0))
+                .filter(reservation -> reservation.getExpiresAt().isBefore(invocation.getArgument(1)))
+                .map(ReservationServiceImplTest::copy)
+                .toList());
+    }
+
+    @Test
+    void aHoldTakesTheStockAndConfirmingKeepsIt() {
+        stock.put(PRODUCT, 5);
+
+        ReservationResponse held = reservationService.reserve(request(2));
+        assertThat(held.getStatus()).isEqualTo(ReservationStatus.HELD);
+        assertThat(stock).containsEntry(PRODUCT, 3);
+
+        assertThat(reservationService.confirm(held.getReservationId()).getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+        /* A retried confirm answers the same without counting the order twice */
+        assertThat(reservationService.confirm(held.getReservationId()).getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+        assertThat(stock).containsEntry(PRODUCT, 3);
+        verify(productRepository).incrementOrderCounts(Map.of(PRODUCT, 1));
+    }
+
+    @Test
+    void releasingGivesTheStockBackOnce() {
+        stock.put(PRODUCT, 5);
+        String reservationId = reservationService.reserve(request(2)).getReservationId();
+
+        assertThat(reservationService.release(reservationId).getStatus()).isEqualTo(ReservationStatus.RELEASED);
+        assertThat(reservationService.release(reservationId).getStatus()).isEqualTo(ReservationStatus.RELEASED);
+
+        assertThat(stock).containsEntry(PRODUCT, 5);
+    }
+
+    @Test
+    void aConfirmedHoldCannotBeReleased() {
+        stock.put(PRODUCT, 5);
+        String reservationId = reservationService.reserve(request(2)).getReservationId();
+        reservationService.confirm(reservationId);
+
+        assertThatThrownBy(() -> reservationService.release(reservationId))
+                .isInstanceOfSatisfying(BusinessException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(stock).containsEntry(PRODUCT, 3);
+    }
+
+    @Test
+    void aHoldThatRanOutCannotBeConfirmedBeforeTheSweeperGivesItBack() {
+        stock.put(PRODUCT, 5);
+        String reservationId = reservationService.reserve(request(2)).getReservationId();
+        stored.get(reservationId).setExpiresAt(LocalDateTime.now().minusSeconds(1));
+
+        assertThatThrownBy(() -> reservationService.confirm(reservationId))
+                .isInstanceOfSatisfying(BusinessException.class, e -> {
+                    assertThat(e.getStatus()).isEqualTo(HttpStatus.CONFLICT);
+                    assertThat(e.getMessage()).contains("expired");
+                });
+        assertThat(stock).containsEntry(PRODUCT, 3);
+
+        assertThat(reservationService.releaseExpired(10)).isEqualTo(1);
+        assertThat(stored.get(reservationId).getStatus()).isEqualTo(ReservationStatus.EXPIRED);
+        assertThat(stock).containsEntry(PRODUCT, 5);
+        assertThatThrownBy(() -> reservationService.confirm(reservationId)).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void theSweeperLeavesAloneAHoldConfirmedAfterItWasFound() {
+        stock.put(PRODUCT, 5);
+        String reservationId = reservationService.reserve(request(2)).getReservationId();
+        Reservation found = copy(stored.get(reservationId));
+        found.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        when(reservationRepository.findByStatusAndExpiresAtBefore(any(), any(), any())).thenReturn(List.of(found));
+        reservationService.confirm(reservationId);
+
+        reservationService.releaseExpired(10);
+
+        assertThat(stored.get(reservationId).getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+        assertThat(stock).containsEntry(PRODUCT, 3);
+    }
+
+    @Test
+    void aHoldThatDoesNotFitTakesNothing() {
+        stock.put(PRODUCT, 1);
+
+        ReservationResponse rejected = reservationService.reserve(request(2));
+
+        assertThat(rejected.getStatus()).isEqualTo(ReservationStatus.REJECTED);
+        assertThat(rejected.getResults()).extracting(StockUpdateResponse.StockUpdateResult::getStatus)
+                .containsExactly(StockUpdateStatus.INSUFFICIENT_STOCK);
+        assertThat(stock).containsEntry(PRODUCT, 1);
+        verify(reservationRepository, never()).insert(anyList());
+    }
+
+    @Test
+    void aHoldThatCouldNotBeSavedGivesItsStockBack() {
+        stock.put(PRODUCT, 5);
+        when(reservationRepository.insert(anyList())).thenThrow(new IllegalStateException("write timed out"));
+
+        assertThatThrownBy(() -> reservationService.reserve(request(2))).isInstanceOf(IllegalStateException.class);
+
+        /* Deleted by the id it was given, in case the insert landed after all */
+        verify(reservationRepository).deleteAllById(anyList());
+        assertThat(stock).containsEntry(PRODUCT, 5);
+    }
+
+    @Test
+    void aHoldThatCouldNeitherBeSavedNorRemovedKeepsItsStock() {
+        stock.put(PRODUCT, 5);
+        when(reservationRepository.insert(anyList())).thenThrow(new IllegalStateException("write timed out"));
+        doThrow(new IllegalStateException("still down")).when(reservationRepository).deleteAllById(anyList());
+
+        assertThatThrownBy(() -> reservationService.reserve(request(2))).hasMessage("write timed out");
+
+        assertThat(stock).containsEntry(PRODUCT, 3);
+    }
+
+    @Test
+    void aBatchThatFitsIsHeldInOneWrite() {
+        stock.put(PRODUCT, 5);
+
+        List<ReservationResponse> held = reservationService.reserveAll(List.of(request(2), request(3)));
+
+        assertThat(held).extracting(ReservationResponse::getStatus).containsOnly(ReservationStatus.HELD);
+        assertThat(stock).containsEntry(PRODUCT, 0);
+        verify(inventoryService, times(1)).applyStockChanges(anyMap());
+    }
+
+    @Test
+    void aBatchThatDoesNotFitIsHeldOneByOne() {
+        stock.put(PRODUCT, 3);
+
+        List<ReservationResponse> held = reservationService.reserveAll(List.of(request(2), request(2), request(1)));
+
+        assertThat(held).extracting(ReservationResponse::getStatus)
+                .containsExactly(ReservationStatus.HELD, ReservationStatus.REJECTED, ReservationStatus.HELD);
+        assertThat(stock).containsEntry(PRODUCT, 0);
+        assertThat(stored.values()).extracting(Reservation::getStatus).containsOnly(ReservationStatus.HELD).hasSize(2);
+    }
+
+    @Test
+    void onlyHoldsStillRunningAreExtended() {
+        stock.put(PRODUCT, 5);
+        String running = reservationService.reserve(request(1)).getReservationId();
+        String lapsed = reservationService.reserve(request(1)).getReservationId();
+        stored.get(lapsed).setExpiresAt(LocalDateTime.now().minusSeconds(1));
+
+        List<ReservationResponse> extended = reservationService.extendAll(List.of(running, lapsed), 7200);
+
+        assertThat(extended.get(0).getExpiresAt()).isAfter(LocalDateTime.now().plusSeconds(3000));
+        assertThat(extended.get(1).getExpiresAt()).isBefore(LocalDateTime.now());
+    }
+
+    private Optional<Reservation> compareAndSet(String id, ReservationStatus expected, ReservationStatus next, LocalDateTime now) {
+        Reservation reservation = stored.get(id);
+        if (reservation == null || reservation.getStatus() != expected || (now != null && !reservation.getExpiresAt().isAfter(now))) {
+            return Optional.empty();
+        }
+        reservation.setStatus(next);
+        return Optional.of(copy(reservation));
+    }
+
+    private static ReservationRequest request(int quantity) {
+        return new ReservationRequest("order", List.of(new OrderItemRequestDto(PRODUCT, quantity)), null);
+    }
+
+    private static Reservation copy(Reservation reservation) {
+        return new Reservation(reservation.getId(), reservation.getReference(), reservation.getItems(), reservation.getStatus(),
+                reservation.getExpiresAt(), reservation.getCreatedAt(), reservation.getUpdatedAt());
+    }
+}
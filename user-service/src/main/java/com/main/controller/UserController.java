@@ -1,5 +1,8 @@
 package com.main.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.main.dtos.PageResponse;
 import com.main.dtos.UserRequest;
 import com.main.dtos.UserResponse;
 import com.main.service.UserService;
@@ -10,6 +13,8 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,8 +23,17 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -29,8 +43,11 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     private static final Logger log = LoggerFactory.getLogger(UserController.class);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
 
     @Operation(summary = "Register a new user", description = "Creates a new user in the system")
     @ApiResponse(responseCode = "200", description = "User registered successfully")
@@ -54,6 +71,13 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Get users by IDs", description = "Retrieves active users for the given IDs; unknown or deleted IDs are left out")
+    @ApiResponse(responseCode = "200", description = "Users retrieved successfully")
+    @GetMapping("/batch")
+    public ResponseEntity<List<UserResponse>> getUsersByIds(@RequestParam List<String> ids) {
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
+    }
+
     @Operation(summary = "Get all users", description = "Fetches details of all users")
     @ApiResponse(responseCode = "200", description = "List of users retrieved successfully")
     @GetMapping("/")
@@ -64,6 +88,31 @@ public class UserController {
         return ResponseEntity.ok(responseList);
     }
 
+    @Operation(summary = "Get a page of users", description = "Keyset-paginated listing of active users ordered by ID")
+    @ApiResponse(responseCode = "200", description = "Page of users retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    @GetMapping("/page")
+    public ResponseEntity<PageResponse<UserResponse>> getUsersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("Fetching user page after cursor: {}", cursor);
+        return ResponseEntity.ok(userService.getUsersPage(cursor, limit));
+    }
+
+    @Operation(summary = "Export all users", description = "Streams active users as NDJSON or CSV straight from a database cursor")
+    @ApiResponse(responseCode = "200", description = "Users exported successfully")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        log.info("Exporting users as {}", csv ? "CSV" : "NDJSON");
+        /* Writes block on a slow client, which in turn holds back reads from the cursor */
+        StreamingResponseBody body = csv ? this::writeCsv : this::writeNdjson;
+        return ResponseEntity.ok()
+                .contentType(csv ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + (csv ? "csv" : "ndjson"))
+                .body(body);
+    }
+
     @Operation(summary = "Update user details", description = "Updates user information by ID")
     @ApiResponse(responseCode = "200", description = "User updated successfully")
     @ApiResponse(responseCode = "404", description = "User not found")
@@ -87,4 +136,38 @@ public class UserController {
         log.info("User deleted successfully with ID: {}", id);
         return ResponseEntity.ok(message);
     }
+
+    private void writeNdjson(OutputStream out) throws IOException {
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            userService.forEachUser(user -> {
+                try {
+                    writer.write(user);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void writeCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,name,email,contact\n");
+        userService.forEachUser(user -> {
+            try {
+                writer.write(csvField(user.getId()) + ',' + csvField(user.getName()) + ','
+                        + csvField(user.getEmail()) + ',' + csvField(user.getContact()) + '\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private static String csvField(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
 }
@@ -2,10 +2,12 @@ package com.main.entity;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @Document(collection = "users")
+@CompoundIndex(name = "active_id", def = "{'isDeleted': 1, '_id': 1}", partialFilter = "{'isDeleted': false}")
 public class User {
     @Id
     private String id;
@@ -0,0 +1,26 @@
+package com.main.mapper;
+
+import com.main.dtos.UserRequest;
+import com.main.dtos.UserResponse;
+import com.main.entity.User;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserMapper {
+
+    public User toEntity(UserRequest request) {
+        User user = new User();
+        updateEntity(request, user);
+        return user;
+    }
+
+    public void updateEntity(UserRequest request, User user) {
+        user.setName(request.getName());
+        user.setEmail(request.getEmail());
+        user.setContact(request.getContact());
+    }
+
+    public UserResponse toResponse(User user) {
+        return new UserResponse(user.getId(), user.getName(), user.getEmail(), user.getContact());
+    }
+}
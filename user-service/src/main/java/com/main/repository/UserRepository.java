@@ -3,8 +3,11 @@ package com.main.repository;
 import com.main.entity.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     List<User> findAllByIsDeletedFalse();
+
+    List<User> findAllByIdInAndIsDeletedFalse(Collection<String> ids);
 }
@@ -0,0 +1,20 @@
+package com.main.repository;
+
+import com.main.entity.User;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Returns up to {@code limit} active users with an id greater than {@code afterId}, in id
+     * order, seeking through the partial index on active users.
+     */
+    List<User> findPage(String afterId, int limit);
+
+    /**
+     * Streams all active users from a server cursor. The caller must close the stream.
+     */
+    Stream<User> streamAll();
+}
@@ -0,0 +1,39 @@
+package com.main.repository;
+
+import com.main.entity.User;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String ID = "id";
+    private static final int STREAM_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public UserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<User> findPage(String afterId, int limit) {
+        Criteria criteria = Criteria.where("isDeleted").is(Boolean.FALSE);
+        if (afterId != null) {
+            criteria = criteria.and(ID).gt(afterId);
+        }
+        return mongoTemplate.find(new Query(criteria).with(Sort.by(Sort.Direction.ASC, ID)).limit(limit), User.class);
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        Query query = new Query(Criteria.where("isDeleted").is(Boolean.FALSE))
+                .with(Sort.by(Sort.Direction.ASC, ID))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, User.class);
+    }
+}
@@ -1,9 +1,11 @@
 package com.main.service;
 
+import com.main.dtos.PageResponse;
 import com.main.dtos.UserRequest;
 import com.main.dtos.UserResponse;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
 
@@ -13,6 +15,12 @@ public interface UserService {
 
     List<UserResponse> getAllUsersDetails();
 
+    List<UserResponse> getUsersByIds(List<String> ids);
+
+    PageResponse<UserResponse> getUsersPage(String cursor, int limit);
+
+    void forEachUser(Consumer<UserResponse> consumer);
+
     UserResponse updateUserDetails(String id, UserRequest userRequest);
 
     String deleteUser(String id);
@@ -1,52 +1,58 @@
 package com.main.service.impl;
 
+import com.main.dtos.PageResponse;
 import com.main.dtos.UserRequest;
 import com.main.dtos.UserResponse;
 import com.main.entity.User;
+import com.main.exceptions.BusinessException;
+import com.main.mapper.UserMapper;
 import com.main.repository.UserRepository;
 import com.main.service.UserService;
 import com.main.util.UserServiceContant;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.bson.types.ObjectId;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
 
-    public UserServiceImpl(UserRepository userRepository, ModelMapper modelMapper) {
+    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper) {
         this.userRepository = userRepository;
-        this.modelMapper = modelMapper;
+        this.userMapper = userMapper;
     }
 
     @Override
     public UserResponse registerUser(UserRequest userRequest) {
         log.info("Registering new user with email: {}", userRequest.getEmail());
-        User user = modelMapper.map(userRequest, User.class);
+        User user = userMapper.toEntity(userRequest);
         User savedUser = userRepository.save(user);
         log.info("User registered successfully with ID: {}", savedUser.getId());
-        return modelMapper.map(savedUser, UserResponse.class);
+        return userMapper.toResponse(savedUser);
     }
 
     @Override
     public UserResponse getUserDetails(String id) {
         log.info("Fetching details for user with ID: {}", id);
         User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException(UserServiceContant.USER_NOT_FOUND + id));
+                .orElseThrow(() -> new BusinessException(UserServiceContant.USER_NOT_FOUND + id, HttpStatus.NOT_FOUND));
 
         if (Boolean.TRUE.equals(user.getIsDeleted())) {
             log.warn("Attempted to access deleted user with ID: {}", id);
-            throw new IllegalStateException("User has been deleted");
+            throw new BusinessException(UserServiceContant.USER_NOT_FOUND + id, HttpStatus.NOT_FOUND);
         }
 
         log.info("User details retrieved successfully for ID: {}", id);
-        return modelMapper.map(user, UserResponse.class);
+        return userMapper.toResponse(user);
     }
 
     @Override
@@ -55,7 +61,40 @@ public class UserServiceImpl implements UserService {
         List<User> users = userRepository.findAllByIsDeletedFalse();
         log.info("Found {} active users", users.size());
         return users.stream()
-                .map(user -> modelMapper.map(user, UserResponse.class)).toList();
+                .map(user -> userMapper.toResponse(user)).toList();
+    }
+
+    @Override
+    public List<UserResponse> getUsersByIds(List<String> ids) {
+        log.info("Fetching {} users by ID", ids.size());
+        return userRepository.findAllByIdInAndIsDeletedFalse(ids).stream()
+                .map(userMapper::toResponse)
+                .toList();
+    }
+
+    @Override
+    public PageResponse<UserResponse> getUsersPage(String cursor, int limit) {
+        if (cursor != null && !ObjectId.isValid(cursor)) {
+            throw new BusinessException(UserServiceContant.INVALID_CURSOR + cursor, HttpStatus.BAD_REQUEST);
+        }
+        int pageSize = Math.max(1, Math.min(limit, UserServiceContant.MAX_PAGE_SIZE));
+
+        /* Read one extra row to learn whether another page follows */
+        List<User> users = userRepository.findPage(cursor, pageSize + 1);
+        boolean hasMore = users.size() > pageSize;
+        List<UserResponse> items = users.stream()
+                .limit(pageSize)
+                .map(userMapper::toResponse)
+                .toList();
+        return new PageResponse<>(items, hasMore ? items.get(items.size() - 1).getId() : null);
+    }
+
+    @Override
+    public void forEachUser(Consumer<UserResponse> consumer) {
+        log.info("Exporting all active users");
+        try (Stream<User> users = userRepository.streamAll()) {
+            users.map(userMapper::toResponse).forEach(consumer);
+        }
     }
 
     @Override
@@ -63,17 +102,17 @@ public class UserServiceImpl implements UserService {
     public UserResponse updateUserDetails(String id, UserRequest userRequest) {
         log.info("Updating user details for ID: {}", id);
         User user = userRepository.findById(id)
-                .orElseThrow(() ->  new RuntimeException(UserServiceContant.USER_NOT_FOUND + id));
+                .orElseThrow(() -> new BusinessException(UserServiceContant.USER_NOT_FOUND + id, HttpStatus.NOT_FOUND));
 
         if (Boolean.TRUE.equals(user.getIsDeleted())) {
             log.warn("Attempted to update a deleted user with ID: {}", id);
             throw new IllegalStateException("Cannot update a deleted user");
         }
 
-        modelMapper.map(userRequest, user);
+        userMapper.updateEntity(userRequest, user);
         User updatedUser = userRepository.save(user);
         log.info("User details updated successfully for ID: {}", id);
-        return modelMapper.map(updatedUser, UserResponse.class);
+        return userMapper.toResponse(updatedUser);
     }
 
     @Override
@@ -83,7 +122,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> {
                     log.error("User not found with ID: {}", id);
-                    return new RuntimeException(UserServiceContant.USER_NOT_FOUND + id);
+                    return new BusinessException(UserServiceContant.USER_NOT_FOUND + id, HttpStatus.NOT_FOUND);
                 });
 
         if (Boolean.TRUE.equals(user.getIsDeleted())) {
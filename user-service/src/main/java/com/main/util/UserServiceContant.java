@@ -3,5 +3,7 @@ package com.main.util;
 public class UserServiceContant {
     public static final String USER_DELETED_RESPONSE = "User delete successfully";
     public static final String USER_NOT_FOUND = "User not found with ID: ";
+    public static final String INVALID_CURSOR = "Invalid page cursor: ";
+    public static final int MAX_PAGE_SIZE = 500;
 
 }
@@ -0,0 +1,85 @@
+package com.main.service.impl;
+
+import com.main.dtos.PageResponse;
+import com.main.dtos.UserResponse;
+import com.main.entity.User;
+import com.main.exceptions.BusinessException;
+import com.main.mapper.UserMapper;
+import com.main.repository.UserRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceImplTest {
+
+    private UserRepository userRepository;
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userService = new UserServiceImpl(userRepository, new UserMapper());
+    }
+
+    @Test
+    void firstPageReadsOneExtraRowAndPointsAtTheLastItem() {
+        List<User> rows = users(4);
+        when(userRepository.findPage(null, 4)).thenReturn(rows);
+
+        PageResponse<UserResponse> page = userService.getUsersPage(null, 3);
+
+        assertThat(page.getItems()).extracting(UserResponse::getId)
+                .containsExactly(rows.get(0).getId(), rows.get(1).getId(), rows.get(2).getId());
+        assertThat(page.getNextCursor()).isEqualTo(rows.get(2).getId());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        String cursor = new ObjectId().toHexString();
+        List<User> rows = users(2);
+        when(userRepository.findPage(cursor, 4)).thenReturn(rows);
+
+        PageResponse<UserResponse> page = userService.getUsersPage(cursor, 3);
+
+        assertThat(page.getItems()).hasSize(2);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void pageSizeIsClampedToOneAtLeast() {
+        when(userRepository.findPage(null, 2)).thenReturn(List.of());
+
+        assertThat(userService.getUsersPage(null, 0).getItems()).isEmpty();
+        verify(userRepository).findPage(null, 2);
+    }
+
+    @Test
+    void cursorThatIsNotAnObjectIdIsABadRequest() {
+        assertThatThrownBy(() -> userService.getUsersPage("not-a-cursor", 10))
+                .isInstanceOfSatisfying(BusinessException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+        verify(userRepository, never()).findPage(any(), anyInt());
+    }
+
+    private static List<User> users(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            User user = new User();
+            user.setId(new ObjectId().toHexString());
+            user.setName("user " + i);
+            return user;
+        }).toList();
+    }
+}